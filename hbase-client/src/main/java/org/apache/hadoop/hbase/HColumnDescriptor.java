@@ -111,6 +111,9 @@ public class HColumnDescriptor implements WritableComparable<HColumnDescriptor>
   @InterfaceStability.Unstable
   public static final String ENCRYPTION_KEY = "ENCRYPTION_KEY";
 
+  /** Qualifier suffix of the shadow cells of the family, see {@link #setShadowCellSuffix} */
+  public static final String SHADOW_CELL_SUFFIX = "SHADOW_CELL_SUFFIX";
+
   public static final String DFS_REPLICATION = "DFS_REPLICATION";
   public static final short DEFAULT_DFS_REPLICATION = 0;
 
@@ -1423,4 +1426,28 @@ public class HColumnDescriptor implements WritableComparable<HColumnDescriptor>
     setValue(DFS_REPLICATION, Short.toString(replication));
     return this;
   }
+
+  /**
+   * @return the suffix that turns a qualifier into the qualifier of its shadow cell, or null if
+   *         the family does not declare co-located shadow cells
+   */
+  public byte[] getShadowCellSuffix() {
+    return getValue(Bytes.toBytes(SHADOW_CELL_SUFFIX));
+  }
+
+  /**
+   * Declare that the shadow cell of each qualifier of this family is stored under the qualifier
+   * followed by <code>suffix</code>. A cell and its shadow cell then sort close to each other,
+   * and the region server reads both with one seek when it checks a singleton commit.
+   * @param suffix the shadow cell qualifier suffix, or null to clear it
+   * @return this (for chained invocation)
+   */
+  public HColumnDescriptor setShadowCellSuffix(byte[] suffix) {
+    if (suffix == null) {
+      remove(Bytes.toBytes(SHADOW_CELL_SUFFIX));
+    } else {
+      setValue(Bytes.toBytes(SHADOW_CELL_SUFFIX), suffix);
+    }
+    return this;
+  }
 }
@@ -96,6 +96,8 @@ public class HTableDescriptor implements WritableComparable<HTableDescriptor> {
 
   public static final String SPLIT_POLICY = "SPLIT_POLICY";
 
+  public static final String FLUSH_POLICY = "FLUSH_POLICY";
+
   /**
    * <em>INTERNAL</em> Used by HBase Shell interface to access this metadata
    * attribute which denotes the maximum size of the store file after which
@@ -705,6 +707,28 @@ public class HTableDescriptor implements WritableComparable<HTableDescriptor> {
     return getValue(SPLIT_POLICY);
   }
 
+  /**
+   * This sets the class associated with the flush policy which determines
+   * the stores that are flushed when a region flushes. The class used by
+   * default is defined in {@link org.apache.hadoop.hbase.regionserver.FlushPolicy}
+   * @param clazz the class name
+   */
+  public void setFlushPolicyClassName(String clazz) {
+    setValue(FLUSH_POLICY, clazz);
+  }
+
+  /**
+   * This gets the class associated with the flush policy which determines
+   * the stores that are flushed when a region flushes. The class used by
+   * default is defined in {@link org.apache.hadoop.hbase.regionserver.FlushPolicy}
+   *
+   * @return the class name of the flush policy for this table.
+   * If this returns null, the default flush policy is used.
+   */
+  public String getFlushPolicyClassName() {
+    return getValue(FLUSH_POLICY);
+  }
+
   /**
    * Set the name of the table.
    *
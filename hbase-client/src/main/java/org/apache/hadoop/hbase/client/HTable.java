@@ -1289,6 +1289,29 @@ public class HTable implements HTableInterface {
     return rpcCallerFactory.<Boolean> newCaller().callWithRetries(callable, this.operationTimeout);
   } 
   
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean[] batchSingletonCommit(final List<Put> puts) throws IOException {
+    for (Put put : puts) {
+      put.setAttribute(HConstants.SINGLETON_COMMIT_ATTRIBUTE, Bytes.toBytes(true));
+    }
+    Object[] results = new Object[puts.size()];
+    try {
+      batch(puts, results);
+    } catch (InterruptedException e) {
+      throw (InterruptedIOException)new InterruptedIOException().initCause(e);
+    }
+    boolean[] committed = new boolean[results.length];
+    for (int i = 0; i < results.length; i++) {
+      // batch ensures if there is a failure we get an exception instead
+      Boolean exists = ((Result) results[i]).getExists();
+      committed[i] = exists != null && exists;
+    }
+    return committed;
+  }
+
   /**
    * {@inheritDoc}
    */
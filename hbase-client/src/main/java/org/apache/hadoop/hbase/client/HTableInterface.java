@@ -671,4 +671,16 @@ public interface HTableInterface extends Closeable {
 
   boolean checkSingletonAndPut(byte[] row, byte[] family, byte[] qualifier,
 		byte[] value, Put put) throws IOException;
+
+  /**
+   * Commits a list of singleton writes. Each Put carries a cell and its shadow cell, like the
+   * Put passed to {@link #checkSingletonAndPut(byte[], byte[], byte[], byte[], Put)}. Puts are
+   * grouped per region and checked and applied in a single call per region server, sharing one
+   * WAL sync per region.
+   *
+   * @param puts the singleton writes to commit
+   * @return for each Put, in order, true if it was applied and false if its check failed
+   * @throws IOException if one of the Puts could not be sent or applied
+   */
+  boolean[] batchSingletonCommit(List<Put> puts) throws IOException;
 }
@@ -663,5 +663,11 @@ public class HTablePool implements Closeable {
 			byte[] qualifier, byte[] value, Put put) throws IOException {
 		return table.checkSingletonAndPut(row, family, qualifier, value, put);
 	}
+
+    @Override
+    public boolean[] batchSingletonCommit(List<Put> puts) throws IOException {
+      checkState();
+      return table.batchSingletonCommit(puts);
+    }
   }
 }
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.client.coprocessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.classification.InterfaceStability;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.RegionTransactionClock;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockRequest;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockResponse;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockService;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ServiceException;
+
+/**
+ * Reads the region-local transaction clocks through the TransactionClockEndpoint region server
+ * coprocessor, without going through the stores of the regions. One call returns the clocks
+ * of any number of regions hosted by a region server.
+ * <p>
+ * The service is defined in <code>TransactionClock.proto</code>. Regions that are not online on
+ * the server are left out of the response.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class TransactionClockClient {
+
+  private TransactionClockClient() {
+  }
+
+  /**
+   * Reads the transaction clocks of regions hosted by one region server, in a single call.
+   * @param admin the admin used to reach the region server
+   * @param server the region server hosting the regions
+   * @param encodedRegionNames the encoded names of the regions
+   * @return the clock of each region that is online on <code>server</code>, by encoded name
+   * @throws IOException
+   */
+  public static Map<String, Long> getClocks(HBaseAdmin admin, ServerName server,
+      Collection<String> encodedRegionNames) throws IOException {
+    TransactionClockRequest.Builder request = TransactionClockRequest.newBuilder();
+    for (String encodedRegionName : encodedRegionNames) {
+      request.addEncodedRegionName(ByteString.copyFromUtf8(encodedRegionName));
+    }
+    TransactionClockResponse response;
+    try {
+      response = TransactionClockService.newBlockingStub(admin.coprocessorService(server))
+          .getClocks(null, request.build());
+    } catch (ServiceException e) {
+      throw ProtobufUtil.getRemoteException(e);
+    }
+    Map<String, Long> clocks = new HashMap<String, Long>(response.getRegionClockCount());
+    for (RegionTransactionClock clock : response.getRegionClockList()) {
+      clocks.put(clock.getEncodedRegionName().toStringUtf8(), clock.getClock());
+    }
+    return clocks;
+  }
+
+  /**
+   * Reads the transaction clocks of all the regions of a table, with one call per region server.
+   * @param admin the admin used to reach the region servers
+   * @param table the table
+   * @return the clock of each region of the table, by encoded name
+   * @throws IOException
+   */
+  public static Map<String, Long> getClocks(HBaseAdmin admin, HTable table) throws IOException {
+    Map<ServerName, List<String>> regionsByServer = new HashMap<ServerName, List<String>>();
+    for (Map.Entry<HRegionInfo, ServerName> entry : table.getRegionLocations().entrySet()) {
+      List<String> regions = regionsByServer.get(entry.getValue());
+      if (regions == null) {
+        regions = new ArrayList<String>();
+        regionsByServer.put(entry.getValue(), regions);
+      }
+      regions.add(entry.getKey().getEncodedName());
+    }
+    Map<String, Long> clocks = new HashMap<String, Long>();
+    for (Map.Entry<ServerName, List<String>> entry : regionsByServer.entrySet()) {
+      clocks.putAll(getClocks(admin, entry.getKey(), entry.getValue()));
+    }
+    return clocks;
+  }
+}
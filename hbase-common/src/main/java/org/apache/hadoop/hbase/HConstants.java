@@ -89,7 +89,8 @@ public final class HConstants {
     SUCCESS,
     BAD_FAMILY,
     SANITY_CHECK_FAILURE,
-    FAILURE;
+    FAILURE,
+    CHECK_FAILED;
   }
 
   /** long constant for zero */
@@ -507,6 +508,20 @@ public final class HConstants {
     (byte) LATEST_TIMESTAMP,
   };
 
+  /**
+   * Mutation attribute marking a Put as an Omid singleton commit. Such a Put carries the cell
+   * and its shadow cell and is only applied if the singleton check passes; it can be batched
+   * with other singleton commits in a single multi() call.
+   */
+  public static final String SINGLETON_COMMIT_ATTRIBUTE = "_singleton_commit_";
+
+  /**
+   * Get/Scan attribute carrying the read timestamp of an Omid transaction, as a long. When the
+   * table has a SnapshotIsolationObserver, only the versions visible to that transaction are
+   * returned, resolved on the region server from the shadow cells.
+   */
+  public static final String SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE = "_snapshot_read_ts_";
+
   /**
    * Define for 'return-all-versions'.
    */
@@ -269,6 +269,18 @@ public interface MetricsRegionServerSource extends BaseSource {
   String BLOCKED_REQUESTS_COUNT_DESC = "The number of blocked requests because of memstore size is "
       + "larger than blockingMemStoreSize";
 
+  String COMPACTION_THROUGHPUT_LIMIT = "compactionThroughputLimit";
+  String COMPACTION_THROUGHPUT_LIMIT_DESC =
+      "The throughput limit of the compactions, in bytes per second, 0 if not limited";
+  String COMPACTION_THROUGHPUT_FEEDBACK_RATIO = "compactionThroughputFeedbackRatio";
+  String COMPACTION_THROUGHPUT_FEEDBACK_RATIO_DESC =
+      "The ratio of the compaction throughput limit kept because of the read latency and the "
+      + "block cache evictions";
+  String COMPACTION_THROUGHPUT_THROTTLED_COUNT = "compactionThroughputThrottledCount";
+  String COMPACTION_THROUGHPUT_THROTTLED_COUNT_DESC =
+      "The number of times the compaction throughput limit was lowered because of the read "
+      + "latency or the block cache evictions";
+
   String SPLIT_KEY = "splitTime";
   String SPLIT_REQUEST_KEY = "splitRequestCount";
   String SPLIT_REQUEST_DESC = "Number of splits requested";
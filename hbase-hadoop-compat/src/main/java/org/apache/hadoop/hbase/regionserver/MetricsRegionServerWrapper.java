@@ -256,4 +256,21 @@ public interface MetricsRegionServerWrapper {
    * @return Count of requests blocked because the memstore size is larger than blockingMemStoreSize
    */
   public long getBlockedRequestsCount();
+
+  /**
+   * @return the current throughput limit of the compactions, in bytes per second, 0 if they are
+   *         not limited
+   */
+  double getCompactionThroughputLimit();
+
+  /**
+   * @return the ratio of the compaction throughput limit kept because of the reads, 1.0 if the
+   *         compactions are not slowed down for the reads
+   */
+  double getCompactionThroughputFeedbackRatio();
+
+  /**
+   * @return the number of times the compaction throughput limit was lowered because of the reads
+   */
+  long getCompactionThroughputThrottledCount();
 }
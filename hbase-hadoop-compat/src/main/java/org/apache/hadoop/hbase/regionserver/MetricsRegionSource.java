@@ -35,6 +35,12 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
       "Sum of filesize on all files entering a finished, successful or aborted, compaction";
   String NUM_FILES_COMPACTED_DESC =
       "Number of files that were input for finished, successful or aborted, compactions";
+  String TRANSACTION_CLOCK_HEADROOM = "transactionClockHeadroom";
+  String TRANSACTION_CLOCK_HEADROOM_DESC =
+      "Number of singleton timestamps left in the current transaction epoch";
+  String TRANSACTION_CLOCK_EXHAUSTED = "transactionClockExhaustedCount";
+  String TRANSACTION_CLOCK_EXHAUSTED_DESC =
+      "Number of singleton writes refused as the current transaction epoch had no timestamp left";
   String COPROCESSOR_EXECUTION_STATISTICS = "coprocessorExecutionStatistics";
   String COPROCESSOR_EXECUTION_STATISTICS_DESC = "Statistics for coprocessor execution times";
 
@@ -84,6 +84,18 @@ public interface MetricsRegionWrapper {
 
   long getNumCompactionsCompleted();
 
+  /**
+   * Get the number of singleton timestamps the region can still allocate in the
+   * current transaction epoch.
+   */
+  long getTransactionClockHeadroom();
+
+  /**
+   * Get the number of singleton writes refused because the region had used up the
+   * local timestamps of the current transaction epoch.
+   */
+  long getTransactionClockExhausted();
+
   /**
    * Get the time spent by coprocessors in this region.
    */
@@ -57,6 +57,19 @@ public interface MetricsWALSource extends BaseSource {
   String SLOW_APPEND_COUNT_DESC = "Number of appends that were slow.";
   String SYNC_TIME = "syncTime";
   String SYNC_TIME_DESC = "The time it took to sync the HLog to HDFS.";
+  String SYNC_BATCH_SIZE = "syncBatchSize";
+  String SYNC_BATCH_SIZE_DESC = "Number of edits made durable by a sync of the HLog.";
+  String APPEND_TO_SYNC_TIME = "appendToSyncTime";
+  String APPEND_TO_SYNC_TIME_DESC =
+      "Time from the append of the oldest edit of a sync to the end of the sync.";
+  String SYNC_WAIT_TIME = "syncWaitTime";
+  String SYNC_WAIT_TIME_DESC =
+      "Time a handler waited for its edits to be synced, queueing behind other syncs included.";
+  String SYNC_NOTIFY_TIME = "syncNotifyTime";
+  String SYNC_NOTIFY_TIME_DESC =
+      "Time (in microseconds) from the end of a sync to the wake up of a handler waiting for it.";
+  String SLOW_SYNC_COUNT = "slowSyncCount";
+  String SLOW_SYNC_COUNT_DESC = "Number of syncs that were slow.";
   String ROLL_REQUESTED = "rollRequest";
   String ROLL_REQUESTED_DESC = "How many times a log roll has been requested total";
   String LOW_REPLICA_ROLL_REQUESTED = "lowReplicaRollRequest";
@@ -88,6 +101,32 @@ public interface MetricsWALSource extends BaseSource {
    */
   void incrementSyncTime(long time);
 
+  /**
+   * Add the number of edits made durable by a sync.
+   */
+  void incrementSyncBatchSize(long edits);
+
+  /**
+   * Add the time from the append of the oldest edit of a sync to the end of the sync.
+   */
+  void incrementAppendToSyncTime(long time);
+
+  /**
+   * Add the time a handler waited for its edits to be synced.
+   */
+  void incrementSyncWaitTime(long time);
+
+  /**
+   * Add the time, in microseconds, from the end of a sync to the wake up of a handler waiting
+   * for it.
+   */
+  void incrementSyncNotifyTime(long time);
+
+  /**
+   * Increment the number of syncs that were slow
+   */
+  void incrementSlowSyncCount();
+
   void incrementLogRollRequested();
 
   void incrementLowReplicationLogRoll();
@@ -253,6 +253,15 @@ public class MetricsRegionServerSourceImpl
           .addCounter(BLOCKED_REQUESTS_COUNT, BLOCKED_REQUESTS_COUNT_DESC,
               rsWrap.getBlockedRequestsCount())
 
+          .addGauge(COMPACTION_THROUGHPUT_LIMIT, COMPACTION_THROUGHPUT_LIMIT_DESC,
+              rsWrap.getCompactionThroughputLimit())
+          .addGauge(COMPACTION_THROUGHPUT_FEEDBACK_RATIO,
+              COMPACTION_THROUGHPUT_FEEDBACK_RATIO_DESC,
+              rsWrap.getCompactionThroughputFeedbackRatio())
+          .addCounter(COMPACTION_THROUGHPUT_THROTTLED_COUNT,
+              COMPACTION_THROUGHPUT_THROTTLED_COUNT_DESC,
+              rsWrap.getCompactionThroughputThrottledCount())
+
           .tag(ZOOKEEPER_QUORUM_NAME, ZOOKEEPER_QUORUM_DESC, rsWrap.getZookeeperQuorum())
           .tag(SERVER_NAME_NAME, SERVER_NAME_DESC, rsWrap.getServerName())
           .tag(CLUSTER_ID_NAME, CLUSTER_ID_DESC, rsWrap.getClusterId());
@@ -193,6 +193,12 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     mrb.addCounter(regionNamePrefix + MetricsRegionSource.NUM_FILES_COMPACTED_COUNT,
         MetricsRegionSource.NUM_FILES_COMPACTED_DESC,
         this.regionWrapper.getNumFilesCompacted());
+    mrb.addGauge(regionNamePrefix + MetricsRegionSource.TRANSACTION_CLOCK_HEADROOM,
+        MetricsRegionSource.TRANSACTION_CLOCK_HEADROOM_DESC,
+        this.regionWrapper.getTransactionClockHeadroom());
+    mrb.addCounter(regionNamePrefix + MetricsRegionSource.TRANSACTION_CLOCK_EXHAUSTED,
+        MetricsRegionSource.TRANSACTION_CLOCK_EXHAUSTED_DESC,
+        this.regionWrapper.getTransactionClockExhausted());
 
 
   }
@@ -122,6 +122,17 @@ public class TestMetricsRegionSourceImpl {
     public long getNumCompactionsCompleted() {
       return 0;
     }
+
+    @Override
+    public long getTransactionClockHeadroom() {
+      return 0;
+    }
+
+    @Override
+    public long getTransactionClockExhausted() {
+      return 0;
+    }
+
     @Override
     public Map<String, DescriptiveStatistics> getCoprocessorExecutionStatistics() {
       return null;
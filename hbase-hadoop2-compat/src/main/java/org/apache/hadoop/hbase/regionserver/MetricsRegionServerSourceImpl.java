@@ -259,6 +259,15 @@ public class MetricsRegionServerSourceImpl
           .addCounter(Interns.info(BLOCKED_REQUESTS_COUNT, BLOCKED_REQUESTS_COUNT_DESC),
             rsWrap.getBlockedRequestsCount())
 
+          .addGauge(Interns.info(COMPACTION_THROUGHPUT_LIMIT, COMPACTION_THROUGHPUT_LIMIT_DESC),
+              rsWrap.getCompactionThroughputLimit())
+          .addGauge(Interns.info(COMPACTION_THROUGHPUT_FEEDBACK_RATIO,
+              COMPACTION_THROUGHPUT_FEEDBACK_RATIO_DESC),
+              rsWrap.getCompactionThroughputFeedbackRatio())
+          .addCounter(Interns.info(COMPACTION_THROUGHPUT_THROTTLED_COUNT,
+              COMPACTION_THROUGHPUT_THROTTLED_COUNT_DESC),
+              rsWrap.getCompactionThroughputThrottledCount())
+
           .tag(Interns.info(ZOOKEEPER_QUORUM_NAME, ZOOKEEPER_QUORUM_DESC),
               rsWrap.getZookeeperQuorum())
           .tag(Interns.info(SERVER_NAME_NAME, SERVER_NAME_DESC), rsWrap.getServerName())
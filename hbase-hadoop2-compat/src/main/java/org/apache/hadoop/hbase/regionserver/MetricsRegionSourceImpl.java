@@ -192,6 +192,12 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.NUM_FILES_COMPACTED_COUNT,
         MetricsRegionSource.NUM_FILES_COMPACTED_DESC),
         this.regionWrapper.getNumFilesCompacted());
+    mrb.addGauge(Interns.info(regionNamePrefix + MetricsRegionSource.TRANSACTION_CLOCK_HEADROOM,
+        MetricsRegionSource.TRANSACTION_CLOCK_HEADROOM_DESC),
+        this.regionWrapper.getTransactionClockHeadroom());
+    mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.TRANSACTION_CLOCK_EXHAUSTED,
+        MetricsRegionSource.TRANSACTION_CLOCK_EXHAUSTED_DESC),
+        this.regionWrapper.getTransactionClockExhausted());
     for (Map.Entry<String, DescriptiveStatistics> entry : this.regionWrapper
         .getCoprocessorExecutionStatistics()
         .entrySet()) {
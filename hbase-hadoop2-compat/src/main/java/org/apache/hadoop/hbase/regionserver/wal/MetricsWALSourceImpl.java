@@ -35,10 +35,15 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
   private final MetricHistogram appendSizeHisto;
   private final MetricHistogram appendTimeHisto;
   private final MetricHistogram syncTimeHisto;
+  private final MetricHistogram syncBatchSizeHisto;
+  private final MetricHistogram appendToSyncTimeHisto;
+  private final MetricHistogram syncWaitTimeHisto;
+  private final MetricHistogram syncNotifyTimeHisto;
   private final MutableCounterLong appendCount;
   private final MutableCounterLong slowAppendCount;
   private final MutableCounterLong logRollRequested;
   private final MutableCounterLong lowReplicationLogRollRequested;
+  private final MutableCounterLong slowSyncCount;
 
   public MetricsWALSourceImpl() {
     this(METRICS_NAME, METRICS_DESCRIPTION, METRICS_CONTEXT, METRICS_JMX_CONTEXT);
@@ -57,6 +62,16 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
     slowAppendCount =
         this.getMetricsRegistry().newCounter(SLOW_APPEND_COUNT, SLOW_APPEND_COUNT_DESC, 0l);
     syncTimeHisto = this.getMetricsRegistry().newHistogram(SYNC_TIME, SYNC_TIME_DESC);
+    syncBatchSizeHisto =
+        this.getMetricsRegistry().newHistogram(SYNC_BATCH_SIZE, SYNC_BATCH_SIZE_DESC);
+    appendToSyncTimeHisto =
+        this.getMetricsRegistry().newHistogram(APPEND_TO_SYNC_TIME, APPEND_TO_SYNC_TIME_DESC);
+    syncWaitTimeHisto =
+        this.getMetricsRegistry().newHistogram(SYNC_WAIT_TIME, SYNC_WAIT_TIME_DESC);
+    syncNotifyTimeHisto =
+        this.getMetricsRegistry().newHistogram(SYNC_NOTIFY_TIME, SYNC_NOTIFY_TIME_DESC);
+    slowSyncCount =
+        this.getMetricsRegistry().newCounter(SLOW_SYNC_COUNT, SLOW_SYNC_COUNT_DESC, 0L);
     logRollRequested =
         this.getMetricsRegistry().newCounter(ROLL_REQUESTED, ROLL_REQUESTED_DESC, 0L);
     lowReplicationLogRollRequested = this.getMetricsRegistry()
@@ -88,6 +103,31 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
     syncTimeHisto.add(time);
   }
 
+  @Override
+  public void incrementSyncBatchSize(long edits) {
+    syncBatchSizeHisto.add(edits);
+  }
+
+  @Override
+  public void incrementAppendToSyncTime(long time) {
+    appendToSyncTimeHisto.add(time);
+  }
+
+  @Override
+  public void incrementSyncWaitTime(long time) {
+    syncWaitTimeHisto.add(time);
+  }
+
+  @Override
+  public void incrementSyncNotifyTime(long time) {
+    syncNotifyTimeHisto.add(time);
+  }
+
+  @Override
+  public void incrementSlowSyncCount() {
+    slowSyncCount.incr();
+  }
+
   @Override
   public void incrementLogRollRequested() {
     logRollRequested.incr();
@@ -121,6 +121,16 @@ public class TestMetricsRegionSourceImpl {
       return 0;
     }
 
+    @Override
+    public long getTransactionClockHeadroom() {
+      return 0;
+    }
+
+    @Override
+    public long getTransactionClockExhausted() {
+      return 0;
+    }
+
     @Override
     public Map<String, DescriptiveStatistics> getCoprocessorExecutionStatistics() {
       return null;
@@ -834,4 +834,9 @@ public boolean checkSingletonAndPut(byte[] row, byte[] family,
 		byte[] qualifier, byte[] value, Put put) throws IOException {
 	throw new UnsupportedOperationException("checkSingletonAndPut not implemented");
 }
+
+  @Override
+  public boolean[] batchSingletonCommit(List<Put> puts) throws IOException {
+    throw new UnsupportedOperationException("batchSingletonCommit not implemented");
+  }
 }
@@ -682,6 +682,11 @@ public abstract class CoprocessorHost<E extends CoprocessorEnvironment> {
 			byte[] qualifier, byte[] value, Put put) throws IOException {
 		return table.checkSingletonAndPut(row, family, qualifier, value, put);
 	}
+
+      @Override
+      public boolean[] batchSingletonCommit(List<Put> puts) throws IOException {
+        return table.batchSingletonCommit(puts);
+      }
     }
 
     /** The coprocessor */
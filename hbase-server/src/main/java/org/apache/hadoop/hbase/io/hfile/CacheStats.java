@@ -58,6 +58,9 @@ public class CacheStats {
   /** The total number of blocks that have been evicted */
   private final AtomicLong evictedBlockCount = new AtomicLong(0);
 
+  /** The number of blocks the admission policy refused to cache */
+  private final AtomicLong admissionRejectedCount = new AtomicLong(0);
+
   /** The number of metrics periods to include in window */
   private final int numPeriodsInWindow;
   /** Hit counts for each period in window */
@@ -101,7 +104,8 @@ public class CacheStats {
     return "hitCount=" + getHitCount() + ", hitCachingCount=" + getHitCachingCount() +
       ", missCount=" + getMissCount() + ", missCachingCount=" + getMissCachingCount() +
       ", evictionCount=" + getEvictionCount() +
-      ", evictedBlockCount=" + getEvictedCount();
+      ", evictedBlockCount=" + getEvictedCount() +
+      ", admissionRejectedCount=" + getAdmissionRejectedCount();
   }
 
   public void hit(boolean caching) {
@@ -117,6 +121,10 @@ public class CacheStats {
     evictedBlockCount.incrementAndGet();
   }
 
+  public void admissionRejected() {
+    admissionRejectedCount.incrementAndGet();
+  }
+
   public long getRequestCount() {
     return getHitCount() + getMissCount();
   }
@@ -149,6 +157,10 @@ public class CacheStats {
     return evictedBlockCount.get();
   }
 
+  public long getAdmissionRejectedCount() {
+    return admissionRejectedCount.get();
+  }
+
   public double getHitRatio() {
     return ((float)getHitCount()/(float)getRequestCount());
   }
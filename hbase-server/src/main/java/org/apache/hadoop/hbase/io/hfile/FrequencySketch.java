@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.HeapSize;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+/**
+ * A count-min sketch estimating how often the blocks were recently requested, for the TinyLFU
+ * admission of {@link LruBlockCache}.
+ * <p>
+ * The counters are 4 bits wide, 16 of them packed in each long of the table. An item has one
+ * counter in each of 4 longs, picked by 4 hashes; its frequency is the smallest of them. Once
+ * 10 times as many increments as the expected number of items have been recorded, all the
+ * counters are halved, so that the frequencies are those of the recent requests. The table is
+ * updated with compare and set, so the sketch can be used without locking.
+ */
+@InterfaceAudience.Private
+public class FrequencySketch implements HeapSize {
+
+  /** The max value of a counter */
+  static final int MAX_FREQUENCY = 15;
+
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+  private final AtomicLongArray table;
+  private final int tableMask;
+  private final int sampleSize;
+  private final AtomicInteger additions = new AtomicInteger();
+
+  /**
+   * @param expectedItems the number of items whose frequencies should be told apart, e.g. the
+   *          number of blocks the cache can hold
+   */
+  public FrequencySketch(long expectedItems) {
+    int capacity = (int) Math.min(Math.max(expectedItems, 1), 1 << 30);
+    int length = Integer.highestOneBit(capacity);
+    if (length < capacity) {
+      length <<= 1;
+    }
+    this.table = new AtomicLongArray(length);
+    this.tableMask = length - 1;
+    this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return the estimated number of times the item was recently recorded, at most
+   *         {@link #MAX_FREQUENCY}
+   */
+  public int frequency(int hash) {
+    int spread = spread(hash);
+    int start = (spread & 3) << 2;
+    int frequency = MAX_FREQUENCY;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int shift = (start + i) << 2;
+      int count = (int) ((table.get(indexOf(spread, i)) >>> shift) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records a request of the item.
+   */
+  public void increment(int hash) {
+    int spread = spread(hash);
+    int start = (spread & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      added |= incrementAt(indexOf(spread, i), start + i);
+    }
+    if (added && additions.incrementAndGet() == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int offset) {
+    int shift = offset << 2;
+    long mask = 0xfL << shift;
+    while (true) {
+      long value = table.get(index);
+      if ((value & mask) == mask) {
+        return false;
+      }
+      if (table.compareAndSet(index, value, value + (1L << shift))) {
+        return true;
+      }
+    }
+  }
+
+  /** Halves all the counters, so that the old requests weigh less than the recent ones. */
+  private void reset() {
+    for (int i = 0; i < table.length(); i++) {
+      while (true) {
+        long value = table.get(i);
+        if (table.compareAndSet(i, value, (value >>> 1) & RESET_MASK)) {
+          break;
+        }
+      }
+    }
+    additions.addAndGet(-sampleSize / 2);
+  }
+
+  private int indexOf(int spread, int i) {
+    long hash = (spread + SEEDS[i]) * SEEDS[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(int hash) {
+    int h = hash;
+    h = ((h >>> 16) ^ h) * 0x45d9f3b;
+    h = ((h >>> 16) ^ h) * 0x45d9f3b;
+    return (h >>> 16) ^ h;
+  }
+
+  @Override
+  public long heapSize() {
+    // this, the AtomicLongArray and its array, the AtomicInteger
+    return ClassSize.align(ClassSize.OBJECT + 2 * ClassSize.REFERENCE + 2 * Bytes.SIZEOF_INT)
+        + ClassSize.align(ClassSize.OBJECT + ClassSize.REFERENCE)
+        + ClassSize.align(ClassSize.ARRAY + (long) table.length() * Bytes.SIZEOF_LONG)
+        + ClassSize.ATOMIC_INTEGER;
+  }
+}
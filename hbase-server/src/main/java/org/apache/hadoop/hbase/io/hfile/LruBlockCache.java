@@ -28,9 +28,11 @@ import java.util.PriorityQueue;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -41,6 +43,7 @@ import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
@@ -88,7 +91,33 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  * size, and then while scanning determines the fewest least-recently-used
  * blocks necessary from each of the three priorities (would be 3 times bytes
  * to free).  It then uses the priority chunk sizes to evict fairly according
- * to the relative sizes and usage.
+ * to the relative sizes and usage.<p>
+ *
+ * With {@value #LRU_TINYLFU_ADMISSION_CONFIG_NAME} set, a {@link FrequencySketch} records how
+ * often each block is requested, and once the cache has first filled up to its minimum size, a
+ * data block which is not in-memory is only cached if it was requested more often than a block
+ * the eviction picked (TinyLFU admission): the last block evicted by the last eviction run, or,
+ * with the sampled eviction, the victim the next insert would evict. The frequency of that
+ * victim is read from the sketch at each admission, so it ages with the sketch. The blocks read
+ * once by a large scan are then not cached at the expense of the working set, and a new working
+ * set gets in once it is read more often than the old one. The single access bucket remains
+ * the LRU window through which the admitted blocks enter the cache. The blocks cached on write
+ * were never requested and are admitted; the prefetched blocks were requested once, they are
+ * admitted as the blocks of a scan are.<p>
+ *
+ * With {@value #LRU_SAMPLED_EVICTION_CONFIG_NAME} set, there is no full scan of the map: once
+ * the cache is full, each thread caching a block evicts about as much as it inserts, so the
+ * cost of an insert stays that of a few evictions. An insert which finds all the hands in use
+ * leaves the cache above its acceptable size: the eviction thread, if any, then frees the
+ * excess, otherwise the next insert does. The blocks are split in stripes by hash,
+ * each with an eviction hand which walks the map from where it last stopped. Each eviction
+ * takes the next hand, so that evictions spread evenly across the stripes, and evicts the best
+ * victim of a sample of {@value #LRU_EVICTION_SAMPLE_SIZE_CONFIG_NAME} blocks of its stripe:
+ * in-memory blocks last, then the least recently used, the single access blocks aging faster
+ * than the multiple access ones by the ratio of their shares of the cache. A hand in use is
+ * skipped, so as many threads as there are stripes can evict at once. The victims are then
+ * given to the victim handler, if any, by the handler threads caching the blocks: they do not
+ * wait for room in it, a victim it cannot take at once is dropped.
  */
 @InterfaceAudience.Private
 @JsonIgnoreProperties({"encodingCountsForTest"})
@@ -109,6 +138,20 @@ public class LruBlockCache implements BlockCache, HeapSize {
    */
   static final String LRU_IN_MEMORY_FORCE_MODE_CONFIG_NAME = "hbase.lru.rs.inmemoryforcemode";
 
+  /**
+   * Configuration key to only cache the blocks requested more often than the evicted ones, once
+   * the cache is full
+   */
+  static final String LRU_TINYLFU_ADMISSION_CONFIG_NAME = "hbase.lru.blockcache.tinylfu.admission";
+
+  /**
+   * Configuration key to evict sampled blocks from the caching threads rather than scanning
+   * the whole cache in the eviction thread
+   */
+  static final String LRU_SAMPLED_EVICTION_CONFIG_NAME = "hbase.lru.blockcache.sampled.eviction";
+  static final String LRU_EVICTION_SAMPLE_SIZE_CONFIG_NAME =
+      "hbase.lru.blockcache.eviction.sample.size";
+
   /** Default Configuration Parameters*/
 
   /** Backing Concurrent Map Configuration */
@@ -126,11 +169,16 @@ public class LruBlockCache implements BlockCache, HeapSize {
 
   static final boolean DEFAULT_IN_MEMORY_FORCE_MODE = false;
 
+  static final boolean DEFAULT_TINYLFU_ADMISSION = false;
+
+  static final boolean DEFAULT_SAMPLED_EVICTION = false;
+  static final int DEFAULT_EVICTION_SAMPLE_SIZE = 8;
+
   /** Statistics thread */
   static final int statThreadPeriod = 60 * 5;
 
   /** Concurrent map (the cache) */
-  private final Map<BlockCacheKey,LruCachedBlock> map;
+  private final ConcurrentMap<BlockCacheKey,LruCachedBlock> map;
 
   /** Eviction lock (locked when eviction in process) */
   private final ReentrantLock evictionLock = new ReentrantLock(true);
@@ -191,6 +239,24 @@ public class LruBlockCache implements BlockCache, HeapSize {
   /** Where to send victims (blocks evicted from the cache) */
   private BucketCache victimHandler = null;
 
+  /** Recent request frequencies of the blocks, null without TinyLFU admission */
+  private FrequencySketch admissionSketch = null;
+
+  /** Set once the cache first reaches its minimum size, the admission applies from then on */
+  private volatile boolean warm = false;
+
+  /** The last block evicted, the one the admitted blocks must be more popular than */
+  private volatile BlockCacheKey admissionVictim = null;
+
+  /** Eviction hands of the stripes, null without sampled eviction */
+  private EvictionHand[] evictionHands = null;
+
+  /** Next eviction hand to use */
+  private final AtomicInteger nextEvictionHand = new AtomicInteger();
+
+  /** Number of blocks sampled for each sampled eviction */
+  private int evictionSampleSize;
+
   /**
    * Default constructor.  Specify maximum size and expected average block
    * size (approximation is fine).
@@ -231,6 +297,19 @@ public class LruBlockCache implements BlockCache, HeapSize {
         conf.getFloat(LRU_MEMORY_PERCENTAGE_CONFIG_NAME, DEFAULT_MEMORY_FACTOR),
         conf.getBoolean(LRU_IN_MEMORY_FORCE_MODE_CONFIG_NAME, DEFAULT_IN_MEMORY_FORCE_MODE)
         );
+    if (conf.getBoolean(LRU_TINYLFU_ADMISSION_CONFIG_NAME, DEFAULT_TINYLFU_ADMISSION)) {
+      this.admissionSketch = new FrequencySketch((long)Math.ceil((double)maxSize/blockSize));
+      this.size.addAndGet(admissionSketch.heapSize());
+    }
+    if (conf.getBoolean(LRU_SAMPLED_EVICTION_CONFIG_NAME, DEFAULT_SAMPLED_EVICTION)) {
+      this.evictionSampleSize = Math.max(1,
+        conf.getInt(LRU_EVICTION_SAMPLE_SIZE_CONFIG_NAME, DEFAULT_EVICTION_SAMPLE_SIZE));
+      EvictionHand[] hands = new EvictionHand[DEFAULT_CONCURRENCY_LEVEL];
+      for (int i = 0; i < hands.length; i++) {
+        hands[i] = new EvictionHand(i);
+      }
+      this.evictionHands = hands;
+    }
   }
 
   public LruBlockCache(long maxSize, long blockSize, Configuration conf) {
@@ -323,6 +402,10 @@ public class LruBlockCache implements BlockCache, HeapSize {
       LOG.warn(msg);
       return;
     }
+    if (admissionSketch != null && !inMemory && !admit(cacheKey, buf)) {
+      stats.admissionRejected();
+      return;
+    }
     cb = new LruCachedBlock(cacheKey, buf, count.incrementAndGet(), inMemory);
     long newSize = updateSizeMetrics(cb, false);
     map.put(cacheKey, cb);
@@ -332,10 +415,68 @@ public class LruBlockCache implements BlockCache, HeapSize {
       assertCounterSanity(size, val);
     }
     if (newSize > acceptableSize() && !evictionInProgress) {
-      runEviction();
+      if (evictionHands != null) {
+        // only make room for this block and for what the previous inserts could not free, the
+        // caller is a handler thread
+        evictSampled(Math.max(cb.heapSize(), newSize - acceptableSize()));
+        if (evictionThread != null && this.size.get() > acceptableSize()) {
+          // all the hands were in use, the eviction thread frees the rest
+          evictionThread.evict();
+        }
+      } else {
+        runEviction();
+      }
     }
   }
 
+  /**
+   * TinyLFU admission. For the index and bloom blocks, and for the blocks cached on write, which
+   * were never requested, there is nothing to decide. With the sampled eviction, a block which
+   * fits below the acceptable size evicts nothing and is admitted, otherwise it must have been
+   * requested more often than the victim the next hand would evict, which it then evicts. With
+   * the eviction runs, once the cache first fills up to its minimum size, every data block must
+   * have been requested more often than the last block evicted, also once an eviction run took
+   * the cache back below the acceptable size: otherwise each run would make room for another
+   * wave of blocks read only once. The frequencies are those of the sketch now, so a victim
+   * which is not requested anymore ages with it.
+   */
+  private boolean admit(BlockCacheKey cacheKey, Cacheable buf) {
+    BlockType blockType = buf.getBlockType();
+    if (blockType != null && blockType.getCategory() != BlockCategory.DATA) {
+      return true;
+    }
+    int frequency = admissionSketch.frequency(cacheKey.hashCode());
+    if (frequency == 0) {
+      return true;
+    }
+    int victimFrequency = -1;
+    if (evictionHands != null) {
+      if (size.get() + buf.heapSize() <= acceptableSize()) {
+        return true;
+      }
+      int next = (nextEvictionHand.get() & Integer.MAX_VALUE) % evictionHands.length;
+      victimFrequency = evictionHands[next].victimFrequency();
+      if (victimFrequency >= frequency) {
+        // the next block duels with the victim of another stripe
+        nextEvictionHand.incrementAndGet();
+        return false;
+      }
+    } else if (!warm) {
+      if (size.get() + buf.heapSize() < minSize()) {
+        return true;
+      }
+      warm = true;
+    }
+    if (victimFrequency < 0) {
+      BlockCacheKey victim = admissionVictim;
+      if (victim == null) {
+        return true;
+      }
+      victimFrequency = admissionSketch.frequency(victim.hashCode());
+    }
+    return frequency > victimFrequency;
+  }
+
   /**
    * Sanity-checking for parity between actual block cache content and metrics.
    * Intended only for use with TRACE level logging and -ea JVM.
@@ -406,6 +547,9 @@ public class LruBlockCache implements BlockCache, HeapSize {
   @Override
   public Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
       boolean updateCacheMetrics) {
+    if (admissionSketch != null && !repeat) {
+      admissionSketch.increment(cacheKey.hashCode());
+    }
     LruCachedBlock cb = map.get(cacheKey);
     if(cb == null) {
       if (!repeat && updateCacheMetrics) stats.miss(caching);
@@ -469,7 +613,10 @@ public class LruBlockCache implements BlockCache, HeapSize {
    * @return the heap size of evicted block
    */
   protected long evictBlock(LruCachedBlock block, boolean evictedByEvictionProcess) {
-    map.remove(block.getCacheKey());
+    // another thread may have evicted it already
+    if (!map.remove(block.getCacheKey(), block)) {
+      return 0;
+    }
     updateSizeMetrics(block, true);
     long val = elements.decrementAndGet();
     if (LOG.isTraceEnabled()) {
@@ -478,7 +625,9 @@ public class LruBlockCache implements BlockCache, HeapSize {
     }
     stats.evicted();
     if (evictedByEvictionProcess && victimHandler != null) {
-      boolean wait = getCurrentSize() < acceptableSize();
+      // the sampled eviction runs on the handler threads, which must not wait for the writers
+      // of the victim handler
+      boolean wait = evictionHands == null && getCurrentSize() < acceptableSize();
       boolean inMemory = block.getPriority() == BlockPriority.MEMORY;
       victimHandler.cacheBlockWithWait(block.getCacheKey(), block.getBuffer(),
           inMemory, wait);
@@ -490,7 +639,9 @@ public class LruBlockCache implements BlockCache, HeapSize {
    * Multi-threaded call to run the eviction process.
    */
   private void runEviction() {
-    if(evictionThread == null) {
+    if (evictionHands != null) {
+      evictSampled(this.size.get() - minSize());
+    } else if(evictionThread == null) {
       evict();
     } else {
       evictionThread.evict();
@@ -501,6 +652,10 @@ public class LruBlockCache implements BlockCache, HeapSize {
    * Eviction method.
    */
   void evict() {
+    if (evictionHands != null) {
+      evictSampled(this.size.get() - minSize());
+      return;
+    }
 
     // Ensure only one eviction at a time
     if(!evictionLock.tryLock()) return;
@@ -623,6 +778,155 @@ public class LruBlockCache implements BlockCache, HeapSize {
     }
   }
 
+  /**
+   * Sampled eviction, until the given number of bytes is freed, the cache is back to its
+   * minimum size or all the hands are in use by other threads.
+   */
+  private void evictSampled(long bytesToFree) {
+    long bytesFreed = 0;
+    int failedHands = 0;
+    while (bytesFreed < bytesToFree && this.size.get() > minSize()
+        && failedHands < evictionHands.length) {
+      int next = (nextEvictionHand.getAndIncrement() & Integer.MAX_VALUE) % evictionHands.length;
+      long freed = evictionHands[next].evictOne();
+      if (freed > 0) {
+        bytesFreed += freed;
+        failedHands = 0;
+      } else {
+        // in use by another thread, or nothing left in the stripe
+        failedHands++;
+      }
+    }
+    if (bytesFreed > 0) {
+      stats.evict();
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Block cache sampled eviction freed " + StringUtils.byteDesc(bytesFreed) +
+          ", total=" + StringUtils.byteDesc(this.size.get()));
+      }
+    }
+  }
+
+  private int stripeOf(BlockCacheKey cacheKey) {
+    int h = cacheKey.hashCode();
+    h = ((h >>> 16) ^ h) * 0x45d9f3b;
+    h = (h >>> 16) ^ h;
+    return (h & Integer.MAX_VALUE) % evictionHands.length;
+  }
+
+  /**
+   * @return whether a should be evicted before b: in-memory blocks last, then the least
+   *         recently used first. The age of a single access block is weighted by the share of
+   *         the multiple access blocks, and the other way round, so that the single access
+   *         blocks go first as they do with the priority buckets, without starving them.
+   */
+  private boolean evictsBefore(LruCachedBlock a, LruCachedBlock b, long now) {
+    boolean aInMemory = a.getPriority() == BlockPriority.MEMORY;
+    boolean bInMemory = b.getPriority() == BlockPriority.MEMORY;
+    if (aInMemory != bInMemory) {
+      return bInMemory;
+    }
+    if (a.getPriority() == b.getPriority()) {
+      // newer accessed blocks sort before older ones
+      return a.compareTo(b) > 0;
+    }
+    return weightedAge(a, now) > weightedAge(b, now);
+  }
+
+  private double weightedAge(LruCachedBlock cb, long now) {
+    double age = now - cb.getAccessTime();
+    return cb.getPriority() == BlockPriority.SINGLE ? age * multiFactor : age * singleFactor;
+  }
+
+  /**
+   * Eviction hand of a stripe of the blocks. It walks the map from where it last stopped,
+   * looking at the blocks of its stripe only, so the hands never pick the same victims.
+   */
+  private class EvictionHand {
+    private final int stripe;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** The victim sampled for the admission, the next one to evict if still cached */
+    private LruCachedBlock candidate = null;
+    private Iterator<LruCachedBlock> iterator = null;
+
+    EvictionHand(int stripe) {
+      this.stripe = stripe;
+    }
+
+    /**
+     * @return the heap size freed, 0 if the hand is in use or its stripe is empty
+     */
+    long evictOne() {
+      if (!lock.tryLock()) {
+        return 0;
+      }
+      try {
+        LruCachedBlock victim = sample();
+        if (victim == null) {
+          return 0;
+        }
+        candidate = null;
+        long freed = evictBlock(victim, true);
+        if (freed > 0 && admissionSketch != null) {
+          admissionVictim = victim.getCacheKey();
+        }
+        return freed;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Samples the victim the hand evicts next, for the admission.
+     * @return its frequency, -1 if the hand is in use or its stripe is empty
+     */
+    int victimFrequency() {
+      if (!lock.tryLock()) {
+        return -1;
+      }
+      try {
+        candidate = sample();
+        return candidate == null ? -1
+            : admissionSketch.frequency(candidate.getCacheKey().hashCode());
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * @return the best victim of up to evictionSampleSize blocks of the stripe, null if the
+     *         stripe is empty
+     */
+    private LruCachedBlock sample() {
+      LruCachedBlock victim = null;
+      if (candidate != null && map.get(candidate.getCacheKey()) == candidate) {
+        victim = candidate;
+      }
+      long now = count.get();
+      int sampled = 0;
+      boolean restarted = false;
+      while (sampled < evictionSampleSize) {
+        if (iterator == null || !iterator.hasNext()) {
+          if (restarted) {
+            // went through the whole map
+            break;
+          }
+          iterator = map.values().iterator();
+          restarted = true;
+          continue;
+        }
+        LruCachedBlock cb = iterator.next();
+        if (stripeOf(cb.getCacheKey()) != stripe) {
+          continue;
+        }
+        sampled++;
+        if (victim == null || evictsBefore(cb, victim, now)) {
+          victim = cb;
+        }
+      }
+      return victim;
+    }
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -673,6 +977,9 @@ public class LruBlockCache implements BlockCache, HeapSize {
       long freedBytes = 0;
       while ((cb = queue.pollLast()) != null) {
         freedBytes += evictBlock(cb, true);
+        if (admissionSketch != null) {
+          admissionVictim = cb.getCacheKey();
+        }
         if (freedBytes >= toFree) {
           return freedBytes;
         }
@@ -842,7 +1149,8 @@ public class LruBlockCache implements BlockCache, HeapSize {
           (stats.getHitCachingCount() == 0 ? "0,": (StringUtils.formatPercent(stats.getHitCachingRatio(), 2) + ", ")) +
         "evictions=" + stats.getEvictionCount() + ", " +
         "evicted=" + stats.getEvictedCount() + ", " +
-        "evictedPerRun=" + stats.evictedPerEviction());
+        "evictedPerRun=" + stats.evictedPerEviction() + ", " +
+        "admissionRejected=" + stats.getAdmissionRejectedCount());
   }
 
   /**
@@ -856,9 +1164,9 @@ public class LruBlockCache implements BlockCache, HeapSize {
   }
 
   public final static long CACHE_FIXED_OVERHEAD = ClassSize.align(
-      (3 * Bytes.SIZEOF_LONG) + (9 * ClassSize.REFERENCE) +
-      (5 * Bytes.SIZEOF_FLOAT) + Bytes.SIZEOF_BOOLEAN
-      + ClassSize.OBJECT);
+      (3 * Bytes.SIZEOF_LONG) + (13 * ClassSize.REFERENCE) +
+      (5 * Bytes.SIZEOF_FLOAT) + Bytes.SIZEOF_INT + (3 * Bytes.SIZEOF_BOOLEAN)
+      + ClassSize.ARRAY + ClassSize.OBJECT);
 
   // HeapSize implementation
   public long heapSize() {
@@ -83,6 +83,13 @@ public class LruCachedBlock implements HeapSize, Comparable<LruCachedBlock> {
     }
   }
 
+  /**
+   * @return Last access, as a sequence number.
+   */
+  public long getAccessTime() {
+    return this.accessTime;
+  }
+
   /**
    * @return Time we were cached at in nano seconds.
    */
@@ -77,6 +77,21 @@ public class ReplicationProtbufUtil {
    */
   public static Pair<AdminProtos.ReplicateWALEntryRequest, CellScanner>
       buildReplicateWALEntryRequest(final HLog.Entry[] entries) {
+    return buildReplicateWALEntryRequest(entries, null);
+  }
+
+  /**
+   * Create a new ReplicateWALEntryRequest from a list of HLog entries, all addressed to the
+   * same region
+   *
+   * @param entries the HLog entries to be replicated
+   * @param encodedRegionName the region the entries are sent to, whatever the region they were
+   * logged for, or null to keep the region of each entry
+   * @return a pair of ReplicateWALEntryRequest and a CellScanner over all the WALEdit values
+   * found.
+   */
+  public static Pair<AdminProtos.ReplicateWALEntryRequest, CellScanner>
+      buildReplicateWALEntryRequest(final HLog.Entry[] entries, final byte[] encodedRegionName) {
     // Accumulate all the KVs seen in here.
     List<List<? extends Cell>> allkvs = new ArrayList<List<? extends Cell>>(entries.length);
     int size = 0;
@@ -90,8 +105,8 @@ public class ReplicationProtbufUtil {
       // TODO: this duplicates a lot in HLogKey#getBuilder
       WALProtos.WALKey.Builder keyBuilder = entryBuilder.getKeyBuilder();
       HLogKey key = entry.getKey();
-      keyBuilder.setEncodedRegionName(
-        ByteStringer.wrap(key.getEncodedRegionName()));
+      keyBuilder.setEncodedRegionName(ByteStringer.wrap(encodedRegionName == null ?
+        key.getEncodedRegionName() : encodedRegionName));
       keyBuilder.setTableName(ByteStringer.wrap(key.getTablename().getName()));
       keyBuilder.setLogSequenceNumber(key.getLogSeqNum());
       keyBuilder.setWriteTime(key.getWriteTime());
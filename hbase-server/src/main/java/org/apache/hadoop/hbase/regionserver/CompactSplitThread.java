@@ -24,14 +24,17 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,6 +45,8 @@ import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionThroughputController;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionThroughputControllerFactory;
+import org.apache.hadoop.hbase.regionserver.compactions.OffPeakHours;
+import org.apache.hadoop.hbase.regionserver.compactions.ReadPressureAwareCompactionThroughputController;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.util.StringUtils;
@@ -50,7 +55,19 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 /**
- * Compact region on request and then run split if appropriate
+ * Compact region on request and then run split if appropriate.
+ * <p>
+ * Queued compactions are ordered by store priority. With
+ * {@value #COMPACTION_COST_BENEFIT_ORDERING_KEY} set, the compactions of the stores which are
+ * not blocking or near blocking are instead ordered by cost/benefit: the number of store files
+ * they remove, i.e. the seeks they save to every read of the store, per byte they rewrite.
+ * <p>
+ * Outside of the off-peak hours, the system compactions of the stores which are not blocking
+ * are deferred while the I/O is busy: while {@value #PEAK_MAX_CONCURRENT_COMPACTIONS_KEY}
+ * compactions are already running, or while compactions are running and the
+ * {@link ReadPressureAwareCompactionThroughputController} sees the reads suffer. They are kept
+ * in a deferred queue, checked every {@value #DEFERRED_COMPACTIONS_CHECK_INTERVAL_KEY} ms, and
+ * resubmitted once the I/O is not busy anymore.
  */
 @InterfaceAudience.Private
 public class CompactSplitThread implements CompactionRequestor {
@@ -59,7 +76,18 @@ public class CompactSplitThread implements CompactionRequestor {
   public static final String REGION_SERVER_REGION_SPLIT_LIMIT =
       "hbase.regionserver.regionSplitLimit";
   public static final int DEFAULT_REGION_SERVER_REGION_SPLIT_LIMIT= 1000;
-  
+
+  public static final String LARGE_COMPACTION_THREADS_KEY =
+      "hbase.regionserver.thread.compaction.large";
+  public static final String SMALL_COMPACTION_THREADS_KEY =
+      "hbase.regionserver.thread.compaction.small";
+  public static final String COMPACTION_COST_BENEFIT_ORDERING_KEY =
+      "hbase.regionserver.compaction.queue.cost.benefit";
+  public static final String PEAK_MAX_CONCURRENT_COMPACTIONS_KEY =
+      "hbase.regionserver.compaction.peak.max.concurrent";
+  public static final String DEFERRED_COMPACTIONS_CHECK_INTERVAL_KEY =
+      "hbase.regionserver.compaction.deferred.check.interval";
+
   private final HRegionServer server;
   private final Configuration conf;
 
@@ -67,9 +95,18 @@ public class CompactSplitThread implements CompactionRequestor {
   private final ThreadPoolExecutor smallCompactions;
   private final ThreadPoolExecutor splits;
   private final ThreadPoolExecutor mergePool;
+  private final ScheduledThreadPoolExecutor deferredCompactionsChecker;
 
   private final CompactionThroughputController compactionThroughputController;
 
+  private final boolean costBenefitOrdering;
+  private final PriorityQueue<CompactionRunner> deferredCompactions =
+      new PriorityQueue<CompactionRunner>();
+  private final AtomicInteger runningCompactions = new AtomicInteger();
+  private final OffPeakHours offPeakHours;
+  /** 0 for no limit */
+  private final int peakMaxConcurrentCompactions;
+
   /**
    * Splitting should not take place if the total number of regions exceed this.
    * This is not a hard limit to the number of regions but it is a guideline to
@@ -85,10 +122,8 @@ public class CompactSplitThread implements CompactionRequestor {
     this.regionSplitLimit = conf.getInt(REGION_SERVER_REGION_SPLIT_LIMIT,
         DEFAULT_REGION_SERVER_REGION_SPLIT_LIMIT);
 
-    int largeThreads = Math.max(1, conf.getInt(
-        "hbase.regionserver.thread.compaction.large", 1));
-    int smallThreads = conf.getInt(
-        "hbase.regionserver.thread.compaction.small", 1);
+    int largeThreads = Math.max(1, conf.getInt(LARGE_COMPACTION_THREADS_KEY, 1));
+    int smallThreads = conf.getInt(SMALL_COMPACTION_THREADS_KEY, 1);
 
     int splitThreads = conf.getInt("hbase.regionserver.thread.split", 1);
 
@@ -144,6 +179,96 @@ public class CompactSplitThread implements CompactionRequestor {
     // compaction throughput controller
     this.compactionThroughputController =
         CompactionThroughputControllerFactory.create(server, conf);
+
+    // compaction scheduling
+    this.costBenefitOrdering = conf.getBoolean(COMPACTION_COST_BENEFIT_ORDERING_KEY, false);
+    this.offPeakHours = OffPeakHours.getInstance(conf);
+    this.peakMaxConcurrentCompactions = conf.getInt(PEAK_MAX_CONCURRENT_COMPACTIONS_KEY, 0);
+    long checkInterval = conf.getLong(DEFERRED_COMPACTIONS_CHECK_INTERVAL_KEY, 1000);
+    this.deferredCompactionsChecker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setName(n + "-deferredCompactions-" + System.currentTimeMillis());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    this.deferredCompactionsChecker.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        releaseDeferredCompactions();
+      }
+    }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return whether system compactions of non blocking stores should wait for the I/O to calm
+   *         down before starting
+   */
+  private boolean isIoBusy() {
+    if (offPeakHours.isOffPeakHour()) {
+      return false;
+    }
+    int running = runningCompactions.get();
+    if (peakMaxConcurrentCompactions > 0 && running >= peakMaxConcurrentCompactions) {
+      return true;
+    }
+    // reads may suffer for other reasons than compactions: never starve compactions for them
+    if (running > 0 && compactionThroughputController
+        instanceof ReadPressureAwareCompactionThroughputController) {
+      return ((ReadPressureAwareCompactionThroughputController) compactionThroughputController)
+          .getFeedbackRatio() < 1.0;
+    }
+    return false;
+  }
+
+  private void deferCompaction(CompactionRunner runner) {
+    synchronized (deferredCompactions) {
+      deferredCompactions.add(runner);
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("I/O is busy, deferring compaction: " + runner);
+    }
+  }
+
+  /**
+   * Resubmits the deferred compactions, most urgent first, one per free compaction slot. A
+   * released compaction only counts as running once it starts, so the I/O check alone would
+   * release them all at once.
+   */
+  private void releaseDeferredCompactions() {
+    synchronized (deferredCompactions) {
+      if (deferredCompactions.isEmpty() || isIoBusy()) {
+        return;
+      }
+      int slots = peakMaxConcurrentCompactions > 0
+          ? peakMaxConcurrentCompactions - runningCompactions.get() : Integer.MAX_VALUE;
+      int largeIdle = getIdleThreads(largeCompactions);
+      int smallIdle = getIdleThreads(smallCompactions);
+      while (slots > 0 && !deferredCompactions.isEmpty()) {
+        CompactionRunner runner = deferredCompactions.peek();
+        if (runner.parent == largeCompactions) {
+          if (largeIdle <= 0) {
+            break;
+          }
+          largeIdle--;
+        } else {
+          if (smallIdle <= 0) {
+            break;
+          }
+          smallIdle--;
+        }
+        deferredCompactions.poll();
+        slots--;
+        // the released compactions check again whether the I/O is busy when they start
+        runner.parent.execute(runner);
+      }
+    }
+  }
+
+  private static int getIdleThreads(ThreadPoolExecutor pool) {
+    return pool.getMaximumPoolSize() - pool.getActiveCount() - pool.getQueue().size();
   }
 
   @Override
@@ -151,6 +276,7 @@ public class CompactSplitThread implements CompactionRequestor {
     return "compaction_queue=("
         + largeCompactions.getQueue().size() + ":"
         + smallCompactions.getQueue().size() + ")"
+        + ", deferred_compaction_queue=" + getDeferredCompactionQueueSize()
         + ", split_queue=" + splits.getQueue().size()
         + ", merge_queue=" + mergePool.getQueue().size();
   }
@@ -177,6 +303,15 @@ public class CompactSplitThread implements CompactionRequestor {
       }
     }
 
+    queueLists.append("\n");
+    queueLists.append("  Deferred Compaction Queue:\n");
+    synchronized (deferredCompactions) {
+      for (CompactionRunner runner : deferredCompactions) {
+        queueLists.append("    " + runner.toString());
+        queueLists.append("\n");
+      }
+    }
+
     queueLists.append("\n");
     queueLists.append("  Split Queue:\n");
     lq = splits.getQueue();
@@ -358,6 +493,7 @@ public class CompactSplitThread implements CompactionRequestor {
    * Only interrupt once it's done with a run through the work loop.
    */
   void interruptIfNecessary() {
+    deferredCompactionsChecker.shutdown();
     splits.shutdown();
     mergePool.shutdown();
     largeCompactions.shutdown();
@@ -380,6 +516,7 @@ public class CompactSplitThread implements CompactionRequestor {
   }
 
   void join() {
+    waitFor(deferredCompactionsChecker, "Deferred Compactions Checker");
     waitFor(splits, "Split Thread");
     waitFor(mergePool, "Merge Thread");
     waitFor(largeCompactions, "Large Compaction Thread");
@@ -393,7 +530,8 @@ public class CompactSplitThread implements CompactionRequestor {
    * @return The current size of the regions queue.
    */
   public int getCompactionQueueSize() {
-    return largeCompactions.getQueue().size() + smallCompactions.getQueue().size();
+    return largeCompactions.getQueue().size() + smallCompactions.getQueue().size()
+        + getDeferredCompactionQueueSize();
   }
 
   public int getLargeCompactionQueueSize() {
@@ -405,6 +543,12 @@ public class CompactSplitThread implements CompactionRequestor {
     return smallCompactions.getQueue().size();
   }
 
+  public int getDeferredCompactionQueueSize() {
+    synchronized (deferredCompactions) {
+      return deferredCompactions.size();
+    }
+  }
+
   public int getSplitQueueSize() {
     return splits.getQueue().size();
   }
@@ -429,6 +573,8 @@ public class CompactSplitThread implements CompactionRequestor {
     private final HRegion region;
     private CompactionContext compaction;
     private int queuedPriority;
+    /** store files removed per byte rewritten */
+    private double costBenefit;
     private ThreadPoolExecutor parent;
 
     public CompactionRunner(Store store, HRegion region,
@@ -440,6 +586,21 @@ public class CompactSplitThread implements CompactionRequestor {
       this.queuedPriority = (this.compaction == null)
           ? store.getCompactPriority() : compaction.getRequest().getPriority();
       this.parent = parent;
+      updateCostBenefit();
+    }
+
+    private void updateCostBenefit() {
+      int fileCount;
+      long size;
+      if (this.compaction == null) {
+        // no selection yet, estimate with the whole store
+        fileCount = store.getStorefilesCount();
+        size = store.getStorefilesSize();
+      } else {
+        fileCount = compaction.getRequest().getFiles().size();
+        size = compaction.getRequest().getSize();
+      }
+      this.costBenefit = (fileCount - 1) / (double) Math.max(1, size);
     }
 
     @Override
@@ -462,9 +623,15 @@ public class CompactSplitThread implements CompactionRequestor {
         if (this.queuedPriority > oldPriority) {
           // Store priority decreased while we were in queue (due to some other compaction?),
           // requeue with new priority to avoid blocking potential higher priorities.
+          updateCostBenefit();
           this.parent.execute(this);
           return;
         }
+        if (this.queuedPriority > Store.PRIORITY_USER && isIoBusy()) {
+          updateCostBenefit();
+          deferCompaction(this);
+          return;
+        }
         try {
           this.compaction = selectCompaction(this.region, this.store, queuedPriority, null);
         } catch (IOException ex) {
@@ -482,6 +649,7 @@ public class CompactSplitThread implements CompactionRequestor {
           this.store.cancelRequestedCompaction(this.compaction);
           this.compaction = null;
           this.parent = pool;
+          updateCostBenefit();
           this.parent.execute(this);
           return;
         }
@@ -490,6 +658,7 @@ public class CompactSplitThread implements CompactionRequestor {
       assert this.compaction != null;
 
       this.compaction.getRequest().beforeExecute();
+      runningCompactions.incrementAndGet();
       try {
         // Note: please don't put single-compaction logic here;
         //       put it into region/store/etc. This is CST logic.
@@ -518,6 +687,7 @@ public class CompactSplitThread implements CompactionRequestor {
         LOG.error("Compaction failed " + this, ex);
         server.checkFileSystem();
       } finally {
+        runningCompactions.decrementAndGet();
         LOG.debug("CompactSplitThread Status: " + CompactSplitThread.this);
       }
       this.compaction.getRequest().afterExecute();
@@ -534,7 +704,16 @@ public class CompactSplitThread implements CompactionRequestor {
     @Override
     public int compareTo(CompactionRunner o) {
       // Only compare the underlying request (if any), for queue sorting purposes.
-      int compareVal = queuedPriority - o.queuedPriority; // compare priority
+      int compareVal;
+      if (costBenefitOrdering) {
+        // blocking and user requested compactions first, the others by cost/benefit
+        int urgency = Math.min(queuedPriority, Store.PRIORITY_USER + 1);
+        int otherUrgency = Math.min(o.queuedPriority, Store.PRIORITY_USER + 1);
+        if (urgency != otherUrgency) return urgency < otherUrgency ? -1 : 1;
+        compareVal = Double.compare(o.costBenefit, costBenefit);
+      } else {
+        compareVal = queuedPriority - o.queuedPriority; // compare priority
+      }
       if (compareVal != 0) return compareVal;
       CompactionContext tc = this.compaction, oc = o.compaction;
       // Sort pre-selected (user?) compactions before system ones with equal priority.
@@ -0,0 +1,86 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * A {@link FlushPolicy} that only flushes the stores whose memstore is larger than
+ * {@value #HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND}, along with the stores holding edits
+ * too old or too far behind the region sequence id (see {@link HRegion#shouldFlushStore(Store)}).
+ * Small stores, e.g. of a metadata family, are not flushed into many small files whenever a
+ * large family fills the region memstore. If no store qualifies, all the stores are flushed.
+ * The bound can be set per table in the table configuration.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.CONFIG)
+public class FlushLargeStoresPolicy extends FlushPolicy {
+  private static final Log LOG = LogFactory.getLog(FlushLargeStoresPolicy.class);
+
+  public static final String HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND =
+      "hbase.hregion.percolumnfamilyflush.size.lower.bound";
+
+  private static final long DEFAULT_HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND =
+      1024 * 1024 * 16L;
+
+  private long flushSizeLowerBound;
+
+  @Override
+  protected void configureForRegion(HRegion region) {
+    super.configureForRegion(region);
+    this.flushSizeLowerBound = getConf().getLong(HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND,
+        DEFAULT_HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND);
+  }
+
+  private boolean shouldFlush(Store store) {
+    if (store.getMemStoreSize() > this.flushSizeLowerBound) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Flush column family " + store.getColumnFamilyName() + " of " +
+            region.getRegionInfo().getEncodedName() + " because memstoreSize=" +
+            StringUtils.humanReadableInt(store.getMemStoreSize()) + " > lower bound=" +
+            StringUtils.humanReadableInt(this.flushSizeLowerBound));
+      }
+      return true;
+    }
+    return region.shouldFlushStore(store);
+  }
+
+  @Override
+  protected Collection<Store> selectStoresToFlush() {
+    Collection<Store> stores = region.getStores().values();
+    List<Store> specificStoresToFlush = new ArrayList<Store>();
+    for (Store store : stores) {
+      if (shouldFlush(store)) {
+        specificStoresToFlush.add(store);
+      }
+    }
+    if (specificStoresToFlush.isEmpty()) {
+      // the region is large as a whole; no store is left behind
+      return stores;
+    }
+    return specificStoresToFlush;
+  }
+}
@@ -32,6 +32,15 @@ public interface FlushRequester {
    * @param region the HRegion requesting the cache flush
    */
   void requestFlush(HRegion region);
+
+  /**
+   * Tell the listener the cache needs to be flushed.
+   *
+   * @param region the HRegion requesting the cache flush
+   * @param forceFlushAllStores whether we want to flush all the stores, e.g. to let the
+   * oldest log go, rather than the ones selected by the flush policy of the region
+   */
+  void requestFlush(HRegion region, boolean forceFlushAllStores);
   /**
    * Tell the listener the cache needs to be flushed after a delay
    *
@@ -39,6 +39,7 @@ import java.util.NavigableSet;
 import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
@@ -138,6 +139,7 @@ import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
 import org.apache.hadoop.hbase.regionserver.wal.HLogSplitter;
 import org.apache.hadoop.hbase.regionserver.wal.HLogSplitter.MutationReplay;
 import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
+import org.apache.hadoop.hbase.regionserver.wal.ProtobufLogReader;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.snapshot.SnapshotDescriptionUtils;
 import org.apache.hadoop.hbase.snapshot.SnapshotManifest;
@@ -257,6 +259,16 @@ public class HRegion implements HeapSize { // , Writable{
 	 */
   private final TransactionTimestamp latestTransactionTimestamp = new TransactionTimestamp(); 
 
+  /**
+   * A Get naming this family also returns the region transaction clock, as the value of a
+   * synthetic cell. Tables used this way declare the family.
+   * @deprecated read the clocks through {@link TransactionClockEndpoint} instead
+   */
+  @Deprecated
+  static final byte[] LOCAL_COUNTER_FAMILY = Bytes.toBytes("GET_LOCAL_COUNTER");
+  @Deprecated
+  static final byte[] LOCAL_COUNTER_QUALIFIER = Bytes.toBytes("COUNTER_VALUE");
+
 
   //////////////////////////////////////////////////////////////////////////////
   // Members
@@ -368,6 +380,13 @@ public class HRegion implements HeapSize { // , Writable{
   // when a region is in recovering state, it can only accept writes not reads
   private volatile boolean isRecovering = false;
 
+  /**
+   * @return the lock held in shared mode by updates and in exclusive mode by flushes
+   */
+  ReentrantReadWriteLock getUpdatesLock() {
+    return this.updatesLock;
+  }
+
   /**
    * @return The smallest mvcc readPoint across all the scanners in this
    * region. Writes older than this readPoint, are included  in every
@@ -534,6 +553,7 @@ public class HRegion implements HeapSize { // , Writable{
 
   private HTableDescriptor htableDescriptor = null;
   private RegionSplitPolicy splitPolicy;
+  private FlushPolicy flushPolicy;
 
   private final MetricsRegion metricsRegion;
   private final MetricsRegionWrapperImpl metricsRegionWrapper;
@@ -772,6 +792,9 @@ public class HRegion implements HeapSize { // , Writable{
     // Initialize split policy
     this.splitPolicy = RegionSplitPolicy.create(this, conf);
 
+    // Initialize flush policy
+    this.flushPolicy = FlushPolicy.create(this, conf);
+
     this.lastFlushTime = EnvironmentEdgeManager.currentTimeMillis();
     // Use maximum of log sequenceid or that which was found in stores
     // (particularly if no recovered edits, seqid will be -1).
@@ -840,6 +863,7 @@ public class HRegion implements HeapSize { // , Writable{
           if (maxStoreMemstoreTS > maxMemstoreTS) {
             maxMemstoreTS = maxStoreMemstoreTS;
           }
+          latestTransactionTimestamp.restore(store.getMaxTransactionTimestamp());
         }
         allStoresOpened = true;
       } catch (InterruptedException e) {
@@ -1009,7 +1033,7 @@ public class HRegion implements HeapSize { // , Writable{
   public void setRecovering(boolean newState) {
     boolean wasRecovering = this.isRecovering;
     this.isRecovering = newState;
-    if (wasRecovering && !isRecovering) {
+    if (wasRecovering && !isRecovering && coprocessorHost != null) {
       // Call only when log replay is over.
       coprocessorHost.postLogReplay();
     }
@@ -1113,6 +1137,16 @@ public class HRegion implements HeapSize { // , Writable{
    */
   public static final long MAX_FLUSH_PER_CHANGES = 1000000000; // 1G
 
+  /** Conf key for the number of cells replayed from recovered edits per batch */
+  public static final String RECOVERED_EDITS_REPLAY_BATCH_SIZE =
+      "hbase.hregion.recovered.edits.replay.batch.size";
+  public static final int DEFAULT_RECOVERED_EDITS_REPLAY_BATCH_SIZE = 10000;
+
+  /** Conf key for the max number of threads adding the recovered edits to the stores */
+  public static final String RECOVERED_EDITS_REPLAY_THREADS_MAX =
+      "hbase.hregion.recovered.edits.replay.threads.max";
+  public static final int DEFAULT_RECOVERED_EDITS_REPLAY_THREADS_MAX = 8;
+
   /**
    * Close down this HRegion.  Flush the cache unless abort parameter is true,
    * Shut down each HStore, don't service any more calls.
@@ -1604,6 +1638,19 @@ public class HRegion implements HeapSize { // , Writable{
    * caller MUST abort after this.
    */
   public FlushResult flushcache() throws IOException {
+    return flushcache(true);
+  }
+
+  /**
+   * Flush the cache of all the stores, or of the stores selected by the flush policy of the
+   * region.
+   * @param forceFlushAllStores whether to flush all the stores
+   * @return object describing the flush's state
+   * @throws IOException general io exceptions
+   * @throws DroppedSnapshotException Thrown when replay of wal is required
+   * @see #flushcache()
+   */
+  public FlushResult flushcache(boolean forceFlushAllStores) throws IOException {
     // fail-fast instead of waiting on the lock
     if (this.closing.get()) {
       String msg = "Skipping flush on " + this + " because closing";
@@ -1646,7 +1693,8 @@ public class HRegion implements HeapSize { // , Writable{
         }
       }
       try {
-        FlushResult fs = internalFlushcache(status);
+        FlushResult fs = forceFlushAllStores ? internalFlushcache(status) :
+            internalFlushcache(this.log, -1, this.flushPolicy.selectStoresToFlush(), status);
 
         if (coprocessorHost != null) {
           status.setStatus("Running post-flush coprocessor hooks");
@@ -1696,6 +1744,24 @@ public class HRegion implements HeapSize { // , Writable{
     return false;
   }
 
+  /**
+   * Should the memstore of the store be flushed now, even if it is small
+   * @see #shouldFlush()
+   */
+  boolean shouldFlushStore(Store store) {
+    long earliest = this.log == null ? HConstants.NO_SEQNUM :
+        this.log.getEarliestMemstoreSeqNum(getRegionInfo().getEncodedNameAsBytes(),
+            store.getFamily().getName());
+    if (earliest > 0 && earliest + this.flushPerChanges < this.sequenceId.get()) {
+      return true;
+    }
+    if (flushCheckInterval <= 0) { //disabled
+      return false;
+    }
+    long now = EnvironmentEdgeManager.currentTimeMillis();
+    return store.timeOfOldestEdit() < now - flushCheckInterval;
+  }
+
   /**
    * Flush the memstore.
    *
@@ -1747,6 +1813,26 @@ public class HRegion implements HeapSize { // , Writable{
    */
   protected FlushResult internalFlushcache(
       final HLog wal, final long myseqid, MonitoredTask status)
+  throws IOException {
+    return internalFlushcache(wal, myseqid, stores.values(), status);
+  }
+
+  /**
+   * Flushes the given stores. When some stores are not flushed, the edits of the region
+   * older than the flush are not all persisted: the sequence id recorded as flushed for the
+   * region is then the one before the oldest edit left in the memstores, while the flushed
+   * files carry the sequence id of the flush.
+   * @param wal Null if we're NOT to go via hlog/wal.
+   * @param myseqid The seqid to use if <code>wal</code> is null writing out
+   * flush file.
+   * @param storesToFlush the stores to flush
+   * @param status
+   * @return object describing the flush's state
+   * @throws IOException
+   * @see #internalFlushcache(HLog, long, MonitoredTask)
+   */
+  protected FlushResult internalFlushcache(final HLog wal, final long myseqid,
+      final Collection<Store> storesToFlush, MonitoredTask status)
   throws IOException {
     if (this.rsServices != null && this.rsServices.isAborted()) {
       // Don't flush when server aborting, it's unsafe
@@ -1762,9 +1848,17 @@ public class HRegion implements HeapSize { // , Writable{
       return new FlushResult(FlushResult.Result.CANNOT_FLUSH_MEMSTORE_EMPTY, "Nothing to flush");
     }
 
+    boolean flushAllStores = storesToFlush.size() == stores.size();
+    TreeSet<byte[]> flushedFamilyNames = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+    for (Store store : storesToFlush) {
+      flushedFamilyNames.add(store.getFamily().getName());
+    }
+
     LOG.info("Started memstore flush for " + this +
       ", current region memstore size " +
       StringUtils.humanReadableInt(this.memstoreSize.get()) +
+      (flushAllStores ? "" : ", flushing " + storesToFlush.size() + " of " + stores.size() +
+        " stores") +
       ((wal != null)? "": "; wal is null, using passed sequenceid=" + myseqid));
 
     // Stop updates while we snapshot the memstore of all stores. We only have
@@ -1788,25 +1882,38 @@ public class HRegion implements HeapSize { // , Writable{
         = new TreeMap<byte[], StoreFlushContext>(Bytes.BYTES_COMPARATOR);
     TreeMap<byte[], Long> storeFlushableSize = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
     long flushSeqId = -1L;
+    // the edits of the region up to this one are all persisted
+    long flushedSeqId = -1L;
     try {
       // Record the mvcc for all transactions in progress.
       w = mvcc.beginMemstoreInsert();
       mvcc.advanceMemstore(w);
       // check if it is not closing.
       if (wal != null) {
-        if (!wal.startCacheFlush(this.getRegionInfo().getEncodedNameAsBytes())) {
+        if (!wal.startCacheFlush(this.getRegionInfo().getEncodedNameAsBytes(),
+            flushAllStores ? null : flushedFamilyNames)) {
           String msg = "Flush will not be started for ["
               + this.getRegionInfo().getEncodedName() + "] - because the WAL is closing.";
           status.setStatus(msg);
           return new FlushResult(FlushResult.Result.CANNOT_FLUSH, msg);
         }
         flushSeqId = this.sequenceId.incrementAndGet();
+        flushedSeqId = flushSeqId;
+        if (!flushAllStores) {
+          // the stores not flushed still hold edits older than the flush
+          long earliestUnflushed =
+              wal.getEarliestMemstoreSeqNum(this.getRegionInfo().getEncodedNameAsBytes());
+          if (earliestUnflushed != HConstants.NO_SEQNUM) {
+            flushedSeqId = Math.min(flushSeqId, earliestUnflushed - 1);
+          }
+        }
       } else {
         // use the provided sequence Id as WAL is not being used for this flush.
         flushSeqId = myseqid;
+        flushedSeqId = myseqid;
       }
 
-      for (Store s : stores.values()) {
+      for (Store s : storesToFlush) {
         totalFlushableSize += s.getFlushableSize();
         byte[] storeName = s.getFamily().getName();
         storeFlushCtxs.put(storeName, s.createFlushContext(flushSeqId));
@@ -1912,7 +2019,7 @@ public class HRegion implements HeapSize { // , Writable{
     this.lastFlushTime = EnvironmentEdgeManager.currentTimeMillis();
 
     // Update the last flushed sequence id for region
-    completeSequenceId = flushSeqId;
+    completeSequenceId = flushedSeqId;
 
     // C. Finally notify anyone waiting on memstore to clear:
     // e.g. checkResources().
@@ -2349,6 +2456,7 @@ public class HRegion implements HeapSize { // , Writable{
         if (!initialized) {
           this.writeRequestsCount.add(batchOp.operations.length);
           if (!batchOp.isInReplay()) {
+            checkTransactionalWrites(batchOp);
             doPreMutationHook(batchOp);
           }
           initialized = true;
@@ -2366,6 +2474,30 @@ public class HRegion implements HeapSize { // , Writable{
   }
 
 
+  /**
+   * Singleton and Omid transactional writes are timestamped by the region transaction clock,
+   * which is only complete once the log replay is over, so they wait for the end of the
+   * recovery even when plain writes are allowed.
+   * @throws RegionInRecoveryException if the region is recovering and the batch carries a
+   *           singleton or transactional mutation
+   */
+  private void checkTransactionalWrites(BatchOperationInProgress<?> batchOp)
+      throws RegionInRecoveryException {
+    if (!isRecovering()) {
+      return;
+    }
+    for (int i = 0; i < batchOp.operations.length; i++) {
+      checkTransactionalWrite(batchOp.getMutation(i));
+    }
+  }
+
+  private void checkTransactionalWrite(Mutation mutation) throws RegionInRecoveryException {
+    if (isRecovering() && mutation.getTimeStamp() != HConstants.LATEST_TIMESTAMP) {
+      throw new RegionInRecoveryException(this.getRegionNameAsString() +
+          " is recovering; cannot take transactional writes");
+    }
+  }
+
   private void doPreMutationHook(BatchOperationInProgress<?> batchOp)
       throws IOException {
     /* Run coprocessor pre hook outside of locks to avoid deadlock */
@@ -2433,6 +2565,10 @@ public class HRegion implements HeapSize { // , Writable{
     int lastIndexExclusive = firstIndex;
     boolean success = false;
     int noOfPuts = 0, noOfDeletes = 0;
+    // whether this mini-batch carries singleton or Omid transaction timestamps
+    boolean hasTransactionalMutations = false;
+    // rows of the singleton commits in this mini-batch
+    Set<byte[]> singletonRows = null;
     try {
       // ------------------------------------
       // STEP 1. Try to acquire as many locks as we can, and ensure
@@ -2443,6 +2579,18 @@ public class HRegion implements HeapSize { // , Writable{
       while (lastIndexExclusive < batchOp.operations.length) {
         Mutation mutation = batchOp.getMutation(lastIndexExclusive);
         boolean isPutMutation = mutation instanceof Put;
+        if (!isInReplay && isSingletonCommit(mutation)
+            && batchOp.retCodeDetails[lastIndexExclusive].getOperationStatusCode()
+              == OperationStatusCode.NOT_RUN) {
+          if (singletonRows == null) {
+            singletonRows = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+          }
+          // A second singleton commit on the same row must see the first one applied, so it
+          // is left for the next mini-batch.
+          if (!singletonRows.add(mutation.getRow())) {
+            break;
+          }
+        }
 
         Map<byte[], List<Cell>> familyMap = mutation.getFamilyCellMap();
         // store the family map reference to allow for mutations
@@ -2537,6 +2685,12 @@ public class HRegion implements HeapSize { // , Writable{
       // Nothing to put/delete -- an exception in the above such as NoSuchColumnFamily?
       if (numReadyToWrite <= 0) return 0L;
 
+      // Check all the singleton commits of this mini-batch under the row locks we hold
+      if (singletonRows != null) {
+        numReadyToWrite -= checkSingletonCommits(batchOp, firstIndex, lastIndexExclusive);
+        if (numReadyToWrite <= 0) return 0L;
+      }
+
       // We've now grabbed as many mutations off the list as we can
 
       // ------------------------------------
@@ -2551,6 +2705,7 @@ public class HRegion implements HeapSize { // , Writable{
         long curTS = latestTransactionTimestamp.updateByMutatation(mutation);
         if (mutation.getTimeStamp() != HConstants.LATEST_TIMESTAMP)  { // mutation is either a singleton or part of an Omid txn
           byteNow = Bytes.toBytes(curTS);
+          hasTransactionalMutations = true;
         }
         
         //TransactionTimestamp.updateMutationTS(mutation,latestTransactionTimestamp);
@@ -2665,6 +2820,11 @@ public class HRegion implements HeapSize { // , Writable{
       // -------------------------
       Mutation mutation = batchOp.getMutation(firstIndex);
       if (walEdit.size() > 0) {
+        if (hasTransactionalMutations && !isInReplay) {
+          // record the region clock so that recovery can restore it
+          walEdit.add(WALEdit.createTransactionClock(this.getRegionInfo(),
+              latestTransactionTimestamp.get()));
+        }
         txid = this.log.appendNoSync(this.getRegionInfo(), this.htableDescriptor.getTableName(),
               walEdit, mutation.getClusterIds(), now, this.htableDescriptor, this.sequenceId,
               true, currentNonceGroup, currentNonce);
@@ -2678,7 +2838,7 @@ public class HRegion implements HeapSize { // , Writable{
         this.updatesLock.readLock().unlock();
         locked = false;
       }
-      releaseRowLocks(acquiredRowLocks);
+      releaseRowLocks(acquiredRowLocks, w);
 
       // -------------------------
       // STEP 7. Sync wal.
@@ -2833,22 +2993,21 @@ public class HRegion implements HeapSize { // , Writable{
     
     startRegionOperation();
     try {
+      checkTransactionalWrite(w);
       Get get = new Get(row);
       checkFamily(family);
       if (!isSingleton) 
     	  get.addColumn(family, qualifier);
       else {
-    	  //get.addColumn(family, CellUtils.addShadowCellSuffix(qualifier));
-    	  List<Cell> cells = w.getFamilyCellMap().values().iterator().next();
-    	  get.addColumn(family, CellUtil.cloneQualifier(cells.get(0))); //get cell
-    	  get.addColumn(family, CellUtil.cloneQualifier(cells.get(1))); //get shadow cell
+    	  addSingletonCheckColumns(get, family, w);
       }
 
       
       // Lock row - note that doBatchMutate will relock this row if called
       RowLock rowLock = getRowLock(get.getRow());
-      // wait for all previous transactions to complete (with lock held)
-      mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+      // wait for the previous writes to this row to complete (with lock held)
+      waitForRowWrites(rowLock);
+      get.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
       try {
         if (this.getCoprocessorHost() != null) {
           Boolean processed = null;
@@ -2863,7 +3022,14 @@ public class HRegion implements HeapSize { // , Writable{
             return processed;
           }
         }
-        List<Cell> result = get(get, false);
+        List<Cell> result;
+        if (isRMWTxn) {
+          result = getNewestForConflictCheck(get, family, qualifier);
+        } else if (isSingleton) {
+          result = getSingletonCheckCells(get, family, w);
+        } else {
+          result = get(get, false);
+        }
 
         boolean matches = false;
         long cellTs = 0;
@@ -2871,42 +3037,7 @@ public class HRegion implements HeapSize { // , Writable{
 
 
         if (isSingleton) {
-
-          long wcTS = 0;
-        	// Check whether the last value is tentative or committed
-          for (List<Cell> cells: w.getFamilyCellMap().values()) {
-            if (cells == null) continue;
-            assert cells instanceof RandomAccess;
-            int listSize = cells.size();
-            for (int i=0; i < listSize; i++) {
-              Cell cell = cells.get(i);
-              if (cell.getTimestamp() != HConstants.LATEST_TIMESTAMP && cell.getTimestamp() !=  TransactionTimestamp.SINGLETON_TIMESTAMP ){
-                wcTS = cell.getTimestamp();
-                KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
-                Bytes.putLong(kv.getValueArray(), kv.getTimestampOffset(), HConstants.LATEST_TIMESTAMP);
-              }
-            }
-          }
-
-          if (wcTS == 0) {
-            //BRC
-            if (result.size() == 2 && result.get(0).getTimestamp() == result.get(1).getTimestamp())
-              matches = true;
-            else if (result.size() == 0)
-              matches = true;
-            else
-              matches = false;
-          } else {
-            //WC
-            if (result.size() == 2 && result.get(0).getTimestamp() == result.get(1).getTimestamp()
-                    && result.get(1).getTimestamp() <= wcTS)
-              matches = true;
-            else if (result.size() == 0)
-              matches = true;
-            else
-              matches = false;
-          }
-
+          matches = singletonCheckMatches(result, prepareSingletonCells(w));
         } else {
 	        
 	        
@@ -3013,8 +3144,9 @@ public class HRegion implements HeapSize { // , Writable{
 
       // Lock row - note that doBatchMutate will relock this row if called
       RowLock rowLock = getRowLock(get.getRow());
-      // wait for all previous transactions to complete (with lock held)
-      mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+      // wait for the previous writes to this row to complete (with lock held)
+      waitForRowWrites(rowLock);
+      get.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
       try {
         List<Cell> result = get(get, false);
 
@@ -3090,6 +3222,155 @@ public class HRegion implements HeapSize { // , Writable{
     }
   }
 
+  /**
+   * Adds the columns read by a singleton check to <code>get</code>: the first cell of the
+   * singleton mutation is the data cell and the second one is its shadow cell.
+   */
+  private static void addSingletonCheckColumns(Get get, byte[] family, Mutation w) {
+    List<Cell> cells = w.getFamilyCellMap().values().iterator().next();
+    get.addColumn(family, CellUtil.cloneQualifier(cells.get(0))); //get cell
+    get.addColumn(family, CellUtil.cloneQualifier(cells.get(1))); //get shadow cell
+  }
+
+  /**
+   * Reads the newest versions of the cell and the shadow cell checked by a singleton commit.
+   * When the family declares co-located shadow cells (see
+   * {@link HColumnDescriptor#getShadowCellSuffix()}) the store looks both columns up together,
+   * with one seek per store file. Otherwise, or when the family has a TTL or either column ends
+   * with a delete marker, the two-column get built by {@link #addSingletonCheckColumns} is used.
+   */
+  private List<Cell> getSingletonCheckCells(Get get, byte[] family, Mutation w)
+      throws IOException {
+    Store store = getStore(family);
+    byte[] suffix = store.getFamily().getShadowCellSuffix();
+    List<Cell> cells = w.getFamilyCellMap().values().iterator().next();
+    byte[] qualifier = CellUtil.cloneQualifier(cells.get(0));
+    byte[] shadowQualifier = CellUtil.cloneQualifier(cells.get(1));
+    if (suffix == null || store.getScanInfo().getTtl() != Long.MAX_VALUE
+        || !Bytes.equals(shadowQualifier, Bytes.add(qualifier, suffix))) {
+      return get(get, false);
+    }
+    KeyValue[] newest = store.getNewestInColumns(get.getRow(),
+        new byte[][] { qualifier, shadowQualifier }, getReadpoint(get.getIsolationLevel()));
+    List<Cell> result = new ArrayList<Cell>(newest.length);
+    for (KeyValue kv : newest) {
+      if (kv == null) {
+        continue;
+      }
+      if (CellUtil.isDelete(kv)) {
+        return get(get, false);
+      }
+      result.add(kv);
+    }
+    return result;
+  }
+
+  /**
+   * Resets the commit timestamp of a write-commit (WC) singleton so that the cells are stamped
+   * with the local transaction timestamp when applied.
+   * @return the commit timestamp found in the mutation, or 0 for a begin-read-commit (BRC)
+   */
+  private static long prepareSingletonCells(Mutation w) {
+    long wcTS = 0;
+    // Check whether the last value is tentative or committed
+    for (List<Cell> cells: w.getFamilyCellMap().values()) {
+      if (cells == null) continue;
+      assert cells instanceof RandomAccess;
+      int listSize = cells.size();
+      for (int i=0; i < listSize; i++) {
+        Cell cell = cells.get(i);
+        if (cell.getTimestamp() != HConstants.LATEST_TIMESTAMP
+            && cell.getTimestamp() != TransactionTimestamp.SINGLETON_TIMESTAMP) {
+          wcTS = cell.getTimestamp();
+          KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
+          Bytes.putLong(kv.getValueArray(), kv.getTimestampOffset(), HConstants.LATEST_TIMESTAMP);
+        }
+      }
+    }
+    return wcTS;
+  }
+
+  /**
+   * @param result the latest versions of the cell and its shadow cell
+   * @param wcTS the commit timestamp of a WC singleton, 0 for a BRC singleton
+   * @return true if the last write to the cell is committed (and, for WC, not newer than wcTS)
+   */
+  private static boolean singletonCheckMatches(List<Cell> result, long wcTS) {
+    if (result.size() == 0) {
+      return true;
+    }
+    if (result.size() != 2 || result.get(0).getTimestamp() != result.get(1).getTimestamp()) {
+      return false;
+    }
+    //BRC if wcTS is 0, WC otherwise
+    return wcTS == 0 || result.get(1).getTimestamp() <= wcTS;
+  }
+
+  /**
+   * Reads the newest version of a column for the conflict check of an RMW transaction. The
+   * store answers from its memstore and store file metadata (see
+   * {@link Store#getNewestInColumn(byte[], byte[], long)}), without a RegionScanner. Falls back
+   * to a regular get when the family has a TTL or when the newest cell is a delete marker.
+   */
+  private List<Cell> getNewestForConflictCheck(Get get, byte[] family, byte[] qualifier)
+      throws IOException {
+    Store store = getStore(family);
+    if (store.getScanInfo().getTtl() != Long.MAX_VALUE) {
+      return get(get, false);
+    }
+    KeyValue newest = store.getNewestInColumn(get.getRow(), qualifier,
+        getReadpoint(get.getIsolationLevel()));
+    if (newest != null && CellUtil.isDelete(newest)) {
+      return get(get, false);
+    }
+    List<Cell> result = new ArrayList<Cell>(1);
+    if (newest != null) {
+      result.add(newest);
+    }
+    return result;
+  }
+
+  /**
+   * @return true if <code>m</code> is a singleton commit sent through a batch call
+   * @see HConstants#SINGLETON_COMMIT_ATTRIBUTE
+   */
+  private static boolean isSingletonCommit(Mutation m) {
+    return m instanceof Put && m.getAttribute(HConstants.SINGLETON_COMMIT_ATTRIBUTE) != null;
+  }
+
+  /**
+   * Runs the singleton check for every singleton commit in [firstIndex, lastIndexExclusive).
+   * The caller holds the row locks of the whole mini-batch.
+   * Mutations whose check fails are marked {@link OperationStatusCode#CHECK_FAILED}.
+   * @return the number of mutations that failed the check
+   */
+  private int checkSingletonCommits(BatchOperationInProgress<?> batchOp, int firstIndex,
+      int lastIndexExclusive) throws IOException {
+    int failed = 0;
+    for (int i = firstIndex; i < lastIndexExclusive; i++) {
+      if (batchOp.retCodeDetails[i].getOperationStatusCode() != OperationStatusCode.NOT_RUN) {
+        continue;
+      }
+      Mutation m = batchOp.getMutation(i);
+      if (!isSingletonCommit(m)) continue;
+      // wait for the previous writes to this row to complete (with lock held)
+      mvcc.waitForRowWrites(new HashedBytes(m.getRow()));
+      byte[] family = m.getFamilyCellMap().firstKey();
+      Get get = new Get(m.getRow());
+      get.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
+      addSingletonCheckColumns(get, family, m);
+      List<Cell> result = getSingletonCheckCells(get, family, m);
+      if (singletonCheckMatches(result, prepareSingletonCells(m))) {
+        this.checkAndMutateChecksPassed.increment();
+      } else {
+        this.checkAndMutateChecksFailed.increment();
+        batchOp.retCodeDetails[i] = OperationStatus.CHECK_FAILED;
+        failed++;
+      }
+    }
+    return failed;
+  }
+
   private void doBatchMutate(Mutation mutation) throws IOException, DoNotRetryIOException {
     // Currently this is only called for puts and deletes, so no nonces.
     OperationStatus[] batchMutate = this.batchMutate(new Mutation[] { mutation },
@@ -3484,6 +3765,43 @@ public class HRegion implements HeapSize { // , Writable{
 
     if (files == null || files.isEmpty()) return seqid;
 
+    int maxThreads = Math.min(Math.max(1, this.htableDescriptor.getFamilies().size()),
+        conf.getInt(RECOVERED_EDITS_REPLAY_THREADS_MAX,
+            DEFAULT_RECOVERED_EDITS_REPLAY_THREADS_MAX));
+    ThreadPoolExecutor replayThreadPool = getOpenAndCloseThreadPool(maxThreads,
+        "RecoveredEditsReplay-" + this.getRegionInfo().getShortNameToLog());
+    try {
+      seqid = replayRecoveredEditsFiles(files, minSeqIdForTheRegion, maxSeqIdInStores, reporter,
+          replayThreadPool);
+    } finally {
+      replayThreadPool.shutdownNow();
+    }
+    // The edits size added into rsAccounting during this replaying will not
+    // be required any more. So just clear it.
+    if (this.rsAccounting != null) {
+      this.rsAccounting.clearRegionReplayEditsSize(this.getRegionName());
+    }
+    if (seqid > minSeqIdForTheRegion) {
+      // Then we added some edits to memory. Flush and cleanup split edit files.
+      internalFlushcache(null, seqid, status);
+    }
+    // Now delete the content of recovered edits.  We're done w/ them.
+    for (Path file: files) {
+      if (!fs.delete(file, false)) {
+        LOG.error("Failed delete of " + file);
+      } else {
+        LOG.debug("Deleted recovered.edits file=" + file);
+      }
+    }
+    return seqid;
+  }
+
+  private long replayRecoveredEditsFiles(final NavigableSet<Path> files,
+      final long minSeqIdForTheRegion, final Map<byte[], Long> maxSeqIdInStores,
+      final CancelableProgressable reporter, final ExecutorService replayThreadPool)
+      throws IOException {
+    long seqid = minSeqIdForTheRegion;
+    FileSystem fs = this.fs.getFileSystem();
     for (Path edits: files) {
       if (edits == null || !fs.exists(edits)) {
         LOG.warn("Null or non-existent edits file: " + edits);
@@ -3506,7 +3824,8 @@ public class HRegion implements HeapSize { // , Writable{
 
       try {
         // replay the edits. Replay can return -1 if everything is skipped, only update if seqId is greater
-        seqid = Math.max(seqid, replayRecoveredEdits(edits, maxSeqIdInStores, reporter));
+        seqid = Math.max(seqid, replayRecoveredEdits(edits, minSeqIdForTheRegion,
+            maxSeqIdInStores, reporter, replayThreadPool));
       } catch (IOException e) {
         boolean skipErrors = conf.getBoolean(
             HConstants.HREGION_EDITS_REPLAY_SKIP_ERRORS,
@@ -3528,37 +3847,28 @@ public class HRegion implements HeapSize { // , Writable{
         }
       }
     }
-    // The edits size added into rsAccounting during this replaying will not
-    // be required any more. So just clear it.
-    if (this.rsAccounting != null) {
-      this.rsAccounting.clearRegionReplayEditsSize(this.getRegionName());
-    }
-    if (seqid > minSeqIdForTheRegion) {
-      // Then we added some edits to memory. Flush and cleanup split edit files.
-      internalFlushcache(null, seqid, status);
-    }
-    // Now delete the content of recovered edits.  We're done w/ them.
-    for (Path file: files) {
-      if (!fs.delete(file, false)) {
-        LOG.error("Failed delete of " + file);
-      } else {
-        LOG.debug("Deleted recovered.edits file=" + file);
-      }
-    }
     return seqid;
   }
 
   /*
+   * The edits are read and sorted per store by the calling thread, while the previous batch of
+   * them is added to the memstores, one task per store, by <code>replayThreadPool</code>. The
+   * cells of the edits older than all the stores are skipped without being decoded, unless a
+   * region observer is loaded, in which case the edits are also added one at a time so that the
+   * observer sees them restored.
    * @param edits File of recovered edits.
+   * @param minSeqIdForTheRegion Minimum of the maximum sequenceids found in the stores.
    * @param maxSeqIdInStores Maximum sequenceid found in each store.  Edits in log
    * must be larger than this to be replayed for each store.
    * @param reporter
+   * @param replayThreadPool Threads adding the edits to the stores.
    * @return the sequence id of the last edit added to this region out of the
    * recovered edits log or <code>minSeqId</code> if nothing added from editlogs.
    * @throws IOException
    */
-  private long replayRecoveredEdits(final Path edits,
-      Map<byte[], Long> maxSeqIdInStores, final CancelableProgressable reporter)
+  private long replayRecoveredEdits(final Path edits, final long minSeqIdForTheRegion,
+      Map<byte[], Long> maxSeqIdInStores, final CancelableProgressable reporter,
+      final ExecutorService replayThreadPool)
     throws IOException {
     String msg = "Replaying edits from " + edits;
     LOG.info(msg);
@@ -3567,6 +3877,7 @@ public class HRegion implements HeapSize { // , Writable{
 
     status.setStatus("Opening logs");
     HLog.Reader reader = null;
+    RecoveredEditsApplier applier = null;
     try {
       reader = HLogFactory.createReader(fs, edits, conf);
       long currentEditSeqId = -1;
@@ -3578,6 +3889,15 @@ public class HRegion implements HeapSize { // , Writable{
       Store store = null;
       boolean reported_once = false;
       ServerNonceManager ng = this.rsServices == null ? null : this.rsServices.getNonceManager();
+      boolean observed = coprocessorHost != null
+          && !coprocessorHost.findCoprocessors(RegionObserver.class).isEmpty();
+      if (!observed && reader instanceof ProtobufLogReader
+          && ((ProtobufLogReader) reader).setSkipCellsUpTo(minSeqIdForTheRegion)) {
+        LOG.debug("Skipping the cells of the edits up to sequenceid " + minSeqIdForTheRegion);
+      }
+      applier = new RecoveredEditsApplier(replayThreadPool,
+          observed ? 1 : this.conf.getInt(RECOVERED_EDITS_REPLAY_BATCH_SIZE,
+              DEFAULT_RECOVERED_EDITS_REPLAY_BATCH_SIZE));
 
       try {
         // How many edits seen before we check elapsed time
@@ -3635,7 +3955,6 @@ public class HRegion implements HeapSize { // , Writable{
             }
           }
 
-          boolean flush = false;
           for (KeyValue kv: val.getKeyValues()) {
             // Check this edit is for me. Also, guard against writing the special
             // METACOLUMN info such as HBASE::CACHEFLUSH entries
@@ -3648,6 +3967,7 @@ public class HRegion implements HeapSize { // , Writable{
                 //replay the compaction
                 completeCompactionMarker(compaction);
               }
+              latestTransactionTimestamp.restore(WALEdit.getTransactionClock(kv));
 
               skippedEdits++;
               continue;
@@ -3669,14 +3989,22 @@ public class HRegion implements HeapSize { // , Writable{
               skippedEdits++;
               continue;
             }
-            // Once we are over the limit, restoreEdit will keep returning true to
-            // flush -- but don't flush until we've played all the kvs that make up
-            // the WALEdit.
-            flush |= restoreEdit(store, kv);
+            applier.add(store, kv);
             editsCount++;
           }
-          if (flush) {
-            internalFlushcache(null, currentEditSeqId, status);
+          // Batches only hold whole WALEdits, so that we never flush part of one.
+          if (applier.isFull()) {
+            boolean flush = applier.apply();
+            if (observed) {
+              // the observers see the edit restored when postWALRestore is called
+              flush |= applier.await();
+            }
+            if (flush) {
+              // Once we are over the limit, the batches keep asking to flush: flush all
+              // that is applied so far, up to this edit.
+              applier.await();
+              internalFlushcache(null, currentEditSeqId, status);
+            }
           }
 
           if (coprocessorHost != null) {
@@ -3706,6 +4034,11 @@ public class HRegion implements HeapSize { // , Writable{
           throw ioe;
         }
       }
+      // Add the edits read before the end of the file, or before a bad edit.
+      boolean flush = applier.apply();
+      if (applier.await() || flush) {
+        internalFlushcache(null, currentEditSeqId, status);
+      }
       if (reporter != null && !reported_once) {
         reporter.progress();
       }
@@ -3716,6 +4049,10 @@ public class HRegion implements HeapSize { // , Writable{
       LOG.debug(msg);
       return currentEditSeqId;
     } finally {
+      if (applier != null) {
+        // do not leave edits being added to the stores when failing
+        applier.cancel();
+      }
       status.cleanup();
       if (reader != null) {
          reader.close();
@@ -3742,16 +4079,108 @@ public class HRegion implements HeapSize { // , Writable{
 
   /**
    * Used by tests
-   * @param s Store to add edit too.
-   * @param kv KeyValue to add.
+   * @param s Store to add edits too.
+   * @param kvs KeyValues to add, all of the store.
    * @return True if we should flush.
    */
-  protected boolean restoreEdit(final Store s, final KeyValue kv) {
-    long kvSize = s.add(kv);
+  protected boolean restoreEdits(final Store s, final List<KeyValue> kvs) {
+    long kvsSize = s.add(kvs);
     if (this.rsAccounting != null) {
-      rsAccounting.addAndGetRegionReplayEditsSize(this.getRegionName(), kvSize);
+      rsAccounting.addAndGetRegionReplayEditsSize(this.getRegionName(), kvsSize);
+    }
+    return isFlushSize(this.addAndGetGlobalMemstoreSize(kvsSize));
+  }
+
+  /**
+   * Adds the edits replayed out of recovered edits files to the stores, in batches. The edits
+   * of a batch are sorted per store as they are read; the batch is then added to the stores,
+   * one task per store, while the next batch is read. A store gets the edits of a batch in
+   * the order they were read, and is only given one batch at a time.
+   */
+  private class RecoveredEditsApplier {
+    private final ExecutorService pool;
+    private final int batchSize;
+    private Map<Store, List<KeyValue>> batch = new HashMap<Store, List<KeyValue>>();
+    private int batchCells = 0;
+    private final List<Future<Boolean>> applying = new ArrayList<Future<Boolean>>();
+
+    RecoveredEditsApplier(final ExecutorService pool, final int batchSize) {
+      this.pool = pool;
+      this.batchSize = Math.max(1, batchSize);
+    }
+
+    void add(final Store store, final KeyValue kv) {
+      List<KeyValue> kvs = this.batch.get(store);
+      if (kvs == null) {
+        kvs = new ArrayList<KeyValue>();
+        this.batch.put(store, kvs);
+      }
+      kvs.add(kv);
+      this.batchCells++;
+    }
+
+    boolean isFull() {
+      return this.batchCells >= this.batchSize;
+    }
+
+    /**
+     * Waits for the batch being added to the stores, then starts adding the current one.
+     * @return True if we should flush, once the current batch is added.
+     */
+    boolean apply() throws IOException {
+      boolean flush = await();
+      for (final Map.Entry<Store, List<KeyValue>> e : this.batch.entrySet()) {
+        this.applying.add(this.pool.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            return restoreEdits(e.getKey(), e.getValue());
+          }
+        }));
+      }
+      this.batch = new HashMap<Store, List<KeyValue>>();
+      this.batchCells = 0;
+      return flush;
+    }
+
+    /**
+     * Waits for the batch being added to the stores.
+     * @return True if we should flush.
+     */
+    boolean await() throws IOException {
+      boolean flush = false;
+      IOException failure = null;
+      for (Future<Boolean> f : this.applying) {
+        try {
+          flush |= f.get();
+        } catch (InterruptedException e) {
+          if (failure == null) {
+            failure = (InterruptedIOException)new InterruptedIOException().initCause(e);
+          }
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = new IOException(e.getCause());
+          }
+        }
+      }
+      this.applying.clear();
+      if (failure != null) {
+        throw failure;
+      }
+      return flush;
+    }
+
+    /**
+     * Drops the current batch, and waits for the batch being added to the stores if any.
+     */
+    void cancel() {
+      this.batch.clear();
+      this.batchCells = 0;
+      try {
+        await();
+      } catch (IOException e) {
+        LOG.debug("Failed adding recovered edits to the stores while failing the replay", e);
+      }
     }
-    return isFlushSize(this.addAndGetGlobalMemstoreSize(kvSize));
   }
 
   /*
@@ -3918,6 +4347,29 @@ public class HRegion implements HeapSize { // , Writable{
     }
   }
 
+  /**
+   * Releases all the given row locks after recording their rows as written by the pending
+   * mvcc transaction <code>w</code>, so that row-scoped readers wait for it.
+   * @see MultiVersionConsistencyControl#waitForRowWrites(HashedBytes)
+   */
+  private void releaseRowLocks(List<RowLock> rowLocks, WriteEntry w) {
+    if (w != null) {
+      for (RowLock rowLock : rowLocks) {
+        mvcc.addRowWrite(w, rowLock.context.row);
+      }
+    }
+    releaseRowLocks(rowLocks);
+  }
+
+  /**
+   * Waits for the pending writes to a row we hold the lock of. Cheaper than waiting for all the
+   * pending writes of the region, but the row must then be read with
+   * {@link IsolationLevel#READ_UNCOMMITTED}.
+   */
+  private void waitForRowWrites(RowLock rowLock) {
+    mvcc.waitForRowWrites(rowLock.context.row);
+  }
+
   /**
    * Determines whether multiple column families are present
    * Precondition: familyPaths is not null
@@ -5179,18 +5631,31 @@ public class HRegion implements HeapSize { // , Writable{
         get.addFamily(family);
       }
     }
-    List<Cell> results = get(get, true);
-    for (Map.Entry<byte[],NavigableSet<byte[]>> family : get.getFamilyMap().entrySet()) {
-      //System.out.println("---YONIGO FAMILY " + Bytes.toString(family.getKey()));
-      if (Bytes.toString(family.getKey()).equals("GET_LOCAL_COUNTER"))
-      {
-        results.add(CellUtil.createCell(get.getRow(),Bytes.toBytes("GET_LOCAL_COUNTER"),Bytes.toBytes("COUNTER_VALUE")
-                ,latestTransactionTimestamp.get(),(byte)0,Bytes.toBytes(latestTransactionTimestamp.get())));
-      }
+    Map<byte[], NavigableSet<byte[]>> familyMap = get.getFamilyMap();
+    boolean readsLocalCounter = familyMap.containsKey(LOCAL_COUNTER_FAMILY);
+    List<Cell> results;
+    if (readsLocalCounter && familyMap.size() == 1) {
+      // only the clock was asked for, there is nothing to read from the stores
+      latestTransactionTimestamp.updateByGet(get);
+      results = new ArrayList<Cell>(1);
+    } else {
+      results = get(get, true);
+    }
+    if (readsLocalCounter) {
+      long clock = latestTransactionTimestamp.get();
+      results.add(CellUtil.createCell(get.getRow(), LOCAL_COUNTER_FAMILY, LOCAL_COUNTER_QUALIFIER,
+          clock, (byte)0, Bytes.toBytes(clock)));
     }
     return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null);
   }
 
+  /**
+   * @return the region-local transaction clock
+   */
+  TransactionTimestamp getTransactionClock() {
+    return latestTransactionTimestamp;
+  }
+
   /*
    * Do a get based on the get parameter.
    * @param withCoprocessor invoke coprocessor or not. We don't want to
@@ -5402,7 +5867,7 @@ public class HRegion implements HeapSize { // , Writable{
           }
 
           // 10. Release row lock(s)
-          releaseRowLocks(acquiredRowLocks);
+          releaseRowLocks(acquiredRowLocks, writeEntry);
 
           // 11. Sync edit log
           if (txid != 0) {
@@ -5721,6 +6186,9 @@ public class HRegion implements HeapSize { // , Writable{
           this.updatesLock.readLock().unlock();
         }
       } finally {
+        if (w != null) {
+          mvcc.addRowWrite(w, rowLock.context.row);
+        }
         rowLock.release();
       }
       if (writeToWAL) {
@@ -5943,6 +6411,9 @@ public class HRegion implements HeapSize { // , Writable{
           this.updatesLock.readLock().unlock();
         }
       } finally {
+        if (w != null) {
+          mvcc.addRowWrite(w, rowLock.context.row);
+        }
         rowLock.release();
       }
       if (writeToWAL && (walEdits != null) && !walEdits.isEmpty()) {
@@ -218,6 +218,7 @@ import org.apache.hadoop.hbase.regionserver.wal.HLogFactory;
 import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
 import org.apache.hadoop.hbase.regionserver.wal.HLogSplitter;
 import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
+import org.apache.hadoop.hbase.regionserver.wal.RegionGroupingProvider;
 import org.apache.hadoop.hbase.regionserver.wal.WALActionsListener;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.replication.regionserver.ReplicationLoad;
@@ -438,6 +439,8 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
   // HLog and HLog roller. log is protected rather than private to avoid
   // eclipse warning when accessed by inner classes
   protected volatile HLog hlog;
+  // All the hlogs of the non meta regions, hlog being the first one.
+  protected volatile RegionGroupingProvider hlogProvider;
   // The meta updates are written to a different hlog. If this
   // regionserver holds meta regions, then this field will be non-null.
   protected volatile HLog hlogForMeta;
@@ -1276,12 +1279,12 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
         LOG.error("Metalog close and delete failed", RemoteExceptionHandler.checkThrowable(e));
       }
     }
-    if (this.hlog != null) {
+    if (this.hlogProvider != null) {
       try {
         if (delete) {
-          hlog.closeAndDelete();
+          hlogProvider.closeAndDelete();
         } else {
-          hlog.close();
+          hlogProvider.close();
         }
       } catch (Throwable e) {
         LOG.error("Close and delete failed", RemoteExceptionHandler.checkThrowable(e));
@@ -1609,7 +1612,15 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     // log directories.
     createNewReplicationInstance(conf, this, this.fs, logdir, oldLogDir);
 
-    return instantiateHLog(rootDir, logName);
+    this.hlogRoller = new LogRoller(this, this);
+    HLog[] wals = new HLog[RegionGroupingProvider.getNumRegionGroups(this.conf)];
+    for (int i = 0; i < wals.length; i++) {
+      wals[i] = i == 0 ?
+          instantiateHLog(rootDir, logName) : instantiateGroupHLog(rootDir, logName, i);
+      this.hlogRoller.addWAL(wals[i]);
+    }
+    this.hlogProvider = new RegionGroupingProvider(wals, this.conf);
+    return wals[0];
   }
 
   private HLog getMetaWAL() throws IOException {
@@ -1617,8 +1628,10 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     final String logName = HLogUtil.getHLogDirectoryName(this.serverNameFromMasterPOV.toString());
     Path logdir = new Path(rootDir, logName);
     if (LOG.isDebugEnabled()) LOG.debug("logdir=" + logdir);
-    this.hlogForMeta = HLogFactory.createMetaHLog(this.fs.getBackingFs(), rootDir, logName,
+    HLog wal = HLogFactory.createMetaHLog(this.fs.getBackingFs(), rootDir, logName,
       this.conf, getMetaWALActionListeners(), this.serverNameFromMasterPOV.toString());
+    this.metaHLogRoller.addWAL(wal);
+    this.hlogForMeta = wal;
     return this.hlogForMeta;
   }
 
@@ -1634,6 +1647,22 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       getWALActionListeners(), this.serverNameFromMasterPOV.toString());
   }
 
+  /**
+   * Called by {@link #setupWALAndReplication()} creating the WAL instance of a group of
+   * regions, when the region server runs several WALs.
+   * @param rootdir
+   * @param logName
+   * @param group the region group, greater than 0
+   * @return WAL instance.
+   * @throws IOException
+   * @see RegionGroupingProvider
+   */
+  protected HLog instantiateGroupHLog(Path rootdir, String logName, int group)
+      throws IOException {
+    return HLogFactory.createGroupHLog(this.fs.getBackingFs(), rootdir, logName, this.conf,
+      getWALActionListeners(), this.serverNameFromMasterPOV.toString(), group);
+  }
+
   /**
    * Called by {@link #instantiateHLog(Path, String)} setting up WAL instance.
    * Add any {@link WALActionsListener}s you want inserted before WAL startup.
@@ -1642,9 +1671,6 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
    */
   protected List<WALActionsListener> getWALActionListeners() {
     List<WALActionsListener> listeners = new ArrayList<WALActionsListener>();
-    // Log roller.
-    this.hlogRoller = new LogRoller(this, this);
-    listeners.add(this.hlogRoller);
     if (this.replicationSourceHandler != null &&
         this.replicationSourceHandler.getWALActionsListener() != null) {
       // Replication handler is an implementation of WALActionsListener.
@@ -1663,7 +1689,6 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
         n + "-MetaLogRoller", uncaughtExceptionHandler);
     this.metaHLogRoller = tmpLogRoller;
     tmpLogRoller = null;
-    listeners.add(this.metaHLogRoller);
     return listeners;
   }
 
@@ -1671,6 +1696,7 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     return hlogRoller;
   }
 
+  @Override
   public MetricsRegionServer getMetrics() {
     return this.metricsRegionServer;
   }
@@ -1841,7 +1867,8 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     if (regionInfo != null && regionInfo.isMetaTable()) {
       return getMetaWAL();
     }
-    return this.hlog;
+    RegionGroupingProvider provider = this.hlogProvider;
+    return provider == null ? this.hlog : provider.getWAL(regionInfo);
   }
 
   @Override
@@ -2799,7 +2826,7 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     HRegion toReturn = this.onlineRegions.remove(r.getRegionInfo().getEncodedName());
 
     if (destination != null) {
-      HLog wal = getWAL();
+      HLog wal = getWAL(r.getRegionInfo());
       long closeSeqNum = wal.getEarliestMemstoreSeqNum(r.getRegionInfo().getEncodedNameAsBytes());
       if (closeSeqNum == HConstants.NO_SEQNUM) {
         // No edits in WAL for this region; get the sequence number when the region was opened.
@@ -4390,12 +4417,13 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       if (this.rsHost != null) {
         this.rsHost.preRollWALWriterRequest();
       }
-      HLog wal = this.getWAL();
-      byte[][] regionsToFlush = wal.rollWriter(true);
       RollWALWriterResponse.Builder builder = RollWALWriterResponse.newBuilder();
-      if (regionsToFlush != null) {
-        for (byte[] region: regionsToFlush) {
-          builder.addRegionToFlush(ByteStringer.wrap(region));
+      for (HLog wal : this.hlogProvider.getWALs()) {
+        byte[][] regionsToFlush = wal.rollWriter(true);
+        if (regionsToFlush != null) {
+          for (byte[] region: regionsToFlush) {
+            builder.addRegionToFlush(ByteStringer.wrap(region));
+          }
         }
       }
       return builder.build();
@@ -4612,6 +4640,12 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
             builder.addResultOrException(getResultOrException(e, index));
             break;
 
+          case CHECK_FAILED:
+            // a singleton commit that did not pass its check is reported as not applied
+            builder.addResultOrException(getResultOrException(
+              ProtobufUtil.toResult(false), index, region.getRegionStats()));
+            break;
+
           default:
             e = new DoNotRetryIOException(codes[i].getExceptionMsg());
             builder.addResultOrException(getResultOrException(e, index));
@@ -4619,7 +4653,9 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
 
           case SUCCESS:
             builder.addResultOrException(getResultOrException(
-              ClientProtos.Result.getDefaultInstance(), index, region.getRegionStats()));
+              mArray[i].getAttribute(HConstants.SINGLETON_COMMIT_ATTRIBUTE) != null ?
+                ProtobufUtil.toResult(true) : ClientProtos.Result.getDefaultInstance(),
+              index, region.getRegionStats()));
             break;
         }
       }
@@ -4681,8 +4717,12 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
             if (compactionDesc != null) {
               region.completeCompactionMarker(compactionDesc);
             }
+            region.getTransactionClock().restore(WALEdit.getTransactionClock(metaCell));
+          }
+          map.remove(WALEdit.METAFAMILY);
+          if (map.isEmpty()) {
+            it.remove();
           }
-          it.remove();
         }
       }
       requestCount.add(mutations.size());
@@ -5040,6 +5080,7 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
   /**
    * @return The cache config instance used by the regionserver.
    */
+  @Override
   public CacheConfig getCacheConfig() {
     return this.cacheConfig;
   }
@@ -26,6 +26,7 @@ import java.security.KeyException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NavigableSet;
@@ -129,6 +130,7 @@ public class HStore implements Store {
   static final Log LOG = LogFactory.getLog(HStore.class);
 
   protected final MemStore memstore;
+  private final MemStoreCompactor memstoreCompactor;
   // This stores directory in the filesystem.
   private final HRegion region;
   private final HColumnDescriptor family;
@@ -237,6 +239,7 @@ public class HStore implements Store {
     // to clone it?
     scanInfo = new ScanInfo(family, ttl, timeToPurgeDeletes, this.comparator);
     this.memstore = new MemStore(conf, this.comparator);
+    this.memstoreCompactor = new MemStoreCompactor(this, conf);
     this.offPeakHours = OffPeakHours.getInstance(conf);
 
     // Setting up cache configuration for this family
@@ -448,6 +451,11 @@ public class HStore implements Store {
     return StoreFile.getMaxMemstoreTSInList(this.getStorefiles());
   }
 
+  @Override
+  public long getMaxTransactionTimestamp() {
+    return StoreFile.getMaxTransactionTimestampInList(this.getStorefiles());
+  }
+
   /**
    * @param tabledir {@link Path} to where the table is being stored
    * @param hri {@link HRegionInfo} for the region.
@@ -571,12 +579,30 @@ public class HStore implements Store {
 
   @Override
   public long add(final KeyValue kv) {
+    long size;
     lock.readLock().lock();
     try {
-      return this.memstore.add(kv);
+      size = this.memstore.add(kv);
     } finally {
       lock.readLock().unlock();
     }
+    this.memstoreCompactor.maybeCompact(this.memstore.heapSize());
+    return size;
+  }
+
+  @Override
+  public long add(final List<KeyValue> kvs) {
+    long size = 0;
+    lock.readLock().lock();
+    try {
+      for (int i = 0; i < kvs.size(); i++) {
+        size += this.memstore.add(kvs.get(i));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    this.memstoreCompactor.maybeCompact(this.memstore.heapSize());
+    return size;
   }
 
   @Override
@@ -591,12 +617,34 @@ public class HStore implements Store {
    * @return memstore size delta
    */
   protected long delete(final KeyValue kv) {
+    long size;
     lock.readLock().lock();
     try {
-      return this.memstore.delete(kv);
+      size = this.memstore.delete(kv);
     } finally {
       lock.readLock().unlock();
     }
+    this.memstoreCompactor.maybeCompact(this.memstore.heapSize());
+    return size;
+  }
+
+  /**
+   * Drops from the memstore the versions and deleted cells that a flush would not write.
+   * Each row is compacted holding the region updates lock, so that the memstore is not
+   * snapshotted meanwhile; writes keep going on.
+   * @return the heap size freed
+   */
+  long compactMemStore() {
+    long freed = this.memstore.compact(getScanInfo(), this.region.getSmallestReadPoint(),
+        this.region.getUpdatesLock().readLock());
+    if (freed > 0) {
+      this.region.addAndGetGlobalMemstoreSize(-freed);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Compacted memstore of " + this + ", freed " +
+            StringUtils.humanReadableInt(freed));
+      }
+    }
+    return freed;
   }
 
   @Override
@@ -727,6 +775,7 @@ public class HStore implements Store {
 
   @Override
   public ImmutableCollection<StoreFile> close() throws IOException {
+    this.memstoreCompactor.close();
     this.lock.writeLock().lock();
     try {
       // Clear so metrics doesn't find them.
@@ -917,6 +966,7 @@ public class HStore implements Store {
             .withFavoredNodes(favoredNodes)
             .withFileContext(hFileContext)
             .build();
+    w.setTransactionClock(region.getTransactionClock());
     return w;
   }
 
@@ -1686,6 +1736,177 @@ public class HStore implements Store {
     }
   }
 
+  @Override
+  public KeyValue getNewestInColumn(final byte[] row, final byte[] qualifier, final long readPt)
+      throws IOException {
+    return getNewestInColumns(row, new byte[][] { qualifier }, readPt)[0];
+  }
+
+  @Override
+  public KeyValue[] getNewestInColumns(final byte[] row, final byte[][] qualifiers,
+      final long readPt) throws IOException {
+    byte[] familyName = getFamily().getName();
+    KeyValue[] firstOnColumns = new KeyValue[qualifiers.length];
+    for (int i = 0; i < qualifiers.length; i++) {
+      firstOnColumns[i] = KeyValue.createFirstOnRow(row, familyName, qualifiers[i]);
+    }
+    KeyValue firstDeleteFamily = KeyValue.createFirstDeleteFamilyOnRow(row, familyName);
+    KeyValue[] newest = new KeyValue[qualifiers.length];
+    long[] newestSeqIds = new long[qualifiers.length];
+    this.lock.readLock().lock();
+    try {
+      // The memstore holds the newest edits, so it wins ties against the store files.
+      KeyValue deleteFamily = this.memstore.getNewestInColumn(firstDeleteFamily, readPt, true);
+      for (int i = 0; i < qualifiers.length; i++) {
+        newest[i] = newer(this.memstore.getNewestInColumn(firstOnColumns[i], readPt, false),
+            deleteFamily);
+        newestSeqIds[i] = Long.MAX_VALUE;
+      }
+
+      List<StoreFile> files = new ArrayList<StoreFile>(getStorefiles());
+      Collections.sort(files, MAX_TIMESTAMP_DESCENDING);
+      boolean[] checkColumns = new boolean[qualifiers.length];
+      for (StoreFile sf : files) {
+        StoreFile.Reader r = sf.getReader();
+        if (r == null) {
+          LOG.warn("StoreFile " + sf + " has a null Reader");
+          continue;
+        }
+        boolean olderThanAll = true;
+        boolean checkAnyColumn = false;
+        for (int i = 0; i < qualifiers.length; i++) {
+          // a file whose cells are all older than what we have cannot hold a newer version
+          boolean mayBeNewer = newest[i] == null || r.getMaxTimestamp() >= newest[i].getTimestamp();
+          olderThanAll &= !mayBeNewer;
+          checkColumns[i] = mayBeNewer && passesGeneralBloomFilter(r, row, qualifiers[i]);
+          checkAnyColumn |= checkColumns[i];
+        }
+        if (olderThanAll) {
+          // this file, and all the remaining ones, only hold older cells
+          break;
+        }
+        boolean checkDeleteFamily = r.passesDeleteFamilyBloomFilter(row, 0, row.length);
+        if (!checkDeleteFamily && !checkAnyColumn) {
+          continue;
+        }
+        StoreFileScanner scanner = r.getStoreFileScanner(true, true, false, readPt);
+        try {
+          // The delete family marker sorts before the columns of the row, and the columns are
+          // in ascending order, so only the first lookup seeks; the following ones reseek
+          // forward within the row.
+          boolean seeked = false;
+          KeyValue foundDeleteFamily = null;
+          if (checkDeleteFamily) {
+            foundDeleteFamily = getNewestInColumn(scanner, firstDeleteFamily, true, seeked);
+            seeked = true;
+          }
+          for (int i = 0; i < qualifiers.length; i++) {
+            KeyValue found = foundDeleteFamily;
+            if (checkColumns[i]) {
+              found = newer(found, getNewestInColumn(scanner, firstOnColumns[i], false, seeked));
+              seeked = true;
+            }
+            if (found == null) {
+              continue;
+            }
+            int cmp = newest[i] == null ? -1 : compareRecency(found, newest[i]);
+            // on the very same key the file with the higher sequence id holds the latest edit
+            if (cmp < 0 || (cmp == 0 && sf.getMaxSequenceId() > newestSeqIds[i])) {
+              newest[i] = found;
+              newestSeqIds[i] = sf.getMaxSequenceId();
+            }
+          }
+        } finally {
+          scanner.close();
+        }
+      }
+      return newest;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the newest of the two cells, or the non null one
+   */
+  private static KeyValue newer(final KeyValue a, final KeyValue b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return compareRecency(a, b) <= 0 ? a : b;
+  }
+
+  /**
+   * Orders two cells of the same row, not necessarily of the same column (a family delete
+   * marker has an empty qualifier), from the newest to the oldest: higher timestamp first, then
+   * delete markers before Puts, then higher mvcc version first.
+   */
+  private static int compareRecency(final KeyValue a, final KeyValue b) {
+    if (a.getTimestamp() != b.getTimestamp()) {
+      return a.getTimestamp() > b.getTimestamp() ? -1 : 1;
+    }
+    boolean aIsDelete = CellUtil.isDelete(a);
+    if (aIsDelete != CellUtil.isDelete(b)) {
+      return aIsDelete ? -1 : 1;
+    }
+    long aMvcc = a.getMvccVersion();
+    long bMvcc = b.getMvccVersion();
+    return aMvcc > bMvcc ? -1 : (aMvcc < bMvcc ? 1 : 0);
+  }
+
+  /*
+   * @return the first cell of the scanner at or after <code>firstOnColumn</code> that is in
+   * the same row and column, restricted to delete markers if <code>deletesOnly</code>
+   * @param reseek whether the scanner is already positioned before <code>firstOnColumn</code>
+   */
+  private static KeyValue getNewestInColumn(final StoreFileScanner scanner,
+      final KeyValue firstOnColumn, final boolean deletesOnly, final boolean reseek)
+      throws IOException {
+    if (reseek && scanner.peek() == null) {
+      // an earlier lookup already went past the end of the file
+      return null;
+    }
+    if (!(reseek ? scanner.reseek(firstOnColumn) : scanner.seek(firstOnColumn))) {
+      return null;
+    }
+    KeyValue kv;
+    while ((kv = scanner.peek()) != null) {
+      if (!kv.matchingRow(firstOnColumn) || !kv.matchingQualifier(firstOnColumn)) {
+        break;
+      }
+      if (!deletesOnly || CellUtil.isDelete(kv)) {
+        return kv;
+      }
+      scanner.next();
+    }
+    return null;
+  }
+
+  private static boolean passesGeneralBloomFilter(final StoreFile.Reader r, final byte[] row,
+      final byte[] qualifier) {
+    switch (r.getBloomFilterType()) {
+      case ROW:
+        return r.passesGeneralBloomFilter(row, 0, row.length, null, 0, 0);
+      case ROWCOL:
+        return r.passesGeneralBloomFilter(row, 0, row.length, qualifier, 0, qualifier.length);
+      default:
+        return true;
+    }
+  }
+
+  private static final Comparator<StoreFile> MAX_TIMESTAMP_DESCENDING =
+      new Comparator<StoreFile>() {
+    @Override
+    public int compare(StoreFile a, StoreFile b) {
+      long maxA = a.getReader() == null ? Long.MIN_VALUE : a.getReader().getMaxTimestamp();
+      long maxB = b.getReader() == null ? Long.MIN_VALUE : b.getReader().getMaxTimestamp();
+      return maxA > maxB ? -1 : (maxA < maxB ? 1 : 0);
+    }
+  };
+
   /*
    * Check an individual MapFile for the row at or before a given row.
    * @param f
@@ -2115,7 +2336,7 @@ public class HStore implements Store {
   }
 
   public static final long FIXED_OVERHEAD =
-      ClassSize.align(ClassSize.OBJECT + (16 * ClassSize.REFERENCE) + (10 * Bytes.SIZEOF_LONG)
+      ClassSize.align(ClassSize.OBJECT + (17 * ClassSize.REFERENCE) + (10 * Bytes.SIZEOF_LONG)
               + (5 * Bytes.SIZEOF_INT) + (2 * Bytes.SIZEOF_BOOLEAN));
 
   public static final long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD
@@ -0,0 +1,394 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+/**
+ * An immutable, sorted {@link java.util.Set} of {@link KeyValue}s laid out as flat arrays.
+ * Where a {@link KeyValueSkipListSet} holds a KeyValue object and a skip list node per cell,
+ * this set only records, for each cell, the backing array it lives in, its offset and length
+ * in that array, and its memstore timestamp. The backing arrays are shared by many cells when
+ * the cells were copied to {@link MemStoreLAB} chunks. KeyValues are created when read.
+ * <p>
+ * Cells cannot be added. A cell can be removed, as done when a write is rolled back or an
+ * expired cell is dropped; it is then masked and skipped by reads. The sets returned by
+ * headSet, tailSet and subSet are views sharing the arrays of this set.
+ */
+@InterfaceAudience.Private
+public class KeyValueArraySet implements NavigableSet<KeyValue> {
+  private final Cells cells;
+  // this set is the [from, to) slice of the cells
+  private final int from;
+  private final int to;
+
+  private KeyValueArraySet(final Cells cells, final int from, final int to) {
+    this.cells = cells;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Creates a flat copy of <code>set</code>. The cell data itself is not copied, the new set
+   * refers to the arrays backing the KeyValues of <code>set</code>. The passed set must not be
+   * modified while it is copied.
+   * @param set cells sorted by <code>c</code>
+   * @param c the comparator of <code>set</code>
+   */
+  static KeyValueArraySet flatten(final SortedSet<KeyValue> set,
+      final KeyValue.KVComparator c) {
+    Cells cells = new Cells(set, c);
+    return new KeyValueArraySet(cells, 0, cells.count);
+  }
+
+  /**
+   * @return the approximate heap used by the layout of the cells, without the cell data
+   */
+  long heapOverhead() {
+    return cells.heapOverhead();
+  }
+
+  /*
+   * @return index in [from, to] of the first cell greater than <code>key</code> or equal
+   * to it if <code>inclusive</code>; removed cells are not skipped
+   */
+  private int ceilingIndex(final KeyValue key, final boolean inclusive) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int cmp = cells.comparator.compare(cells.get(mid), key);
+      if (cmp < 0 || (cmp == 0 && !inclusive)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /*
+   * @return the first cell at or after index i that is not removed, null if none
+   */
+  private KeyValue firstFrom(int i) {
+    for (; i < to; i++) {
+      if (!cells.isRemoved(i)) {
+        return cells.get(i);
+      }
+    }
+    return null;
+  }
+
+  /*
+   * @return the last cell at or before index i that is not removed, null if none
+   */
+  private KeyValue lastFrom(int i) {
+    for (; i >= from; i--) {
+      if (!cells.isRemoved(i)) {
+        return cells.get(i);
+      }
+    }
+    return null;
+  }
+
+  public KeyValue ceiling(KeyValue e) {
+    return firstFrom(ceilingIndex(e, true));
+  }
+
+  public KeyValue higher(KeyValue e) {
+    return firstFrom(ceilingIndex(e, false));
+  }
+
+  public KeyValue floor(KeyValue e) {
+    return lastFrom(ceilingIndex(e, false) - 1);
+  }
+
+  public KeyValue lower(KeyValue e) {
+    return lastFrom(ceilingIndex(e, true) - 1);
+  }
+
+  public Iterator<KeyValue> descendingIterator() {
+    return new CellIterator(to - 1, -1);
+  }
+
+  public NavigableSet<KeyValue> descendingSet() {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public SortedSet<KeyValue> headSet(final KeyValue toElement) {
+    return headSet(toElement, false);
+  }
+
+  public NavigableSet<KeyValue> headSet(final KeyValue toElement,
+      boolean inclusive) {
+    return new KeyValueArraySet(cells, from, ceilingIndex(toElement, !inclusive));
+  }
+
+  public Iterator<KeyValue> iterator() {
+    return new CellIterator(from, 1);
+  }
+
+  public KeyValue pollFirst() {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public KeyValue pollLast() {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public SortedSet<KeyValue> subSet(KeyValue fromElement, KeyValue toElement) {
+    return subSet(fromElement, true, toElement, false);
+  }
+
+  public NavigableSet<KeyValue> subSet(KeyValue fromElement,
+      boolean fromInclusive, KeyValue toElement, boolean toInclusive) {
+    int start = ceilingIndex(fromElement, fromInclusive);
+    int end = Math.max(start, ceilingIndex(toElement, !toInclusive));
+    return new KeyValueArraySet(cells, start, end);
+  }
+
+  public SortedSet<KeyValue> tailSet(KeyValue fromElement) {
+    return tailSet(fromElement, true);
+  }
+
+  public NavigableSet<KeyValue> tailSet(KeyValue fromElement, boolean inclusive) {
+    return new KeyValueArraySet(cells, ceilingIndex(fromElement, inclusive), to);
+  }
+
+  public Comparator<? super KeyValue> comparator() {
+    return cells.comparator;
+  }
+
+  public KeyValue first() {
+    KeyValue kv = firstFrom(from);
+    if (kv == null) {
+      throw new NoSuchElementException();
+    }
+    return kv;
+  }
+
+  public KeyValue last() {
+    KeyValue kv = lastFrom(to - 1);
+    if (kv == null) {
+      throw new NoSuchElementException();
+    }
+    return kv;
+  }
+
+  public boolean add(KeyValue e) {
+    throw new UnsupportedOperationException("Immutable set");
+  }
+
+  public boolean addAll(Collection<? extends KeyValue> c) {
+    throw new UnsupportedOperationException("Immutable set");
+  }
+
+  public void clear() {
+    throw new UnsupportedOperationException("Immutable set");
+  }
+
+  public boolean contains(Object o) {
+    return indexOf((KeyValue) o) >= 0;
+  }
+
+  /*
+   * @return the index of the cell equal to <code>kv</code>, -1 if not found or removed
+   */
+  private int indexOf(KeyValue kv) {
+    int i = ceilingIndex(kv, true);
+    if (i < to && !cells.isRemoved(i) && cells.comparator.compare(cells.get(i), kv) == 0) {
+      return i;
+    }
+    return -1;
+  }
+
+  public boolean containsAll(Collection<?> c) {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public boolean isEmpty() {
+    return firstFrom(from) == null;
+  }
+
+  public boolean remove(Object o) {
+    int i = indexOf((KeyValue) o);
+    return i >= 0 && cells.remove(i);
+  }
+
+  public boolean removeAll(Collection<?> c) {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public boolean retainAll(Collection<?> c) {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public int size() {
+    if (cells.removed.get() == 0) {
+      return to - from;
+    }
+    int size = 0;
+    for (int i = from; i < to; i++) {
+      if (!cells.isRemoved(i)) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  public Object[] toArray() {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  public <T> T[] toArray(T[] a) {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  /*
+   * Walks the slice in either direction, skipping removed cells.
+   */
+  private class CellIterator implements Iterator<KeyValue> {
+    private final int step;
+    private int next;
+    private int lastReturned = -1;
+
+    CellIterator(final int start, final int step) {
+      this.step = step;
+      this.next = skipRemoved(start);
+    }
+
+    private int skipRemoved(int i) {
+      while (i >= from && i < to && cells.isRemoved(i)) {
+        i += step;
+      }
+      return i;
+    }
+
+    public boolean hasNext() {
+      return next >= from && next < to;
+    }
+
+    public KeyValue next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastReturned = next;
+      next = skipRemoved(next + step);
+      return cells.get(lastReturned);
+    }
+
+    public void remove() {
+      if (lastReturned < 0) {
+        throw new IllegalStateException();
+      }
+      cells.remove(lastReturned);
+      lastReturned = -1;
+    }
+  }
+
+  /*
+   * The flat layout shared by a set and its views. A cell is removed by negating its length:
+   * int writes are atomic, so concurrent readers see the cell either whole or removed.
+   */
+  private static class Cells {
+    final KeyValue.KVComparator comparator;
+    final int count;
+    // the distinct arrays backing the cells, mostly MSLAB chunks
+    final byte[][] arrays;
+    final int[] arrayIndexes;
+    final int[] offsets;
+    final int[] lengths;
+    final long[] mvccVersions;
+    final AtomicInteger removed = new AtomicInteger();
+
+    Cells(final SortedSet<KeyValue> set, final KeyValue.KVComparator comparator) {
+      this.comparator = comparator;
+      int size = set.size();
+      this.arrayIndexes = new int[size];
+      this.offsets = new int[size];
+      this.lengths = new int[size];
+      this.mvccVersions = new long[size];
+      Map<byte[], Integer> indexes = new IdentityHashMap<byte[], Integer>();
+      List<byte[]> distinct = new ArrayList<byte[]>();
+      int i = 0;
+      for (KeyValue kv : set) {
+        if (i == size) {
+          throw new IllegalStateException("Set modified while flattened");
+        }
+        byte[] array = kv.getBuffer();
+        Integer index = indexes.get(array);
+        if (index == null) {
+          index = distinct.size();
+          indexes.put(array, index);
+          distinct.add(array);
+        }
+        arrayIndexes[i] = index;
+        offsets[i] = kv.getOffset();
+        lengths[i] = kv.getLength();
+        mvccVersions[i] = kv.getMvccVersion();
+        i++;
+      }
+      if (i != size) {
+        throw new IllegalStateException("Set modified while flattened");
+      }
+      this.count = size;
+      this.arrays = distinct.toArray(new byte[distinct.size()][]);
+    }
+
+    KeyValue get(final int i) {
+      KeyValue kv = new KeyValue(arrays[arrayIndexes[i]], offsets[i], Math.abs(lengths[i]));
+      kv.setMvccVersion(mvccVersions[i]);
+      return kv;
+    }
+
+    boolean isRemoved(final int i) {
+      return lengths[i] < 0;
+    }
+
+    synchronized boolean remove(final int i) {
+      if (isRemoved(i)) {
+        return false;
+      }
+      lengths[i] = -lengths[i];
+      removed.incrementAndGet();
+      return true;
+    }
+
+    long heapOverhead() {
+      return ClassSize.align(ClassSize.ARRAY + arrays.length * ClassSize.REFERENCE) +
+          3 * ClassSize.align(ClassSize.ARRAY + count * Bytes.SIZEOF_INT) +
+          ClassSize.align(ClassSize.ARRAY + count * Bytes.SIZEOF_LONG);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * A histogram of latencies which can be updated by many threads without locking, and which is
+ * emptied each time it is read, so that each read describes one period.
+ * <p>
+ * The values below {@value #SUB_BUCKETS} have a bucket each. Above, each power of two is split
+ * in {@value #SUB_BUCKETS} buckets, so a percentile is known within about 6%. The values are
+ * capped at {@link Integer#MAX_VALUE}.
+ */
+@InterfaceAudience.Private
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_EXPONENT = 30;
+
+  private static final int NUM_BUCKETS = SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+  /**
+   * Records a latency.
+   */
+  public void update(long value) {
+    buckets.incrementAndGet(bucketOf(value));
+  }
+
+  /**
+   * @return the latencies recorded since the previous call
+   */
+  public Snapshot snapshotAndReset() {
+    long[] counts = new long[NUM_BUCKETS];
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      if (buckets.get(i) != 0) {
+        counts[i] = buckets.getAndSet(i, 0);
+      }
+    }
+    return new Snapshot(counts);
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0, value);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(Math.min(value, Integer.MAX_VALUE));
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (Math.min(value, Integer.MAX_VALUE) >>> shift) - SUB_BUCKETS;
+    return SUB_BUCKETS * (shift + 1) + subBucket;
+  }
+
+  /**
+   * @return the largest value counted in the bucket
+   */
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * The latencies of one period.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+
+    Snapshot(long[] counts) {
+      this.counts = counts;
+      long total = 0;
+      for (long c : counts) {
+        total += c;
+      }
+      this.count = total;
+    }
+
+    /**
+     * @return the number of latencies recorded in the period
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the latency under which the given quantile of the period falls, rounded up to the
+     *         bucket bound, or 0 if nothing was recorded
+     */
+    public long getPercentile(double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(quantile * count);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank && seen > 0) {
+          return upperBoundOf(i);
+        }
+      }
+      return upperBoundOf(counts.length - 1);
+    }
+  }
+}
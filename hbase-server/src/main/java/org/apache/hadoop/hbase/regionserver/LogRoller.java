@@ -32,21 +32,27 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.HasThread;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Runs periodically to determine if the HLog should be rolled.
+ * Runs periodically to determine if the HLogs should be rolled.
+ * A roll requested by a HLog only rolls that HLog.
  *
  * NOTE: This class extends Thread rather than Chore because the sleep time
  * can be interrupted when there is something to do, rather than the Chore
  * sleep time which is invariant.
  */
 @InterfaceAudience.Private
-class LogRoller extends HasThread implements WALActionsListener {
+class LogRoller extends HasThread {
   static final Log LOG = LogFactory.getLog(LogRoller.class);
   private final ReentrantLock rollLock = new ReentrantLock();
   private final AtomicBoolean rollLog = new AtomicBoolean(false);
+  // The HLogs to roll, with whether they requested a roll
+  private final ConcurrentHashMap<HLog, Boolean> walNeedsRoll =
+    new ConcurrentHashMap<HLog, Boolean>();
   private final Server server;
   protected final RegionServerServices services;
   private volatile long lastrolltime = System.currentTimeMillis();
@@ -65,6 +71,16 @@ class LogRoller extends HasThread implements WALActionsListener {
       getInt(HConstants.THREAD_WAKE_FREQUENCY, 10 * 1000);
   }
 
+  /**
+   * Adds a HLog to roll.
+   * @param wal
+   */
+  public void addWAL(final HLog wal) {
+    if (null == walNeedsRoll.putIfAbsent(wal, Boolean.FALSE)) {
+      wal.registerWALActionsListener(new RollRequestListener(wal));
+    }
+  }
+
   @Override
   public void run() {
     while (!server.isStopped()) {
@@ -92,11 +108,21 @@ class LogRoller extends HasThread implements WALActionsListener {
       rollLock.lock(); // FindBugs UL_UNRELEASED_LOCK_EXCEPTION_PATH
       try {
         this.lastrolltime = now;
-        // Force the roll if the logroll.period is elapsed or if a roll was requested.
-        // The returned value is an array of actual region names.
-        byte [][] regionsToFlush = getWAL().rollWriter(periodic || rollLog.get());
-        if (regionsToFlush != null) {
-          for (byte [] r: regionsToFlush) scheduleFlush(r);
+        // requests coming from now on are for the next run
+        rollLog.set(false);
+        for (Map.Entry<HLog, Boolean> entry : walNeedsRoll.entrySet()) {
+          HLog wal = entry.getKey();
+          // Force the roll if the logroll.period is elapsed or if a roll was requested.
+          boolean requested = walNeedsRoll.put(wal, Boolean.FALSE).booleanValue();
+          if (!periodic && !requested) {
+            // another HLog requested the roll
+            continue;
+          }
+          // The returned value is an array of actual region names.
+          byte [][] regionsToFlush = wal.rollWriter(true);
+          if (regionsToFlush != null) {
+            for (byte [] r: regionsToFlush) scheduleFlush(r);
+          }
         }
       } catch (FailedLogCloseException e) {
         server.abort("Failed log close in log roller", e);
@@ -110,11 +136,7 @@ class LogRoller extends HasThread implements WALActionsListener {
         LOG.error("Log rolling failed", ex);
         server.abort("Log rolling failed", ex);
       } finally {
-        try {
-          rollLog.set(false);
-        } finally {
-          rollLock.unlock();
-        }
+        rollLock.unlock();
       }
     }
     LOG.info("LogRoller exiting.");
@@ -130,7 +152,8 @@ class LogRoller extends HasThread implements WALActionsListener {
     if (r != null) {
       requester = this.services.getFlushRequester();
       if (requester != null) {
-        requester.requestFlush(r);
+        // all the stores, the log has edits of each of them
+        requester.requestFlush(r, true);
         scheduled = true;
       }
     }
@@ -141,13 +164,6 @@ class LogRoller extends HasThread implements WALActionsListener {
     }
   }
 
-  public void logRollRequested(boolean lowReplicas) {
-    synchronized (rollLog) {
-      rollLog.set(true);
-      rollLog.notifyAll();
-    }
-  }
-
   /**
    * Called by region server to wake up this thread if it sleeping.
    * It is sleeping if rollLock is not held.
@@ -161,44 +177,60 @@ class LogRoller extends HasThread implements WALActionsListener {
     }
   }
 
-  protected HLog getWAL() throws IOException {
-    return this.services.getWAL(null);
-  }
+  /**
+   * Turns the roll requests of a HLog into a roll of that HLog.
+   */
+  private class RollRequestListener implements WALActionsListener {
+    private final HLog wal;
 
-  @Override
-  public void preLogRoll(Path oldPath, Path newPath) throws IOException {
-    // Not interested
-  }
+    RollRequestListener(final HLog wal) {
+      this.wal = wal;
+    }
 
-  @Override
-  public void postLogRoll(Path oldPath, Path newPath) throws IOException {
-    // Not interested
-  }
+    @Override
+    public void logRollRequested(boolean lowReplicas) {
+      walNeedsRoll.put(this.wal, Boolean.TRUE);
+      synchronized (rollLog) {
+        rollLog.set(true);
+        rollLog.notifyAll();
+      }
+    }
 
-  @Override
-  public void preLogArchive(Path oldPath, Path newPath) throws IOException {
-    // Not interested
-  }
+    @Override
+    public void preLogRoll(Path oldPath, Path newPath) throws IOException {
+      // Not interested
+    }
 
-  @Override
-  public void postLogArchive(Path oldPath, Path newPath) throws IOException {
-    // Not interested
-  }
+    @Override
+    public void postLogRoll(Path oldPath, Path newPath) throws IOException {
+      // Not interested
+    }
 
-  @Override
-  public void visitLogEntryBeforeWrite(HRegionInfo info, HLogKey logKey,
-      WALEdit logEdit) {
-    // Not interested.
-  }
+    @Override
+    public void preLogArchive(Path oldPath, Path newPath) throws IOException {
+      // Not interested
+    }
 
-  @Override
-  public void visitLogEntryBeforeWrite(HTableDescriptor htd, HLogKey logKey,
-                                       WALEdit logEdit) {
-    //Not interested
-  }
+    @Override
+    public void postLogArchive(Path oldPath, Path newPath) throws IOException {
+      // Not interested
+    }
 
-  @Override
-  public void logCloseRequested() {
-    // not interested
+    @Override
+    public void visitLogEntryBeforeWrite(HRegionInfo info, HLogKey logKey,
+        WALEdit logEdit) {
+      // Not interested.
+    }
+
+    @Override
+    public void visitLogEntryBeforeWrite(HTableDescriptor htd, HLogKey logKey,
+                                         WALEdit logEdit) {
+      //Not interested
+    }
+
+    @Override
+    public void logCloseRequested() {
+      // not interested
+    }
   }
 }
@@ -29,18 +29,22 @@ import java.util.List;
 import java.util.NavigableSet;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeepDeletedCells;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.HeapSize;
+import org.apache.hadoop.hbase.regionserver.DeleteTracker.DeleteResult;
 import org.apache.hadoop.hbase.regionserver.MemStoreLAB.Allocation;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
@@ -71,6 +75,13 @@ public class MemStore implements HeapSize {
     "hbase.hregion.memstore.mslab.enabled";
   private static final boolean USEMSLAB_DEFAULT = true;
 
+  /**
+   * Whether snapshots are converted to a {@link KeyValueArraySet}, which holds the cells in flat
+   * arrays instead of a skip list node and a KeyValue object per cell.
+   */
+  static final String FLATTEN_SNAPSHOT_KEY = "hbase.hregion.memstore.flatten.snapshot";
+  private static final boolean FLATTEN_SNAPSHOT_DEFAULT = false;
+
   private Configuration conf;
 
   // MemStore.  Use a KeyValueSkipListSet rather than SkipListSet because of the
@@ -80,8 +91,9 @@ public class MemStore implements HeapSize {
   // reference passed.
   volatile KeyValueSkipListSet kvset;
 
-  // Snapshot of memstore.  Made for flusher.
-  volatile KeyValueSkipListSet snapshot;
+  // Snapshot of memstore.  Made for flusher.  A KeyValueSkipListSet, or a
+  // KeyValueArraySet when snapshots are flattened.
+  volatile NavigableSet<KeyValue> snapshot;
 
   final KeyValue.KVComparator comparator;
 
@@ -99,6 +111,8 @@ public class MemStore implements HeapSize {
   volatile MemStoreLAB allocator;
   volatile MemStoreLAB snapshotAllocator;
 
+  private final boolean flattenSnapshot;
+
   /**
    * Default constructor. Used for tests.
    */
@@ -120,6 +134,7 @@ public class MemStore implements HeapSize {
     snapshotTimeRangeTracker = new TimeRangeTracker();
     this.size = new AtomicLong(DEEP_OVERHEAD);
     this.snapshotSize = 0;
+    this.flattenSnapshot = conf.getBoolean(FLATTEN_SNAPSHOT_KEY, FLATTEN_SNAPSHOT_DEFAULT);
     if (conf.getBoolean(USEMSLAB_KEY, USEMSLAB_DEFAULT)) {
       this.chunkPool = MemStoreChunkPool.getPool(conf);
       this.allocator = new MemStoreLAB(conf, chunkPool);
@@ -152,7 +167,13 @@ public class MemStore implements HeapSize {
     } else {
       if (!this.kvset.isEmpty()) {
         this.snapshotSize = keySize();
-        this.snapshot = this.kvset;
+        if (flattenSnapshot) {
+          // Cells stay where they are, in the MSLAB chunks; only their
+          // positions are copied, so the skip list can be collected now.
+          this.snapshot = KeyValueArraySet.flatten(this.kvset, this.comparator);
+        } else {
+          this.snapshot = this.kvset;
+        }
         this.kvset = new KeyValueSkipListSet(this.comparator);
         this.snapshotTimeRangeTracker = this.timeRangeTracker;
         this.timeRangeTracker = new TimeRangeTracker();
@@ -176,7 +197,7 @@ public class MemStore implements HeapSize {
    * @see #snapshot()
    * @see #clearSnapshot(SortedSet)
    */
-  KeyValueSkipListSet getSnapshot() {
+  NavigableSet<KeyValue> getSnapshot() {
     return this.snapshot;
   }
 
@@ -299,9 +320,9 @@ public class MemStore implements HeapSize {
     // not the snapshot. The flush of this snapshot to disk has not
     // yet started because Store.flush() waits for all rwcc transactions to
     // commit before starting the flush to disk.
-    KeyValue found = this.snapshot.get(kv);
-    if (found != null && found.getMvccVersion() == kv.getMvccVersion()) {
-      this.snapshot.remove(kv);
+    // The comparator orders by memstoreTS too, so only a cell with the same
+    // memstoreTS is removed.
+    if (this.snapshot.remove(kv)) {
       long sz = heapSizeChange(kv, true);
       this.snapshotSize -= sz;
     }
@@ -374,6 +395,43 @@ public class MemStore implements HeapSize {
     return result;
   }
 
+  /**
+   * Finds the newest cell of a single column, in kvset or snapshot, without going through a
+   * MemStoreScanner.
+   * @param firstOnColumn first possible key of the column
+   * @param readPt cells with a greater mvcc version are ignored
+   * @param deletesOnly only consider delete markers; used to find the family delete markers,
+   * which are kept under the empty qualifier of the row
+   * @return the newest visible cell of the column, a Put or a delete marker, or null if none
+   */
+  KeyValue getNewestInColumn(final KeyValue firstOnColumn, final long readPt,
+      final boolean deletesOnly) {
+    KeyValue a = getNewestInColumn(this.kvset, firstOnColumn, readPt, deletesOnly);
+    KeyValue b = getNewestInColumn(this.snapshot, firstOnColumn, readPt, deletesOnly);
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return comparator.compare(a, b) <= 0 ? a : b;
+  }
+
+  private static KeyValue getNewestInColumn(final NavigableSet<KeyValue> set,
+      final KeyValue firstOnColumn, final long readPt, final boolean deletesOnly) {
+    for (KeyValue kv : set.tailSet(firstOnColumn)) {
+      // past the row or column, done
+      if (!kv.matchingRow(firstOnColumn) || !kv.matchingQualifier(firstOnColumn)) {
+        break;
+      }
+      if (kv.getMvccVersion() > readPt || (deletesOnly && !CellUtil.isDelete(kv))) {
+        continue;
+      }
+      return kv;
+    }
+    return null;
+  }
+
   /**
    * @param state column/delete tracking state
    */
@@ -610,6 +668,112 @@ public class MemStore implements HeapSize {
     return addedSize;
   }
 
+  /**
+   * Compacts the current memstore in place: removes the Puts that no reader can see anymore,
+   * because the column already has max versions newer ones or because a delete marker masks
+   * them. Only cells with a memstoreTS at or below <code>smallestReadPoint</code> are
+   * considered, and rows holding a delete marker above it are skipped. Delete markers are kept
+   * since they may mask cells of the store files. This is what a flush would drop anyway.
+   * <p>
+   * Runs concurrently with writers and scanners. Each row is compacted holding
+   * <code>rowLock</code>, which must exclude {@link #snapshot()}; the compaction stops once the
+   * current memstore has been snapshotted.
+   * <p>
+   * The data of a cell copied into a {@link MemStoreLAB} chunk stays allocated until the whole
+   * chunk is released after the flush, so only the per cell overhead is credited for it.
+   * @param scanInfo the max versions and delete retention of the family
+   * @param smallestReadPoint the read point of the oldest scanner of the region
+   * @param rowLock held while a row is compacted
+   * @return the heap size freed
+   */
+  long compact(final ScanInfo scanInfo, final long smallestReadPoint, final Lock rowLock) {
+    KeyValueSkipListSet set = this.kvset;
+    boolean dropDeleted = scanInfo.getKeepDeletedCells() == KeepDeletedCells.FALSE;
+    DeleteTracker deletes = new ScanDeleteTracker();
+    List<KeyValue> row = new ArrayList<KeyValue>();
+    long freed = 0;
+    Iterator<KeyValue> it = set.iterator();
+    KeyValue next = it.hasNext() ? it.next() : null;
+    while (next != null) {
+      row.clear();
+      row.add(next);
+      next = null;
+      while (it.hasNext()) {
+        KeyValue kv = it.next();
+        if (!comparator.matchingRows(kv, row.get(0))) {
+          next = kv;
+          break;
+        }
+        row.add(kv);
+      }
+      rowLock.lock();
+      try {
+        if (this.kvset != set) {
+          break;
+        }
+        long s = compactRow(set, row, scanInfo.getMaxVersions(), dropDeleted, deletes,
+            smallestReadPoint, this.allocator != null);
+        this.size.addAndGet(-s);
+        freed += s;
+      } finally {
+        rowLock.unlock();
+      }
+    }
+    return freed;
+  }
+
+  /*
+   * @param row the cells of a row, in order
+   * @return the heap size of the Puts removed from <code>set</code>
+   */
+  private static long compactRow(final KeyValueSkipListSet set, final List<KeyValue> row,
+      final int maxVersions, final boolean dropDeleted, final DeleteTracker deletes,
+      final long smallestReadPoint, final boolean mslab) {
+    for (KeyValue kv : row) {
+      if (kv.isDelete() && kv.getMvccVersion() > smallestReadPoint) {
+        // some reader does not see this delete yet, and may need older versions
+        return 0;
+      }
+    }
+    deletes.reset();
+    long freed = 0;
+    KeyValue column = null;
+    int versions = 0;
+    for (KeyValue kv : row) {
+      if (kv.getMvccVersion() > smallestReadPoint) {
+        continue;
+      }
+      if (column == null || !kv.matchingQualifier(column)) {
+        column = kv;
+        versions = 0;
+      }
+      if (kv.isDelete()) {
+        if (dropDeleted) {
+          deletes.add(kv);
+        }
+        continue;
+      }
+      boolean deleted = dropDeleted && !deletes.isEmpty() &&
+          deletes.isDeleted(kv) != DeleteResult.NOT_DELETED;
+      if ((deleted || ++versions > maxVersions) && set.remove(kv)) {
+        freed += freedHeapSize(kv, mslab);
+      }
+    }
+    return freed;
+  }
+
+  /*
+   * @return the heap size given back by removing <code>kv</code> from the memstore
+   */
+  static long freedHeapSize(final KeyValue kv, final boolean mslab) {
+    long freed = heapSizeChange(kv, true);
+    if (mslab && kv.getBuffer().length != kv.getLength()) {
+      // the data sits in a chunk shared with other cells
+      freed -= ClassSize.align(kv.getLength());
+    }
+    return freed;
+  }
+
   /*
    * Immutable data structure to hold member found in set and the set it was
    * found in.  Include set because it is carrying context.
@@ -692,7 +856,7 @@ public class MemStore implements HeapSize {
 
     // The kvset and snapshot at the time of creating this scanner
     private KeyValueSkipListSet kvsetAtCreation;
-    private KeyValueSkipListSet snapshotAtCreation;
+    private NavigableSet<KeyValue> snapshotAtCreation;
 
     // the pre-calculated KeyValue to be returned by peek() or next()
     private KeyValue theNext;
@@ -1005,7 +1169,8 @@ public class MemStore implements HeapSize {
   }
 
   public final static long FIXED_OVERHEAD = ClassSize.align(
-      ClassSize.OBJECT + (10 * ClassSize.REFERENCE) + (2 * Bytes.SIZEOF_LONG));
+      ClassSize.OBJECT + (10 * ClassSize.REFERENCE) + (2 * Bytes.SIZEOF_LONG) +
+      Bytes.SIZEOF_BOOLEAN);
 
   public final static long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD +
       ClassSize.ATOMIC_LONG + (2 * ClassSize.TIMERANGE_TRACKER) +
@@ -0,0 +1,153 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Threads;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * Schedules the in-memory compaction of the memstore of a store. Each time the memstore
+ * has grown by the configured size since it was last compacted, {@link HStore#compactMemStore()}
+ * is run in the background to drop the versions and deleted cells that a flush would drop
+ * anyway. Workloads that overwrite the same cells keep a smaller memstore and flush less often.
+ * <p>
+ * The compactions of all stores of the region server share a small pool of daemon threads.
+ * A store has at most one compaction running. The pool is created by the first store that
+ * compacts its memstore and shut down once the last of them is closed.
+ */
+@InterfaceAudience.Private
+class MemStoreCompactor {
+  static final Log LOG = LogFactory.getLog(MemStoreCompactor.class);
+
+  /** Memstore growth, in bytes, after which the memstore is compacted; 0 disables it */
+  static final String COMPACTION_SIZE_KEY = "hbase.hregion.memstore.inmemory.compaction.size";
+  static final long DEFAULT_COMPACTION_SIZE = 0;
+
+  /** Number of threads compacting memstores */
+  static final String COMPACTION_THREADS_KEY =
+      "hbase.hregion.memstore.inmemory.compaction.threads";
+  static final int DEFAULT_COMPACTION_THREADS = 1;
+
+  private static ThreadPoolExecutor sharedPool;
+  // number of open compactors using the shared pool
+  private static int sharedPoolUsers = 0;
+
+  private final HStore store;
+  private final long compactionSize;
+  private final ThreadPoolExecutor pool;
+  private final AtomicBoolean inProgress = new AtomicBoolean(false);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private volatile long sizeAtLastCompaction = 0;
+
+  /**
+   * @param conf the configuration of the store, which may override the region server one
+   */
+  MemStoreCompactor(final HStore store, final Configuration conf) {
+    this.store = store;
+    this.compactionSize = conf.getLong(COMPACTION_SIZE_KEY, DEFAULT_COMPACTION_SIZE);
+    this.pool = this.compactionSize > 0 ? acquirePool(conf) : null;
+  }
+
+  private static synchronized ThreadPoolExecutor acquirePool(final Configuration conf) {
+    if (sharedPool == null) {
+      sharedPool = Threads.getBoundedCachedThreadPool(
+          conf.getInt(COMPACTION_THREADS_KEY, DEFAULT_COMPACTION_THREADS), 60, TimeUnit.SECONDS,
+          Threads.newDaemonThreadFactory("MemStoreCompactor"));
+    }
+    sharedPoolUsers++;
+    return sharedPool;
+  }
+
+  private static synchronized void releasePool() {
+    if (--sharedPoolUsers == 0) {
+      sharedPool.shutdown();
+      sharedPool = null;
+    }
+  }
+
+  /**
+   * Stops scheduling compactions, and shuts the shared pool down if no other store uses it.
+   * A compaction already running finishes on its own.
+   */
+  void close() {
+    if (isEnabled() && this.closed.compareAndSet(false, true)) {
+      releasePool();
+    }
+  }
+
+  /**
+   * @return true if the shared pool is running, for tests
+   */
+  static synchronized boolean isPoolRunning() {
+    return sharedPool != null;
+  }
+
+  /**
+   * @return true if the memstore is compacted in memory
+   */
+  boolean isEnabled() {
+    return this.compactionSize > 0;
+  }
+
+  /**
+   * Starts a compaction if the memstore has grown enough since the last one.
+   * @param memstoreSize the current heap size of the memstore
+   */
+  void maybeCompact(final long memstoreSize) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (memstoreSize < this.sizeAtLastCompaction) {
+      // the memstore was flushed since
+      this.sizeAtLastCompaction = 0;
+    }
+    if (memstoreSize - this.sizeAtLastCompaction < this.compactionSize || this.closed.get() ||
+        !this.inProgress.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      pool.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            store.compactMemStore();
+          } catch (RuntimeException e) {
+            LOG.warn("Failed compacting the memstore of " + store + ": " +
+                StringUtils.stringifyException(e));
+          } finally {
+            sizeAtLastCompaction = store.memstore.heapSize();
+            inProgress.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the store is being closed
+      this.inProgress.set(false);
+    }
+  }
+}
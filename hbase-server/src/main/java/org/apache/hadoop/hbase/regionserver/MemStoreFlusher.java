@@ -208,7 +208,7 @@ class MemStoreFlusher implements FlushRequester {
       Preconditions.checkState(regionToFlush.memstoreSize.get() > 0);
 
       LOG.info("Flush of region " + regionToFlush + " due to global heap pressure");
-      flushedOne = flushRegion(regionToFlush, true);
+      flushedOne = flushRegion(regionToFlush, true, false);
       if (!flushedOne) {
         LOG.info("Excluding unflushable region " + regionToFlush +
           " - trying to find a different region to flush.");
@@ -322,13 +322,20 @@ class MemStoreFlusher implements FlushRequester {
   }
 
   public void requestFlush(HRegion r) {
+    requestFlush(r, false);
+  }
+
+  public void requestFlush(HRegion r, boolean forceFlushAllStores) {
     synchronized (regionsInQueue) {
-      if (!regionsInQueue.containsKey(r)) {
+      FlushRegionEntry queued = regionsInQueue.get(r);
+      if (queued == null) {
         // This entry has no delay so it will be added at the top of the flush
         // queue.  It'll come out near immediately.
-        FlushRegionEntry fqe = new FlushRegionEntry(r);
+        FlushRegionEntry fqe = new FlushRegionEntry(r, forceFlushAllStores);
         this.regionsInQueue.put(r, fqe);
         this.flushQueue.add(fqe);
+      } else if (forceFlushAllStores) {
+        queued.forceFlushAllStores();
       }
     }
   }
@@ -337,7 +344,7 @@ class MemStoreFlusher implements FlushRequester {
     synchronized (regionsInQueue) {
       if (!regionsInQueue.containsKey(r)) {
         // This entry has some delay
-        FlushRegionEntry fqe = new FlushRegionEntry(r);
+        FlushRegionEntry fqe = new FlushRegionEntry(r, false);
         fqe.requeue(delay);
         this.regionsInQueue.put(r, fqe);
         this.flushQueue.add(fqe);
@@ -432,7 +439,7 @@ class MemStoreFlusher implements FlushRequester {
         return true;
       }
     }
-    return flushRegion(region, false);
+    return flushRegion(region, false, fqe.isForceFlushAllStores());
   }
 
   /*
@@ -442,12 +449,15 @@ class MemStoreFlusher implements FlushRequester {
    * needs to be removed from the flush queue. If false, when we were called
    * from the main flusher run loop and we got the entry to flush by calling
    * poll on the flush queue (which removed it).
+   * @param forceFlushAllStores whether to flush all the stores rather than the ones selected
+   * by the flush policy of the region.
    *
    * @return true if the region was successfully flushed, false otherwise. If
    * false, there will be accompanying log messages explaining why the region was
    * not flushed.
    */
-  private boolean flushRegion(final HRegion region, final boolean emergencyFlush) {
+  private boolean flushRegion(final HRegion region, final boolean emergencyFlush,
+      final boolean forceFlushAllStores) {
     long startTime = 0;
     synchronized (this.regionsInQueue) {
       FlushRegionEntry fqe = this.regionsInQueue.remove(region);
@@ -469,7 +479,7 @@ class MemStoreFlusher implements FlushRequester {
     }
     lock.readLock().lock();
     try {
-      HRegion.FlushResult flushResult = region.flushcache();
+      HRegion.FlushResult flushResult = region.flushcache(forceFlushAllStores);
       boolean shouldCompact = flushResult.isCompactionNeeded();
       // We just want to check the size
       boolean shouldSplit = region.checkSplit() != null;
@@ -627,9 +637,11 @@ class MemStoreFlusher implements FlushRequester {
     private final long createTime;
     private long whenToExpire;
     private int requeueCount = 0;
+    private volatile boolean forceFlushAllStores;
 
-    FlushRegionEntry(final HRegion r) {
+    FlushRegionEntry(final HRegion r, final boolean forceFlushAllStores) {
       this.region = r;
+      this.forceFlushAllStores = forceFlushAllStores;
       this.createTime = EnvironmentEdgeManager.currentTimeMillis();
       this.whenToExpire = this.createTime;
     }
@@ -642,6 +654,20 @@ class MemStoreFlusher implements FlushRequester {
       return (EnvironmentEdgeManager.currentTimeMillis() - this.createTime) > maximumWait;
     }
 
+    /**
+     * @return true if all the stores of the region have to be flushed
+     */
+    public boolean isForceFlushAllStores() {
+      return this.forceFlushAllStores;
+    }
+
+    /**
+     * Flush all the stores of the region, not only the ones selected by its flush policy.
+     */
+    public void forceFlushAllStores() {
+      this.forceFlushAllStores = true;
+    }
+
     /**
      * @return Count of times {@link #requeue(long)} was called; i.e this is
      * number of times we've been requeued.
@@ -17,22 +17,15 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
-import java.io.IOException;
-
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
-import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.Server;
-import org.apache.hadoop.hbase.regionserver.wal.HLog;
 
+/**
+ * Rolls the HLog of the meta regions.
+ */
 @InterfaceAudience.Private
 class MetaLogRoller extends LogRoller {
   public MetaLogRoller(Server server, RegionServerServices services) {
     super(server, services);
   }
-  @Override
-  protected HLog getWAL() throws IOException {
-    //The argument to getWAL below could either be HRegionInfo.FIRST_META_REGIONINFO or
-    //HRegionInfo.ROOT_REGIONINFO. Both these share the same WAL.
-    return services.getWAL(HRegionInfo.FIRST_META_REGIONINFO);
-  }
 }
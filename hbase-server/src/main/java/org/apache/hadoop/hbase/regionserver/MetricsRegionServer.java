@@ -34,6 +34,10 @@ public class MetricsRegionServer {
   private MetricsRegionServerSource serverSource;
   private MetricsRegionServerWrapper regionServerWrapper;
 
+  // the get latencies since the last read back by the region server itself, e.g. to throttle
+  // the compactions when the reads suffer
+  private final LatencyHistogram getLatencies = new LatencyHistogram();
+
   public MetricsRegionServer(MetricsRegionServerWrapper regionServerWrapper) {
     this(regionServerWrapper,
         CompatibilitySingletonFactory.getInstance(MetricsRegionServerSourceFactory.class)
@@ -75,6 +79,15 @@ public class MetricsRegionServer {
       serverSource.incrSlowGet();
     }
     serverSource.updateGet(t);
+    getLatencies.update(t);
+  }
+
+  /**
+   * @return the get latencies, in milliseconds, since the previous call, which starts a new
+   *         period
+   */
+  public LatencyHistogram.Snapshot getAndResetGetLatencies() {
+    return getLatencies.snapshotAndReset();
   }
 
   public void updateIncrement(long t) {
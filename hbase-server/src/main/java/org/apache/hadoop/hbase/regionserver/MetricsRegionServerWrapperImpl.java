@@ -32,6 +32,10 @@ import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.io.hfile.BlockCache;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.CacheStats;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionThroughputController;
+import org.apache.hadoop.hbase.regionserver.compactions.PressureAwareCompactionThroughputController;
+import org.apache.hadoop.hbase.regionserver.compactions.ReadPressureAwareCompactionThroughputController;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.zookeeper.ZooKeeperWatcher;
 import org.apache.hadoop.metrics2.MetricsExecutor;
@@ -490,14 +494,18 @@ class MetricsRegionServerWrapperImpl
 
       //Copy over computed values so that no thread sees half computed values.
       numStores = tempNumStores;
-      long tempNumHLogFiles = regionServer.hlog.getNumLogFiles();
+      long tempNumHLogFiles = 0;
+      long tempHlogFileSize = 0;
+      for (HLog wal : regionServer.hlogProvider.getWALs()) {
+        tempNumHLogFiles += wal.getNumLogFiles();
+        tempHlogFileSize += wal.getLogFileSize();
+      }
       // meta logs
       if (regionServer.hlogForMeta != null) {
         tempNumHLogFiles += regionServer.hlogForMeta.getNumLogFiles();
       }
       numHLogFiles = tempNumHLogFiles;
       
-      long tempHlogFileSize = regionServer.hlog.getLogFileSize();
       if (regionServer.hlogForMeta != null) {
         tempHlogFileSize += regionServer.hlogForMeta.getLogFileSize();
       }
@@ -530,4 +538,41 @@ class MetricsRegionServerWrapperImpl
   public long getBlockedRequestsCount() {
     return blockedRequestsCount;
   }
+
+  @Override
+  public double getCompactionThroughputLimit() {
+    CompactionThroughputController controller = getCompactionThroughputController();
+    if (!(controller instanceof PressureAwareCompactionThroughputController)) {
+      return 0;
+    }
+    double limit = ((PressureAwareCompactionThroughputController) controller).getMaxThroughput();
+    // large enough to say it is unlimited
+    return limit >= 1E15 ? 0 : limit;
+  }
+
+  @Override
+  public double getCompactionThroughputFeedbackRatio() {
+    CompactionThroughputController controller = getCompactionThroughputController();
+    if (!(controller instanceof ReadPressureAwareCompactionThroughputController)) {
+      return 1.0;
+    }
+    return ((ReadPressureAwareCompactionThroughputController) controller).getFeedbackRatio();
+  }
+
+  @Override
+  public long getCompactionThroughputThrottledCount() {
+    CompactionThroughputController controller = getCompactionThroughputController();
+    if (!(controller instanceof ReadPressureAwareCompactionThroughputController)) {
+      return 0;
+    }
+    return ((ReadPressureAwareCompactionThroughputController) controller).getThrottledCount();
+  }
+
+  private CompactionThroughputController getCompactionThroughputController() {
+    //The thread could be zero.  if so there is no controller.
+    if (this.regionServer.compactSplitThread == null) {
+      return null;
+    }
+    return this.regionServer.compactSplitThread.getCompactionThroughputController();
+  }
 }
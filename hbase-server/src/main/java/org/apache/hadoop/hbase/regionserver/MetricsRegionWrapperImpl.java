@@ -135,6 +135,16 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return this.region.compactionsFinished.get();
   }
 
+  @Override
+  public long getTransactionClockHeadroom() {
+    return this.region.getTransactionClock().getLocalHeadroom();
+  }
+
+  @Override
+  public long getTransactionClockExhausted() {
+    return this.region.getTransactionClock().getExhaustions();
+  }
+
   public class HRegionMetricsWrapperRunnable implements Runnable {
 
     @Override
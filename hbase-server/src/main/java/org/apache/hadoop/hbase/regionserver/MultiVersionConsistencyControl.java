@@ -18,11 +18,15 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
+import org.apache.hadoop.hbase.util.HashedBytes;
 
 /**
  * Manages the read/write consistency within memstore. This provides
@@ -41,6 +45,10 @@ public class MultiVersionConsistencyControl {
   private final LinkedList<WriteEntry> writeQueue =
       new LinkedList<WriteEntry>();
 
+  // The latest pending write of each row whose writer has already released the row lock.
+  private final ConcurrentHashMap<HashedBytes, WriteEntry> rowWrites =
+      new ConcurrentHashMap<HashedBytes, WriteEntry>();
+
   /**
    * Default constructor. Initializes the memstoreRead/Write points to 0.
    */
@@ -101,6 +109,7 @@ public class MultiVersionConsistencyControl {
   boolean advanceMemstore(WriteEntry e) {
     synchronized (writeQueue) {
       e.markCompleted();
+      e.removeRowWrites(rowWrites);
 
       long nextReadValue = -1;
       boolean ranOnce=false;
@@ -164,19 +173,70 @@ public class MultiVersionConsistencyControl {
     return memstoreRead;
   }
 
+  /**
+   * Records that the pending write <code>e</code> modified <code>row</code>. Writers call this
+   * while still holding the row lock, right before releasing it, so that
+   * {@link #waitForRowWrites(HashedBytes)} can wait for this write only.
+   */
+  public void addRowWrite(WriteEntry e, HashedBytes row) {
+    e.addRow(row);
+    rowWrites.put(row, e);
+  }
+
+  /**
+   * Wait until the writes to <code>row</code> are complete. Unlike
+   * {@link #completeMemstoreInsert(WriteEntry)} on a new entry, this does not wait for the
+   * writes to other rows. The caller must hold the row lock; once this returns the memstore
+   * content of the row is final and can be read with an unbounded read point
+   * (see {@link org.apache.hadoop.hbase.client.IsolationLevel#READ_UNCOMMITTED}).
+   */
+  public void waitForRowWrites(HashedBytes row) {
+    WriteEntry e = rowWrites.get(row);
+    if (e != null) {
+      e.waitForCompletion();
+    }
+  }
 
   public static class WriteEntry {
     private long writeNumber;
     private boolean completed = false;
+    // rows registered through addRowWrite, allocated on first use
+    private List<HashedBytes> rows;
     WriteEntry(long writeNumber) {
       this.writeNumber = writeNumber;
     }
-    void markCompleted() {
+    synchronized void markCompleted() {
       this.completed = true;
+      notifyAll();
     }
-    boolean isCompleted() {
+    synchronized boolean isCompleted() {
       return this.completed;
     }
+    synchronized void waitForCompletion() {
+      boolean interrupted = false;
+      while (!completed) {
+        try {
+          wait();
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+    synchronized void addRow(HashedBytes row) {
+      if (rows == null) {
+        rows = new ArrayList<HashedBytes>(1);
+      }
+      rows.add(row);
+    }
+    synchronized void removeRowWrites(ConcurrentHashMap<HashedBytes, WriteEntry> rowWrites) {
+      if (rows == null) return;
+      for (HashedBytes row : rows) {
+        // a later write to the row may have replaced us already
+        rowWrites.remove(row, this);
+      }
+      rows = null;
+    }
     long getWriteNumber() {
       return this.writeNumber;
     }
@@ -185,6 +245,6 @@ public class MultiVersionConsistencyControl {
   public static final long FIXED_SIZE = ClassSize.align(
       ClassSize.OBJECT +
       2 * Bytes.SIZEOF_LONG +
-      2 * ClassSize.REFERENCE);
+      3 * ClassSize.REFERENCE);
 
 }
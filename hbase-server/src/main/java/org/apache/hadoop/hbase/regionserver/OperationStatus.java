@@ -39,6 +39,10 @@ public class OperationStatus {
   static final OperationStatus FAILURE =
     new OperationStatus(OperationStatusCode.FAILURE);
 
+  /** Singleton for conditional operations whose check did not pass.  */
+  static final OperationStatus CHECK_FAILED =
+    new OperationStatus(OperationStatusCode.CHECK_FAILED);
+
   /** Singleton for operations not yet run.  */
   static final OperationStatus NOT_RUN =
     new OperationStatus(OperationStatusCode.NOT_RUN);
@@ -65,8 +65,12 @@ public class RegionServerAccounting {
   public long addAndGetRegionReplayEditsSize(byte[] regionName, long memStoreSize) {
     AtomicLong replayEdistsSize = replayEditsPerRegion.get(regionName);
     if (replayEdistsSize == null) {
-      replayEdistsSize = new AtomicLong(0);
-      replayEditsPerRegion.put(regionName, replayEdistsSize);
+      // the stores of a region replay their edits in parallel
+      AtomicLong newSize = new AtomicLong(0);
+      replayEdistsSize = replayEditsPerRegion.putIfAbsent(regionName, newSize);
+      if (replayEdistsSize == null) {
+        replayEdistsSize = newSize;
+      }
     }
     return replayEdistsSize.addAndGet(memStoreSize);
   }
@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Resolves Omid snapshot isolation on the region server. For every column of a transactional
+ * family, the versions of a row are walked from the newest to the oldest, and each one is
+ * classified against the read timestamp of the transaction:
+ * <ul>
+ * <li>visible: the transaction's own write, or a write whose commit timestamp is not newer
+ * than the read timestamp. The commit timestamp of a singleton write is its own timestamp (see
+ * {@link TransactionTimestamp#isSingleton(long)}); that of a transactional write is the value
+ * of its shadow cell.</li>
+ * <li>invisible: written or committed after the read timestamp.</li>
+ * <li>unknown: a tentative write without a shadow cell, which the client has to resolve against
+ * the commit table.</li>
+ * </ul>
+ * Unknown versions are returned, visible ones end the walk, and invisible or older versions are
+ * dropped together with their shadow cells. Families that do not declare a shadow cell suffix
+ * are only cut down to the number of versions the reader asked for, since all the versions
+ * have to be read for the transactional ones.
+ */
+@InterfaceAudience.Private
+class SnapshotIsolationFilter extends FilterBase {
+
+  private enum Visibility {
+    VISIBLE, INVISIBLE, UNKNOWN
+  }
+
+  private final long readTimestamp;
+  private final Map<byte[], byte[]> shadowCellSuffixes;
+  private final int maxVersions;
+
+  /**
+   * @param readTimestamp the read (start) timestamp of the transaction
+   * @param shadowCellSuffixes the shadow cell qualifier suffix of each transactional family
+   * @param maxVersions the number of versions returned for the other families
+   */
+  SnapshotIsolationFilter(long readTimestamp, Map<byte[], byte[]> shadowCellSuffixes,
+      int maxVersions) {
+    this.readTimestamp = readTimestamp;
+    this.shadowCellSuffixes = shadowCellSuffixes;
+    this.maxVersions = maxVersions;
+  }
+
+  @Override
+  public boolean hasFilterRow() {
+    return true;
+  }
+
+  @Override
+  public void filterRowCells(List<Cell> cells) throws IOException {
+    // shadow cells sort after their data column, so index them before walking the versions
+    Map<byte[], Map<Long, Cell>> shadowCells =
+        new TreeMap<byte[], Map<Long, Cell>>(Bytes.BYTES_COMPARATOR);
+    for (Cell cell : cells) {
+      byte[] dataColumn = getDataColumn(cell);
+      if (dataColumn != null) {
+        Map<Long, Cell> versions = shadowCells.get(dataColumn);
+        if (versions == null) {
+          versions = new HashMap<Long, Cell>();
+          shadowCells.put(dataColumn, versions);
+        }
+        versions.put(cell.getTimestamp(), cell);
+      }
+    }
+
+    // versions dropped from the result, whose shadow cells have to go too
+    Map<byte[], Set<Long>> dropped = new TreeMap<byte[], Set<Long>>(Bytes.BYTES_COMPARATOR);
+    byte[] currentColumn = null;
+    boolean visibleFound = false;
+    Cell previousPlainCell = null;
+    int plainVersions = 0;
+    for (Iterator<Cell> it = cells.iterator(); it.hasNext();) {
+      Cell cell = it.next();
+      if (!shadowCellSuffixes.containsKey(CellUtil.cloneFamily(cell))) {
+        if (previousPlainCell == null || !CellUtil.matchingColumn(previousPlainCell, cell)) {
+          plainVersions = 0;
+        }
+        previousPlainCell = cell;
+        if (++plainVersions > maxVersions) {
+          it.remove();
+        }
+        continue;
+      }
+      byte[] dataColumn = getDataColumn(cell);
+      if (dataColumn != null) {
+        Set<Long> droppedVersions = dropped.get(dataColumn);
+        if (droppedVersions != null && droppedVersions.contains(cell.getTimestamp())) {
+          it.remove();
+        }
+        continue;
+      }
+      byte[] column = getColumn(cell, cell.getQualifierLength());
+      if (currentColumn == null || !Bytes.equals(column, currentColumn)) {
+        currentColumn = column;
+        visibleFound = false;
+      }
+      Visibility visibility = visibleFound ? Visibility.INVISIBLE
+          : getVisibility(cell, shadowCells.get(column));
+      if (visibility == Visibility.VISIBLE) {
+        visibleFound = true;
+      } else if (visibility == Visibility.INVISIBLE) {
+        it.remove();
+        Set<Long> droppedVersions = dropped.get(column);
+        if (droppedVersions == null) {
+          droppedVersions = new HashSet<Long>();
+          dropped.put(column, droppedVersions);
+        }
+        droppedVersions.add(cell.getTimestamp());
+      }
+    }
+  }
+
+  private Visibility getVisibility(Cell cell, Map<Long, Cell> columnShadowCells) {
+    long ts = cell.getTimestamp();
+    if (ts == readTimestamp) {
+      // the transaction's own write
+      return Visibility.VISIBLE;
+    }
+    if (ts > readTimestamp) {
+      return Visibility.INVISIBLE;
+    }
+    Cell shadowCell = columnShadowCells == null ? null : columnShadowCells.get(ts);
+    if (shadowCell == null) {
+      return Visibility.UNKNOWN;
+    }
+    long commitTimestamp;
+    if (TransactionTimestamp.isSingleton(ts)) {
+      commitTimestamp = ts;
+    } else if (shadowCell.getValueLength() == Bytes.SIZEOF_LONG) {
+      commitTimestamp = Bytes.toLong(shadowCell.getValueArray(), shadowCell.getValueOffset());
+    } else {
+      return Visibility.UNKNOWN;
+    }
+    return commitTimestamp <= readTimestamp ? Visibility.VISIBLE : Visibility.INVISIBLE;
+  }
+
+  /**
+   * @return the key of the data column of <code>cell</code> if it is a shadow cell, null
+   * otherwise
+   */
+  private byte[] getDataColumn(Cell cell) {
+    byte[] suffix = shadowCellSuffixes.get(CellUtil.cloneFamily(cell));
+    if (suffix == null || cell.getQualifierLength() <= suffix.length) {
+      return null;
+    }
+    int dataLength = cell.getQualifierLength() - suffix.length;
+    if (Bytes.compareTo(cell.getQualifierArray(), cell.getQualifierOffset() + dataLength,
+        suffix.length, suffix, 0, suffix.length) != 0) {
+      return null;
+    }
+    return getColumn(cell, dataLength);
+  }
+
+  /**
+   * @return a key identifying the family of <code>cell</code> and the first
+   * <code>qualifierLength</code> bytes of its qualifier
+   */
+  private static byte[] getColumn(Cell cell, int qualifierLength) {
+    byte[] column = new byte[1 + cell.getFamilyLength() + qualifierLength];
+    column[0] = cell.getFamilyLength();
+    System.arraycopy(cell.getFamilyArray(), cell.getFamilyOffset(), column, 1,
+        cell.getFamilyLength());
+    System.arraycopy(cell.getQualifierArray(), cell.getQualifierOffset(), column,
+        1 + cell.getFamilyLength(), qualifierLength);
+    return column;
+  }
+}
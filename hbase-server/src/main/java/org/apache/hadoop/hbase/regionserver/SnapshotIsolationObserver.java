@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.OperationWithAttributes;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.BaseRegionObserver;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Region observer that resolves Omid snapshot isolation on the region server, so that the
+ * versions a transaction cannot see are not shipped back to the client.
+ * <p>
+ * Gets and Scans carrying {@link HConstants#SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE} are extended with
+ * a {@link SnapshotIsolationFilter} for the families that declare a shadow cell suffix (see
+ * {@link HColumnDescriptor#setShadowCellSuffix(byte[])}). The observer reads all the versions
+ * and adds the shadow cell of every explicitly requested column, which the filter needs to find
+ * the commit timestamps. The filter then trims the other families back to the number of
+ * versions the reader asked for. Scans that set a batch size are left untouched, since the
+ * filter has to see whole rows.
+ */
+@InterfaceAudience.Private
+public class SnapshotIsolationObserver extends BaseRegionObserver {
+
+  @Override
+  public void preGetOp(ObserverContext<RegionCoprocessorEnvironment> e, Get get,
+      List<Cell> results) throws IOException {
+    Filter filter = createFilter(e.getEnvironment().getRegion(), get, get.getFamilyMap(),
+        get.getMaxVersions());
+    if (filter != null) {
+      get.setMaxVersions();
+      get.setFilter(get.getFilter() == null ? filter : new FilterList(get.getFilter(), filter));
+    }
+  }
+
+  @Override
+  public RegionScanner preScannerOpen(ObserverContext<RegionCoprocessorEnvironment> e, Scan scan,
+      RegionScanner s) throws IOException {
+    if (scan.getBatch() > 0) {
+      // rows would reach the filter in parts; leave the resolution to the client
+      return s;
+    }
+    Filter filter = createFilter(e.getEnvironment().getRegion(), scan, scan.getFamilyMap(),
+        scan.getMaxVersions());
+    if (filter != null) {
+      scan.setMaxVersions();
+      scan.setFilter(scan.getFilter() == null ? filter : new FilterList(scan.getFilter(), filter));
+    }
+    return s;
+  }
+
+  /**
+   * @param maxVersions the number of versions asked for by <code>operation</code>
+   * @return the filter resolving the snapshot of the transaction that issued
+   * <code>operation</code>, or null if it is not a transactional read or the region has no
+   * transactional family
+   */
+  private static Filter createFilter(HRegion region, OperationWithAttributes operation,
+      Map<byte[], NavigableSet<byte[]>> familyMap, int maxVersions) {
+    byte[] readTimestamp = operation.getAttribute(HConstants.SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE);
+    if (readTimestamp == null) {
+      return null;
+    }
+    Map<byte[], byte[]> shadowCellSuffixes = new TreeMap<byte[], byte[]>(Bytes.BYTES_COMPARATOR);
+    for (HColumnDescriptor family : region.getTableDesc().getColumnFamilies()) {
+      byte[] suffix = family.getShadowCellSuffix();
+      if (suffix != null) {
+        shadowCellSuffixes.put(family.getName(), suffix);
+      }
+    }
+    if (shadowCellSuffixes.isEmpty()) {
+      return null;
+    }
+    for (Map.Entry<byte[], NavigableSet<byte[]>> entry : familyMap.entrySet()) {
+      byte[] suffix = shadowCellSuffixes.get(entry.getKey());
+      if (suffix == null || entry.getValue() == null) {
+        continue;
+      }
+      List<byte[]> shadowQualifiers = new ArrayList<byte[]>(entry.getValue().size());
+      for (byte[] qualifier : entry.getValue()) {
+        shadowQualifiers.add(Bytes.add(qualifier, suffix));
+      }
+      entry.getValue().addAll(shadowQualifiers);
+    }
+    return new SnapshotIsolationFilter(Bytes.toLong(readTimestamp), shadowCellSuffixes,
+        maxVersions);
+  }
+}
@@ -128,6 +128,13 @@ public interface Store extends HeapSize, StoreConfigInformation {
    */
   long add(KeyValue kv);
 
+  /**
+   * Adds values to the memstore
+   * @param kvs
+   * @return memstore size delta
+   */
+  long add(List<KeyValue> kvs);
+
   /**
    * When was the last edit done in the memstore
    */
@@ -154,6 +161,37 @@ public interface Store extends HeapSize, StoreConfigInformation {
    */
   KeyValue getRowKeyAtOrBefore(final byte[] row) throws IOException;
 
+  /**
+   * Find the newest cell of a single column without building a scanner stack. The memstore is
+   * looked at first; store files are then visited in decreasing order of their maximum
+   * timestamp, skipping those whose bloom filter rules out the column, and stopping at the first
+   * one whose time range cannot hold anything newer than what was already found. Delete markers
+   * are not applied: if the newest cell affecting the column is a delete marker, be it a column
+   * or a family delete, it is returned as is and the caller has to fall back to a regular read.
+   * <p>
+   * TTL and filters are ignored, as are the scan hooks of coprocessors.
+   * @param row the row of the column
+   * @param qualifier the qualifier of the column
+   * @param readPt memstore cells written after this mvcc read point are ignored
+   * @return the newest Put or delete marker of the column, or null if there is none
+   * @throws IOException
+   */
+  KeyValue getNewestInColumn(byte[] row, byte[] qualifier, long readPt) throws IOException;
+
+  /**
+   * Looks up the newest version of several columns of a row together, like
+   * {@link #getNewestInColumn(byte[], byte[], long)} does for one column. Each store file is
+   * sought once and then read forward, so columns that sort close to each other, like a cell and
+   * its co-located shadow cell, cost a single seek per file.
+   * @param row the row of the columns
+   * @param qualifiers the qualifiers of the columns, in ascending order
+   * @param readPt memstore cells written after this mvcc read point are ignored
+   * @return the newest Put or delete marker of each column, at the index of its qualifier, null
+   *         where there is none
+   * @throws IOException
+   */
+  KeyValue[] getNewestInColumns(byte[] row, byte[][] qualifiers, long readPt) throws IOException;
+
   FileSystem getFileSystem();
 
   /*
@@ -271,6 +309,11 @@ public interface Store extends HeapSize, StoreConfigInformation {
    */
   long getMaxMemstoreTS();
 
+  /**
+   * @return The highest region transaction clock recorded in the store files.
+   */
+  long getMaxTransactionTimestamp();
+
   /**
    * @return the data block encoder
    */
@@ -111,6 +111,10 @@ public class StoreFile {
   /** Key for timestamp of earliest-put in metadata*/
   public static final byte[] EARLIEST_PUT_TS = Bytes.toBytes("EARLIEST_PUT_TS");
 
+  /** Region transaction clock at the time the file was written, in FileInfo */
+  public static final byte[] MAX_TRANSACTION_TIMESTAMP_KEY =
+      Bytes.toBytes("MAX_TRANSACTION_TIMESTAMP");
+
   private final StoreFileInfo fileInfo;
   private final FileSystem fs;
 
@@ -133,6 +137,14 @@ public class StoreFile {
     this.maxMemstoreTS = maxMemstoreTS;
   }
 
+  // region transaction clock recorded when this file was written
+  // Set when we obtain a Reader.
+  private long maxTransactionTimestamp = 0;
+
+  public long getMaxTransactionTimestamp() {
+    return maxTransactionTimestamp;
+  }
+
   // If true, this file was product of a major compaction.  Its then set
   // whenever you get a Reader.
   private AtomicBoolean majorCompaction = null;
@@ -310,6 +322,19 @@ public class StoreFile {
     return max;
   }
 
+  /**
+   * Return the highest region transaction clock recorded across all
+   * storefiles in the given list.
+   * @return 0 if none of the files recorded the clock
+   */
+  public static long getMaxTransactionTimestampInList(Collection<StoreFile> sfs) {
+    long max = 0;
+    for (StoreFile sf : sfs) {
+      max = Math.max(max, sf.getMaxTransactionTimestamp());
+    }
+    return max;
+  }
+
   /**
    * Return the highest sequence ID found across all storefiles in
    * the given list.
@@ -415,6 +440,11 @@ public class StoreFile {
       this.maxMemstoreTS = Bytes.toLong(b);
     }
 
+    b = metadataMap.get(MAX_TRANSACTION_TIMESTAMP_KEY);
+    if (b != null) {
+      this.maxTransactionTimestamp = Bytes.toLong(b);
+    }
+
     b = metadataMap.get(MAJOR_COMPACTION_KEY);
     if (b != null) {
       boolean mc = Bytes.toBoolean(b);
@@ -731,6 +761,11 @@ public class StoreFile {
      * the appended KeyValues*/
     boolean isTimeRangeTrackerSet = false;
 
+    /* The region transaction clock, recorded in the metadata so that it can be
+     * restored when the region is opened elsewhere. Not set for files written
+     * outside of a region, e.g. bulk loads. */
+    private TransactionTimestamp transactionClock;
+
     protected HFile.Writer writer;
 
     /**
@@ -801,9 +836,22 @@ public class StoreFile {
       writer.appendFileInfo(MAX_SEQ_ID_KEY, Bytes.toBytes(maxSequenceId));
       writer.appendFileInfo(MAJOR_COMPACTION_KEY,
           Bytes.toBytes(majorCompaction));
+      if (transactionClock != null) {
+        // the clock is at least as new as every cell written to this file
+        writer.appendFileInfo(MAX_TRANSACTION_TIMESTAMP_KEY,
+            Bytes.toBytes(transactionClock.get()));
+      }
       appendTrackedTimestampsToMetadata();
     }
 
+    /**
+     * Set the region transaction clock recorded by {@link #appendMetadata}.
+     * @param transactionClock the clock of the region this file belongs to
+     */
+    public void setTransactionClock(TransactionTimestamp transactionClock) {
+      this.transactionClock = transactionClock;
+    }
+
     /**
      * Add TimestampRange and earliest put timestamp to Metadata
      */
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.Coprocessor;
+import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.classification.InterfaceStability;
+import org.apache.hadoop.hbase.client.coprocessor.TransactionClockClient;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorException;
+import org.apache.hadoop.hbase.coprocessor.RegionServerCoprocessorEnvironment;
+import org.apache.hadoop.hbase.coprocessor.SingletonCoprocessorService;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.RegionTransactionClock;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockRequest;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockResponse;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockService;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcController;
+import com.google.protobuf.Service;
+
+/**
+ * Region server coprocessor returning the local transaction clocks of the regions it hosts,
+ * straight from their {@link TransactionTimestamp}, without touching the stores. Load it through
+ * <code>hbase.coprocessor.regionserver.classes</code> and call it with
+ * {@link TransactionClockClient}. Regions that are not online on the server are left out of the
+ * response.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.COPROC)
+@InterfaceStability.Evolving
+public class TransactionClockEndpoint extends TransactionClockService
+    implements Coprocessor, SingletonCoprocessorService {
+
+  private RegionServerServices regionServerServices;
+
+  @Override
+  public void getClocks(RpcController controller, TransactionClockRequest request,
+      RpcCallback<TransactionClockResponse> done) {
+    TransactionClockResponse.Builder response = TransactionClockResponse.newBuilder();
+    for (ByteString encodedRegionName : request.getEncodedRegionNameList()) {
+      HRegion region = regionServerServices.getFromOnlineRegions(encodedRegionName.toStringUtf8());
+      if (region != null) {
+        response.addRegionClock(RegionTransactionClock.newBuilder()
+            .setEncodedRegionName(encodedRegionName)
+            .setClock(region.getTransactionClock().get()));
+      }
+    }
+    done.run(response.build());
+  }
+
+  @Override
+  public Service getService() {
+    return this;
+  }
+
+  @Override
+  public void start(CoprocessorEnvironment env) throws IOException {
+    if (env instanceof RegionServerCoprocessorEnvironment) {
+      this.regionServerServices =
+          ((RegionServerCoprocessorEnvironment) env).getRegionServerServices();
+    } else {
+      throw new CoprocessorException("Must be loaded on a region server!");
+    }
+  }
+
+  @Override
+  public void stop(CoprocessorEnvironment env) throws IOException {
+    // nothing to do
+  }
+}
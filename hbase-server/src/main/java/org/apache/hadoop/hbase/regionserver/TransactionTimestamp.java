@@ -4,15 +4,25 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.RegionTooBusyException;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Mutation;
 
 /**
  * Used to maintain a local timestamp in {@link HRegionServer} which is also
  * synced with the timestamps issued by the TSO
+ * <p>
+ * TSO timestamps observed by gets and transactional mutations are only ever
+ * max-merged into the clock, so they are recorded in striped high-water marks
+ * (one slot per group of handler threads) instead of a single contended
+ * AtomicLong. Singleton increments are the only operations that need a total
+ * order; they fold the stripes into {@link #latestTimestamp} before
+ * incrementing it, so every singleton timestamp is strictly greater than any
+ * previous singleton timestamp and than any update that completed before it.
  * 
  * @author aran
  *
@@ -23,6 +33,20 @@ public class TransactionTimestamp {
 	 */
 	private AtomicLong latestTimestamp;
 
+	/**
+	 * Striped high-water marks of the TSO timestamps seen by this region. Slot
+	 * i lives at index (i + 1) * PADDING so that stripes do not share a cache
+	 * line with each other or with the array header.
+	 */
+	private final AtomicLongArray highWaterMarks;
+	private final int stripeMask;
+
+	/** Number of singletons refused because the local block of the epoch ran out. */
+	private final AtomicLong exhaustions = new AtomicLong(0);
+
+	private final static int PADDING = 8;
+	private final static int MAX_STRIPES = 64;
+
 	public final static int LOCAL_BITS = 24;
 	public final static long TRANSACTION_INC = 1L << LOCAL_BITS;
 	private final static long LOCAL_MASK = TRANSACTION_INC - 1;
@@ -38,17 +62,69 @@ public class TransactionTimestamp {
 
 	
 	public TransactionTimestamp() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param stripes
+	 *            the number of high-water mark stripes; rounded up to a power
+	 *            of two and capped at {@value #MAX_STRIPES}
+	 */
+	public TransactionTimestamp(int stripes) {
+		int n = 1;
+		while (n < stripes && n < MAX_STRIPES) {
+			n <<= 1;
+		}
+		stripeMask = n - 1;
+		highWaterMarks = new AtomicLongArray((n + 1) * PADDING);
 		latestTimestamp = new AtomicLong(0);
 	}
 
+	private int stripeIndex() {
+		return ((int) Thread.currentThread().getId() & stripeMask) * PADDING
+				+ PADDING;
+	}
+
+	private long getHighWaterMark() {
+		long max = 0;
+		for (int i = PADDING; i < highWaterMarks.length(); i += PADDING) {
+			max = Math.max(max, highWaterMarks.get(i));
+		}
+		return max;
+	}
+
 	public long get() {
-		return latestTimestamp.get();
+		return Math.max(latestTimestamp.get(), getHighWaterMark());
 	}
 
-	private long increment() {
-		// TODO: change the code so that increments will never overflow into the
-		// TsoTimestamp part of the timestamp
-		long ts = latestTimestamp.incrementAndGet();
+	/**
+	 * Allocates the next singleton timestamp. Singletons lease their local
+	 * timestamps from the block of {@link #LOCAL_MASK} slots that follows the
+	 * latest TSO epoch seen by the region. Local slot 0 of an epoch is the TSO
+	 * timestamp itself and is never handed out, since {@link #isSingleton(long)}
+	 * would not recognize it. The next epoch belongs to the TSO: a singleton
+	 * carried into it could be newer than the snapshot of a transaction which
+	 * starts after the singleton is written. So once the block is exhausted,
+	 * singletons are refused until a get or a mutation of a transaction brings
+	 * a newer TSO timestamp to the region.
+	 * 
+	 * @throws RegionTooBusyException
+	 *             if the local block of the latest epoch is exhausted
+	 */
+	private long increment() throws RegionTooBusyException {
+		long hwm = getHighWaterMark();
+		long currentTS;
+		long ts;
+		do {
+			currentTS = latestTimestamp.get();
+			ts = Math.max(currentTS, hwm) + 1;
+			if ((ts & LOCAL_MASK) == 0) {
+				exhaustions.incrementAndGet();
+				throw new RegionTooBusyException("Singleton timestamps of TSO epoch "
+						+ (ts - TRANSACTION_INC) + " exhausted, waiting for a newer "
+						+ "TSO timestamp");
+			}
+		} while (!latestTimestamp.compareAndSet(currentTS, ts));
 		return ts;
 	}
 
@@ -61,10 +137,11 @@ public class TransactionTimestamp {
 	private long update(long ts) {
 		long currentTS;
 		long updatedTS = TsoTimestampToRegionTimestamp(ts);
+		int i = stripeIndex();
 		do {
-			currentTS = latestTimestamp.get();
+			currentTS = highWaterMarks.get(i);
 		} while (currentTS < updatedTS
-				&& !latestTimestamp.compareAndSet(currentTS, updatedTS));
+				&& !highWaterMarks.compareAndSet(i, currentTS, updatedTS));
 		return Math.max(updatedTS, currentTS);
 	}
 
@@ -85,7 +162,7 @@ public class TransactionTimestamp {
 	 * @return the most updated TSO timestamp this HRegionServer is aware of
 	 */
 	public long getTransactionTimestamp() {
-		return RegionTimestampToTsoTimestamp(latestTimestamp.get());
+		return RegionTimestampToTsoTimestamp(get());
 	}
 
 	/**
@@ -93,7 +170,40 @@ public class TransactionTimestamp {
 	 * @return the local timestamp of the HRegionServer
 	 */
 	public long getLocalTimestamp() {
-		return getLocalTimestamp(latestTimestamp.get());
+		return getLocalTimestamp(get());
+	}
+
+	/**
+	 * Moves the clock forward to a high-water mark recovered from persistent
+	 * state (store file metadata or WAL markers) when the region is opened.
+	 * The clock never moves backwards.
+	 * 
+	 * @param ts
+	 *            a region timestamp previously returned by {@link #get()}
+	 */
+	public void restore(long ts) {
+		long currentTS;
+		do {
+			currentTS = latestTimestamp.get();
+		} while (currentTS < ts && !latestTimestamp.compareAndSet(currentTS, ts));
+	}
+
+	/**
+	 * 
+	 * @return the number of singleton timestamps that can still be allocated
+	 *         before the local block of the current epoch is exhausted
+	 */
+	public long getLocalHeadroom() {
+		return LOCAL_MASK - getLocalTimestamp();
+	}
+
+	/**
+	 * 
+	 * @return the number of singleton writes refused because the local block of
+	 *         the latest epoch was exhausted
+	 */
+	public long getExhaustions() {
+		return exhaustions.get();
 	}
 
 	public long updateByGet(Get get) {
@@ -107,7 +217,16 @@ public class TransactionTimestamp {
 		return TsoTimestampToRegionTimestamp(ts);
 	}
 
-	public long updateByMutatation(Mutation mt) {
+	/**
+	 * Updates the clock with the TSO timestamp of a transactional mutation, or
+	 * allocates the timestamp of a singleton one.
+	 * 
+	 * @return the timestamp to write the mutation with
+	 * @throws RegionTooBusyException
+	 *             if the mutation is a singleton and the local block of the
+	 *             latest epoch is exhausted
+	 */
+	public long updateByMutatation(Mutation mt) throws RegionTooBusyException {
 		long ts = mt.getTimeStamp(); // This will return the read TSO timestamp
 										// of the
 										// transaction (if this is not a
@@ -206,7 +206,7 @@ public abstract class Compactor {
    */
   private static final AtomicInteger NAME_COUNTER = new AtomicInteger(0);
 
-  private String generateCompactionName() {
+  protected String generateCompactionName() {
     int counter;
     for (;;) {
       counter = NAME_COUNTER.get();
@@ -228,6 +228,21 @@ public abstract class Compactor {
   protected boolean performCompaction(InternalScanner scanner, CellSink writer,
       long smallestReadPoint, CompactionThroughputController throughputController)
       throws IOException {
+    return performCompaction(scanner, writer, smallestReadPoint, throughputController,
+      this.progress);
+  }
+
+  /**
+   * Performs the compaction, or a part of it.
+   * @param scanner Where to read from.
+   * @param writer Where to write to.
+   * @param smallestReadPoint Smallest read point.
+   * @param progress Where to report the progress of the compaction.
+   * @return Whether compaction ended; false if it was interrupted for some reason.
+   */
+  protected boolean performCompaction(InternalScanner scanner, CellSink writer,
+      long smallestReadPoint, CompactionThroughputController throughputController,
+      CompactionProgress progress) throws IOException {
     long bytesWritten = 0;
     long bytesWrittenProgress = 0;
     // Since scanner.next() can return 'false' but still be delivering data,
@@ -0,0 +1,221 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+
+/**
+ * Compaction policy for time series, whose cells are mostly written in the order of their
+ * timestamps. The store files are grouped into time windows by the max timestamp of their
+ * cells. The most recent windows are {@value #BASE_WINDOW_MILLIS_KEY} wide; every
+ * {@value #WINDOWS_PER_TIER_KEY} windows, the windows get that many times wider, so that the
+ * older the data, the wider its windows.
+ * <p>
+ * A minor compaction only compacts files of a same window, the most recent window first: the
+ * files of the most recent window are selected by the ratio of the parent policy, the files of
+ * an older window are all compacted together. A cell is thus rewritten a number of times
+ * logarithmic in its age, instead of each time it is compacted with newer files of a similar
+ * size. The files whose cells are older than {@value #MAX_STOREFILE_AGE_MILLIS_KEY} are not
+ * minor compacted anymore.
+ * <p>
+ * The windows are laid out back from the newest max timestamp of the candidate files, not from
+ * the clock of the region server, and their widths and the max age are in the unit of the cell
+ * timestamps. The timestamps of a family are not always wall clock milliseconds, e.g. the
+ * transactional families use the {@link org.apache.hadoop.hbase.regionserver.TransactionTimestamp}
+ * of the region, so the widths have to be set in the unit the family uses. As a side effect, a
+ * store which is not written to anymore keeps its windows instead of seeing them all age.
+ * <p>
+ * A file without time range, written before the time range tracker or bulk loaded without it,
+ * belongs to no window: it is left out of the minor compactions, and the files on each side of
+ * it are selected apart. If no candidate has a time range, the parent policy selects.
+ * <p>
+ * Major compactions still rewrite all the files of the store into one, so periodic major
+ * compactions should be turned off on the families using this policy.
+ */
+@InterfaceAudience.Private
+public class DateTieredCompactionPolicy extends RatioBasedCompactionPolicy {
+  private static final Log LOG = LogFactory.getLog(DateTieredCompactionPolicy.class);
+
+  private static final String CONFIG_PREFIX = "hbase.hstore.compaction.date.tiered.";
+  public static final String BASE_WINDOW_MILLIS_KEY = CONFIG_PREFIX + "base.window.millis";
+  public static final String WINDOWS_PER_TIER_KEY = CONFIG_PREFIX + "windows.per.tier";
+  public static final String MAX_STOREFILE_AGE_MILLIS_KEY =
+      CONFIG_PREFIX + "max.storefile.age.millis";
+
+  private long baseWindowMillis;
+  private int windowsPerTier;
+  private long maxStoreFileAgeMillis;
+
+  public DateTieredCompactionPolicy(Configuration conf,
+      StoreConfigInformation storeConfigInfo) {
+    super(conf, storeConfigInfo);
+    loadWindowConf(conf);
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    loadWindowConf(conf);
+  }
+
+  private void loadWindowConf(Configuration conf) {
+    baseWindowMillis = Math.max(1, conf.getLong(BASE_WINDOW_MILLIS_KEY, 1000L * 60 * 60 * 6));
+    windowsPerTier = Math.max(2, conf.getInt(WINDOWS_PER_TIER_KEY, 4));
+    maxStoreFileAgeMillis = conf.getLong(MAX_STOREFILE_AGE_MILLIS_KEY, Long.MAX_VALUE);
+    LOG.info("Date tiered compaction windows: base " + baseWindowMillis + " ms, "
+        + windowsPerTier + " windows per tier, max store file age " + maxStoreFileAgeMillis
+        + " ms");
+  }
+
+  @Override
+  ArrayList<StoreFile> applyCompactionPolicy(ArrayList<StoreFile> candidates,
+      boolean mayUseOffPeak, boolean mayBeStuck) throws IOException {
+    if (candidates.isEmpty()) {
+      return candidates;
+    }
+    // a file without time range, e.g. written before the time range tracker or bulk loaded
+    // without it, reports Long.MAX_VALUE: it is in no window
+    long newest = -1;
+    for (StoreFile sf : candidates) {
+      long maxTimestamp = sf.getReader().getMaxTimestamp();
+      if (maxTimestamp != Long.MAX_VALUE) {
+        newest = Math.max(newest, Math.max(0, maxTimestamp));
+      }
+    }
+    if (newest < 0) {
+      LOG.debug("No candidate file has a time range, falling back to the ratio selection");
+      return super.applyCompactionPolicy(candidates, mayUseOffPeak, mayBeStuck);
+    }
+    long oldestToCompact = maxStoreFileAgeMillis >= newest ? 0 : newest - maxStoreFileAgeMillis;
+    Window window = new Window(baseWindowMillis, newest / baseWindowMillis);
+    boolean incomingWindow = true;
+
+    // candidates are ordered by sequence id, mostly from oldest to newest timestamps: walk them
+    // back, a window at a time. A file newer than the current window, written out of order,
+    // stays with its neighbours.
+    int end = candidates.size();
+    int start = end;
+    while (start > 0) {
+      long maxTimestamp = candidates.get(start - 1).getReader().getMaxTimestamp();
+      if (maxTimestamp == Long.MAX_VALUE) {
+        // the files of a selection must be contiguous, so a file in no window splits its window
+        ArrayList<StoreFile> selection = selectInWindow(candidates.subList(start, end),
+          incomingWindow, mayUseOffPeak);
+        if (!selection.isEmpty()) {
+          return logSelection(selection, candidates.size(), window);
+        }
+        start--;
+        end = start;
+        continue;
+      }
+      maxTimestamp = Math.max(0, maxTimestamp);
+      if (maxTimestamp < oldestToCompact) {
+        break;
+      }
+      if (maxTimestamp < window.getStartMillis()) {
+        ArrayList<StoreFile> selection = selectInWindow(candidates.subList(start, end),
+          incomingWindow, mayUseOffPeak);
+        if (!selection.isEmpty()) {
+          return logSelection(selection, candidates.size(), window);
+        }
+        end = start;
+        incomingWindow = false;
+        while (maxTimestamp < window.getStartMillis()) {
+          window = window.nextEarlierWindow(windowsPerTier);
+        }
+      }
+      start--;
+    }
+    ArrayList<StoreFile> selection = selectInWindow(candidates.subList(start, end),
+      incomingWindow, mayUseOffPeak);
+    if (!selection.isEmpty()) {
+      return logSelection(selection, candidates.size(), window);
+    }
+    if (mayBeStuck) {
+      LOG.debug("No time window to compact, but the store might be stuck");
+      return super.applyCompactionPolicy(candidates, mayUseOffPeak, true);
+    }
+    candidates.clear();
+    return candidates;
+  }
+
+  private ArrayList<StoreFile> selectInWindow(List<StoreFile> files, boolean incomingWindow,
+      boolean mayUseOffPeak) throws IOException {
+    ArrayList<StoreFile> selection = new ArrayList<StoreFile>(files);
+    if (incomingWindow) {
+      selection = super.applyCompactionPolicy(selection, mayUseOffPeak, false);
+    }
+    if (selection.size() < comConf.getMinFilesToCompact()) {
+      selection.clear();
+    }
+    return selection;
+  }
+
+  private ArrayList<StoreFile> logSelection(ArrayList<StoreFile> selection, int candidates,
+      Window window) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Date tiered compaction algorithm has selected " + selection.size()
+          + " files from " + candidates + " candidates in window " + window);
+    }
+    return selection;
+  }
+
+  /**
+   * A time window, the divPosition-th of the windows of its width since the epoch.
+   */
+  private static final class Window {
+    private final long windowMillis;
+    private final long divPosition;
+
+    Window(long windowMillis, long divPosition) {
+      this.windowMillis = windowMillis;
+      this.divPosition = divPosition;
+    }
+
+    long getStartMillis() {
+      return windowMillis * divPosition;
+    }
+
+    /**
+     * @return the window just before this one; the first window of a tier is preceded by the
+     *         last window of the next tier, windowsPerTier times as wide
+     */
+    Window nextEarlierWindow(int windowsPerTier) {
+      if (divPosition % windowsPerTier > 0) {
+        return new Window(windowMillis, divPosition - 1);
+      }
+      return new Window(windowMillis * windowsPerTier, divPosition / windowsPerTier - 1);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + getStartMillis() + ", " + (getStartMillis() + windowMillis) + ")";
+    }
+  }
+}
@@ -0,0 +1,404 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.RegionServerServices;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.StoreScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Threads;
+
+/**
+ * A compactor which splits the large major compactions by row range, to use several cores for a
+ * single store. The rows of the store are cut into sub-ranges at the keys of the root data block
+ * index of its largest file, which are evenly spread over the file. The sub-ranges are compacted
+ * in parallel, each into its own file, with positional reads so that they do not contend on the
+ * streams of the shared readers. All the files are then committed together by the store, as the
+ * output of a single compaction; if any sub-range fails, none of them is kept.
+ * <p>
+ * Major compactions of at least {@value #MIN_SIZE_KEY} bytes are split in up to
+ * {@value #SUB_COMPACTIONS_KEY} sub-ranges, by default the number of available processors, but
+ * always fewer than the min number of files of a minor compaction and than the blocking store
+ * file count: the output alone neither triggers a compaction nor blocks the updates. The output
+ * files are also excluded from the minor compactions, as bulk loaded files can be, so that they
+ * are not merged back with the next flushes; the next major compaction rewrites them.
+ * <p>
+ * The sub-ranges run in a pool of the compactor, so of the store, whose idle threads go away after
+ * a minute. They share the throughput budget of a single compaction. The other compactions are
+ * done as by {@link DefaultCompactor}. The coprocessor hooks creating or wrapping the compaction
+ * scanner are called once per sub-range. To use it, set
+ * {@value org.apache.hadoop.hbase.regionserver.DefaultStoreEngine#DEFAULT_COMPACTOR_CLASS_KEY}
+ * to this class.
+ */
+@InterfaceAudience.Private
+public class ParallelCompactor extends DefaultCompactor {
+  private static final Log LOG = LogFactory.getLog(ParallelCompactor.class);
+
+  public static final String SUB_COMPACTIONS_KEY =
+      "hbase.hstore.compaction.parallel.subcompactions";
+  public static final String MIN_SIZE_KEY = "hbase.hstore.compaction.parallel.min.size";
+  private static final long DEFAULT_MIN_SIZE = 10L * 1024 * 1024 * 1024;
+
+  private final int maxSubCompactions;
+  private final long minSize;
+  private final ExecutorService pool;
+
+  public ParallelCompactor(final Configuration conf, final Store store) {
+    super(conf, store);
+    int minFilesToCompact = new CompactionConfiguration(conf, store).getMinFilesToCompact();
+    this.maxSubCompactions = (int) Math.min(
+      conf.getInt(SUB_COMPACTIONS_KEY, Runtime.getRuntime().availableProcessors()),
+      Math.min(minFilesToCompact, store.getBlockingFileCount()) - 1);
+    this.minSize = conf.getLong(MIN_SIZE_KEY, DEFAULT_MIN_SIZE);
+    this.pool = maxSubCompactions > 1 ? Threads.getBoundedCachedThreadPool(maxSubCompactions, 60,
+      TimeUnit.SECONDS, Threads.newDaemonThreadFactory("SubCompaction-"
+          + store.getRegionInfo().getEncodedName() + "-" + store.getColumnFamilyName())) : null;
+  }
+
+  @Override
+  public List<Path> compact(final CompactionRequest request,
+      CompactionThroughputController throughputController) throws IOException {
+    if (request.isMajor() && request.getSize() >= minSize && maxSubCompactions > 1) {
+      List<byte[]> boundaries = getRowBoundaries(request.getFiles(), maxSubCompactions);
+      if (!boundaries.isEmpty()) {
+        return compactInParallel(request, boundaries, throughputController);
+      }
+    }
+    return super.compact(request, throughputController);
+  }
+
+  /**
+   * @param files the files to compact
+   * @param count the max number of sub-ranges
+   * @return up to count - 1 increasing rows splitting the files into sub-ranges of similar size
+   */
+  static List<byte[]> getRowBoundaries(Collection<StoreFile> files, int count) {
+    StoreFile.Reader largest = null;
+    for (StoreFile file : files) {
+      StoreFile.Reader r = file.getReader();
+      if (r != null && (largest == null || r.length() > largest.length())) {
+        largest = r;
+      }
+    }
+    List<byte[]> boundaries = new ArrayList<byte[]>(count - 1);
+    if (largest == null) {
+      return boundaries;
+    }
+    HFileBlockIndex.BlockIndexReader index = largest.getHFileReader().getDataBlockIndexReader();
+    int rootCount = index.getRootBlockCount();
+    for (int i = 1; i < count; i++) {
+      // the first key of the file is no boundary
+      int position = (int) ((long) i * rootCount / count);
+      if (position == 0) {
+        continue;
+      }
+      byte[] row = KeyValue.createKeyValueFromKey(index.getRootBlockKey(position)).getRow();
+      if (boundaries.isEmpty() || Bytes.compareTo(boundaries.get(boundaries.size() - 1), row) < 0) {
+        boundaries.add(row);
+      }
+    }
+    return boundaries;
+  }
+
+  private List<Path> compactInParallel(final CompactionRequest request, List<byte[]> boundaries,
+      final CompactionThroughputController throughputController) throws IOException {
+    final FileDetails fd = getFileDetails(request.getFiles(), request.isMajor());
+    this.progress = new CompactionProgress(fd.maxKeyCount);
+    final long smallestReadPoint = getSmallestReadPoint();
+    int count = boundaries.size() + 1;
+    LOG.info("Compacting " + store + " in region " + store.getRegionInfo().getRegionNameAsString()
+        + " in " + count + " row ranges in parallel");
+
+    // the sub-ranges are throttled as one compaction
+    final String compactionName = generateCompactionName();
+    throughputController.start(compactionName);
+    final CompactionThroughputController rangeController =
+        new SharedThroughputController(throughputController, compactionName);
+    // set when a sub-range fails, to stop the others
+    final AtomicBoolean aborted = new AtomicBoolean(false);
+    CompletionService<Path> completionService = new ExecutorCompletionService<Path>(pool);
+    final List<CompactionProgress> subProgresses = new ArrayList<CompactionProgress>(count);
+    for (int i = 0; i < count; i++) {
+      final byte[] startRow = i == 0 ? HConstants.EMPTY_START_ROW : boundaries.get(i - 1);
+      final byte[] stopRow = i == count - 1 ? HConstants.EMPTY_END_ROW : boundaries.get(i);
+      final CompactionProgress subProgress = new CompactionProgress(fd.maxKeyCount / count);
+      subProgresses.add(subProgress);
+      completionService.submit(new Callable<Path>() {
+        @Override
+        public Path call() throws IOException {
+          return compactRange(request, fd, smallestReadPoint, startRow, stopRow, aborted,
+            rangeController, subProgress);
+        }
+      });
+    }
+
+    List<Path> newFiles = new ArrayList<Path>(count);
+    IOException ioe = null;
+    boolean skipped = false;
+    boolean interrupted = false;
+    try {
+      // wait for all the sub-ranges, even after a failure, to know the files to delete
+      int pending = count;
+      while (pending > 0) {
+        try {
+          Future<Path> future = completionService.take();
+          pending--;
+          Path path = future.get();
+          if (path == null) {
+            skipped = true;
+          } else {
+            newFiles.add(path);
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+          if (ioe == null) {
+            ioe = (InterruptedIOException) new InterruptedIOException().initCause(e);
+          }
+          aborted.set(true);
+        } catch (ExecutionException e) {
+          if (ioe == null) {
+            ioe = e.getCause() instanceof IOException ?
+                (IOException) e.getCause() : new IOException(e.getCause());
+          }
+          aborted.set(true);
+        }
+      }
+    } finally {
+      throughputController.finish(compactionName);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      for (CompactionProgress subProgress : subProgresses) {
+        this.progress.currentCompactedKVs += subProgress.currentCompactedKVs;
+        this.progress.totalCompactedSize += subProgress.totalCompactedSize;
+      }
+      this.progress.complete();
+    }
+    if (ioe != null || skipped) {
+      // drop the output of the sub-ranges which completed
+      for (Path path : newFiles) {
+        try {
+          store.getFileSystem().delete(path, false);
+        } catch (IOException e) {
+          LOG.error("Failed to delete the leftover file " + path + " after a failed compaction", e);
+        }
+      }
+      if (ioe != null) {
+        throw ioe;
+      }
+      // NULL scanner returned from coprocessor hooks means skip normal processing.
+      newFiles.clear();
+    }
+    return newFiles;
+  }
+
+  /**
+   * Compacts the rows of the request in [startRow, stopRow) into a new file.
+   * @return the path of the new file, null if a coprocessor skipped the compaction
+   */
+  private Path compactRange(CompactionRequest request, FileDetails fd, long smallestReadPoint,
+      byte[] startRow, byte[] stopRow, AtomicBoolean aborted,
+      CompactionThroughputController throughputController, CompactionProgress subProgress)
+      throws IOException {
+    List<StoreFileScanner> scanners = StoreFileScanner.getScannersForStoreFiles(
+      request.getFiles(), false, true, true, smallestReadPoint);
+    StoreFile.Writer writer = null;
+    boolean finished = false;
+    try {
+      InternalScanner scanner = null;
+      try {
+        ScanType scanType = ScanType.COMPACT_DROP_DELETES;
+        scanner = preCreateCoprocScanner(request, scanType, fd.earliestPutTs, scanners);
+        if (scanner == null) {
+          Scan scan = new Scan();
+          scan.setMaxVersions(store.getFamily().getMaxVersions());
+          scan.setStartRow(startRow);
+          scanner = new StoreScanner(store, store.getScanInfo(), scan, scanners, scanType,
+              smallestReadPoint, fd.earliestPutTs);
+        }
+        scanner = postCreateCoprocScanner(request, scanType, scanner);
+        if (scanner == null) {
+          finished = true;
+          return null;
+        }
+        scanner = new RowRangeScanner(scanner, startRow, stopRow, aborted);
+        writer = store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression, true,
+            fd.maxMVCCReadpoint >= smallestReadPoint, fd.maxTagsLength > 0);
+        finished = performCompaction(scanner, writer, smallestReadPoint, throughputController,
+          subProgress);
+        if (!finished) {
+          throw new InterruptedIOException("Aborting compaction of store " + store +
+              " in region " + store.getRegionInfo().getRegionNameAsString() +
+              " because it was interrupted.");
+        }
+      } finally {
+        if (scanner != null) {
+          scanner.close();
+        }
+      }
+      writer.appendMetadata(fd.maxSeqId, request.isMajor());
+      writer.appendFileInfo(StoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes(true));
+      writer.close();
+      return writer.getPath();
+    } finally {
+      if (!finished && writer != null) {
+        try {
+          writer.close();
+        } finally {
+          store.getFileSystem().delete(writer.getPath(), false);
+        }
+      }
+    }
+  }
+
+  /**
+   * Lets the sub-ranges of a compaction report to the throughput controller under the name of
+   * the whole compaction, which is started and finished once. The controllers keep their
+   * accounting per compaction without locking, so the sub-ranges report one at a time; one
+   * which is told to sleep holds back the others, as their throughput is that of a single
+   * compaction.
+   */
+  private static class SharedThroughputController implements CompactionThroughputController {
+    private final CompactionThroughputController delegate;
+    private final String compactionName;
+
+    SharedThroughputController(CompactionThroughputController delegate, String compactionName) {
+      this.delegate = delegate;
+      this.compactionName = compactionName;
+    }
+
+    @Override
+    public void setup(RegionServerServices server) {
+    }
+
+    @Override
+    public void start(String rangeName) {
+    }
+
+    @Override
+    public synchronized long control(String rangeName, long size) throws InterruptedException {
+      return delegate.control(compactionName, size);
+    }
+
+    @Override
+    public void finish(String rangeName) {
+    }
+
+    @Override
+    public void stop(String why) {
+      delegate.stop(why);
+    }
+
+    @Override
+    public boolean isStopped() {
+      return delegate.isStopped();
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+
+  /**
+   * Restricts a compaction scanner to the rows of [startRow, stopRow). The scanners created by
+   * the store start at startRow already; the ones created by coprocessors may not.
+   */
+  private static class RowRangeScanner implements InternalScanner {
+    private final InternalScanner delegate;
+    private final byte[] startRow;
+    private final byte[] stopRow;
+    private final AtomicBoolean aborted;
+
+    RowRangeScanner(InternalScanner delegate, byte[] startRow, byte[] stopRow,
+        AtomicBoolean aborted) {
+      this.delegate = delegate;
+      this.startRow = startRow;
+      this.stopRow = stopRow;
+      this.aborted = aborted;
+    }
+
+    @Override
+    public boolean next(List<Cell> results) throws IOException {
+      return next(results, -1);
+    }
+
+    @Override
+    public boolean next(List<Cell> results, int limit) throws IOException {
+      if (aborted.get()) {
+        throw new InterruptedIOException("Another row range of the compaction failed");
+      }
+      int size = results.size();
+      boolean hasMore = delegate.next(results, limit);
+      Iterator<Cell> it = results.listIterator(size);
+      while (it.hasNext()) {
+        Cell cell = it.next();
+        if (stopRow.length > 0 && Bytes.compareTo(cell.getRowArray(), cell.getRowOffset(),
+            cell.getRowLength(), stopRow, 0, stopRow.length) >= 0) {
+          // the cells are sorted: this one and the next ones are out of the range
+          it.remove();
+          while (it.hasNext()) {
+            it.next();
+            it.remove();
+          }
+          return false;
+        }
+        if (Bytes.compareTo(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+            startRow, 0, startRow.length) < 0) {
+          it.remove();
+        }
+      }
+      return hasMore;
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
@@ -132,6 +132,20 @@ public class PressureAwareCompactionThroughputController extends Configured impl
   }
 
   private void tune(double compactionPressure) {
+    double maxThroughputToSet = computeMaxThroughput(compactionPressure);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("compactionPressure is " + compactionPressure + ", tune compaction throughput to "
+          + throughputDesc(maxThroughputToSet));
+    }
+    this.maxThroughput = maxThroughputToSet;
+  }
+
+  /**
+   * Called at each tuning period.
+   * @param compactionPressure the max compaction pressure of the stores of the region server
+   * @return the max throughput of the compactions to set until the next tuning period
+   */
+  protected double computeMaxThroughput(double compactionPressure) {
     double maxThroughputToSet;
     if (compactionPressure > 1.0) {
       // set to unlimited if some stores already reach the blocking store file count
@@ -145,11 +159,14 @@ public class PressureAwareCompactionThroughputController extends Configured impl
           maxThroughputLowerBound + (maxThroughputHigherBound - maxThroughputLowerBound)
               * compactionPressure;
     }
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("compactionPressure is " + compactionPressure + ", tune compaction throughput to "
-          + throughputDesc(maxThroughputToSet));
-    }
-    this.maxThroughput = maxThroughputToSet;
+    return maxThroughputToSet;
+  }
+
+  /**
+   * @return the current max throughput of all the compactions, in bytes per second
+   */
+  public double getMaxThroughput() {
+    return maxThroughput;
   }
 
   @Override
@@ -183,7 +200,7 @@ public class PressureAwareCompactionThroughputController extends Configured impl
     return throughputDesc((double) deltaSize / elapsedTime * 1000);
   }
 
-  private String throughputDesc(double speed) {
+  static String throughputDesc(double speed) {
     if (speed >= 1E15) { // large enough to say it is unlimited
       return "unlimited";
     } else {
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.regionserver.LatencyHistogram;
+import org.apache.hadoop.hbase.regionserver.MetricsRegionServer;
+import org.apache.hadoop.hbase.regionserver.RegionServerServices;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+/**
+ * A {@link PressureAwareCompactionThroughputController} which also slows down the compactions
+ * when they hurt the reads. At each tuning period, it looks at the 99th percentile of the get
+ * latency and at the rate of the blocks evicted from the block cache:
+ * <ul>
+ * <li>If the latency is above {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET}
+ * or the eviction rate is above
+ * {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET}, the feedback ratio is
+ * halved, down to {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO}.</li>
+ * <li>Otherwise the feedback ratio grows back by {@value #FEEDBACK_RATIO_STEP}, up to 1.0.</li>
+ * </ul>
+ * The throughput limit is the one of the parent, multiplied by the feedback ratio. If compaction
+ * pressure is greater than 1.0, there is still no limitation: blocking the writes costs more
+ * than slower reads.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.CONFIG)
+public class ReadPressureAwareCompactionThroughputController extends
+    PressureAwareCompactionThroughputController {
+
+  private final static Log LOG = LogFactory
+      .getLog(ReadPressureAwareCompactionThroughputController.class);
+
+  /** Target of the 99th percentile of the get latency, in ms. 0 to ignore the get latency. */
+  public static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET =
+      "hbase.hstore.compaction.throughput.read.latency.target";
+
+  private static final long DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET = 50;
+
+  /** Target of the blocks evicted from the block cache per second. 0 to ignore the evictions. */
+  public static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET =
+      "hbase.hstore.compaction.throughput.cache.eviction.target";
+
+  private static final long DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET =
+      1000;
+
+  /** The lowest ratio of the pressure aware throughput limit the feedback can go down to. */
+  public static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO =
+      "hbase.hstore.compaction.throughput.feedback.min.ratio";
+
+  private static final float DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO = 0.1f;
+
+  static final double FEEDBACK_RATIO_STEP = 0.1;
+
+  // below this number of gets in a tuning period, the latency says nothing about the compactions
+  static final long MIN_GETS_PER_TUNING_PERIOD = 100;
+
+  private long readLatencyTarget;
+
+  private long cacheEvictionTarget;
+
+  private double minFeedbackRatio;
+
+  private RegionServerServices server;
+
+  // only changed by the tuner
+  private volatile double feedbackRatio = 1.0;
+
+  private volatile long throttledCount = 0;
+
+  private long lastTuneTime = 0;
+
+  private long lastEvictedCount = 0;
+
+  @Override
+  public void setup(final RegionServerServices server) {
+    this.server = server;
+    super.setup(server);
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    if (conf == null) {
+      return;
+    }
+    this.readLatencyTarget =
+        conf.getLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET,
+          DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET);
+    this.cacheEvictionTarget =
+        conf.getLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET,
+          DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET);
+    this.minFeedbackRatio =
+        Math.min(1.0, conf.getFloat(HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO,
+          DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO));
+    LOG.info("Compaction throughput read feedback, p99 get latency target: "
+        + readLatencyTarget + " ms, cache eviction target: " + cacheEvictionTarget
+        + " blocks/sec, min ratio: " + minFeedbackRatio);
+  }
+
+  @Override
+  protected double computeMaxThroughput(double compactionPressure) {
+    double maxThroughputToSet = super.computeMaxThroughput(compactionPressure);
+    // keep following the reads while unlimited, to resume from where they are
+    sampleReads();
+    if (compactionPressure > 1.0) {
+      return maxThroughputToSet;
+    }
+    return maxThroughputToSet * feedbackRatio;
+  }
+
+  private void sampleReads() {
+    if (server == null) {
+      return;
+    }
+    long now = EnvironmentEdgeManager.currentTimeMillis();
+    double getLatency = -1;
+    MetricsRegionServer metrics = server.getMetrics();
+    if (metrics != null) {
+      // only the gets of this tuning period count
+      LatencyHistogram.Snapshot gets = metrics.getAndResetGetLatencies();
+      if (gets.getCount() >= MIN_GETS_PER_TUNING_PERIOD) {
+        getLatency = gets.getPercentile(0.99);
+      }
+    }
+    double evictionRate = -1;
+    CacheConfig cacheConfig = server.getCacheConfig();
+    BlockCache blockCache = cacheConfig == null ? null : cacheConfig.getBlockCache();
+    if (blockCache != null) {
+      long evictedCount = blockCache.getStats().getEvictedCount();
+      if (lastTuneTime > 0 && now > lastTuneTime) {
+        evictionRate = (double) (evictedCount - lastEvictedCount) / (now - lastTuneTime) * 1000;
+      }
+      lastEvictedCount = evictedCount;
+    }
+    lastTuneTime = now;
+    updateFeedbackRatio(getLatency, evictionRate);
+  }
+
+  /**
+   * Moves the feedback ratio according to the reads of the last tuning period: halves it if they
+   * missed one of the targets, increases it by {@value #FEEDBACK_RATIO_STEP} otherwise.
+   * @param getLatency the 99th percentile of the get latency in ms, negative if unknown
+   * @param evictionRate the blocks evicted from the block cache per second, negative if unknown
+   */
+  void updateFeedbackRatio(double getLatency, double evictionRate) {
+    boolean slowReads = readLatencyTarget > 0 && getLatency > readLatencyTarget;
+    boolean cacheChurn = cacheEvictionTarget > 0 && evictionRate > cacheEvictionTarget;
+    if (slowReads || cacheChurn) {
+      double ratio = Math.max(minFeedbackRatio, feedbackRatio / 2);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("p99 get latency is " + getLatency + " ms, block cache evicts " + evictionRate
+            + " blocks/sec, lower compaction throughput ratio from " + feedbackRatio + " to "
+            + ratio);
+      }
+      this.feedbackRatio = ratio;
+      this.throttledCount++;
+    } else {
+      this.feedbackRatio = Math.min(1.0, feedbackRatio + FEEDBACK_RATIO_STEP);
+    }
+  }
+
+  /**
+   * @return the ratio of the pressure aware throughput limit kept because of the reads
+   */
+  public double getFeedbackRatio() {
+    return feedbackRatio;
+  }
+
+  /**
+   * @return the number of tuning periods the throughput limit was lowered because of the reads
+   */
+  public long getThrottledCount() {
+    return throttledCount;
+  }
+
+  @Override
+  public String toString() {
+    return "ReadPressureAwareCompactionThroughputController [maxThroughput="
+        + throughputDesc(getMaxThroughput()) + ", feedbackRatio=" + feedbackRatio + "]";
+  }
+}
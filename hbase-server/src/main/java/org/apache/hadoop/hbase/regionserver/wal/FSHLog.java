@@ -26,18 +26,23 @@ import java.lang.reflect.Method;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
@@ -49,6 +54,7 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.Syncable;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
@@ -127,7 +133,7 @@ class FSHLog implements HLog, Syncable {
   private long lastUnSyncedTxid;
   private final Path oldLogDir;
 
-  // all writes pending on AsyncWriter/AsyncSyncer thread with
+  // all writes pending on RingBufferConsumer/SyncRunner thread with
   // txid <= failedTxid will fail by throwing asyncIOE
   private final AtomicLong failedTxid = new AtomicLong(-1);
   private volatile IOException asyncIOE = null;
@@ -178,6 +184,22 @@ class FSHLog implements HLog, Syncable {
   private final Map<byte[], Long> oldestFlushingSeqNums =
     new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
 
+  /**
+   * Map of encoded region names to the oldest sequence/edit id in the memstore of each of their
+   * stores, by family name. The oldest of a region in {@link #oldestUnflushedSeqNums} is the
+   * oldest of its stores; it only moves past the ones of the stores that are flushed.
+   */
+  private final ConcurrentSkipListMap<byte[], ConcurrentSkipListMap<byte[], Long>>
+    oldestUnflushedStoreSeqNums =
+      new ConcurrentSkipListMap<byte[], ConcurrentSkipListMap<byte[], Long>>(
+          Bytes.BYTES_COMPARATOR);
+  /**
+   * Map of encoded region names to the oldest sequence/edit id of each of their flushing
+   * stores, put back in {@link #oldestUnflushedStoreSeqNums} if the flush is aborted.
+   */
+  private final Map<byte[], Map<byte[], Long>> oldestFlushingStoreSeqNums =
+    new TreeMap<byte[], Map<byte[], Long>>(Bytes.BYTES_COMPARATOR);
+
   private volatile boolean closed = false;
 
   private boolean forMeta = false;
@@ -216,7 +238,6 @@ class FSHLog implements HLog, Syncable {
   // during an update
   // locked during appends
   private final Object updateLock = new Object();
-  private final Object pendingWritesLock = new Object();
 
   private final boolean enabled;
 
@@ -227,20 +248,30 @@ class FSHLog implements HLog, Syncable {
    */
   private final int maxLogs;
 
-  // List of pending writes to the HLog. There corresponds to transactions
+  // Pending writes to the HLog, by txid. There corresponds to transactions
   // that have not yet returned to the client. We keep them cached here
   // instead of writing them to HDFS piecemeal. The goal is to increase
   // the batchsize for writing-to-hdfs as well as sync-to-hdfs, so that
   // we can get better system throughput.
-  private List<Entry> pendingWrites = new LinkedList<Entry>();
-
-  private final AsyncWriter   asyncWriter;
-  // since AsyncSyncer takes much longer than other phase(add WALEdits to local
-  // buffer, write local buffer to HDFS, notify pending write handler threads),
+  // A null slot is free, the txid of a slot is published once its entry is set.
+  private final AtomicReferenceArray<Entry> ringBuffer;
+  private final int ringBufferMask;
+  // published in place of an entry that is not to be written, e.g. bypassed by a coprocessor
+  private static final Entry SKIPPED_ENTRY = new Entry();
+  private static final long RING_BUFFER_FULL_WAIT_NS = 100000; // 0.1 ms
+
+  // how long a sync waits for more writes to join it, 0 to sync as soon as possible
+  private final long groupCommitWindowNs;
+
+  private final RingBufferConsumer ringBufferConsumer;
+  // since SyncRunner takes much longer than other phase(add WALEdits to the
+  // ring buffer, write them to HDFS, unpark pending write handler threads),
   // when a sync is ongoing, all other phase pend, we use multiple parallel
-  // AsyncSyncer threads to improve overall throughput.
-  private final AsyncSyncer[] asyncSyncers;
-  private final AsyncNotifier asyncNotifier;
+  // SyncRunner threads to improve overall throughput.
+  private final SyncRunner[] syncRunners;
+  // handler threads waiting for a sync
+  private final ConcurrentLinkedQueue<SyncFuture> syncFutures =
+    new ConcurrentLinkedQueue<SyncFuture>();
 
   /** Number of log close errors tolerated before we abort */
   private final int closeErrorsTolerated;
@@ -432,18 +463,24 @@ class FSHLog implements HLog, Syncable {
     final String n = Thread.currentThread().getName();
 
 
-    asyncWriter = new AsyncWriter(n + "-WAL.AsyncWriter");
-    asyncWriter.start();
-   
+    // a power of 2, so that the slot of a txid is a mask away
+    int ringBufferSize = Integer.highestOneBit(
+      Math.max(conf.getInt("hbase.regionserver.hlog.ringbuffer.size", 1024 * 16), 2) * 2 - 1);
+    ringBuffer = new AtomicReferenceArray<Entry>(ringBufferSize);
+    ringBufferMask = ringBufferSize - 1;
+
+    this.groupCommitWindowNs =
+      1000 * conf.getLong("hbase.regionserver.hlog.groupcommit.window.us", 0);
+
     int syncerNums = conf.getInt("hbase.hlog.asyncer.number", 5);
-    asyncSyncers = new AsyncSyncer[syncerNums];
-    for (int i = 0; i < asyncSyncers.length; ++i) {
-      asyncSyncers[i] = new AsyncSyncer(n + "-WAL.AsyncSyncer" + i);
-      asyncSyncers[i].start();
+    syncRunners = new SyncRunner[syncerNums];
+    for (int i = 0; i < syncRunners.length; ++i) {
+      syncRunners[i] = new SyncRunner(n + "-WAL.SyncRunner" + i);
+      syncRunners[i].start();
     }
 
-    asyncNotifier = new AsyncNotifier(n + "-WAL.AsyncNotifier");
-    asyncNotifier.start();
+    ringBufferConsumer = new RingBufferConsumer(n + "-WAL.RingBufferConsumer");
+    ringBufferConsumer.start();
 
     coprocessorHost = new WALCoprocessorHost(this, conf);
 
@@ -761,7 +798,8 @@ class FSHLog implements HLog, Syncable {
       // Close the current writer, get a new one.
       try {
         // Wait till all current transactions are written to the hlog.
-        // No new transactions can occur because we have the updatelock.
+        // No new transactions can occur because we have the updatelock, the ones
+        // already claimed are published without it.
         if (this.unflushedEntries.get() != this.syncedTillHere.get()) {
           LOG.debug("cleanupCurrentWriter " +
                    " waiting for transactions to get synced " +
@@ -903,31 +941,23 @@ class FSHLog implements HLog, Syncable {
     }
 
     try {
-      asyncNotifier.interrupt();
-      asyncNotifier.join();
+      ringBufferConsumer.interrupt();
+      ringBufferConsumer.join();
     } catch (InterruptedException e) {
-      LOG.error("Exception while waiting for " + asyncNotifier.getName() +
-          " threads to die", e);
+      LOG.error("Exception while waiting for " + ringBufferConsumer.getName() +
+          " thread to die", e);
     }
 
-    for (int i = 0; i < asyncSyncers.length; ++i) {
+    for (int i = 0; i < syncRunners.length; ++i) {
       try {
-        asyncSyncers[i].interrupt();
-        asyncSyncers[i].join();
+        syncRunners[i].interrupt();
+        syncRunners[i].join();
       } catch (InterruptedException e) {
-        LOG.error("Exception while waiting for " + asyncSyncers[i].getName() +
+        LOG.error("Exception while waiting for " + syncRunners[i].getName() +
             " threads to die", e);
       }
     }
 
-    try {
-      asyncWriter.interrupt();
-      asyncWriter.join();
-    } catch (InterruptedException e) {
-      LOG.error("Exception while waiting for " + asyncWriter.getName() +
-          " thread to die", e);
-    }
-
     try {
       // Prevent all further flushing and rolling.
       closeBarrier.stopAndDrainOps();
@@ -1013,6 +1043,7 @@ class FSHLog implements HLog, Syncable {
       TraceScope traceScope = Trace.startSpan("FSHlog.append");
       try {
         long txid = 0;
+        Entry entry;
         synchronized (this.updateLock) {
           // get the sequence number from the passed Long. In normal flow, it is coming from the
           // region.
@@ -1025,22 +1056,26 @@ class FSHLog implements HLog, Syncable {
           // Use encoded name.  Its shorter, guaranteed unique and a subset of
           // actual  name.
           byte [] encodedRegionName = info.getEncodedNameAsBytes();
-          if (isInMemstore) this.oldestUnflushedSeqNums.putIfAbsent(encodedRegionName, seqNum);
+          if (isInMemstore) {
+            this.oldestUnflushedSeqNums.putIfAbsent(encodedRegionName, seqNum);
+            updateOldestUnflushedStoreSeqNums(encodedRegionName, edits, seqNum);
+          }
           HLogKey logKey = makeKey(
             encodedRegionName, tableName, seqNum, now, clusterIds, nonceGroup, nonce);
+          entry = doWrite(info, logKey, edits, htd);
 
-          synchronized (pendingWritesLock) {
-            doWrite(info, logKey, edits, htd);
-            txid = this.unflushedEntries.incrementAndGet();
-          }
+          // Claim the txid along with the sequence number, so that the entries of a region
+          // are in the log in sequence number order. The entry is put in the ring once we
+          // are out of updateLock: a full ring only holds back the handlers that wait for it.
+          txid = this.unflushedEntries.incrementAndGet();
           this.numEntries.incrementAndGet();
-          this.asyncWriter.setPendingTxid(txid);
 
           if (htd.isDeferredLogFlush()) {
             lastUnSyncedTxid = txid;
           }
           this.latestSequenceNums.put(encodedRegionName, seqNum);
         }
+        publish(txid, entry);
         // TODO: note that only tests currently call append w/sync.
         //       Therefore, this code here is not actually used by anything.
         // Sync if catalog region, and if not then check if that table supports
@@ -1066,102 +1101,124 @@ class FSHLog implements HLog, Syncable {
   }
 
   /* The work of current write process of HLog goes as below:
-   * 1). All write handler threads append edits to HLog's local pending buffer;
-   *     (it notifies AsyncWriter thread that there is new edits in local buffer)
-   * 2). All write handler threads wait in HLog.syncer() function for underlying threads to
-   *     finish the sync that contains its txid;
-   * 3). An AsyncWriter thread is responsible for retrieving all edits in HLog's
-   *     local pending buffer and writing to the hdfs (hlog.writer.append);
-   *     (it notifies AsyncSyncer threads that there is new writes to hdfs which needs a sync)
-   * 4). AsyncSyncer threads are responsible for issuing sync request to hdfs to persist the
-   *     writes by AsyncWriter; (they notify the AsyncNotifier thread that sync is done)
-   * 5). An AsyncNotifier thread is responsible for notifying all pending write handler
-   *     threads which are waiting in the HLog.syncer() function
-   * 6). No LogSyncer thread any more (since there is always AsyncWriter/AsyncFlusher threads
-   *     do the same job it does)
-   * note: more than one AsyncSyncer threads are needed here to guarantee good enough performance
-   *       when less concurrent write handler threads. since sync is the most time-consuming
-   *       operation in the whole write process, multiple AsyncSyncer threads can provide better
-   *       parallelism of sync to get better overall throughput
+   * 1). Write handler threads append edits to the ring buffer, a fixed array of entries
+   *     indexed by txid. Appends hold updateLock only to claim their sequence number and
+   *     txid; they wait for their slot and publish their entry in it without any lock, so
+   *     the entries can be published out of txid order;
+   * 2). Write handler threads wait in HLog.syncer() for the sync covering their txid, each
+   *     on its own SyncFuture: they park rather than wait on a shared monitor;
+   * 3). The RingBufferConsumer thread takes the published entries that follow the last
+   *     written one without a gap from the ring and writes them to hdfs
+   *     (hlog.writer.append) in one batch, then hands the last written txid to an idle
+   *     SyncRunner;
+   * 4). SyncRunner threads issue the sync request to hdfs; a sync covers all the entries
+   *     written before it, so the syncs of many handlers are batched into one. Once done,
+   *     the SyncRunner moves syncedTillHere forward and unparks the handlers it covers.
+   * note: more than one SyncRunner thread is used since sync is the most time-consuming
+   *       operation in the whole write process; a new batch can be synced while the
+   *       previous one is still syncing.
+   * None of these handoffs takes a monitor: threads are woken by LockSupport.unpark.
    */
-  // thread to write locally buffered writes to HDFS
-  private class AsyncWriter extends HasThread {
-    private long pendingTxid = 0;
-    private long txidToWrite = 0;
-    private long lastWrittenTxid = 0;
-    private Object writeLock = new Object();
-
-    public AsyncWriter(String name) {
+
+  /*
+   * Waits until the ring buffer has room for the entry of <code>txid</code>, then publishes
+   * it to the consumer. Called without holding any lock, by one of many producers.
+   */
+  private void publish(final long txid, final Entry entry) throws IOException {
+    // the slot is free once the consumer wrote the entry that was ringBuffer.length before
+    while (txid - this.ringBufferConsumer.getWrittenTxid() > this.ringBuffer.length()) {
+      if (this.closed) {
+        throw new IOException("Cannot append; log is closed");
+      }
+      this.ringBufferConsumer.wakeUp();
+      LockSupport.parkNanos(RING_BUFFER_FULL_WAIT_NS);
+    }
+    this.ringBuffer.set(slot(txid), entry == null ? SKIPPED_ENTRY : entry);
+    this.ringBufferConsumer.wakeUp();
+  }
+
+  private int slot(final long txid) {
+    return (int) (txid & this.ringBufferMask);
+  }
+
+  // thread to write the entries of the ring buffer to HDFS
+  private class RingBufferConsumer extends HasThread {
+    private final AtomicLong writtenTxid = new AtomicLong(0);
+    private volatile boolean waiting = false;
+    private int nextSyncRunner = 0;
+
+    public RingBufferConsumer(String name) {
       super(name);
     }
 
-    // wake up (called by (write) handler thread) AsyncWriter thread
-    // to write buffered writes to HDFS
-    public void setPendingTxid(long txid) {
-      synchronized (this.writeLock) {
-        if (txid <= this.pendingTxid)
-          return;
+    long getWrittenTxid() {
+      return this.writtenTxid.get();
+    }
 
-        this.pendingTxid = txid;
-        this.writeLock.notify();
+    // wake up (called by (write) handler thread) the consumer if it waits for entries
+    void wakeUp() {
+      if (this.waiting) {
+        LockSupport.unpark(getThread());
       }
     }
 
     public void run() {
       try {
         while (!this.isInterrupted()) {
-          // 1. wait until there is new writes in local buffer
-          synchronized (this.writeLock) {
-            while (this.pendingTxid <= this.lastWrittenTxid) {
-              this.writeLock.wait();
-            }
+          // 1. wait until the entry following the last written one is published
+          long lastWrittenTxid = this.writtenTxid.get();
+          long publishedTxid = lastWrittenTxid;
+          long claimedTxid = unflushedEntries.get();
+          while (publishedTxid < claimedTxid && ringBuffer.get(slot(publishedTxid + 1)) != null) {
+            publishedTxid++;
           }
-
-          // 2. get all buffered writes and update 'real' pendingTxid
-          //    since maybe newer writes enter buffer as AsyncWriter wakes
-          //    up and holds the lock
-          // NOTE! can't hold 'updateLock' here since rollWriter will pend
-          // on 'sync()' with 'updateLock', but 'sync()' will wait for
-          // AsyncWriter/AsyncSyncer/AsyncNotifier series. without updateLock
-          // can leads to pendWrites more than pendingTxid, but not problem
-          List<Entry> pendWrites = null;
-          synchronized (pendingWritesLock) {
-            this.txidToWrite = unflushedEntries.get();
-            pendWrites = pendingWrites;
-            pendingWrites = new LinkedList<Entry>();
+          if (publishedTxid == lastWrittenTxid) {
+            this.waiting = true;
+            if (ringBuffer.get(slot(lastWrittenTxid + 1)) == null) {
+              LockSupport.park(this);
+            }
+            this.waiting = false;
+            continue;
           }
 
-          // 3. write all buffered writes to HDFS(append, without sync)
+          // 2. write all published entries to HDFS (append, without sync)
+          long oldestWriteTime = Long.MAX_VALUE;
+          long txid = lastWrittenTxid + 1;
           try {
-            for (Entry e : pendWrites) {
-              writer.append(e);
+            for (; txid <= publishedTxid; txid++) {
+              Entry e = ringBuffer.getAndSet(slot(txid), null);
+              if (e != SKIPPED_ENTRY) {
+                oldestWriteTime = Math.min(oldestWriteTime, e.getKey().getWriteTime());
+                writer.append(e);
+              }
             }
           } catch(IOException e) {
-            LOG.error("Error while AsyncWriter write, request close of hlog ", e);
+            LOG.error("Error while RingBufferConsumer write, request close of hlog ", e);
             requestLogRoll();
 
             asyncIOE = e;
-            failedTxid.set(this.txidToWrite);
+            failedTxid.set(publishedTxid);
+            // the rest of the batch fails along, its slots are freed all the same
+            for (; txid <= publishedTxid; txid++) {
+              ringBuffer.set(slot(txid), null);
+            }
           }
 
-          // 4. update 'lastWrittenTxid' and notify AsyncSyncer to do 'sync'
-          this.lastWrittenTxid = this.txidToWrite;
-          boolean hasIdleSyncer = false;
-          for (int i = 0; i < asyncSyncers.length; ++i) {
-            if (!asyncSyncers[i].isSyncing()) {
-              hasIdleSyncer = true;
-              asyncSyncers[i].setWrittenTxid(this.lastWrittenTxid);
+          // 3. free the slots and hand the written entries to a SyncRunner
+          this.writtenTxid.set(publishedTxid);
+          SyncRunner syncRunner = null;
+          for (int i = 0; i < syncRunners.length; ++i) {
+            if (!syncRunners[i].isSyncing()) {
+              syncRunner = syncRunners[i];
               break;
             }
           }
-          if (!hasIdleSyncer) {
-            int idx = (int)(this.lastWrittenTxid % asyncSyncers.length);
-            asyncSyncers[idx].setWrittenTxid(this.lastWrittenTxid);
+          if (syncRunner == null) {
+            syncRunner = syncRunners[this.nextSyncRunner];
+            this.nextSyncRunner = (this.nextSyncRunner + 1) % syncRunners.length;
           }
+          syncRunner.setWrittenTxid(publishedTxid, oldestWriteTime);
         }
-      } catch (InterruptedException e) {
-        LOG.debug(getName() + " interrupted while waiting for " +
-            "newer writes added to local buffer");
       } catch (Exception e) {
         LOG.error("UNEXPECTED", e);
       } finally {
@@ -1170,16 +1227,16 @@ class FSHLog implements HLog, Syncable {
     }
   }
 
-  // thread to request HDFS to sync the WALEdits written by AsyncWriter
+  // thread to request HDFS to sync the WALEdits written by RingBufferConsumer
   // to make those WALEdits durable on HDFS side
-  private class AsyncSyncer extends HasThread {
-    private long writtenTxid = 0;
-    private long txidToSync = 0;
+  private class SyncRunner extends HasThread {
+    private final AtomicLong writtenTxid = new AtomicLong(0);
+    // write time of the oldest entry to sync
+    private final AtomicLong oldestWriteTime = new AtomicLong(Long.MAX_VALUE);
     private long lastSyncedTxid = 0;
     private volatile boolean isSyncing = false;
-    private Object syncLock = new Object();
 
-    public AsyncSyncer(String name) {
+    public SyncRunner(String name) {
       super(name);
     }
 
@@ -1187,55 +1244,75 @@ class FSHLog implements HLog, Syncable {
       return this.isSyncing;
     }
 
-    // wake up (called by AsyncWriter thread) AsyncSyncer thread
-    // to sync(flush) writes written by AsyncWriter in HDFS
-    public void setWrittenTxid(long txid) {
-      synchronized (this.syncLock) {
-        if (txid <= this.writtenTxid)
+    // wake up (called by RingBufferConsumer thread) SyncRunner thread
+    // to sync(flush) writes written by RingBufferConsumer in HDFS
+    public void setWrittenTxid(long txid, long writeTime) {
+      long current;
+      do {
+        current = this.oldestWriteTime.get();
+        if (writeTime >= current) {
+          break;
+        }
+      } while (!this.oldestWriteTime.compareAndSet(current, writeTime));
+      do {
+        current = this.writtenTxid.get();
+        if (txid <= current) {
           return;
-
-        this.writtenTxid = txid;
-        this.syncLock.notify();
-      }
+        }
+      } while (!this.writtenTxid.compareAndSet(current, txid));
+      LockSupport.unpark(getThread());
     }
 
     public void run() {
       try {
         while (!this.isInterrupted()) {
-          // 1. wait until AsyncWriter has written data to HDFS and
+          // 1. wait until RingBufferConsumer has written data to HDFS and
           //    called setWrittenTxid to wake up us
-          synchronized (this.syncLock) {
-            while (this.writtenTxid <= this.lastSyncedTxid) {
-              this.syncLock.wait();
-            }
-            this.txidToSync = this.writtenTxid;
+          long txidToSync = this.writtenTxid.get();
+          if (txidToSync <= this.lastSyncedTxid) {
+            LockSupport.park(this);
+            continue;
           }
 
           // if this syncer's writes have been synced by other syncer:
           // 1. just set lastSyncedTxid
-          // 2. don't do real sync, don't notify AsyncNotifier, don't logroll check
+          // 2. don't do real sync, don't notify waiting handlers, don't logroll check
           // regardless of whether the writer is null or not
-          if (this.txidToSync <= syncedTillHere.get()) {
-            this.lastSyncedTxid = this.txidToSync;
+          if (txidToSync <= syncedTillHere.get()) {
+            this.lastSyncedTxid = txidToSync;
             continue;
           }
 
-          // 2. do 'sync' to HDFS to provide durability
+          // 2. let the writes coming within the group commit window join this sync:
+          //    a bounded delay for fewer, larger syncs
+          if (groupCommitWindowNs > 0) {
+            long deadline = System.nanoTime() + groupCommitWindowNs;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !this.isInterrupted()) {
+              LockSupport.parkNanos(this, remaining);
+            }
+            txidToSync = this.writtenTxid.get();
+          }
+          long oldestWrite = this.oldestWriteTime.getAndSet(Long.MAX_VALUE);
+          long edits = txidToSync - syncedTillHere.get();
+
+          // 3. do 'sync' to HDFS to provide durability
+          boolean synced = false;
           long now = EnvironmentEdgeManager.currentTimeMillis();
           try {
             if (writer == null) {
               // the only possible case where writer == null is as below:
-              // 1. t1: AsyncWriter append writes to hdfs,
-              //        envokes AsyncSyncer 1 with writtenTxid==100
-              // 2. t2: AsyncWriter append writes to hdfs,
-              //        envokes AsyncSyncer 2 with writtenTxid==200
+              // 1. t1: RingBufferConsumer append writes to hdfs,
+              //        envokes SyncRunner 1 with writtenTxid==100
+              // 2. t2: RingBufferConsumer append writes to hdfs,
+              //        envokes SyncRunner 2 with writtenTxid==200
               // 3. t3: rollWriter starts, it grabs the updateLock which
-              //        prevents further writes entering pendingWrites and
-              //        wait for all items(200) in pendingWrites to append/sync
+              //        prevents further writes entering the ring buffer and
+              //        wait for all items(200) in the ring buffer to append/sync
               //        to hdfs
-              // 4. t4: AsyncSyncer 2 finishes, now syncedTillHere==200
+              // 4. t4: SyncRunner 2 finishes, now syncedTillHere==200
               // 5. t5: rollWriter close writer, set writer=null...
-              // 6. t6: AsyncSyncer 1 starts to use writer to do sync... before
+              // 6. t6: SyncRunner 1 starts to use writer to do sync... before
               //        rollWriter set writer to the newly created Writer
               //
               // Now writer == null and txidToSync > syncedTillHere here:
@@ -1244,46 +1321,52 @@ class FSHLog implements HLog, Syncable {
               // read the writes!
               LOG.error("should never happen: has unsynced writes but writer is null!");
               asyncIOE = new IOException("has unsynced writes but writer is null!");
-              failedTxid.set(this.txidToSync);
+              failedTxid.set(txidToSync);
             } else {
-              this.isSyncing = true;            
+              this.isSyncing = true;
               writer.sync();
               this.isSyncing = false;
+              synced = true;
             }
             postSync();
           } catch (IOException e) {
-            LOG.warn("Error while AsyncSyncer sync, request close of hlog ", e);
+            LOG.warn("Error while SyncRunner sync, request close of hlog ", e);
             requestLogRoll();
 
             asyncIOE = e;
-            failedTxid.set(this.txidToSync);
+            failedTxid.set(txidToSync);
 
             this.isSyncing = false;
           }
-          final long took = EnvironmentEdgeManager.currentTimeMillis() - now;
+          final long end = EnvironmentEdgeManager.currentTimeMillis();
+          final long took = end - now;
           metrics.finishSync(took);
+          if (synced && edits > 0) {
+            metrics.finishSyncBatch(edits, oldestWrite == Long.MAX_VALUE ? 0 : end - oldestWrite);
+          }
           if (took > (slowSyncNs/1000000)) {
+            DatanodeInfo[] pipeline = getPipeLine();
+            metrics.slowSync();
             String msg =
                 new StringBuilder().append("Slow sync cost: ")
                     .append(took).append(" ms, current pipeline: ")
-                    .append(Arrays.toString(getPipeLine())).toString();
+                    .append(Arrays.toString(pipeline)).toString();
             Trace.addTimelineAnnotation(msg);
             LOG.info(msg);
           }
 
-          // 3. wake up AsyncNotifier to notify(wake-up) all pending 'put'
-          // handler threads on 'sync()'
-          this.lastSyncedTxid = this.txidToSync;
-          asyncNotifier.setFlushedTxid(this.lastSyncedTxid);
+          // 4. wake up all pending 'put' handler threads covered by this sync
+          this.lastSyncedTxid = txidToSync;
+          completeSyncFutures(txidToSync);
 
-          // 4. check and do logRoll if needed
+          // 5. check and do logRoll if needed
           boolean lowReplication = false;
           if (rollWriterLock.tryLock()) {
             try {
               lowReplication = checkLowReplication();
             } finally {
               rollWriterLock.unlock();
-            }            
+            }
             try {
               if (lowReplication || writer != null && writer.getLength() > logrollsize) {
                 requestLogRoll(lowReplication);
@@ -1293,9 +1376,6 @@ class FSHLog implements HLog, Syncable {
             }
           }
         }
-      } catch (InterruptedException e) {
-        LOG.debug(getName() + " interrupted while waiting for " +
-            "notification from AsyncWriter thread");
       } catch (Exception e) {
         LOG.error("UNEXPECTED", e);
       } finally {
@@ -1304,56 +1384,45 @@ class FSHLog implements HLog, Syncable {
     }
   }
 
-  // thread to notify all write handler threads which are pending on
-  // their written WALEdits' durability(sync)
-  // why an extra 'notifier' thread is needed rather than letting
-  // AsyncSyncer thread itself notifies when sync is done is to let
-  // AsyncSyncer thread do next sync as soon as possible since 'notify'
-  // has heavy synchronization with all pending write handler threads
-  private class AsyncNotifier extends HasThread {
-    private long flushedTxid = 0;
-    private long lastNotifiedTxid = 0;
-    private Object notifyLock = new Object();
-
-    public AsyncNotifier(String name) {
-      super(name);
+  /*
+   * A handler thread waiting for the sync of its txid.
+   */
+  private static class SyncFuture {
+    final long txid;
+    final Thread thread;
+    final long startNanos = System.nanoTime();
+    // when the sync of txid completed, set before done
+    volatile long syncedNanos;
+    volatile boolean done = false;
+
+    SyncFuture(final long txid, final Thread thread) {
+      this.txid = txid;
+      this.thread = thread;
     }
+  }
 
-    public void setFlushedTxid(long txid) {
-      synchronized (this.notifyLock) {
-        if (txid <= this.flushedTxid) {
-          return;
-        }
-
-        this.flushedTxid = txid;
-        this.notifyLock.notify();
+  /*
+   * Moves syncedTillHere forward to <code>txid</code> and unparks the handler threads whose
+   * txid is synced.
+   */
+  private void completeSyncFutures(final long txid) {
+    long current;
+    do {
+      current = this.syncedTillHere.get();
+      if (txid <= current) {
+        break;
       }
-    }
-
-    public void run() {
-      try {
-        while (!this.isInterrupted()) {
-          synchronized (this.notifyLock) {
-            while (this.flushedTxid <= this.lastNotifiedTxid) {
-              this.notifyLock.wait();
-            }
-            this.lastNotifiedTxid = this.flushedTxid;
-          }
-
-          // notify(wake-up) all pending (write) handler thread
-          // (or logroller thread which also may pend on sync())
-          synchronized (syncedTillHere) {
-            syncedTillHere.set(this.lastNotifiedTxid);
-            syncedTillHere.notifyAll();
-          }
-        }
-      } catch (InterruptedException e) {
-        LOG.debug(getName() + " interrupted while waiting for " +
-            " notification from AsyncSyncer thread");
-      } catch (Exception e) {
-        LOG.error("UNEXPECTED", e);
-      } finally {
-        LOG.info(getName() + " exiting");
+    } while (!this.syncedTillHere.compareAndSet(current, txid));
+    long synced = this.syncedTillHere.get();
+    long now = System.nanoTime();
+    Iterator<SyncFuture> it = this.syncFutures.iterator();
+    while (it.hasNext()) {
+      SyncFuture future = it.next();
+      if (future.txid <= synced) {
+        it.remove();
+        future.syncedNanos = now;
+        future.done = true;
+        LockSupport.unpark(future.thread);
       }
     }
   }
@@ -1365,14 +1434,20 @@ class FSHLog implements HLog, Syncable {
 
   // sync all transactions upto the specified txid
   private void syncer(long txid) throws IOException {
-    synchronized (this.syncedTillHere) {
+    if (this.syncedTillHere.get() < txid) {
+      SyncFuture future = new SyncFuture(txid, Thread.currentThread());
+      this.syncFutures.add(future);
+      // checked again once registered, the sync may have completed meanwhile
       while (this.syncedTillHere.get() < txid) {
-        try {
-          this.syncedTillHere.wait();
-        } catch (InterruptedException e) {
-          LOG.debug("interrupted while waiting for notification from AsyncNotifier");
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          LOG.debug("interrupted while waiting for notification from SyncRunner");
         }
       }
+      long now = System.nanoTime();
+      // the wake up takes microseconds, it would read 0 in milliseconds
+      this.metrics.finishSyncWait((now - future.startNanos) / 1000000,
+        future.done ? (now - future.syncedNanos) / 1000 : -1);
     }
     if (txid <= this.failedTxid.get()) {
         assert asyncIOE != null :
@@ -1499,17 +1574,21 @@ class FSHLog implements HLog, Syncable {
   }
 
   // TODO: Remove info.  Unused.
-  protected void doWrite(HRegionInfo info, HLogKey logKey, WALEdit logEdit,
+  /**
+   * @return the entry to write to the log, null if there is none
+   */
+  protected Entry doWrite(HRegionInfo info, HLogKey logKey, WALEdit logEdit,
  HTableDescriptor htd)
   throws IOException {
     if (!this.enabled) {
-      return;
+      return null;
     }
     if (!this.listeners.isEmpty()) {
       for (WALActionsListener i: this.listeners) {
         i.visitLogEntryBeforeWrite(htd, logKey, logEdit);
       }
     }
+    Entry entry = null;
     try {
       long now = EnvironmentEdgeManager.currentTimeMillis();
       // coprocessor hook:
@@ -1519,7 +1598,7 @@ class FSHLog implements HLog, Syncable {
           logKey.setScopes(null);
         }
         // write to our buffer for the Hlog file.
-        this.pendingWrites.add(new HLog.Entry(logKey, logEdit));
+        entry = new HLog.Entry(logKey, logEdit);
       }
       long took = EnvironmentEdgeManager.currentTimeMillis() - now;
       coprocessorHost.postWALWrite(info, logKey, logEdit);
@@ -1533,6 +1612,7 @@ class FSHLog implements HLog, Syncable {
       requestLogRoll();
       throw e;
     }
+    return entry;
   }
 
 
@@ -1559,8 +1639,44 @@ class FSHLog implements HLog, Syncable {
     return totalLogSize.get() + curLogSize;
   }
   
+  /*
+   * Records <code>seqNum</code> as the oldest unflushed one of the stores of the edited families
+   * that had no edit in their memstore. Called under updateLock.
+   */
+  private void updateOldestUnflushedStoreSeqNums(final byte[] encodedRegionName,
+      final WALEdit edits, final long seqNum) {
+    ConcurrentSkipListMap<byte[], Long> storeSeqNums =
+      this.oldestUnflushedStoreSeqNums.get(encodedRegionName);
+    if (storeSeqNums == null) {
+      storeSeqNums = new ConcurrentSkipListMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+      ConcurrentSkipListMap<byte[], Long> existing =
+        this.oldestUnflushedStoreSeqNums.putIfAbsent(encodedRegionName, storeSeqNums);
+      if (existing != null) {
+        storeSeqNums = existing;
+      }
+    }
+    KeyValue previous = null;
+    for (KeyValue kv : edits.getKeyValues()) {
+      // the cells of an edit are mostly grouped by family
+      if (previous != null && CellUtil.matchingFamily(kv, previous)) {
+        continue;
+      }
+      previous = kv;
+      if (!CellUtil.matchingFamily(kv, WALEdit.METAFAMILY)) {
+        // markers like the transaction clock have no store
+        storeSeqNums.putIfAbsent(kv.getFamily(), seqNum);
+      }
+    }
+  }
+
   @Override
   public boolean startCacheFlush(final byte[] encodedRegionName) {
+    return startCacheFlush(encodedRegionName, null);
+  }
+
+  @Override
+  public boolean startCacheFlush(final byte[] encodedRegionName,
+      final Set<byte[]> flushedFamilyNames) {
     Long oldRegionSeqNum = null;
     if (!closeBarrier.beginOp()) {
       LOG.info("Flush will not be started for " + Bytes.toString(encodedRegionName) +
@@ -1568,14 +1684,38 @@ class FSHLog implements HLog, Syncable {
       return false;
     }
     synchronized (oldestSeqNumsLock) {
-      oldRegionSeqNum = this.oldestUnflushedSeqNums.remove(encodedRegionName);
+      Map<byte[], Long> flushingStoreSeqNums = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+      ConcurrentSkipListMap<byte[], Long> storeSeqNums =
+        this.oldestUnflushedStoreSeqNums.get(encodedRegionName);
+      if (storeSeqNums != null) {
+        Iterator<Map.Entry<byte[], Long>> it = storeSeqNums.entrySet().iterator();
+        while (it.hasNext()) {
+          Map.Entry<byte[], Long> e = it.next();
+          if (flushedFamilyNames == null || flushedFamilyNames.contains(e.getKey())) {
+            flushingStoreSeqNums.put(e.getKey(), e.getValue());
+            it.remove();
+          }
+        }
+      }
+      if (storeSeqNums == null || storeSeqNums.isEmpty()) {
+        // no append to the region runs while its flush starts
+        this.oldestUnflushedStoreSeqNums.remove(encodedRegionName);
+        oldRegionSeqNum = this.oldestUnflushedSeqNums.remove(encodedRegionName);
+      } else {
+        // the region keeps the edits of the stores not flushed
+        oldRegionSeqNum = flushingStoreSeqNums.isEmpty() ? null :
+          Collections.min(flushingStoreSeqNums.values());
+        this.oldestUnflushedSeqNums.put(encodedRegionName,
+          Collections.min(storeSeqNums.values()));
+      }
       if (oldRegionSeqNum != null) {
         Long oldValue = this.oldestFlushingSeqNums.put(encodedRegionName, oldRegionSeqNum);
         assert oldValue == null : "Flushing map not cleaned up for "
           + Bytes.toString(encodedRegionName);
       }
+      this.oldestFlushingStoreSeqNums.put(encodedRegionName, flushingStoreSeqNums);
     }
-    if (oldRegionSeqNum == null) {
+    if (oldRegionSeqNum == null && flushedFamilyNames == null) {
       // TODO: if we have no oldRegionSeqNum, and WAL is not disabled, presumably either
       //       the region is already flushing (which would make this call invalid), or there
       //       were no appends after last flush, so why are we starting flush? Maybe we should
@@ -1592,6 +1732,7 @@ class FSHLog implements HLog, Syncable {
   {
     synchronized (oldestSeqNumsLock) {
       this.oldestFlushingSeqNums.remove(encodedRegionName);
+      this.oldestFlushingStoreSeqNums.remove(encodedRegionName);
     }
     closeBarrier.endOp();
   }
@@ -1601,14 +1742,33 @@ class FSHLog implements HLog, Syncable {
     Long currentSeqNum = null, seqNumBeforeFlushStarts = null;
     synchronized (oldestSeqNumsLock) {
       seqNumBeforeFlushStarts = this.oldestFlushingSeqNums.remove(encodedRegionName);
+      Map<byte[], Long> flushingStoreSeqNums =
+        this.oldestFlushingStoreSeqNums.remove(encodedRegionName);
+      if (flushingStoreSeqNums != null && !flushingStoreSeqNums.isEmpty()) {
+        ConcurrentSkipListMap<byte[], Long> storeSeqNums =
+          this.oldestUnflushedStoreSeqNums.get(encodedRegionName);
+        if (storeSeqNums == null) {
+          storeSeqNums = new ConcurrentSkipListMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+          this.oldestUnflushedStoreSeqNums.put(encodedRegionName, storeSeqNums);
+        }
+        for (Map.Entry<byte[], Long> e : flushingStoreSeqNums.entrySet()) {
+          Long current = storeSeqNums.put(e.getKey(), e.getValue());
+          if (current != null && current.longValue() <= e.getValue().longValue()) {
+            currentSeqNum = current;
+          }
+        }
+      }
       if (seqNumBeforeFlushStarts != null) {
-        currentSeqNum =
+        Long unflushedSeqNum = this.oldestUnflushedSeqNums.get(encodedRegionName);
+        if (unflushedSeqNum == null ||
+            unflushedSeqNum.longValue() > seqNumBeforeFlushStarts.longValue()) {
           this.oldestUnflushedSeqNums.put(encodedRegionName, seqNumBeforeFlushStarts);
+        }
       }
     }
     closeBarrier.endOp();
-    if ((currentSeqNum != null)
-        && (currentSeqNum.longValue() <= seqNumBeforeFlushStarts.longValue())) {
+    if (currentSeqNum != null) {
+      // a flushing store got edits older than the ones it was flushing
       String errorStr = "Region " + Bytes.toString(encodedRegionName) +
           "acquired edits out of order current memstore seq=" + currentSeqNum
           + ", previous oldest unflushed id=" + seqNumBeforeFlushStarts;
@@ -1684,6 +1844,13 @@ class FSHLog implements HLog, Syncable {
     return result == null ? HConstants.NO_SEQNUM : result.longValue();
   }
 
+  @Override
+  public long getEarliestMemstoreSeqNum(byte[] encodedRegionName, byte[] familyName) {
+    Map<byte[], Long> storeSeqNums = oldestUnflushedStoreSeqNums.get(encodedRegionName);
+    Long result = storeSeqNums == null ? null : storeSeqNums.get(familyName);
+    return result == null ? HConstants.NO_SEQNUM : result.longValue();
+  }
+
   /**
    * Pass one or more log file names and it will either dump out a text version
    * on <code>stdout</code> or split the specified log files.
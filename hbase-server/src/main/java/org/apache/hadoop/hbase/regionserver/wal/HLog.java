@@ -23,6 +23,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
@@ -332,6 +333,18 @@ public interface HLog {
    */
   boolean startCacheFlush(final byte[] encodedRegionName);
 
+  /**
+   * WAL keeps track of the sequence numbers that were not yet flushed from each store of a
+   * region. This method tells WAL that some stores of a region are about to flush. The oldest
+   * seqNum of the region then becomes the oldest one of the stores left unflushed.
+   * @param encodedRegionName Encoded region name.
+   * @param flushedFamilyNames the families of the flushed stores, sorted by
+   * {@link org.apache.hadoop.hbase.util.Bytes#BYTES_COMPARATOR}; null to flush all the stores.
+   * @return true if the flush can proceed, false in case wal is closing.
+   * @see #startCacheFlush(byte[])
+   */
+  boolean startCacheFlush(final byte[] encodedRegionName, Set<byte[]> flushedFamilyNames);
+
   /**
    * Complete the cache flush.
    * @param encodedRegionName Encoded region name.
@@ -365,4 +378,11 @@ public interface HLog {
    * @return The number if present, HConstants.NO_SEQNUM if absent.
    */
   long getEarliestMemstoreSeqNum(byte[] encodedRegionName);
+
+  /** Gets the earliest sequence number in the memstore of a store of the region.
+   * @param encodedRegionName The region to get the number for.
+   * @param familyName The family of the store.
+   * @return The number if present, HConstants.NO_SEQNUM if absent.
+   */
+  long getEarliestMemstoreSeqNum(byte[] encodedRegionName, byte[] familyName);
 }
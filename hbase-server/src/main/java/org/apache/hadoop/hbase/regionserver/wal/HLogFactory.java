@@ -58,6 +58,18 @@ public class HLogFactory {
       return new FSHLog(fs, root, logName, conf, listeners, prefix);
     }
 
+    /**
+     * Creates the WAL of a group of regions, other than the default one, when the region
+     * server runs several WALs.
+     * @see RegionGroupingProvider
+     */
+    public static HLog createGroupHLog(final FileSystem fs, final Path root, final String logName,
+        final Configuration conf, final List<WALActionsListener> listeners,
+        final String prefix, final int group) throws IOException {
+      return new FSHLog(fs, root, logName, HConstants.HREGION_OLDLOGDIR_NAME,
+            conf, listeners, false, RegionGroupingProvider.getGroupPrefix(prefix, group), false);
+    }
+
     public static HLog createMetaHLog(final FileSystem fs, final Path root, final String logName,
         final Configuration conf, final List<WALActionsListener> listeners,
         final String prefix) throws IOException {
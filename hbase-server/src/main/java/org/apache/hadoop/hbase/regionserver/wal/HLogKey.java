@@ -49,6 +49,8 @@ import org.apache.hadoop.io.WritableUtils;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 
 /**
  * A Key for an entry in the change log.
@@ -478,6 +480,115 @@ public class HLogKey implements WritableComparable<HLogKey> {
     return builder;
   }
 
+  /**
+   * Serializes the fields of an uncompressed protobuf WALKey that are the same for all the
+   * edits of a region, its encoded name and table name, to be passed to
+   * {@link #writeDelimitedTo(CodedOutputStream, byte[], int)}.
+   * @return the serialized fields
+   */
+  static byte[] getRegionHeader(final byte[] encodedRegionName, final TableName tableName)
+      throws IOException {
+    byte[] tableNameBytes = tableName.getName();
+    byte[] header = new byte[
+        CodedOutputStream.computeTagSize(WALKey.ENCODED_REGION_NAME_FIELD_NUMBER)
+        + computeBytesSize(encodedRegionName.length)
+        + CodedOutputStream.computeTagSize(WALKey.TABLE_NAME_FIELD_NUMBER)
+        + computeBytesSize(tableNameBytes.length)];
+    CodedOutputStream out = CodedOutputStream.newInstance(header);
+    writeBytes(out, WALKey.ENCODED_REGION_NAME_FIELD_NUMBER, encodedRegionName);
+    writeBytes(out, WALKey.TABLE_NAME_FIELD_NUMBER, tableNameBytes);
+    out.checkNoSpaceLeft();
+    return header;
+  }
+
+  /**
+   * Writes this key as a length delimited, uncompressed protobuf WALKey, the same bytes as
+   * <code>getBuilder(null).setFollowingKvCount(followingKvCount).build().writeDelimitedTo()</code>
+   * but without building the message, so that appending an edit does not allocate.
+   * @param out the stream to write to
+   * @param regionHeader the encoded region name and table name of this key, as serialized by
+   *     {@link #getRegionHeader(byte[], TableName)}
+   * @param followingKvCount the number of cells following the key
+   */
+  void writeDelimitedTo(final CodedOutputStream out, final byte[] regionHeader,
+      final int followingKvCount) throws IOException {
+    int size = regionHeader.length
+        + CodedOutputStream.computeUInt64Size(WALKey.LOG_SEQUENCE_NUMBER_FIELD_NUMBER, logSeqNum)
+        + CodedOutputStream.computeUInt64Size(WALKey.WRITE_TIME_FIELD_NUMBER, writeTime)
+        + CodedOutputStream.computeUInt32Size(WALKey.FOLLOWING_KV_COUNT_FIELD_NUMBER,
+            followingKvCount);
+    if (scopes != null) {
+      for (Map.Entry<byte[], Integer> e : scopes.entrySet()) {
+        size += CodedOutputStream.computeTagSize(WALKey.SCOPES_FIELD_NUMBER)
+            + computeBytesSize(getScopeSize(e.getKey(), e.getValue()));
+      }
+    }
+    for (int i = 0; i < clusterIds.size(); i++) {
+      size += CodedOutputStream.computeTagSize(WALKey.CLUSTER_IDS_FIELD_NUMBER)
+          + computeBytesSize(getClusterIdSize(clusterIds.get(i)));
+    }
+    if (nonceGroup != HConstants.NO_NONCE) {
+      size += CodedOutputStream.computeUInt64Size(WALKey.NONCEGROUP_FIELD_NUMBER, nonceGroup);
+    }
+    if (nonce != HConstants.NO_NONCE) {
+      size += CodedOutputStream.computeUInt64Size(WALKey.NONCE_FIELD_NUMBER, nonce);
+    }
+
+    // fields in the order of their numbers, as protobuf serializes them
+    out.writeRawVarint32(size);
+    out.writeRawBytes(regionHeader);
+    out.writeUInt64(WALKey.LOG_SEQUENCE_NUMBER_FIELD_NUMBER, logSeqNum);
+    out.writeUInt64(WALKey.WRITE_TIME_FIELD_NUMBER, writeTime);
+    if (scopes != null) {
+      for (Map.Entry<byte[], Integer> e : scopes.entrySet()) {
+        out.writeTag(WALKey.SCOPES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeRawVarint32(getScopeSize(e.getKey(), e.getValue()));
+        writeBytes(out, FamilyScope.FAMILY_FIELD_NUMBER, e.getKey());
+        out.writeEnum(FamilyScope.SCOPE_TYPE_FIELD_NUMBER, e.getValue());
+      }
+    }
+    out.writeUInt32(WALKey.FOLLOWING_KV_COUNT_FIELD_NUMBER, followingKvCount);
+    for (int i = 0; i < clusterIds.size(); i++) {
+      UUID clusterId = clusterIds.get(i);
+      out.writeTag(WALKey.CLUSTER_IDS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      out.writeRawVarint32(getClusterIdSize(clusterId));
+      out.writeUInt64(HBaseProtos.UUID.LEAST_SIG_BITS_FIELD_NUMBER,
+          clusterId.getLeastSignificantBits());
+      out.writeUInt64(HBaseProtos.UUID.MOST_SIG_BITS_FIELD_NUMBER,
+          clusterId.getMostSignificantBits());
+    }
+    if (nonceGroup != HConstants.NO_NONCE) {
+      out.writeUInt64(WALKey.NONCEGROUP_FIELD_NUMBER, nonceGroup);
+    }
+    if (nonce != HConstants.NO_NONCE) {
+      out.writeUInt64(WALKey.NONCE_FIELD_NUMBER, nonce);
+    }
+  }
+
+  private static int computeBytesSize(final int length) {
+    return CodedOutputStream.computeRawVarint32Size(length) + length;
+  }
+
+  private static void writeBytes(final CodedOutputStream out, final int field,
+      final byte[] value) throws IOException {
+    out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    out.writeRawVarint32(value.length);
+    out.writeRawBytes(value);
+  }
+
+  private static int getScopeSize(final byte[] family, final int scope) {
+    return CodedOutputStream.computeTagSize(FamilyScope.FAMILY_FIELD_NUMBER)
+        + computeBytesSize(family.length)
+        + CodedOutputStream.computeEnumSize(FamilyScope.SCOPE_TYPE_FIELD_NUMBER, scope);
+  }
+
+  private static int getClusterIdSize(final UUID clusterId) {
+    return CodedOutputStream.computeUInt64Size(HBaseProtos.UUID.LEAST_SIG_BITS_FIELD_NUMBER,
+          clusterId.getLeastSignificantBits())
+        + CodedOutputStream.computeUInt64Size(HBaseProtos.UUID.MOST_SIG_BITS_FIELD_NUMBER,
+          clusterId.getMostSignificantBits());
+  }
+
   public void readFieldsFromPb(
       WALKey walKey, WALCellCodec.ByteStringUncompressor uncompressor) throws IOException {
     if (this.compressionContext != null) {
@@ -839,13 +839,20 @@ public class HLogSplitter {
       while (true) {
         RegionEntryBuffer buffer = entryBuffers.getChunkToWrite();
         if (buffer == null) {
-          // No data currently available, wait on some more to show up
-          synchronized (dataAvailable) {
-            if (shouldStop && !this.outputSink.flush()) {
+          if (shouldStop) {
+            // Drain what the sink still buffers. This is done out of the lock, so that the
+            // writer threads replaying edits to region servers drain their queues in parallel.
+            if (!this.outputSink.flush()) {
               return;
             }
+            continue;
+          }
+          // No data currently available, wait on some more to show up
+          synchronized (dataAvailable) {
             try {
-              dataAvailable.wait(500);
+              if (!shouldStop) {
+                dataAvailable.wait(500);
+              }
             } catch (InterruptedException ie) {
               if (!shouldStop) {
                 throw new RuntimeException(ie);
@@ -1452,6 +1459,7 @@ public class HLogSplitter {
           byte[] row = kv.getRow();
           byte[] family = kv.getFamily();
           boolean isCompactionEntry = false;
+          boolean isClockEntry = false;
 	
           if (kv.matchingFamily(WALEdit.METAFAMILY)) {
             CompactionDescriptor compaction = WALEdit.getCompaction(kv);
@@ -1467,6 +1475,10 @@ public class HLogSplitter {
                 skippedKVs.add(kv);
                 continue;
               }
+            } else if (WALEdit.getTransactionClock(kv) > 0) {
+              // the marker row is the start key of its region; forward it so that the replay
+              // restores the transaction clock of the region
+              isClockEntry = true;
             } else {
               skippedKVs.add(kv);
               continue;
@@ -1484,6 +1496,12 @@ public class HLogSplitter {
                   + encodeRegionNameStr);
               needSkip = true;
             }
+            // the clock marker shares its edit with the data, only drop the marker
+            if (isClockEntry && !encodeRegionNameStr.equalsIgnoreCase(
+              loc.getRegionInfo().getEncodedName())) {
+              skippedKVs.add(kv);
+              continue;
+            }
           } catch (TableNotFoundException ex) {
             // table has been deleted so skip edits of the table
             LOG.info("Table " + table + " doesn't exist. Skip log replay for region "
@@ -1511,7 +1529,7 @@ public class HLogSplitter {
               maxStoreSequenceIds =
                   regionMaxSeqIdInStores.get(loc.getRegionInfo().getEncodedName());
             }
-            if (maxStoreSequenceIds != null) {
+            if (maxStoreSequenceIds != null && !isClockEntry) {
               Long maxStoreSeqId = maxStoreSequenceIds.get(family);
               if (maxStoreSeqId == null || maxStoreSeqId >= entry.getKey().getLogSeqNum()) {
                 // skip current kv if column family doesn't exist anymore or already flushed
@@ -1527,6 +1545,11 @@ public class HLogSplitter {
 
         if (!skippedKVs.isEmpty()) {
           kvs.removeAll(skippedKVs);
+          if (kvs.isEmpty()) {
+            // nothing left to replay, do not send an empty edit to the region server
+            this.skippedEdits.incrementAndGet();
+            continue;
+          }
         }
 
         synchronized (serverToBufferQueueMap) {
@@ -1705,7 +1728,9 @@ public class HLogSplitter {
 
       if (curSize > 0) {
         this.processWorkItems(curLoc, curQueue);
-        dataAvailable.notifyAll();
+        synchronized (dataAvailable) {
+          dataAvailable.notifyAll();
+        }
         return true;
       }
       return false;
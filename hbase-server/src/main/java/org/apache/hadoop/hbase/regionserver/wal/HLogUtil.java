@@ -256,6 +256,21 @@ public class HLogUtil {
     return false;
   }
 
+  /**
+   * Get the prefix of a log from its name, the log name being in the format
+   * prefix.filenumber[.meta]. The logs of a WAL share the same prefix, so the prefix tells
+   * the WAL group of a log when a region server runs several WALs.
+   * @param name name of the log
+   * @return the prefix of the log
+   */
+  public static String getWALPrefixFromWALName(String name) {
+    if (isMetaFile(name)) {
+      name = name.substring(0, name.length() - HLog.META_HLOG_FILE_EXTN.length());
+    }
+    int endIndex = name.lastIndexOf('.');
+    return endIndex < 0 ? name : name.substring(0, endIndex);
+  }
+
   /**
    * Write the marker that a compaction has succeeded and is about to be committed.
    * This provides info to the HMaster to allow it to recover the compaction if
@@ -56,6 +56,36 @@ public class MetricsWAL implements WALActionsListener {
     source.incrementSyncTime(time);
   }
 
+  /**
+   * @param edits the number of edits made durable by a sync
+   * @param appendToSyncTime the time from the append of the oldest of these edits to the end
+   *   of the sync
+   */
+  public void finishSyncBatch(long edits, long appendToSyncTime) {
+    source.incrementSyncBatchSize(edits);
+    source.incrementAppendToSyncTime(appendToSyncTime);
+  }
+
+  /**
+   * @param waitTime the time a handler waited for its edits to be synced, in milliseconds
+   * @param notifyTime the time from the end of the sync to the wake up of the handler, in
+   *   microseconds, or -1 if the handler found its edits synced without being woken up
+   */
+  public void finishSyncWait(long waitTime, long notifyTime) {
+    source.incrementSyncWaitTime(waitTime);
+    if (notifyTime >= 0) {
+      source.incrementSyncNotifyTime(notifyTime);
+    }
+  }
+
+  /**
+   * Counts a slow sync. The datanodes it was slow on are logged along, not counted: the
+   * pipelines come and go with the log rolls.
+   */
+  public void slowSync() {
+    source.incrementSlowSyncCount();
+  }
+
   public void finishAppend(long time, long size) {
 
     source.incrementAppendCount();
@@ -34,12 +34,14 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.io.LimitInputStream;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.WALHeader.Builder;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.WALKey;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.WALTrailer;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.IOUtils;
 
 import com.google.protobuf.CodedInputStream;
 
@@ -68,6 +70,11 @@ public class ProtobufLogReader extends ReaderBase {
   // in the hlog, the inputstream's position is equal to walEditsStopOffset.
   private long walEditsStopOffset;
   private boolean trailerPresent;
+  // the cells of the entries up to this sequence id are skipped, see #setSkipCellsUpTo(long)
+  private long skipCellsUpTo = -1;
+  // whether the cells are plain length prefixed KeyValues, which can be skipped undecoded
+  private boolean cellsSkippable;
+  private byte[] cellPrefix = new byte[KeyValue.ROW_OFFSET + Bytes.SIZEOF_SHORT];
   private static List<String> writerClsNames = new ArrayList<String>();
   static {
     writerClsNames.add(ProtobufLogWriter.class.getSimpleName());
@@ -251,6 +258,7 @@ public class ProtobufLogReader extends ReaderBase {
   protected void initAfterCompression(String cellCodecClsName) throws IOException {
     WALCellCodec codec = getCodec(this.conf, cellCodecClsName, this.compressionContext);
     this.cellDecoder = codec.getDecoder(this.inputStream);
+    this.cellsSkippable = !this.hasCompression && codec.getClass() == WALCellCodec.class;
     if (this.hasCompression) {
       this.byteStringUncompressor = codec.getByteStringUncompressor();
     }
@@ -313,7 +321,9 @@ public class ProtobufLogReader extends ReaderBase {
         int expectedCells = walKey.getFollowingKvCount();
         long posBefore = this.inputStream.getPos();
         try {
-          int actualCells = entry.getEdit().readFromCells(cellDecoder, expectedCells);
+          int actualCells = entry.getKey().getLogSeqNum() <= this.skipCellsUpTo ?
+              skipCells(entry.getEdit(), expectedCells) :
+              entry.getEdit().readFromCells(cellDecoder, expectedCells);
           if (expectedCells != actualCells) {
             throw new EOFException("Only read " + actualCells); // other info added in catch
           }
@@ -349,6 +359,64 @@ public class ProtobufLogReader extends ReaderBase {
     }
   }
 
+  /**
+   * Makes this reader skip the cells of the entries with a sequence id up to the given one,
+   * reading no more than their row and family: such entries are returned with their key but
+   * only their {@link WALEdit#METAFAMILY} cells. This only applies to a WAL whose cells are
+   * neither compressed nor encrypted; other WALs are read whole.
+   * @param seqId the sequence id up to which cells are skipped, -1 to read all the cells
+   * @return whether the cells of this WAL can be skipped
+   */
+  public boolean setSkipCellsUpTo(long seqId) {
+    if (this.cellsSkippable) {
+      this.skipCellsUpTo = seqId;
+    }
+    return this.cellsSkippable;
+  }
+
+  /**
+   * Reads the cells of an entry, as written by {@link WALCellCodec.EnsureKvEncoder}, only
+   * decoding those of {@link WALEdit#METAFAMILY}.
+   * @return the number of cells read
+   */
+  private int skipCells(WALEdit edit, int expectedCells) throws IOException {
+    List<KeyValue> kvs = edit.getKeyValues();
+    kvs.clear();
+    for (int i = 0; i < expectedCells; i++) {
+      int length = this.inputStream.readInt();
+      // a KeyValue starts with its key and value lengths, then the row and the family
+      int read = KeyValue.ROW_OFFSET + Bytes.SIZEOF_SHORT;
+      this.inputStream.readFully(this.cellPrefix, 0, read);
+      int rowLength = Bytes.toShort(this.cellPrefix, KeyValue.ROW_OFFSET);
+      ensureCellPrefix(read + rowLength + Bytes.SIZEOF_BYTE + WALEdit.METAFAMILY.length);
+      this.inputStream.readFully(this.cellPrefix, read, rowLength + Bytes.SIZEOF_BYTE);
+      read += rowLength + Bytes.SIZEOF_BYTE;
+      int familyLength = this.cellPrefix[read - 1];
+      boolean meta = false;
+      if (familyLength == WALEdit.METAFAMILY.length) {
+        this.inputStream.readFully(this.cellPrefix, read, familyLength);
+        meta = Bytes.equals(this.cellPrefix, read, familyLength,
+            WALEdit.METAFAMILY, 0, WALEdit.METAFAMILY.length);
+        read += familyLength;
+      }
+      if (meta) {
+        byte[] bytes = new byte[length];
+        System.arraycopy(this.cellPrefix, 0, bytes, 0, read);
+        this.inputStream.readFully(bytes, read, length - read);
+        kvs.add(new KeyValue(bytes, 0, length));
+      } else {
+        IOUtils.skipFully(this.inputStream, length - read);
+      }
+    }
+    return expectedCells;
+  }
+
+  private void ensureCellPrefix(int length) {
+    if (this.cellPrefix.length < length) {
+      this.cellPrefix = Arrays.copyOf(this.cellPrefix, length);
+    }
+  }
+
   private IOException extractHiddenEof(Exception ex) {
     // There are two problems we are dealing with here. Hadoop stream throws generic exception
     // for EOF, not EOFException; and scanner further hides it inside RuntimeException.
@@ -19,7 +19,11 @@
 
 package org.apache.hadoop.hbase.regionserver.wal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,14 +37,24 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.WALHeader;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.WALTrailer;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.FSUtils;
 
+import com.google.protobuf.CodedOutputStream;
+
 /**
  * Writer for protobuf-based WAL.
+ * <p>
+ * An entry is serialized into a buffer reused from one append to the next, and handed to the
+ * output stream in a single write. When the WAL is not compressed, the key is written without
+ * building its protobuf message, the fields it shares with the other keys of its region being
+ * serialized once per region, and the cells are copied straight from their backing arrays;
+ * appending an edit then allocates next to nothing.
  */
 @InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.CONFIG)
 public class ProtobufLogWriter extends WriterBase {
   private final Log LOG = LogFactory.getLog(this.getClass());
+  private static final int KEY_BUFFER_SIZE = 512;
   protected FSDataOutputStream output;
   protected Codec.Encoder cellEncoder;
   protected WALCellCodec.ByteStringCompressor compressor;
@@ -50,6 +64,13 @@ public class ProtobufLogWriter extends WriterBase {
   // than this size, it is written/read respectively, with a WARN message in the log.
   private int trailerWarnSize;
 
+  /** The buffer entries are serialized into, it is reused by all the appends */
+  protected EntryBuffer entryBuffer;
+  private CodedOutputStream keyOutput;
+  // encoded region name and table name of the uncompressed keys, serialized once per region
+  private final Map<byte[], byte[]> regionHeaders =
+      new TreeMap<byte[], byte[]>(Bytes.BYTES_COMPARATOR);
+
   public ProtobufLogWriter() {
     super();
   }
@@ -91,6 +112,8 @@ public class ProtobufLogWriter extends WriterBase {
         WALHeader.newBuilder().setHasCompression(doCompress).setHasTagCompression(doTagCompress))
         .writeDelimitedTo(output);
 
+    this.entryBuffer = new EntryBuffer();
+    this.keyOutput = CodedOutputStream.newInstance(this.entryBuffer, KEY_BUFFER_SIZE);
     initAfterHeader(doCompress);
 
     // instantiate trailer to default value.
@@ -102,7 +125,7 @@ public class ProtobufLogWriter extends WriterBase {
 
   protected void initAfterHeader(boolean doCompress) throws IOException {
     WALCellCodec codec = getCodec(conf, this.compressionContext);
-    this.cellEncoder = codec.getEncoder(this.output);
+    this.cellEncoder = codec.getEncoder(this.entryBuffer);
     if (doCompress) {
       this.compressor = codec.getByteStringCompressor();
     }
@@ -111,12 +134,34 @@ public class ProtobufLogWriter extends WriterBase {
   @Override
   public void append(HLog.Entry entry) throws IOException {
     entry.setCompressionContext(compressionContext);
-    entry.getKey().getBuilder(compressor).setFollowingKvCount(entry.getEdit().size())
-      .build().writeDelimitedTo(output);
-    for (KeyValue kv : entry.getEdit().getKeyValues()) {
-      // cellEncoder must assume little about the stream, since we write PB and cells in turn.
-      cellEncoder.write(kv);
+    HLogKey key = entry.getKey();
+    List<KeyValue> kvs = entry.getEdit().getKeyValues();
+    try {
+      if (compressionContext == null) {
+        key.writeDelimitedTo(keyOutput, getRegionHeader(key), kvs.size());
+        keyOutput.flush();
+      } else {
+        key.getBuilder(compressor).setFollowingKvCount(kvs.size())
+          .build().writeDelimitedTo(entryBuffer);
+      }
+      for (int i = 0; i < kvs.size(); i++) {
+        // cellEncoder must assume little about the stream, since we write PB and cells in turn.
+        cellEncoder.write(kvs.get(i));
+      }
+      entryBuffer.writeTo(output);
+    } finally {
+      // an entry that failed to be serialized is dropped whole
+      entryBuffer.reset();
+    }
+  }
+
+  private byte[] getRegionHeader(HLogKey key) throws IOException {
+    byte[] header = regionHeaders.get(key.getEncodedRegionName());
+    if (header == null) {
+      header = HLogKey.getRegionHeader(key.getEncodedRegionName(), key.getTablename());
+      regionHeaders.put(key.getEncodedRegionName(), header);
     }
+    return header;
   }
 
   @Override
@@ -188,4 +233,25 @@ public class ProtobufLogWriter extends WriterBase {
   public void setWALTrailer(WALTrailer walTrailer) {
     this.trailer = walTrailer;
   }
+
+  /**
+   * The buffer an entry is serialized into. It keeps the array it grew to across the appends,
+   * unless an unusually large entry made it grow past {@link #MAX_RETAINED_SIZE}.
+   */
+  protected static class EntryBuffer extends ByteArrayOutputStream {
+    static final int INITIAL_SIZE = 4 * 1024;
+    static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    EntryBuffer() {
+      super(INITIAL_SIZE);
+    }
+
+    @Override
+    public synchronized void reset() {
+      super.reset();
+      if (buf.length > MAX_RETAINED_SIZE) {
+        buf = new byte[INITIAL_SIZE];
+      }
+    }
+  }
 }
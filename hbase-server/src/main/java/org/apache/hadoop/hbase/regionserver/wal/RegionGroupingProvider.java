@@ -0,0 +1,156 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Provides the WALs of a region server when it runs several of them, each on its own HDFS
+ * pipeline, so that the write throughput of the region server is not bound by a single
+ * append stream. Each region is mapped to a WAL group, either by a hash of its encoded name
+ * or by a hash of its namespace, so that the regions of a namespace share a WAL.
+ * <p>
+ * The first WAL group is the default WAL of the region server. The logs of the other groups
+ * are in the same log directory, their prefix being the one of the default WAL followed by
+ * {@value #WAL_GROUP_PREFIX} and the group number; log splitting handles them unchanged.
+ * The meta regions keep their own WAL.
+ */
+@InterfaceAudience.Private
+public class RegionGroupingProvider {
+  static final Log LOG = LogFactory.getLog(RegionGroupingProvider.class);
+
+  public static final String NUM_REGION_GROUPS = "hbase.wal.regiongrouping.numgroups";
+  public static final int DEFAULT_NUM_REGION_GROUPS = 1;
+
+  public static final String REGION_GROUPING_STRATEGY = "hbase.wal.regiongrouping.strategy";
+  /** Maps a region to a WAL group by a hash of its encoded name */
+  public static final String BOUNDED_STRATEGY = "bounded";
+  /** Maps a region to a WAL group by a hash of its namespace */
+  public static final String NAMESPACE_STRATEGY = "namespace";
+
+  public static final String WAL_GROUP_PREFIX = ".regiongroup-";
+
+  private final HLog[] wals;
+  private final boolean groupByNamespace;
+
+  /**
+   * @param wals the WALs of the region server, the default one first
+   * @param conf configuration of the region server
+   */
+  public RegionGroupingProvider(final HLog[] wals, final Configuration conf) {
+    if (wals.length == 0) {
+      throw new IllegalArgumentException("No WAL to provide");
+    }
+    String strategy = conf.get(REGION_GROUPING_STRATEGY, BOUNDED_STRATEGY);
+    if (NAMESPACE_STRATEGY.equals(strategy)) {
+      this.groupByNamespace = true;
+    } else if (BOUNDED_STRATEGY.equals(strategy)) {
+      this.groupByNamespace = false;
+    } else {
+      throw new IllegalArgumentException("Unknown region grouping strategy: " + strategy);
+    }
+    this.wals = wals;
+    LOG.info("Running " + wals.length + " WAL(s), regions grouped by " + strategy);
+  }
+
+  /**
+   * @param conf configuration of the region server
+   * @return the number of WALs the region server runs
+   */
+  public static int getNumRegionGroups(final Configuration conf) {
+    return Math.max(1, conf.getInt(NUM_REGION_GROUPS, DEFAULT_NUM_REGION_GROUPS));
+  }
+
+  /**
+   * @param prefix the log prefix of the default WAL
+   * @param group a WAL group
+   * @return the log prefix of the WAL of the given group
+   */
+  public static String getGroupPrefix(final String prefix, final int group) {
+    return group == 0 ? prefix : prefix + WAL_GROUP_PREFIX + group;
+  }
+
+  /**
+   * @param info a region, or null for the default WAL
+   * @return the WAL of the region
+   */
+  public HLog getWAL(final HRegionInfo info) {
+    if (info == null || this.wals.length == 1) {
+      return this.wals[0];
+    }
+    byte[] key = this.groupByNamespace ?
+        info.getTable().getNamespace() : info.getEncodedNameAsBytes();
+    return this.wals[(Bytes.hashCode(key) & Integer.MAX_VALUE) % this.wals.length];
+  }
+
+  /**
+   * @return all the WALs, the default one first
+   */
+  public List<HLog> getWALs() {
+    return Collections.unmodifiableList(Arrays.asList(this.wals));
+  }
+
+  /**
+   * Closes all the WALs.
+   * @throws IOException the first failure to close a WAL, after trying to close them all
+   */
+  public void close() throws IOException {
+    close(false);
+  }
+
+  /**
+   * Closes all the WALs, and archives their logs.
+   * @throws IOException the first failure to close a WAL, after trying to close them all
+   */
+  public void closeAndDelete() throws IOException {
+    close(true);
+  }
+
+  private void close(final boolean delete) throws IOException {
+    IOException failure = null;
+    // the default WAL goes last: its closeAndDelete archives all the logs of the directory
+    for (int i = this.wals.length - 1; i >= 0; i--) {
+      try {
+        if (delete && i == 0) {
+          this.wals[i].closeAndDelete();
+        } else {
+          this.wals[i].close();
+        }
+      } catch (IOException e) {
+        LOG.error("Failed to close WAL group " + i, e);
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
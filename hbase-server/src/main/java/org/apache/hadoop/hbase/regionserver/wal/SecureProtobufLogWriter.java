@@ -88,7 +88,7 @@ public class SecureProtobufLogWriter extends ProtobufLogWriter {
   protected void initAfterHeader(boolean doCompress) throws IOException {
     if (conf.getBoolean(HConstants.ENABLE_WAL_ENCRYPTION, false) && encryptor != null) {
       WALCellCodec codec = SecureWALCellCodec.getCodec(this.conf, encryptor);
-      this.cellEncoder = codec.getEncoder(this.output);
+      this.cellEncoder = codec.getEncoder(this.entryBuffer);
       // We do not support compression
       this.compressionContext = null;
     } else {
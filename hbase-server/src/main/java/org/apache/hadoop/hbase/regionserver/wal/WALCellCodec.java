@@ -334,6 +334,9 @@ public class WALCellCodec implements Codec {
   }
 
   public class EnsureKvEncoder extends BaseEncoder {
+    // reused for the length of each cell, so that writing a cell allocates nothing
+    private final byte[] lengthBytes = new byte[Bytes.SIZEOF_INT];
+
     public EnsureKvEncoder(OutputStream out) {
       super(out);
     }
@@ -341,8 +344,12 @@ public class WALCellCodec implements Codec {
     public void write(Cell cell) throws IOException {
       if (!(cell instanceof KeyValue)) throw new IOException("Cannot write non-KV cells to WAL");
       checkFlushed();
-      // Make sure to write tags into WAL
-      KeyValue.oswrite((KeyValue) cell, this.out, true);
+      // Same as KeyValue#oswrite with tags, the cell being copied straight from its backing array
+      KeyValue kv = (KeyValue) cell;
+      int length = kv.getLength();
+      Bytes.putInt(this.lengthBytes, 0, length);
+      this.out.write(this.lengthBytes);
+      this.out.write(kv.getBuffer(), kv.getOffset(), length);
     }
   }
 
@@ -39,6 +39,7 @@ import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.protobuf.generated.WALProtos.CompactionDescriptor;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.io.Writable;
 
 
@@ -85,6 +86,7 @@ public class WALEdit implements Writable, HeapSize {
   static final byte [] METAROW = Bytes.toBytes("METAROW");
   static final byte[] COMPLETE_CACHE_FLUSH = Bytes.toBytes("HBASE::CACHEFLUSH");
   static final byte[] COMPACTION = Bytes.toBytes("HBASE::COMPACTION");
+  static final byte[] TRANSACTION_CLOCK = Bytes.toBytes("HBASE::TXCLOCK");
   private final int VERSION_2 = -1;
   private final boolean isReplay;
 
@@ -297,6 +299,19 @@ public class WALEdit implements Writable, HeapSize {
     return new WALEdit().add(kv); //replication scope null so that this won't be replicated
   }
 
+  /**
+   * Create a KeyValue recording the region transaction clock. It is added to
+   * the edits of mini-batches that carry transactional timestamps so that the
+   * clock can be restored when the edits are replayed.
+   * @param hri the region the clock belongs to
+   * @param clock the value of the region transaction clock
+   * @return A KeyValue that has <code>clock</code> as its value
+   */
+  public static KeyValue createTransactionClock(final HRegionInfo hri, final long clock) {
+    return new KeyValue(getRowForRegion(hri), METAFAMILY, TRANSACTION_CLOCK,
+        EnvironmentEdgeManager.currentTimeMillis(), Bytes.toBytes(clock));
+  }
+
   private static byte[] getRowForRegion(HRegionInfo hri) {
     byte[] startKey = hri.getStartKey();
     if (startKey.length == 0) {
@@ -318,5 +333,16 @@ public class WALEdit implements Writable, HeapSize {
     }
     return null;
   }
-}
 
+  /**
+   * Returns the region transaction clock if the KeyValue is a clock marker.
+   * @param kv the key value
+   * @return the recorded clock, or 0 if <code>kv</code> is not a clock marker
+   */
+  public static long getTransactionClock(Cell kv) {
+    if (CellUtil.matchingColumn(kv, METAFAMILY, TRANSACTION_CLOCK)) {
+      return Bytes.toLong(kv.getValueArray(), kv.getValueOffset(), kv.getValueLength());
+    }
+    return 0;
+  }
+}
@@ -101,6 +101,7 @@ public class WALEditsReplaySink {
     int batchSize = entries.size();
     Map<HRegionInfo, List<HLog.Entry>> entriesByRegion =
         new HashMap<HRegionInfo, List<HLog.Entry>>();
+    Map<HRegionInfo, HRegionLocation> locations = new HashMap<HRegionInfo, HRegionLocation>();
     HRegionLocation loc = null;
     HLog.Entry entry = null;
     List<HLog.Entry> regionEntries = null;
@@ -113,6 +114,7 @@ public class WALEditsReplaySink {
       } else {
         regionEntries = new ArrayList<HLog.Entry>();
         entriesByRegion.put(loc.getRegionInfo(), regionEntries);
+        locations.put(loc.getRegionInfo(), loc);
       }
       regionEntries.add(entry);
     }
@@ -130,7 +132,7 @@ public class WALEditsReplaySink {
       for (; replayedActions < totalActions;) {
         curBatchSize = (totalActions > (MAX_BATCH_SIZE + replayedActions)) ? MAX_BATCH_SIZE
                 : (totalActions - replayedActions);
-        replayEdits(loc, curRegion, allActions.subList(replayedActions,
+        replayEdits(locations.get(curRegion), curRegion, allActions.subList(replayedActions,
           replayedActions + curBatchSize));
         replayedActions += curBatchSize;
       }
@@ -208,8 +210,11 @@ public class WALEditsReplaySink {
       entriesArray = entries.toArray(entriesArray);
       AdminService.BlockingInterface remoteSvr = conn.getAdmin(getLocation().getServerName());
 
+      // Address the edits to the region they are replayed into, which is not the region they
+      // were logged for when it has been split or merged since.
       Pair<AdminProtos.ReplicateWALEntryRequest, CellScanner> p =
-          ReplicationProtbufUtil.buildReplicateWALEntryRequest(entriesArray);
+          ReplicationProtbufUtil.buildReplicateWALEntryRequest(entriesArray,
+            getLocation().getRegionInfo().getEncodedNameAsBytes());
       try {
         PayloadCarryingRpcController controller = new PayloadCarryingRpcController(p.getSecond());
         remoteSvr.replay(controller, p.getFirst());
@@ -224,18 +229,17 @@ public class WALEditsReplaySink {
       // relocate regions in case we have a new dead server or network hiccup
       // if not due to connection issue, the following code should run fast because it uses
       // cached location
-      boolean skip = false;
+      // the region may have moved, bypass the location cache
       for (HLog.Entry entry : this.entries) {
         WALEdit edit = entry.getEdit();
         List<KeyValue> kvs = edit.getKeyValues();
         for (KeyValue kv : kvs) {
           // filtering HLog meta entries
-          setLocation(conn.locateRegion(tableName, kv.getRow()));
-          skip = true;
-          break;
+          if (kv.matchingFamily(WALEdit.METAFAMILY)) continue;
+          // use first log entry to relocate region because all entries are for one region
+          setLocation(conn.getRegionLocation(tableName, kv.getRow(), true));
+          return;
         }
-        // use first log entry to relocate region because all entries are for one region
-        if (skip) break;
       }
     }
   }
@@ -23,7 +23,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +43,7 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.Stoppable;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
+import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.replication.ChainWALEntryFilter;
 import org.apache.hadoop.hbase.replication.ReplicationEndpoint;
@@ -128,6 +131,11 @@ public class ReplicationSource extends Thread
   private WALEntryFilter walEntryFilter;
   // throttler
   private ReplicationThrottler throttler;
+  // Positions of the logs left while still written to, for the other WALs of the server
+  private final Map<String, Long> parkedLogPositions = new HashMap<String, Long>();
+  // When each WAL group was last left, in number of switches, for a round robin of the WALs
+  private final Map<String, Long> walGroupLastSwitch = new HashMap<String, Long>();
+  private long walGroupSwitches = 0;
 
   /**
    * Instantiation method used by region servers
@@ -314,7 +322,9 @@ public class ReplicationSource extends Thread
       //We take the snapshot now so that we are protected against races
       //where a new file gets enqueued while the current file is being processed
       //(and where we just finished reading the current file).
-      if (!this.replicationQueueInfo.isQueueRecovered() && queue.size() == 0) {
+      //Only the logs of the WAL of the current file count, when the region server
+      //runs several WALs.
+      if (!this.replicationQueueInfo.isQueueRecovered() && !isCurrentLogRolled()) {
         currentWALisBeingWrittenTo = true;
       }
       // Open a reader on it
@@ -391,6 +401,10 @@ public class ReplicationSource extends Thread
           // set "ageOfLastShippedOp" to <now> to indicate that we're current
           this.metrics.setAgeOfLastShippedOp(System.currentTimeMillis());
         }
+        if (!gotIOE && currentWALisBeingWrittenTo && switchWALGroup()) {
+          // caught up with this WAL, another one has logs to replicate
+          continue;
+        }
         if (sleepForRetries("Nothing to replicate", sleepMultiplier)) {
           sleepMultiplier++;
         }
@@ -398,6 +412,10 @@ public class ReplicationSource extends Thread
       }
       sleepMultiplier = 1;
       shipEdits(currentWALisBeingWrittenTo, entries);
+      if (currentWALisBeingWrittenTo) {
+        // don't let the other WALs of the server fall behind
+        switchWALGroup();
+      }
     }
     uninitialize();
   }
@@ -479,6 +497,7 @@ public class ReplicationSource extends Thread
         this.currentPath = queue.poll(this.sleepForRetries, TimeUnit.MILLISECONDS);
         this.metrics.setSizeOfLogQueue(queue.size());
         if (this.currentPath != null) {
+          restoreParkedLogPosition();
           this.manager.cleanOldLogs(this.currentPath.getName(),
               this.peerId,
               this.replicationQueueInfo.isQueueRecovered());
@@ -493,6 +512,73 @@ public class ReplicationSource extends Thread
     return this.currentPath != null;
   }
 
+  /*
+   * @return true if the queue holds a later log of the WAL of the current log, i.e. the
+   * current log was rolled and is no more written to
+   */
+  private boolean isCurrentLogRolled() {
+    String walPrefix = HLogUtil.getWALPrefixFromWALName(this.currentPath.getName());
+    for (Path log : this.queue) {
+      if (walPrefix.equals(HLogUtil.getWALPrefixFromWALName(log.getName()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * When the region server runs several WALs, leaves the current log, still written to, for
+   * the oldest log of the WAL that was left the longest time ago. The current log goes back
+   * to the queue and its position is kept for when it is read again.
+   * @return true if the source switched to the log of another WAL
+   */
+  private boolean switchWALGroup() {
+    String currentPrefix = HLogUtil.getWALPrefixFromWALName(this.currentPath.getName());
+    LogsComparator comparator = new LogsComparator();
+    Path next = null;
+    long nextLastSwitch = Long.MAX_VALUE;
+    for (Path log : this.queue) {
+      String prefix = HLogUtil.getWALPrefixFromWALName(log.getName());
+      if (currentPrefix.equals(prefix)) {
+        continue;
+      }
+      Long lastSwitch = this.walGroupLastSwitch.get(prefix);
+      long logLastSwitch = lastSwitch == null ? -1 : lastSwitch.longValue();
+      if (next == null || logLastSwitch < nextLastSwitch ||
+          (logLastSwitch == nextLastSwitch && comparator.compare(log, next) < 0)) {
+        next = log;
+        nextLastSwitch = logLastSwitch;
+      }
+    }
+    if (next == null || !this.queue.remove(next)) {
+      return false;
+    }
+    this.parkedLogPositions.put(this.currentPath.getName(), this.repLogReader.getPosition());
+    this.walGroupLastSwitch.put(currentPrefix, this.walGroupSwitches++);
+    this.queue.put(this.currentPath);
+    this.repLogReader.finishCurrentFile();
+    this.reader = null;
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Leaving " + this.currentPath + " at position " +
+          this.parkedLogPositions.get(this.currentPath.getName()) + " for " + next);
+    }
+    this.currentPath = next;
+    restoreParkedLogPosition();
+    this.manager.cleanOldLogs(this.currentPath.getName(), this.peerId,
+        this.replicationQueueInfo.isQueueRecovered());
+    return true;
+  }
+
+  /*
+   * Reads the current log from where it was left by {@link #switchWALGroup()}, if it was.
+   */
+  private void restoreParkedLogPosition() {
+    Long position = this.parkedLogPositions.remove(this.currentPath.getName());
+    if (position != null) {
+      this.repLogReader.setPosition(position.longValue());
+    }
+  }
+
   /**
    * Open a reader on the current path
    *
@@ -603,7 +689,7 @@ public class ReplicationSource extends Thread
    */
   private boolean isCurrentLogEmpty() {
     return (this.repLogReader.getPosition() == 0 &&
-        !this.replicationQueueInfo.isQueueRecovered() && queue.size() == 0);
+        !this.replicationQueueInfo.isQueueRecovered() && !isCurrentLogRolled());
   }
 
   /**
@@ -732,7 +818,10 @@ public class ReplicationSource extends Thread
    * continue trying to read from it
    */
   protected boolean processEndOfFile() {
-    if (this.queue.size() != 0) {
+    // the current log of a WAL is not over before the WAL is rolled, whatever the logs of the
+    // other WALs of the server
+    if (this.queue.size() != 0 &&
+        (this.replicationQueueInfo.isQueueRecovered() || isCurrentLogRolled())) {
       if (LOG.isTraceEnabled()) {
         String filesize = "N/A";
         try {
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -46,6 +47,7 @@ import org.apache.hadoop.hbase.Server;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.regionserver.HRegionServer;
 import org.apache.hadoop.hbase.regionserver.RegionServerCoprocessorHost;
+import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
 import org.apache.hadoop.hbase.replication.ReplicationEndpoint;
 import org.apache.hadoop.hbase.replication.ReplicationException;
 import org.apache.hadoop.hbase.replication.ReplicationListener;
@@ -93,8 +95,8 @@ public class ReplicationSourceManager implements ReplicationListener {
   private final Map<String, SortedSet<String>> hlogsByIdRecoveredQueues;
   private final Configuration conf;
   private final FileSystem fs;
-  // The path to the latest log we saw, for new coming sources
-  private Path latestPath;
+  // The paths to the latest log we saw of each WAL group, for new coming sources
+  private final Map<String, Path> latestPaths;
   // Path to the hlogs directories
   private final Path logDir;
   // Path to the hlog archive
@@ -132,6 +134,7 @@ public class ReplicationSourceManager implements ReplicationListener {
     this.server = server;
     this.hlogsById = new HashMap<String, SortedSet<String>>();
     this.hlogsByIdRecoveredQueues = new ConcurrentHashMap<String, SortedSet<String>>();
+    this.latestPaths = new HashMap<String, Path>();
     this.oldsources = new CopyOnWriteArrayList<ReplicationSourceInterface>();
     this.conf = conf;
     this.fs = fs;
@@ -201,12 +204,19 @@ public class ReplicationSourceManager implements ReplicationListener {
  }
   
   private void cleanOldLogs(SortedSet<String> hlogs, String key, String id) {
-    SortedSet<String> hlogSet = hlogs.headSet(key);
+    // only the older logs of the same WAL, the other WALs of the server are read independently
+    String walPrefix = HLogUtil.getWALPrefixFromWALName(key);
+    List<String> hlogSet = new ArrayList<String>();
+    for (String hlog : hlogs.headSet(key)) {
+      if (walPrefix.equals(HLogUtil.getWALPrefixFromWALName(hlog))) {
+        hlogSet.add(hlog);
+      }
+    }
     LOG.debug("Removing " + hlogSet.size() + " logs in the list: " + hlogSet);
     for (String hlog : hlogSet) {
       this.replicationQueues.removeLog(id, hlog);
     }
-    hlogSet.clear();
+    hlogs.removeAll(hlogSet);
   }
 
   /**
@@ -250,9 +260,9 @@ public class ReplicationSourceManager implements ReplicationListener {
     synchronized (this.hlogsById) {
       this.sources.add(src);
       this.hlogsById.put(id, new TreeSet<String>());
-      // Add the latest hlog to that source's queue
-      if (this.latestPath != null) {
-        String name = this.latestPath.getName();
+      // Add the latest hlog of each WAL to that source's queue
+      for (Path latestPath : this.latestPaths.values()) {
+        String name = latestPath.getName();
         this.hlogsById.get(id).add(name);
         try {
           this.replicationQueues.addLog(src.getPeerClusterZnode(), name);
@@ -263,7 +273,7 @@ public class ReplicationSourceManager implements ReplicationListener {
           server.stop(message);
           throw e;
         }
-        src.enqueueLog(this.latestPath);
+        src.enqueueLog(latestPath);
       }
     }
     src.startup();
@@ -329,6 +339,7 @@ public class ReplicationSourceManager implements ReplicationListener {
   void preLogRoll(Path newLog) throws IOException {
     synchronized (this.hlogsById) {
       String name = newLog.getName();
+      String walPrefix = HLogUtil.getWALPrefixFromWALName(name);
       for (ReplicationSourceInterface source : this.sources) {
         try {
           this.replicationQueues.addLog(source.getPeerClusterZnode(), name);
@@ -340,14 +351,18 @@ public class ReplicationSourceManager implements ReplicationListener {
       for (SortedSet<String> hlogs : this.hlogsById.values()) {
         if (this.sources.isEmpty()) {
           // If there's no slaves, don't need to keep the old hlogs since
-          // we only consider the last one when a new slave comes in
-          hlogs.clear();
+          // we only consider the last one of each WAL when a new slave comes in
+          Iterator<String> it = hlogs.iterator();
+          while (it.hasNext()) {
+            if (walPrefix.equals(HLogUtil.getWALPrefixFromWALName(it.next()))) {
+              it.remove();
+            }
+          }
         }
         hlogs.add(name);
       }
+      this.latestPaths.put(walPrefix, newLog);
     }
-
-    this.latestPath = newLog;
   }
 
   void postLogRoll(Path newLog) throws IOException {
@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.logging.Log;
@@ -69,7 +70,9 @@ import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
 import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.TransactionTimestamp;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.Hash;
 import org.apache.hadoop.hbase.util.MurmurHash;
 import org.apache.hadoop.hbase.util.Pair;
@@ -87,6 +90,7 @@ import org.codehaus.jackson.map.ObjectMapper;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.yammer.metrics.core.Histogram;
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.stats.Snapshot;
 
 /**
  * Script used evaluating HBase performance and scalability.  Runs a HBase
@@ -110,6 +114,8 @@ public class PerformanceEvaluation extends Configured implements Tool {
   public static final String TABLE_NAME = "TestTable";
   public static final byte[] FAMILY_NAME = Bytes.toBytes("info");
   public static final byte[] QUALIFIER_NAME = Bytes.toBytes("data");
+  public static final byte[] SHADOW_CELL_SUFFIX = Bytes.toBytes(":shadow");
+  public static final byte[] SHADOW_QUALIFIER_NAME = Bytes.add(QUALIFIER_NAME, SHADOW_CELL_SUFFIX);
   public static final int VALUE_LENGTH = 1000;
   public static final int ROW_LENGTH = 26;
 
@@ -167,6 +173,12 @@ public class PerformanceEvaluation extends Configured implements Tool {
         "Run scan test (read every row)");
     addCommandDescriptor(FilteredScanTest.class, "filterScan",
         "Run scan test using a filter to find a specific row based on it's value (make sure to use --rows=20)");
+    addCommandDescriptor(SingletonWriteTest.class, "singletonWrite",
+        "Run random singleton write test (cell and shadow cell checked and written together)");
+    addCommandDescriptor(TransactionalWriteTest.class, "txnWrite",
+        "Run random transactional write test (tentative write, then shadow cell commit)");
+    addCommandDescriptor(ReadModifyWriteTest.class, "rmwWrite",
+        "Run random read-modify-write transaction test (use --conflictRate to force conflicts)");
   }
 
   protected void addCommandDescriptor(Class<? extends Test> cmdClass,
@@ -291,6 +303,7 @@ public class PerformanceEvaluation extends Configured implements Tool {
     family.setDataBlockEncoding(opts.blockEncoding);
     family.setCompressionType(opts.compression);
     family.setBloomFilterType(opts.bloomType);
+    family.setShadowCellSuffix(SHADOW_CELL_SUFFIX);
     if (opts.inMemoryCF) {
       family.setInMemory(true);
     }
@@ -507,6 +520,7 @@ public class PerformanceEvaluation extends Configured implements Tool {
       this.filterAll = that.filterAll;
       this.bloomType = that.bloomType;
       this.addColumns = that.addColumns;
+      this.conflictRate = that.conflictRate;
     }
 
     public boolean nomapred = false;
@@ -529,6 +543,7 @@ public class PerformanceEvaluation extends Configured implements Tool {
     public BloomType bloomType = BloomType.ROW;
     public DataBlockEncoding blockEncoding = DataBlockEncoding.NONE;
     boolean addColumns = true;
+    public float conflictRate = 0.0f;
   }
 
   /*
@@ -977,6 +992,169 @@ public class PerformanceEvaluation extends Configured implements Tool {
     }
   }
 
+  /**
+   * Base class of the tests running Omid transactions, one per row. Reports the throughput, the
+   * number of transactions that failed their check, and a latency histogram once done.
+   */
+  static abstract class TransactionalTest extends Test {
+    // Start of the oracle epochs, 2014-01-01 in seconds, so that the epochs of a thousand tasks
+    // still fit in a timestamp once shifted past the local bits
+    private static final long ORACLE_EPOCH_SECONDS = 1388534400L;
+
+    // Stands in for the timestamp oracle, one epoch per transaction. Each task hands out the
+    // epochs equal to its index modulo the number of tasks, so that tasks running in separate
+    // JVMs never share a timestamp. Seeded from the wall clock in seconds so that later runs
+    // against the same table start from newer timestamps.
+    private final AtomicLong timestampOracle;
+    private final int oracleStride;
+
+    private final Histogram latency;
+    private long committed = 0;
+    private long aborted = 0;
+    private long startTime;
+
+    TransactionalTest(Configuration conf, TestOptions options, Status status) {
+      super(conf, options, status);
+      this.latency = new MetricsRegistry().newHistogram(getClass(), "latency", true);
+      // local clients take consecutive row ranges, map tasks a tenth of a client's rows each
+      this.oracleStride = options.nomapred ? options.numClientThreads
+          : 10 * options.numClientThreads;
+      long taskIndex = options.startRow / Math.max(1, options.perClientRunRows);
+      long seconds = EnvironmentEdgeManager.currentTimeMillis() / 1000 - ORACLE_EPOCH_SECONDS;
+      this.timestampOracle = new AtomicLong(seconds * oracleStride + taskIndex % oracleStride);
+    }
+
+    /**
+     * @return a new transaction timestamp, with the local (singleton) bits cleared
+     */
+    long nextTimestamp() {
+      return timestampOracle.addAndGet(oracleStride) * TransactionTimestamp.TRANSACTION_INC;
+    }
+
+    @Override
+    void testSetup() throws IOException {
+      super.testSetup();
+      // each transaction waits for its writes, as a transaction manager would
+      this.table.setAutoFlush(true, true);
+      this.startTime = System.nanoTime();
+    }
+
+    @Override
+    void testRow(final int i) throws IOException {
+      byte[] row = getRandomRow(this.rand, opts.totalRows);
+      long start = System.nanoTime();
+      boolean done = runTransaction(row);
+      latency.update((System.nanoTime() - start) / 1000);
+      if (done) {
+        committed++;
+      } else {
+        aborted++;
+      }
+    }
+
+    /**
+     * Runs one transaction on <code>row</code>.
+     * @return true if the transaction committed, false if its check failed
+     */
+    abstract boolean runTransaction(final byte[] row) throws IOException;
+
+    Put newPut(byte[] row, long putTs) {
+      Put put = new Put(row, putTs);
+      put.setDurability(opts.writeToWAL ? Durability.SYNC_WAL : Durability.SKIP_WAL);
+      return put;
+    }
+
+    @Override
+    void testTakedown() throws IOException {
+      long elapsedMs = (System.nanoTime() - startTime) / 1000000;
+      super.testTakedown();
+      String test = getClass().getSimpleName();
+      long total = committed + aborted;
+      LOG.info(test + " " + total + " transactions, " + committed + " committed, " + aborted +
+        " failed their check, " + FMT.format(total * 1000.0 / Math.max(1, elapsedMs)) +
+        " transactions/s");
+      Snapshot snapshot = latency.getSnapshot();
+      LOG.info(test + " latency log (us), on " + latency.count() + " measures");
+      LOG.info("  99.9% = " + snapshot.get999thPercentile());
+      LOG.info("    99% = " + snapshot.get99thPercentile());
+      LOG.info("    95% = " + snapshot.get95thPercentile());
+      LOG.info("    75% = " + snapshot.get75thPercentile());
+      LOG.info("    50% = " + snapshot.getMedian());
+      LOG.info("Min = " + latency.min() + ", Max = " + latency.max());
+      LOG.info("Standard Deviation = " + latency.stdDev());
+      LOG.info("Mean = " + latency.mean());
+    }
+  }
+
+  /**
+   * Singleton writes: the cell and its shadow cell are checked and written with a single
+   * checkAndMutate, stamped by the region with its local transaction timestamp.
+   */
+  static class SingletonWriteTest extends TransactionalTest {
+    SingletonWriteTest(Configuration conf, TestOptions options, Status status) {
+      super(conf, options, status);
+    }
+
+    @Override
+    boolean runTransaction(final byte[] row) throws IOException {
+      Put put = newPut(row, TransactionTimestamp.SINGLETON_TIMESTAMP);
+      put.add(FAMILY_NAME, QUALIFIER_NAME, HConstants.LATEST_TIMESTAMP,
+          generateData(this.rand, VALUE_LENGTH));
+      put.add(FAMILY_NAME, SHADOW_QUALIFIER_NAME, HConstants.LATEST_TIMESTAMP,
+          HConstants.EMPTY_BYTE_ARRAY);
+      return table.checkSingletonAndPut(row, FAMILY_NAME, QUALIFIER_NAME,
+          HConstants.EMPTY_BYTE_ARRAY, put);
+    }
+  }
+
+  /**
+   * Regular transactions: a tentative write at the start timestamp, then the commit, which
+   * writes the shadow cell holding the commit timestamp.
+   */
+  static class TransactionalWriteTest extends TransactionalTest {
+    TransactionalWriteTest(Configuration conf, TestOptions options, Status status) {
+      super(conf, options, status);
+    }
+
+    @Override
+    boolean runTransaction(final byte[] row) throws IOException {
+      long startTs = nextTimestamp();
+      Put tentative = newPut(row, startTs);
+      tentative.add(FAMILY_NAME, QUALIFIER_NAME, startTs, generateData(this.rand, VALUE_LENGTH));
+      table.put(tentative);
+      long commitTs = nextTimestamp();
+      Put commit = newPut(row, commitTs);
+      commit.add(FAMILY_NAME, SHADOW_QUALIFIER_NAME, startTs, Bytes.toBytes(commitTs));
+      table.put(commit);
+      return true;
+    }
+  }
+
+  /**
+   * Read-modify-write transactions: the write is applied only if the newest commit of the row
+   * (or its newest singleton write) is older than the read timestamp. With probability
+   * <code>conflictRate</code> the transaction reads at the oldest possible timestamp, so it
+   * fails whenever the row was written before.
+   */
+  static class ReadModifyWriteTest extends TransactionalTest {
+    ReadModifyWriteTest(Configuration conf, TestOptions options, Status status) {
+      super(conf, options, status);
+    }
+
+    @Override
+    boolean runTransaction(final byte[] row) throws IOException {
+      long readTs = nextTimestamp();
+      long checkTs = this.rand.nextFloat() < opts.conflictRate ?
+          TransactionTimestamp.TRANSACTION_INC : readTs;
+      long commitTs = nextTimestamp();
+      Put put = newPut(row, commitTs);
+      put.add(FAMILY_NAME, QUALIFIER_NAME, commitTs, generateData(this.rand, VALUE_LENGTH));
+      put.add(FAMILY_NAME, SHADOW_QUALIFIER_NAME, commitTs, Bytes.toBytes(commitTs));
+      return table.checkTxnAndPut(row, FAMILY_NAME, SHADOW_QUALIFIER_NAME,
+          Bytes.toBytes(checkTs), put);
+    }
+  }
+
   /**
    * Compute a throughput rate in MB/s.
    * @param rows Number of records consumed.
@@ -1134,6 +1312,8 @@ public class PerformanceEvaluation extends Configured implements Tool {
     System.err.println(" latency         Set to report operation latencies. " +
       "Currently only supported by randomRead test. Default: False");
     System.err.println(" bloomFilter      Bloom filter type, one of " + Arrays.toString(BloomType.values()));
+    System.err.println(" conflictRate    Fraction of rmwWrite transactions that read at a stale " +
+      "timestamp and fail their check if the row was already written. Default: 0.0");
     System.err.println();
     System.err.println(" Note: -D properties will be applied to the conf used. ");
     System.err.println("  For example: ");
@@ -1289,6 +1469,12 @@ public class PerformanceEvaluation extends Configured implements Tool {
           continue;
         }
 
+        final String conflictRate = "--conflictRate=";
+        if (cmd.startsWith(conflictRate)) {
+          opts.conflictRate = Float.parseFloat(cmd.substring(conflictRate.length()));
+          continue;
+        }
+
         final String addColumns = "--addColumns=";
         if (cmd.startsWith(addColumns)) {
           opts.addColumns = Boolean.parseBoolean(cmd.substring(addColumns.length()));
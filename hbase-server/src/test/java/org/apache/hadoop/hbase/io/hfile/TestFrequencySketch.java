@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestFrequencySketch {
+
+  @Test
+  public void testFrequency() {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    int hash = "block".hashCode();
+    assertEquals(0, sketch.frequency(hash));
+    for (int i = 1; i <= 5; i++) {
+      sketch.increment(hash);
+      // a count-min sketch never underestimates
+      assertTrue(sketch.frequency(hash) >= i);
+    }
+    // counters saturate
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(hash);
+    }
+    assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency(hash));
+  }
+
+  @Test
+  public void testFewCollisions() {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    for (int i = 0; i < 500; i++) {
+      sketch.increment(i);
+    }
+    int overestimated = 0;
+    for (int i = 0; i < 500; i++) {
+      int frequency = sketch.frequency(i);
+      assertTrue(frequency >= 1);
+      if (frequency > 1) {
+        overestimated++;
+      }
+    }
+    assertTrue("overestimated=" + overestimated, overestimated < 50);
+  }
+
+  @Test
+  public void testAging() {
+    // 10 expected items, halved every 100 additions
+    FrequencySketch sketch = new FrequencySketch(10);
+    int hot = -1;
+    for (int i = 0; i < 8; i++) {
+      sketch.increment(hot);
+    }
+    int frequency = sketch.frequency(hot);
+    assertTrue(frequency >= 8);
+    for (int i = 0; i < 92; i++) {
+      sketch.increment(i);
+    }
+    // halved, give or take a few collisions with the other items
+    assertTrue(sketch.frequency(hot) < frequency);
+  }
+}
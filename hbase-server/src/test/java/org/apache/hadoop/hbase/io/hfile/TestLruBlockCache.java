@@ -24,6 +24,8 @@ import static org.junit.Assert.assertTrue;
 import java.nio.ByteBuffer;
 import java.util.Random;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.hfile.LruBlockCache.EvictionThread;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -529,6 +531,272 @@ public class TestLruBlockCache {
 
   }
 
+  // test TinyLFU admission
+  @Test
+  public void testTinyLfuAdmission() throws Exception {
+
+    long maxSize = 100000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 10);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_TINYLFU_ADMISSION_CONFIG_NAME, true);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    CachedItem [] hotBlocks = generateFixedBlocks(4, blockSize, "hot");
+    CachedItem [] scanBlocks = generateFixedBlocks(20, blockSize, "scan");
+    CachedItem popularBlock = generateFixedBlocks(1, blockSize, "popular")[0];
+
+    // Read the hot blocks a few times
+    for (CachedItem block : hotBlocks) {
+      assertEquals(null, cache.getBlock(block.cacheKey, true, false, true));
+      cache.cacheBlock(block.cacheKey, block);
+      cache.getBlock(block.cacheKey, true, false, true);
+      cache.getBlock(block.cacheKey, true, false, true);
+    }
+    assertEquals(0, cache.getStats().getAdmissionRejectedCount());
+
+    // Scan, the cache fills up and evicts scanned blocks: then the blocks read
+    // only once are not cached anymore
+    for (CachedItem block : scanBlocks) {
+      assertEquals(null, cache.getBlock(block.cacheKey, true, false, true));
+      cache.cacheBlock(block.cacheKey, block);
+    }
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+    assertTrue(cache.getStats().getAdmissionRejectedCount() > 0);
+    long blockCount = cache.getBlockCount();
+    for (CachedItem block : hotBlocks) {
+      assertTrue(cache.containsBlock(block.cacheKey));
+    }
+
+    // A block requested twice is more popular than the evicted ones
+    long rejected = cache.getStats().getAdmissionRejectedCount();
+    assertEquals(null, cache.getBlock(popularBlock.cacheKey, true, false, true));
+    assertEquals(null, cache.getBlock(popularBlock.cacheKey, true, false, true));
+    cache.cacheBlock(popularBlock.cacheKey, popularBlock);
+    assertEquals(rejected, cache.getStats().getAdmissionRejectedCount());
+    assertTrue(cache.containsBlock(popularBlock.cacheKey));
+    assertTrue(cache.getBlockCount() <= blockCount + 1);
+  }
+
+  // test that TinyLFU admission keeps the working set of a warm cache through a large scan
+  @Test
+  public void testTinyLfuAdmissionWithLargeScan() throws Exception {
+
+    long maxSize = 10000000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 1000);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_TINYLFU_ADMISSION_CONFIG_NAME, true);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    // The working set fills 60% of the cache, a block read three times
+    CachedItem [] hotBlocks = generateFixedBlocks(600, blockSize, "hot");
+    for (CachedItem block : hotBlocks) {
+      assertEquals(null, cache.getBlock(block.cacheKey, true, false, true));
+      cache.cacheBlock(block.cacheKey, block);
+      cache.getBlock(block.cacheKey, true, false, true);
+      cache.getBlock(block.cacheKey, true, false, true);
+    }
+
+    // A scan reads three times as many blocks as the cache holds, once each. The eviction
+    // runs bring the cache back below its acceptable size, which must not let the next scanned
+    // blocks in without the frequency check.
+    CachedItem [] scanBlocks = generateFixedBlocks(3000, blockSize, "scan");
+    for (CachedItem block : scanBlocks) {
+      assertEquals(null, cache.getBlock(block.cacheKey, true, false, true));
+      cache.cacheBlock(block.cacheKey, block);
+    }
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+    assertTrue(cache.getStats().getAdmissionRejectedCount() > scanBlocks.length / 2);
+    assertTrue(cache.heapSize() <= maxSize);
+
+    int hotCached = 0;
+    for (CachedItem block : hotBlocks) {
+      if (cache.containsBlock(block.cacheKey)) {
+        hotCached++;
+      }
+    }
+    // without the admission, the eviction runs would take the working set down to the share
+    // of the multi access blocks, 50% of the cache
+    assertTrue("hotCached=" + hotCached, hotCached >= hotBlocks.length * 9 / 10);
+  }
+
+  // test that TinyLFU admission lets a new working set in once it is read more often than the
+  // old one, whose frequencies are not refreshed anymore
+  @Test
+  public void testTinyLfuAdmissionWithNewWorkingSet() throws Exception {
+    for (boolean sampledEviction : new boolean [] { false, true }) {
+      long maxSize = 1000000;
+      long blockSize = calculateBlockSizeDefault(maxSize, 100);
+      Configuration conf = HBaseConfiguration.create();
+      conf.setBoolean(LruBlockCache.LRU_TINYLFU_ADMISSION_CONFIG_NAME, true);
+      conf.setBoolean(LruBlockCache.LRU_SAMPLED_EVICTION_CONFIG_NAME, sampledEviction);
+      LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+      // The old working set, read five times
+      CachedItem [] oldBlocks = generateFixedBlocks(80, blockSize, "old");
+      for (CachedItem block : oldBlocks) {
+        assertEquals(null, cache.getBlock(block.cacheKey, true, false, true));
+        cache.cacheBlock(block.cacheKey, block);
+        for (int i = 0; i < 4; i++) {
+          cache.getBlock(block.cacheKey, true, false, true);
+        }
+      }
+
+      // The new working set is read over and over, the old one not anymore
+      CachedItem [] newBlocks = generateFixedBlocks(80, blockSize, "new");
+      for (int round = 0; round < 30; round++) {
+        for (CachedItem block : newBlocks) {
+          if (cache.getBlock(block.cacheKey, true, false, true) == null) {
+            cache.cacheBlock(block.cacheKey, block);
+          }
+        }
+      }
+      assertTrue(cache.getStats().getAdmissionRejectedCount() > 0);
+      assertTrue(cache.heapSize() <= maxSize);
+
+      int newCached = 0;
+      for (CachedItem block : newBlocks) {
+        if (cache.containsBlock(block.cacheKey)) {
+          newCached++;
+        }
+      }
+      assertTrue("sampledEviction=" + sampledEviction + ", newCached=" + newCached,
+        newCached >= newBlocks.length * 9 / 10);
+    }
+  }
+
+  // test sampled eviction by concurrent caching threads
+  @Test
+  public void testSampledEviction() throws Exception {
+
+    long maxSize = 1000000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 100);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_SAMPLED_EVICTION_CONFIG_NAME, true);
+    conf.setInt(LruBlockCache.LRU_EVICTION_SAMPLE_SIZE_CONFIG_NAME, 4);
+    final LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+    long emptySize = cache.heapSize();
+
+    Thread [] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      final CachedItem [] blocks = generateFixedBlocks(200, blockSize, "thread" + i + "-");
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          Random r = new Random();
+          for (int j = 0; j < blocks.length; j++) {
+            cache.cacheBlock(blocks[j].cacheKey, blocks[j]);
+            cache.getBlock(blocks[r.nextInt(j + 1)].cacheKey, true, false, true);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+    assertTrue(cache.getBlockCount() < 800);
+    assertTrue(cache.heapSize() <= maxSize);
+    // blocks evicted by several threads at once are only accounted for once
+    long expectedSize = emptySize;
+    for (LruCachedBlock cb : cache.getMapForTests().values()) {
+      expectedSize += cb.heapSize();
+    }
+    assertEquals(expectedSize, cache.heapSize());
+    assertEquals(cache.getMapForTests().size(), cache.getBlockCount());
+    assertEquals(800 - cache.getBlockCount(), cache.getStats().getEvictedCount());
+  }
+
+  // test that the sampled eviction does not let the cache grow past its maximum size when more
+  // threads cache blocks than there are eviction hands
+  @Test
+  public void testSampledEvictionWithMoreThreadsThanHands() throws Exception {
+
+    long maxSize = 1000000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 1000);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_SAMPLED_EVICTION_CONFIG_NAME, true);
+    final LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    Thread [] threads = new Thread[4 * LruBlockCache.DEFAULT_CONCURRENCY_LEVEL];
+    for (int i = 0; i < threads.length; i++) {
+      final CachedItem [] blocks = generateFixedBlocks(500, blockSize, "thread" + i + "-");
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (CachedItem block : blocks) {
+            cache.cacheBlock(block.cacheKey, block);
+          }
+        }
+      };
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+    assertTrue("heapSize=" + cache.heapSize(), cache.heapSize() <= maxSize);
+  }
+
+  // test that a sampled eviction only costs the caching thread the room for its own block
+  @Test
+  public void testSampledEvictionLatency() throws Exception {
+
+    long maxSize = 10000000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 10000);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_SAMPLED_EVICTION_CONFIG_NAME, true);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    CachedItem [] blocks = generateFixedBlocks(30000, blockSize, "block");
+    long evicted = 0;
+    for (int i = 0; i < blocks.length; i++) {
+      cache.cacheBlock(blocks[i].cacheKey, blocks[i]);
+      // the names, so the blocks, differ in size by a few bytes
+      long newEvicted = cache.getStats().getEvictedCount();
+      assertTrue("evicted " + (newEvicted - evicted) + " blocks to cache one",
+        newEvicted - evicted <= 2);
+      evicted = newEvicted;
+    }
+    assertTrue(evicted > 0);
+    assertTrue(cache.heapSize() <= maxSize);
+  }
+
+  // test that the sampled eviction takes the single access blocks first
+  @Test
+  public void testSampledEvictionPriority() throws Exception {
+
+    long maxSize = 1000000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 1000);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(LruBlockCache.LRU_SAMPLED_EVICTION_CONFIG_NAME, true);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    CachedItem [] multiBlocks = generateFixedBlocks(500, blockSize, "multi");
+    for (CachedItem block : multiBlocks) {
+      cache.cacheBlock(block.cacheKey, block);
+      cache.getBlock(block.cacheKey, true, false, true);
+    }
+    CachedItem [] singleBlocks = generateFixedBlocks(1000, blockSize, "single");
+    for (CachedItem block : singleBlocks) {
+      cache.cacheBlock(block.cacheKey, block);
+    }
+    assertTrue(cache.getStats().getEvictedCount() >= 400);
+
+    // by recency alone, about one in seven multiple access blocks would be left
+    int multiCached = 0;
+    for (CachedItem block : multiBlocks) {
+      if (cache.containsBlock(block.cacheKey)) {
+        multiCached++;
+      }
+    }
+    assertTrue("multiCached=" + multiCached, multiCached >= multiBlocks.length * 3 / 10);
+  }
+
   // test setMaxSize
   @Test
   public void testResizeBlockCache() throws Exception {
@@ -66,6 +66,7 @@ import org.apache.hadoop.hbase.SplitLogCounters;
 import org.apache.hadoop.hbase.Waiter;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HConnectionManager;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Increment;
@@ -628,6 +629,93 @@ public class TestDistributedLogSplitting {
     zkw.close();
   }
 
+  @Test(timeout = 300000)
+  public void testLogReplayWithSplitDuringReplay() throws Exception {
+    LOG.info("testLogReplayWithSplitDuringReplay");
+    conf.setBoolean(HConstants.DISTRIBUTED_LOG_REPLAY_KEY, true);
+    startCluster(NUM_RS);
+    final int NUM_REGIONS_TO_CREATE = 40;
+    final int NUM_LOG_LINES = 1000;
+    // turn off load balancing to prevent regions from moving around otherwise
+    // they will consume recovered.edits
+    master.balanceSwitch(false);
+
+    final ZooKeeperWatcher zkw = new ZooKeeperWatcher(conf, "table-creation", null);
+    HTable ht = installTable(zkw, "table", "family", NUM_REGIONS_TO_CREATE);
+    final TableName table = TableName.valueOf("table");
+
+    HRegionServer hrs = findRSToKill(false, "table");
+    List<HRegionInfo> regions = ProtobufUtil.getOnlineRegions(hrs);
+    makeHLog(hrs.getWAL(), regions, "table", "family", NUM_LOG_LINES, 100);
+    // makeHLog left the regions of the table only
+    final int numRegionsToRecover = regions.size();
+
+    LOG.info("Aborting region server: " + hrs.getServerName());
+    hrs.abort("testing");
+    TEST_UTIL.waitFor(120000, 200, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        return (cluster.getLiveRegionServerThreads().size() <= (NUM_RS - 1));
+      }
+    });
+
+    // ask for the split of the regions of the dead server as soon as they are reopened, while
+    // their edits are replayed
+    final HBaseAdmin admin = TEST_UTIL.getHBaseAdmin();
+    final Set<String> splitRequested = new HashSet<String>();
+    TEST_UTIL.waitFor(180000, 50, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        for (RegionServerThread rst : cluster.getLiveRegionServerThreads()) {
+          for (HRegion region : rst.getRegionServer().getRecoveringRegions().values()) {
+            if (region == null ||
+                !splitRequested.add(region.getRegionInfo().getEncodedName())) {
+              continue;
+            }
+            try {
+              admin.split(region.getRegionName());
+            } catch (IOException e) {
+              LOG.info("Split of " + region + " failed", e);
+            }
+          }
+        }
+        List<String> recoveringRegions = zkw.getRecoverableZooKeeper().getChildren(
+          zkw.recoveringRegionsZNode, false);
+        return splitRequested.size() >= numRegionsToRecover ||
+            (recoveringRegions != null && recoveringRegions.size() == 0);
+      }
+    });
+    LOG.info("Requested the split of " + splitRequested.size() + " recovering regions");
+
+    // wait for all regions are fully recovered
+    TEST_UTIL.waitFor(180000, 200, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        List<String> recoveringRegions = zkw.getRecoverableZooKeeper().getChildren(
+          zkw.recoveringRegionsZNode, false);
+        return (recoveringRegions != null && recoveringRegions.size() == 0);
+      }
+    });
+    blockUntilNoRIT(zkw, master);
+    assertEquals(NUM_LOG_LINES, TEST_UTIL.countRows(ht));
+
+    // once recovered, the regions split and keep all the replayed rows
+    final int numRegions = admin.getTableRegions(table).size();
+    for (HRegionInfo region : admin.getTableRegions(table)) {
+      admin.split(region.getRegionName());
+    }
+    TEST_UTIL.waitFor(180000, 200, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        return admin.getTableRegions(table).size() > numRegions;
+      }
+    });
+    blockUntilNoRIT(zkw, master);
+    assertEquals(NUM_LOG_LINES, TEST_UTIL.countRows(ht));
+    ht.close();
+    zkw.close();
+  }
+
   @Test(timeout = 300000)
   public void testMarkRegionsRecoveringInZK() throws Exception {
     LOG.info("testMarkRegionsRecoveringInZK");
@@ -25,7 +25,13 @@ import java.util.List;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellScanner;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.protobuf.generated.AdminProtos;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
+import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Test;
@@ -67,6 +73,24 @@ public class TestReplicationProtobuf {
     assertFalse(scanner.advance());
   }
 
+  @Test
+  public void testBuildRequestForRegion() throws IOException {
+    byte[] logged = Bytes.toBytes("logged");
+    byte[] target = Bytes.toBytes("target");
+    WALEdit edit = new WALEdit();
+    edit.add(new KeyValue(Bytes.toBytes("r"), -1L));
+    HLog.Entry[] entries = new HLog.Entry[] { new HLog.Entry(new HLogKey(logged,
+        TableName.valueOf("t"), 1, 0, HConstants.DEFAULT_CLUSTER_ID), edit) };
+    AdminProtos.ReplicateWALEntryRequest request =
+        ReplicationProtbufUtil.buildReplicateWALEntryRequest(entries).getFirst();
+    assertTrue(Bytes.equals(logged,
+        request.getEntry(0).getKey().getEncodedRegionName().toByteArray()));
+    request = ReplicationProtbufUtil.buildReplicateWALEntryRequest(entries, target).getFirst();
+    assertTrue(Bytes.equals(target,
+        request.getEntry(0).getKey().getEncodedRegionName().toByteArray()));
+    assertEquals(1, request.getEntry(0).getAssociatedCellCount());
+  }
+
   private void testAdvancetHasSameRow(CellScanner scanner, final KeyValue kv) throws IOException {
     scanner.advance();
     assertTrue(Bytes.equals(scanner.current().getRowArray(), scanner.current().getRowOffset(),
@@ -250,4 +250,19 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
   public int getSplitQueueSize() {
     return 0;
   }
+
+  @Override
+  public double getCompactionThroughputLimit() {
+    return 0;
+  }
+
+  @Override
+  public double getCompactionThroughputFeedbackRatio() {
+    return 1.0;
+  }
+
+  @Override
+  public long getCompactionThroughputThrottledCount() {
+    return 0;
+  }
 }
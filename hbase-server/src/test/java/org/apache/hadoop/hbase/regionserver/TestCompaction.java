@@ -554,6 +554,130 @@ public class TestCompaction {
     cst.interruptIfNecessary();
   }
 
+  /** Test the cost/benefit ordering of the compaction queue. */
+  @Test
+  public void testCompactionQueueCostBenefit() throws Exception {
+    final Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(CompactSplitThread.COMPACTION_COST_BENEFIT_ORDERING_KEY, true);
+    HRegionServer mockServer = mock(HRegionServer.class);
+    when(mockServer.isStopped()).thenReturn(false);
+    when(mockServer.getConfiguration()).thenReturn(conf);
+    CompactSplitThread cst = new CompactSplitThread(mockServer);
+    when(mockServer.getCompactSplitThread()).thenReturn(cst);
+    HRegion r = createCompactingRegionMock();
+
+    ArrayList<Integer> results = new ArrayList<Integer>();
+    StoreMockMaker sm = new StoreMockMaker(results), sm2 = new StoreMockMaker(results);
+    Store store = sm.createStoreMock("store1"), store2 = sm2.createStoreMock("store2");
+    BlockingStoreMockMaker blocker = new BlockingStoreMockMaker();
+
+    cst.requestSystemCompaction(r, blocker.createStoreMock(1, "b-pri1"), "b-pri1");
+    BlockingStoreMockMaker.BlockingCompactionContext currentBlock = blocker.waitForBlocking();
+
+    // store1 has pri 3 but rewrites 4000 bytes to remove 3 files, store2 has pri 4 and
+    // rewrites 30 bytes to remove 2 files: store2 goes first.
+    for (int i = 0; i < 4; ++i) {
+      sm.notCompacting.add(createFile());
+    }
+    when(store.getStorefilesCount()).thenReturn(4);
+    when(store.getStorefilesSize()).thenReturn(4000L);
+    cst.requestSystemCompaction(r, store, "s1-pri3");
+    for (int i = 0; i < 3; ++i) {
+      sm2.notCompacting.add(createFile());
+    }
+    when(store2.getStorefilesCount()).thenReturn(3);
+    when(store2.getStorefilesSize()).thenReturn(30L);
+    cst.requestSystemCompaction(r, store2, "s2-pri4");
+    // a store without files to remove goes last.
+    cst.requestSystemCompaction(r, blocker.createStoreMock(7, "b-pri7"), "b-pri7");
+
+    currentBlock.unblock();
+    currentBlock = blocker.waitForBlocking();
+    assertEquals(2, results.size());
+    assertEquals(3, results.get(0).intValue());
+    assertEquals(4, results.get(1).intValue());
+
+    currentBlock.unblock();
+    cst.interruptIfNecessary();
+  }
+
+  /** Test the deferral of the compactions while the I/O is busy. */
+  @Test
+  public void testDeferredCompactions() throws Exception {
+    final Configuration conf = HBaseConfiguration.create();
+    conf.setInt(CompactSplitThread.SMALL_COMPACTION_THREADS_KEY, 2);
+    conf.setInt(CompactSplitThread.PEAK_MAX_CONCURRENT_COMPACTIONS_KEY, 1);
+    conf.setLong(CompactSplitThread.DEFERRED_COMPACTIONS_CHECK_INTERVAL_KEY, 100);
+    HRegionServer mockServer = mock(HRegionServer.class);
+    when(mockServer.isStopped()).thenReturn(false);
+    when(mockServer.getConfiguration()).thenReturn(conf);
+    CompactSplitThread cst = new CompactSplitThread(mockServer);
+    when(mockServer.getCompactSplitThread()).thenReturn(cst);
+    HRegion r = createCompactingRegionMock();
+
+    ArrayList<Integer> results = new ArrayList<Integer>();
+    StoreMockMaker sm = new StoreMockMaker(results);
+    Store store = sm.createStoreMock("store1");
+    BlockingStoreMockMaker blocker = new BlockingStoreMockMaker();
+
+    // A blocking store is never deferred.
+    cst.requestSystemCompaction(r, blocker.createStoreMock(1, "b-pri1"), "b-pri1");
+    BlockingStoreMockMaker.BlockingCompactionContext currentBlock = blocker.waitForBlocking();
+
+    // There are no off-peak hours, and a compaction is already running.
+    for (int i = 0; i < 4; ++i) {
+      sm.notCompacting.add(createFile());
+    }
+    cst.requestSystemCompaction(r, store, "s1-pri3");
+    while (cst.getDeferredCompactionQueueSize() == 0) {
+      Threads.sleepWithoutInterrupt(50);
+    }
+    assertEquals(1, cst.getCompactionQueueSize());
+    assertTrue(results.isEmpty());
+    BlockingStoreMockMaker deferredBlocker = new BlockingStoreMockMaker();
+    cst.requestSystemCompaction(r, deferredBlocker.createStoreMock(2, "b-pri2"), "b-pri2");
+    while (cst.getDeferredCompactionQueueSize() < 2) {
+      Threads.sleepWithoutInterrupt(50);
+    }
+
+    // Once the running compaction is done, only the most urgent deferred one is released.
+    currentBlock.unblock();
+    BlockingStoreMockMaker.BlockingCompactionContext deferredBlock =
+        deferredBlocker.waitForBlocking();
+    // give the checker a few rounds
+    Threads.sleepWithoutInterrupt(500);
+    assertEquals(1, cst.getDeferredCompactionQueueSize());
+    assertTrue(results.isEmpty());
+
+    // Then the next one.
+    deferredBlock.unblock();
+    while (true) {
+      synchronized (results) {
+        if (!results.isEmpty()) break;
+      }
+      Threads.sleepWithoutInterrupt(50);
+    }
+    assertEquals(4, results.get(0).intValue());
+    assertEquals(0, cst.getCompactionQueueSize());
+
+    cst.interruptIfNecessary();
+  }
+
+  /** @return a region mock which runs the compactions it is given */
+  private static HRegion createCompactingRegionMock() throws Exception {
+    HRegion r = mock(HRegion.class);
+    when(
+      r.compact(any(CompactionContext.class), any(Store.class),
+        any(CompactionThroughputController.class))).then(new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        ((CompactionContext)invocation.getArguments()[0]).compact(
+          (CompactionThroughputController)invocation.getArguments()[2]);
+        return true;
+      }
+    });
+    return r;
+  }
+
   private static StoreFile createFile() throws Exception {
     StoreFile sf = mock(StoreFile.class);
     when(sf.getPath()).thenReturn(new Path("file"));
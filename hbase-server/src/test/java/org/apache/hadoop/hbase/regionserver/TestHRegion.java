@@ -98,11 +98,13 @@ import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.RowMutations;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.exceptions.FailedSanityCheckException;
+import org.apache.hadoop.hbase.exceptions.RegionInRecoveryException;
 import org.apache.hadoop.hbase.filter.BinaryComparator;
 import org.apache.hadoop.hbase.filter.ColumnCountGetFilter;
 import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
@@ -1311,6 +1313,143 @@ public class TestHRegion {
     }
   }
 
+  @Test
+  public void testBatchSingletonCommit() throws IOException {
+    byte[] row1 = Bytes.toBytes("row1");
+    byte[] row2 = Bytes.toBytes("row2");
+    byte[] fam1 = Bytes.toBytes("fam1");
+    byte[] qf1 = Bytes.toBytes("qualifier");
+    byte[] shadowQf1 = Bytes.toBytes("qualifier:shadow");
+    byte[] val1 = Bytes.toBytes("value1");
+
+    // Setting up region
+    String method = this.getName();
+    this.region = initHRegion(tableName, method, CONF, fam1);
+    try {
+      // A tentative write without its shadow cell fails the singleton check of row1
+      Put tentative = new Put(row1);
+      tentative.add(fam1, qf1, 100L, val1);
+      region.put(tentative);
+
+      Mutation[] commits = new Mutation[] {
+          singletonCommit(row1, fam1, qf1, shadowQf1, val1),
+          singletonCommit(row2, fam1, qf1, shadowQf1, val1),
+          singletonCommit(row2, fam1, qf1, shadowQf1, val1) };
+      OperationStatus[] codes = region.batchMutate(commits);
+      assertEquals(OperationStatusCode.CHECK_FAILED, codes[0].getOperationStatusCode());
+      assertEquals(OperationStatusCode.SUCCESS, codes[1].getOperationStatusCode());
+      assertEquals(OperationStatusCode.SUCCESS, codes[2].getOperationStatusCode());
+
+      Result r = region.get(new Get(row1).addColumn(fam1, shadowQf1));
+      assertTrue(r.isEmpty());
+
+      // Both commits of row2 were applied, each with its own local timestamp
+      Get get = new Get(row2).addColumn(fam1, qf1).addColumn(fam1, shadowQf1);
+      get.setMaxVersions();
+      r = region.get(get);
+      assertEquals(4, r.size());
+      List<Cell> cells = r.getColumnCells(fam1, qf1);
+      List<Cell> shadowCells = r.getColumnCells(fam1, shadowQf1);
+      assertEquals(cells.get(0).getTimestamp(), shadowCells.get(0).getTimestamp());
+      assertEquals(cells.get(1).getTimestamp(), shadowCells.get(1).getTimestamp());
+      assertTrue(cells.get(0).getTimestamp() > cells.get(1).getTimestamp());
+    } finally {
+      HRegion.closeHRegion(this.region);
+      this.region = null;
+    }
+  }
+
+  @Test
+  public void testTransactionClockRestoredOnReopen() throws IOException {
+    byte[] row = Bytes.toBytes("row1");
+    byte[] fam1 = Bytes.toBytes("fam1");
+    byte[] qf1 = Bytes.toBytes("qualifier");
+    byte[] val1 = Bytes.toBytes("value1");
+
+    String method = this.getName();
+    this.region = initHRegion(tableName, method, CONF, fam1);
+    try {
+      long commitTs = 7 * TransactionTimestamp.TRANSACTION_INC;
+      Put commit = new Put(row, commitTs);
+      commit.add(fam1, qf1, commitTs, val1);
+      region.put(commit);
+      Put singleton = new Put(row, TransactionTimestamp.SINGLETON_TIMESTAMP);
+      singleton.add(fam1, qf1, HConstants.LATEST_TIMESTAMP, val1);
+      region.put(singleton);
+      long clock = region.getTransactionClock().get();
+      assertEquals(commitTs + 1, clock);
+
+      // closing flushes the memstore, recording the clock in the store file
+      region.close();
+      region = HRegion.openHRegion(region, null);
+      assertEquals(clock, region.getTransactionClock().get());
+      assertEquals(clock, region.getStore(fam1).getMaxTransactionTimestamp());
+
+      region.put(singleton);
+      assertEquals(clock + 1, region.getTransactionClock().get());
+      assertEquals(clock, WALEdit.getTransactionClock(
+          WALEdit.createTransactionClock(region.getRegionInfo(), clock)));
+    } finally {
+      HRegion.closeHRegion(this.region);
+      this.region = null;
+    }
+  }
+
+  @Test
+  public void testTransactionalWritesBlockedInRecovery() throws IOException {
+    byte[] row = Bytes.toBytes("row1");
+    byte[] fam1 = Bytes.toBytes("fam1");
+    byte[] qf1 = Bytes.toBytes("qualifier");
+    byte[] val1 = Bytes.toBytes("value1");
+
+    String method = this.getName();
+    this.region = initHRegion(tableName, method, CONF, fam1);
+    try {
+      region.setRecovering(true);
+      // plain writes are still taken while the logs are replayed
+      Put put = new Put(row);
+      put.add(fam1, qf1, val1);
+      region.put(put);
+
+      long commitTs = 3 * TransactionTimestamp.TRANSACTION_INC;
+      Put commit = new Put(row, commitTs);
+      commit.add(fam1, qf1, commitTs, val1);
+      try {
+        region.put(commit);
+        fail("A transactional write should wait for the end of the recovery");
+      } catch (RegionInRecoveryException e) {
+        // expected
+      }
+      Put singleton = new Put(row, TransactionTimestamp.SINGLETON_TIMESTAMP);
+      singleton.add(fam1, qf1, HConstants.LATEST_TIMESTAMP, val1);
+      try {
+        region.put(singleton);
+        fail("A singleton write should wait for the end of the recovery");
+      } catch (RegionInRecoveryException e) {
+        // expected
+      }
+      assertEquals(0, region.getTransactionClock().get());
+
+      // the replay restores the clock from the markers, then the writes go through
+      region.getTransactionClock().restore(commitTs);
+      region.setRecovering(false);
+      region.put(singleton);
+      assertEquals(commitTs + 1, region.getTransactionClock().get());
+    } finally {
+      HRegion.closeHRegion(this.region);
+      this.region = null;
+    }
+  }
+
+  private static Put singletonCommit(byte[] row, byte[] family, byte[] qualifier,
+      byte[] shadowQualifier, byte[] value) {
+    Put put = new Put(row, TransactionTimestamp.SINGLETON_TIMESTAMP);
+    put.add(family, qualifier, HConstants.LATEST_TIMESTAMP, value);
+    put.add(family, shadowQualifier, HConstants.LATEST_TIMESTAMP, value);
+    put.setAttribute(HConstants.SINGLETON_COMMIT_ATTRIBUTE, Bytes.toBytes(true));
+    return put;
+  }
+
   @Test
   public void testCheckAndMutate_WithWrongValue() throws IOException {
     byte[] row1 = Bytes.toBytes("row1");
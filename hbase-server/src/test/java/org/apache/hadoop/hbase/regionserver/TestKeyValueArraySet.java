@@ -0,0 +1,125 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.Iterator;
+import java.util.SortedSet;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+import junit.framework.TestCase;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestKeyValueArraySet extends TestCase {
+  private static final int TOTAL = 10;
+  private final KeyValueSkipListSet kvsls =
+    new KeyValueSkipListSet(KeyValue.COMPARATOR);
+  private KeyValue[] kvs;
+  private KeyValueArraySet kvas;
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    this.kvsls.clear();
+    byte [] bytes = Bytes.toBytes(getName());
+    this.kvs = new KeyValue[TOTAL];
+    for (int i = 0; i < TOTAL; i++) {
+      this.kvs[i] = new KeyValue(Bytes.toBytes(i), bytes, bytes, bytes);
+      this.kvs[i].setMvccVersion(i);
+      this.kvsls.add(this.kvs[i]);
+    }
+    this.kvas = KeyValueArraySet.flatten(this.kvsls, KeyValue.COMPARATOR);
+  }
+
+  public void testIterator() throws Exception {
+    assertEquals(TOTAL, this.kvas.size());
+    int count = 0;
+    for (KeyValue kv: this.kvas) {
+      assertEquals(this.kvs[count], kv);
+      assertEquals(count, kv.getMvccVersion());
+      count++;
+    }
+    assertEquals(TOTAL, count);
+    Iterator<KeyValue> descending = this.kvas.descendingIterator();
+    for (int i = TOTAL - 1; i >= 0; i--) {
+      assertEquals(this.kvs[i], descending.next());
+    }
+    assertFalse(descending.hasNext());
+  }
+
+  public void testNavigation() throws Exception {
+    assertEquals(this.kvs[0], this.kvas.first());
+    assertEquals(this.kvs[TOTAL - 1], this.kvas.last());
+    assertEquals(this.kvs[3], this.kvas.ceiling(this.kvs[3]));
+    assertEquals(this.kvs[4], this.kvas.higher(this.kvs[3]));
+    assertEquals(this.kvs[3], this.kvas.floor(this.kvs[3]));
+    assertEquals(this.kvs[2], this.kvas.lower(this.kvs[3]));
+    assertNull(this.kvas.lower(this.kvs[0]));
+    assertNull(this.kvas.higher(this.kvs[TOTAL - 1]));
+    // first on row sorts before every cell of the row
+    KeyValue firstOnRow = KeyValue.createFirstOnRow(this.kvs[5].getRow());
+    assertEquals(this.kvs[5], this.kvas.ceiling(firstOnRow));
+    assertEquals(this.kvs[4], this.kvas.floor(firstOnRow));
+  }
+
+  public void testViews() throws Exception {
+    SortedSet<KeyValue> tail = this.kvas.tailSet(this.kvs[5]);
+    assertEquals(TOTAL - 5, tail.size());
+    assertEquals(this.kvs[5], tail.first());
+    SortedSet<KeyValue> head = this.kvas.headSet(this.kvs[5]);
+    assertEquals(5, head.size());
+    assertEquals(this.kvs[4], head.last());
+    assertEquals(6, this.kvas.headSet(this.kvs[5], true).size());
+    assertEquals(3, this.kvas.subSet(this.kvs[2], this.kvs[5]).size());
+    assertTrue(this.kvas.tailSet(this.kvs[TOTAL - 1], false).isEmpty());
+  }
+
+  public void testRemove() throws Exception {
+    assertTrue(this.kvas.contains(this.kvs[3]));
+    // same key, other memstoreTS
+    KeyValue other = this.kvs[3].clone();
+    other.setMvccVersion(100);
+    assertFalse(this.kvas.remove(other));
+    assertTrue(this.kvas.remove(this.kvs[3]));
+    assertFalse(this.kvas.remove(this.kvs[3]));
+    assertFalse(this.kvas.contains(this.kvs[3]));
+    assertEquals(TOTAL - 1, this.kvas.size());
+    assertEquals(this.kvs[4], this.kvas.ceiling(this.kvs[3]));
+    assertEquals(this.kvs[2], this.kvas.floor(this.kvs[3]));
+    // views share the removals
+    SortedSet<KeyValue> tail = this.kvas.tailSet(this.kvs[2]);
+    assertEquals(TOTAL - 3, tail.size());
+    Iterator<KeyValue> it = tail.iterator();
+    assertEquals(this.kvs[2], it.next());
+    assertEquals(this.kvs[4], it.next());
+    it.remove();
+    assertEquals(TOTAL - 2, this.kvas.size());
+    assertEquals(this.kvs[5], this.kvas.higher(this.kvs[2]));
+  }
+
+  public void testHeapOverhead() throws Exception {
+    // all cells of this test are in their own array
+    long skipListOverhead =
+        TOTAL * ClassSize.align(ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY + ClassSize.OBJECT);
+    assertTrue(this.kvas.heapOverhead() < skipListOverhead);
+  }
+}
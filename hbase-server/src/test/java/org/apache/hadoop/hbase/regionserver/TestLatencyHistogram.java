@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestLatencyHistogram {
+
+  @Test
+  public void testBuckets() {
+    long previousBound = -1;
+    for (long value = 0; value < 100000; value++) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      long bound = LatencyHistogram.upperBoundOf(bucket);
+      assertTrue("value=" + value + ", bound=" + bound, value <= bound);
+      assertTrue("value=" + value + ", bound=" + bound, bound <= value + value / 16);
+      assertTrue(bound >= previousBound);
+      previousBound = bound;
+    }
+    assertEquals(0, LatencyHistogram.bucketOf(-1));
+    assertTrue(LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))
+        >= Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testPercentilesOfAPeriod() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.snapshotAndReset().getCount());
+    for (int i = 1; i <= 1000; i++) {
+      histogram.update(i);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+    assertEquals(1000, snapshot.getCount());
+    long p99 = snapshot.getPercentile(0.99);
+    assertTrue("p99=" + p99, p99 >= 990 && p99 <= 1050);
+    long median = snapshot.getPercentile(0.5);
+    assertTrue("median=" + median, median >= 500 && median <= 530);
+
+    // the next period starts empty
+    histogram.update(3);
+    snapshot = histogram.snapshotAndReset();
+    assertEquals(1, snapshot.getCount());
+    assertEquals(3, snapshot.getPercentile(0.99));
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; j++) {
+            histogram.update(j % 100);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    long count = 0;
+    for (Thread t : threads) {
+      count += histogram.snapshotAndReset().getCount();
+      t.join();
+    }
+    count += histogram.snapshotAndReset().getCount();
+    assertEquals(threads.length * 10000, count);
+  }
+}
@@ -26,7 +26,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import junit.framework.TestCase;
 
@@ -45,6 +47,7 @@ import org.apache.hadoop.hbase.KeyValueTestUtil;
 import org.apache.hadoop.hbase.testclassification.MediumTests;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
 import org.apache.hadoop.hbase.util.EnvironmentEdge;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.junit.experimental.categories.Category;
@@ -204,6 +207,122 @@ public class TestMemStore extends TestCase {
     verifyScanAcrossSnapshot2(kv1, kv2);
   }
 
+  /**
+   * Scans, gets and rolls back across a snapshot flattened to a KeyValueArraySet.
+   * @throws IOException
+   */
+  public void testFlattenedSnapshot() throws IOException {
+    final byte[] f = Bytes.toBytes("f");
+    final byte[] q = Bytes.toBytes("q");
+    final byte[] v = Bytes.toBytes(3);
+    final KeyValue kv1 = new KeyValue(Bytes.toBytes(1), f, q, v);
+    final KeyValue kv2 = new KeyValue(Bytes.toBytes(2), f, q, v);
+    final KeyValue kv3 = new KeyValue(Bytes.toBytes(3), f, q, v);
+
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(MemStore.FLATTEN_SNAPSHOT_KEY, true);
+    this.memstore = new MemStore(conf, KeyValue.COMPARATOR);
+    this.memstore.add(kv1.clone());
+    this.memstore.add(kv2.clone());
+    this.memstore.add(kv3);
+    this.memstore.snapshot();
+    assertTrue(this.memstore.getSnapshot() instanceof KeyValueArraySet);
+    assertEquals(3, this.memstore.getSnapshot().size());
+
+    // a rolled back cell is masked in the flattened snapshot
+    this.memstore.rollback(kv3);
+    assertEquals(2, this.memstore.getSnapshot().size());
+    verifyScanAcrossSnapshot2(kv1, kv2);
+
+    this.memstore.add(kv3.clone());
+    assertTrue(KeyValue.COMPARATOR.compareRows(kv2, this.memstore.getNextRow(kv1)) == 0);
+    assertTrue(KeyValue.COMPARATOR.compareRows(kv3, this.memstore.getNextRow(kv2)) == 0);
+    assertNull(this.memstore.getNextRow(kv3));
+
+    this.memstore.clearSnapshot(this.memstore.getSnapshot());
+    assertEquals(0, this.memstore.getSnapshot().size());
+  }
+
+  public void testCompact() throws IOException {
+    final byte[] r1 = Bytes.toBytes("r1");
+    final byte[] r2 = Bytes.toBytes("r2");
+    final byte[] q1 = Bytes.toBytes("q1");
+    final byte[] q2 = Bytes.toBytes("q2");
+    final byte[] v = Bytes.toBytes("v");
+    for (long ts = 1; ts <= 3; ts++) {
+      this.memstore.add(new KeyValue(r1, FAMILY, q1, ts, v));
+    }
+    this.memstore.add(new KeyValue(r1, FAMILY, q2, 1, v));
+    this.memstore.add(new KeyValue(r1, FAMILY, q2, 2, v));
+    KeyValue marker = new KeyValue(r1, FAMILY, q2, 2, KeyValue.Type.DeleteColumn);
+    this.memstore.delete(marker);
+    KeyValue other = new KeyValue(r2, FAMILY, q1, 1, v);
+    this.memstore.add(other);
+    long size = this.memstore.heapSize();
+
+    ScanInfo scanInfo = new ScanInfo(FAMILY, 0, 1, Long.MAX_VALUE, KeepDeletedCells.FALSE, 0,
+        KeyValue.COMPARATOR);
+    long freed = this.memstore.compact(scanInfo, Long.MAX_VALUE, new ReentrantLock());
+    assertTrue(freed > 0);
+    assertEquals(size - freed, this.memstore.heapSize());
+    assertEquals(3, this.memstore.kvset.size());
+    assertEquals(3, this.memstore.kvset.first().getTimestamp());
+    assertTrue(this.memstore.kvset.contains(marker));
+    assertTrue(this.memstore.kvset.contains(other));
+
+    // nothing left to drop
+    assertEquals(0, this.memstore.compact(scanInfo, Long.MAX_VALUE, new ReentrantLock()));
+
+    // a delete not yet visible to all readers keeps the row as is
+    this.memstore.add(new KeyValue(r2, FAMILY, q1, 2, v));
+    KeyValue recent = new KeyValue(r2, FAMILY, q1, 2, KeyValue.Type.DeleteColumn);
+    recent.setMvccVersion(5);
+    this.memstore.delete(recent);
+    assertEquals(0, this.memstore.compact(scanInfo, 4, new ReentrantLock()));
+    assertEquals(5, this.memstore.kvset.size());
+  }
+
+  public void testCompactWithMSLAB() throws IOException {
+    final byte[] r1 = Bytes.toBytes("r1");
+    final byte[] q1 = Bytes.toBytes("q1");
+    final byte[] v = new byte[100];
+    ScanInfo scanInfo = new ScanInfo(FAMILY, 0, 1, Long.MAX_VALUE, KeepDeletedCells.FALSE, 0,
+        KeyValue.COMPARATOR);
+    long[] freed = new long[2];
+    KeyValue kv = new KeyValue(r1, FAMILY, q1, 1, v);
+    for (int i = 0; i < 2; i++) {
+      Configuration conf = HBaseConfiguration.create();
+      conf.setBoolean(MemStore.USEMSLAB_KEY, i == 1);
+      this.memstore = new MemStore(conf, KeyValue.COMPARATOR);
+      for (long ts = 1; ts <= 3; ts++) {
+        this.memstore.add(new KeyValue(r1, FAMILY, q1, ts, v));
+      }
+      long size = this.memstore.heapSize();
+      freed[i] = this.memstore.compact(scanInfo, Long.MAX_VALUE, new ReentrantLock());
+      assertEquals(size - freed[i], this.memstore.heapSize());
+      assertEquals(1, this.memstore.kvset.size());
+    }
+    // without MSLAB the removed cells are gone for good
+    assertEquals(2 * MemStore.heapSizeChange(kv, true), freed[0]);
+    // with MSLAB their data stays in the chunk until it is released
+    assertEquals(2 * (MemStore.heapSizeChange(kv, true) - ClassSize.align(kv.getLength())),
+        freed[1]);
+  }
+
+  public void testMemStoreCompactorPoolShutdown() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(MemStoreCompactor.COMPACTION_SIZE_KEY, 1024);
+    MemStoreCompactor first = new MemStoreCompactor(null, conf);
+    MemStoreCompactor second = new MemStoreCompactor(null, conf);
+    assertTrue(MemStoreCompactor.isPoolRunning());
+    first.close();
+    // closing twice does not release the pool of the other store
+    first.close();
+    assertTrue(MemStoreCompactor.isPoolRunning());
+    second.close();
+    assertFalse(MemStoreCompactor.isPoolRunning());
+  }
+
   private void verifyScanAcrossSnapshot2(KeyValue kv1, KeyValue kv2)
       throws IOException {
     List<KeyValueScanner> memstorescanners = this.memstore.getScanners(mvcc.memstoreReadPoint());
@@ -461,7 +580,7 @@ public class TestMemStore extends TestCase {
     for (int i = 0; i < snapshotCount; i++) {
       addRows(this.memstore);
       runSnapshot(this.memstore);
-      KeyValueSkipListSet ss = this.memstore.getSnapshot();
+      SortedSet<KeyValue> ss = this.memstore.getSnapshot();
       assertEquals("History not being cleared", 0, ss.size());
     }
   }
@@ -19,6 +19,8 @@ package org.apache.hadoop.hbase.regionserver;
 
 import junit.framework.TestCase;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.HashedBytes;
 import org.junit.experimental.categories.Category;
 
 import java.util.Random;
@@ -129,4 +131,41 @@ public class TestMultiVersionConsistencyControl extends TestCase {
 
   }
 
+  public void testWaitForRowWrites() throws Exception {
+    final MultiVersionConsistencyControl mvcc = new MultiVersionConsistencyControl();
+    final HashedBytes row = new HashedBytes(Bytes.toBytes("row"));
+
+    // a pending write to another row must not block the row-scoped wait
+    MultiVersionConsistencyControl.WriteEntry other = mvcc.beginMemstoreInsert();
+    mvcc.addRowWrite(other, new HashedBytes(Bytes.toBytes("otherRow")));
+    mvcc.waitForRowWrites(row);
+
+    MultiVersionConsistencyControl.WriteEntry e = mvcc.beginMemstoreInsert();
+    mvcc.addRowWrite(e, row);
+    final AtomicBoolean waited = new AtomicBoolean(false);
+    Thread waiter = new Thread() {
+      public void run() {
+        mvcc.waitForRowWrites(row);
+        waited.set(true);
+      }
+    };
+    waiter.start();
+    // the waiter parks in the row write's monitor until the write completes
+    long deadline = System.currentTimeMillis() + 10000;
+    while (waiter.getState() != Thread.State.WAITING) {
+      assertTrue("waiter never blocked", System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+    assertFalse(waited.get());
+
+    // the write to the row is complete even though the read point is held back by 'other'
+    assertFalse(mvcc.advanceMemstore(e));
+    waiter.join();
+    assertTrue(waited.get());
+    mvcc.waitForRowWrites(row);
+
+    mvcc.completeMemstoreInsert(other);
+    assertEquals(e.getWriteNumber(), mvcc.memstoreReadPoint());
+  }
+
 }
@@ -0,0 +1,123 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the flush of the large stores of a region only, by {@link FlushLargeStoresPolicy}.
+ */
+@Category(MediumTests.class)
+public class TestPerColumnFamilyFlush {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final TableName TABLENAME = TableName.valueOf("TestPerColumnFamilyFlush");
+  private static final byte[] FAMILY1 = Bytes.toBytes("f1");
+  private static final byte[] FAMILY2 = Bytes.toBytes("f2");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final long LOWER_BOUND = 40 * 1024;
+
+  private HRegion initHRegion(String callingMethod, Configuration conf) throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(TABLENAME);
+    htd.addFamily(new HColumnDescriptor(FAMILY1));
+    htd.addFamily(new HColumnDescriptor(FAMILY2));
+    HRegionInfo info = new HRegionInfo(TABLENAME, null, null, false);
+    return HRegion.createHRegion(info, TEST_UTIL.getDataTestDir(callingMethod), conf, htd);
+  }
+
+  @Test
+  public void testFlushLargeStoresOnly() throws IOException {
+    Configuration conf = HBaseConfiguration.create(TEST_UTIL.getConfiguration());
+    conf.set(FlushPolicy.HBASE_FLUSH_POLICY_KEY, FlushLargeStoresPolicy.class.getName());
+    conf.setLong(FlushLargeStoresPolicy.HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND, LOWER_BOUND);
+    HRegion region = initHRegion("testFlushLargeStoresOnly", conf);
+    try {
+      byte[] encodedName = region.getRegionInfo().getEncodedNameAsBytes();
+      HLog wal = region.getLog();
+      Store store1 = region.getStore(FAMILY1);
+      Store store2 = region.getStore(FAMILY2);
+
+      region.put(new Put(Bytes.toBytes("row")).add(FAMILY2, QUALIFIER, Bytes.toBytes("small")));
+      long oldestSeqNum2 = wal.getEarliestMemstoreSeqNum(encodedName, FAMILY2);
+      assertTrue(oldestSeqNum2 > 0);
+      for (int i = 0; i < 100; i++) {
+        region.put(new Put(Bytes.toBytes("row" + i)).add(FAMILY1, QUALIFIER, new byte[1024]));
+      }
+      assertTrue(store1.getMemStoreSize() > LOWER_BOUND);
+      long size2 = store2.getMemStoreSize();
+
+      region.flushcache(false);
+      // only the large store was flushed
+      assertEquals(1, store1.getStorefilesCount());
+      assertEquals(0, store2.getStorefilesCount());
+      assertEquals(size2, store2.getMemStoreSize());
+      assertEquals(HConstants.NO_SEQNUM, wal.getEarliestMemstoreSeqNum(encodedName, FAMILY1));
+      assertEquals(oldestSeqNum2, wal.getEarliestMemstoreSeqNum(encodedName, FAMILY2));
+      // the log keeps the edits of the store left in memory
+      assertEquals(oldestSeqNum2, wal.getEarliestMemstoreSeqNum(encodedName));
+      assertEquals(oldestSeqNum2 - 1, region.completeSequenceId);
+
+      // an explicit flush flushes all the stores
+      region.flushcache();
+      assertEquals(1, store2.getStorefilesCount());
+      assertEquals(HConstants.NO_SEQNUM, wal.getEarliestMemstoreSeqNum(encodedName));
+    } finally {
+      HRegion.closeHRegion(region);
+    }
+  }
+
+  @Test
+  public void testFlushAllStoresWhenNoneIsLarge() throws IOException {
+    Configuration conf = HBaseConfiguration.create(TEST_UTIL.getConfiguration());
+    conf.set(FlushPolicy.HBASE_FLUSH_POLICY_KEY, FlushLargeStoresPolicy.class.getName());
+    conf.setLong(FlushLargeStoresPolicy.HREGION_COLUMNFAMILY_FLUSH_SIZE_LOWER_BOUND, LOWER_BOUND);
+    HRegion region = initHRegion("testFlushAllStoresWhenNoneIsLarge", conf);
+    try {
+      Put put = new Put(Bytes.toBytes("row"));
+      put.add(FAMILY1, QUALIFIER, Bytes.toBytes("small"));
+      put.add(FAMILY2, QUALIFIER, Bytes.toBytes("small"));
+      region.put(put);
+
+      region.flushcache(false);
+      assertEquals(1, region.getStore(FAMILY1).getStorefilesCount());
+      assertEquals(1, region.getStore(FAMILY2).getStorefilesCount());
+      byte[] encodedName = region.getRegionInfo().getEncodedNameAsBytes();
+      assertEquals(HConstants.NO_SEQNUM, region.getLog().getEarliestMemstoreSeqNum(encodedName));
+    } finally {
+      HRegion.closeHRegion(region);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestSnapshotIsolationFilter {
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final byte[] TXN_FAMILY = Bytes.toBytes("txn");
+  private static final byte[] PLAIN_FAMILY = Bytes.toBytes("plain");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final byte[] SUFFIX = Bytes.toBytes(":shadow");
+  private static final byte[] SHADOW_QUALIFIER = Bytes.add(QUALIFIER, SUFFIX);
+
+  private static final long INC = TransactionTimestamp.TRANSACTION_INC;
+
+  @Test
+  public void testReturnsOnlyTheVisibleVersion() throws Exception {
+    long readTs = 10 * INC;
+    List<Cell> cells = new ArrayList<Cell>();
+    // committed after the read timestamp
+    KeyValue late = data(8 * INC);
+    cells.add(late);
+    cells.add(shadow(8 * INC, 11 * INC));
+    // a singleton write before the read timestamp
+    KeyValue singleton = data(7 * INC + 3);
+    cells.add(singleton);
+    KeyValue singletonShadow = new KeyValue(ROW, TXN_FAMILY, SHADOW_QUALIFIER, 7 * INC + 3,
+        Bytes.toBytes("x"));
+    cells.add(singletonShadow);
+    // an older committed version, hidden by the singleton
+    cells.add(data(5 * INC));
+    cells.add(shadow(5 * INC, 6 * INC));
+    // non transactional families are left alone
+    KeyValue plain = new KeyValue(ROW, PLAIN_FAMILY, QUALIFIER, 12 * INC, Bytes.toBytes("p"));
+    cells.add(plain);
+    Collections.sort(cells, KeyValue.COMPARATOR);
+
+    createFilter(readTs).filterRowCells(cells);
+
+    List<Cell> expected = new ArrayList<Cell>();
+    expected.add(plain);
+    expected.add(singleton);
+    expected.add(singletonShadow);
+    assertEquals(expected, cells);
+  }
+
+  @Test
+  public void testKeepsTentativeVersionsForTheClient() throws Exception {
+    long readTs = 10 * INC;
+    List<Cell> cells = new ArrayList<Cell>();
+    KeyValue own = data(readTs);
+    KeyValue tentative = data(9 * INC);
+    KeyValue committed = data(4 * INC);
+    KeyValue committedShadow = shadow(4 * INC, 5 * INC);
+    cells.add(data(12 * INC));
+    cells.add(own);
+    cells.add(tentative);
+    cells.add(committed);
+    cells.add(committedShadow);
+    Collections.sort(cells, KeyValue.COMPARATOR);
+
+    createFilter(readTs).filterRowCells(cells);
+    // the transaction's own write is visible and ends the walk
+    assertEquals(1, cells.size());
+    assertEquals(own, cells.get(0));
+
+    cells = new ArrayList<Cell>();
+    cells.add(tentative);
+    cells.add(committed);
+    cells.add(committedShadow);
+    Collections.sort(cells, KeyValue.COMPARATOR);
+    createFilter(readTs).filterRowCells(cells);
+    // the tentative write is left for the client to resolve, down to the first committed one
+    assertEquals(3, cells.size());
+  }
+
+  private static SnapshotIsolationFilter createFilter(long readTs) {
+    Map<byte[], byte[]> suffixes = new TreeMap<byte[], byte[]>(Bytes.BYTES_COMPARATOR);
+    suffixes.put(TXN_FAMILY, SUFFIX);
+    return new SnapshotIsolationFilter(readTs, suffixes, 1);
+  }
+
+  private static KeyValue data(long ts) {
+    return new KeyValue(ROW, TXN_FAMILY, QUALIFIER, ts, Bytes.toBytes(ts));
+  }
+
+  private static KeyValue shadow(long ts, long commitTs) {
+    return new KeyValue(ROW, TXN_FAMILY, SHADOW_QUALIFIER, ts, Bytes.toBytes(commitTs));
+  }
+}
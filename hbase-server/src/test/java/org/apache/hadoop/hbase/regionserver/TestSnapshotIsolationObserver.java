@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestSnapshotIsolationObserver {
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final byte[] TXN_FAMILY = Bytes.toBytes("txn");
+  private static final byte[] PLAIN_FAMILY = Bytes.toBytes("plain");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final byte[] SUFFIX = Bytes.toBytes(":shadow");
+  private static final byte[] SHADOW_QUALIFIER = Bytes.add(QUALIFIER, SUFFIX);
+
+  private static final long INC = TransactionTimestamp.TRANSACTION_INC;
+
+  private final HBaseTestingUtility htu = HBaseTestingUtility.createLocalHTU();
+  private HRegion region;
+  private ObserverContext<RegionCoprocessorEnvironment> context;
+
+  @Before
+  public void setUp() throws Exception {
+    HTableDescriptor htd =
+        new HTableDescriptor(TableName.valueOf("TestSnapshotIsolationObserver"));
+    htd.addFamily(new HColumnDescriptor(TXN_FAMILY).setMaxVersions(10)
+        .setShadowCellSuffix(SUFFIX));
+    htd.addFamily(new HColumnDescriptor(PLAIN_FAMILY).setMaxVersions(10));
+    region = htu.createLocalHRegion(htd, null, null);
+
+    RegionCoprocessorEnvironment env = mock(RegionCoprocessorEnvironment.class);
+    when(env.getRegion()).thenReturn(region);
+    context = ObserverContext.createAndPrepare(env, null);
+
+    Put put = new Put(ROW);
+    // committed after the read timestamp
+    put.add(TXN_FAMILY, QUALIFIER, 8 * INC, Bytes.toBytes("late"));
+    put.add(TXN_FAMILY, SHADOW_QUALIFIER, 8 * INC, Bytes.toBytes(11 * INC));
+    // the version the transaction sees
+    put.add(TXN_FAMILY, QUALIFIER, 5 * INC, Bytes.toBytes("visible"));
+    put.add(TXN_FAMILY, SHADOW_QUALIFIER, 5 * INC, Bytes.toBytes(6 * INC));
+    for (long ts = 1; ts <= 3; ts++) {
+      put.add(PLAIN_FAMILY, QUALIFIER, ts, Bytes.toBytes(ts));
+    }
+    region.put(put);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    HRegion.closeHRegion(region);
+    htu.cleanupTestDir();
+  }
+
+  @Test
+  public void testGetKeepsTheVersionsOfPlainFamilies() throws Exception {
+    Get get = new Get(ROW);
+    get.setAttribute(HConstants.SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE, Bytes.toBytes(10 * INC));
+    new SnapshotIsolationObserver().preGetOp(context, get, new ArrayList<Cell>());
+    Result result = region.get(get);
+
+    List<Cell> plain = result.getColumnCells(PLAIN_FAMILY, QUALIFIER);
+    assertEquals(1, plain.size());
+    assertEquals(3, plain.get(0).getTimestamp());
+    List<Cell> txn = result.getColumnCells(TXN_FAMILY, QUALIFIER);
+    assertEquals(1, txn.size());
+    assertEquals(5 * INC, txn.get(0).getTimestamp());
+    assertEquals(1, result.getColumnCells(TXN_FAMILY, SHADOW_QUALIFIER).size());
+
+    get = new Get(ROW);
+    get.setMaxVersions(2);
+    get.setAttribute(HConstants.SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE, Bytes.toBytes(10 * INC));
+    new SnapshotIsolationObserver().preGetOp(context, get, new ArrayList<Cell>());
+    result = region.get(get);
+    assertEquals(2, result.getColumnCells(PLAIN_FAMILY, QUALIFIER).size());
+    assertEquals(1, result.getColumnCells(TXN_FAMILY, QUALIFIER).size());
+  }
+
+  @Test
+  public void testScanKeepsTheVersionsOfPlainFamilies() throws Exception {
+    Scan scan = new Scan();
+    scan.setAttribute(HConstants.SNAPSHOT_READ_TIMESTAMP_ATTRIBUTE, Bytes.toBytes(10 * INC));
+    new SnapshotIsolationObserver().preScannerOpen(context, scan, null);
+    RegionScanner scanner = region.getScanner(scan);
+    List<Cell> cells = new ArrayList<Cell>();
+    try {
+      scanner.next(cells);
+    } finally {
+      scanner.close();
+    }
+    Result result = Result.create(cells);
+
+    List<Cell> plain = result.getColumnCells(PLAIN_FAMILY, QUALIFIER);
+    assertEquals(1, plain.size());
+    assertEquals(3, plain.get(0).getTimestamp());
+    List<Cell> txn = result.getColumnCells(TXN_FAMILY, QUALIFIER);
+    assertEquals(1, txn.size());
+    assertEquals(5 * INC, txn.get(0).getTimestamp());
+  }
+}
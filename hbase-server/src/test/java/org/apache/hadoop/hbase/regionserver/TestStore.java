@@ -528,6 +528,72 @@ public class TestStore {
     assertCheck();
   }
 
+  /**
+   * Looking up the newest version of a column across memstore and files
+   * @throws IOException
+   */
+  @Test
+  public void testGetNewestInColumn() throws IOException {
+    init(this.name.getMethodName());
+    Assert.assertNull(this.store.getNewestInColumn(row, qf1, Long.MAX_VALUE));
+
+    KeyValue older = new KeyValue(row, family, qf1, 5, Bytes.toBytes("v5"));
+    KeyValue newer = new KeyValue(row, family, qf1, 10, Bytes.toBytes("v10"));
+    this.store.add(newer);
+    this.store.add(new KeyValue(row, family, qf2, 20, (byte[])null));
+    flush(1);
+    // an older version written later must not win over the newer one in the file
+    this.store.add(older);
+    Assert.assertEquals(newer, this.store.getNewestInColumn(row, qf1, Long.MAX_VALUE));
+    flush(2);
+    Assert.assertEquals(newer, this.store.getNewestInColumn(row, qf1, Long.MAX_VALUE));
+
+    KeyValue newest = new KeyValue(row, family, qf1, 15, Bytes.toBytes("v15"));
+    newest.setMvccVersion(7);
+    this.store.add(newest);
+    Assert.assertEquals(newest, this.store.getNewestInColumn(row, qf1, Long.MAX_VALUE));
+    // not visible yet at an older read point
+    Assert.assertEquals(newer, this.store.getNewestInColumn(row, qf1, 6));
+
+    // a family delete marker is returned so that the caller can apply it
+    KeyValue deleteFamily = new KeyValue(row, family, null, 16, KeyValue.Type.DeleteFamily);
+    this.store.add(deleteFamily);
+    flush(3);
+    KeyValue found = this.store.getNewestInColumn(row, qf1, Long.MAX_VALUE);
+    Assert.assertTrue(CellUtil.isDelete(found));
+    Assert.assertEquals(16, found.getTimestamp());
+  }
+
+  @Test
+  public void testGetNewestInColumns() throws IOException {
+    init(this.name.getMethodName());
+    byte[] shadow = Bytes.add(qf1, Bytes.toBytes(":shadow"));
+    byte[][] columns = new byte[][] { qf1, shadow };
+    KeyValue[] found = this.store.getNewestInColumns(row, columns, Long.MAX_VALUE);
+    Assert.assertNull(found[0]);
+    Assert.assertNull(found[1]);
+
+    // a committed cell and its shadow cell, plus a later tentative write in another file
+    KeyValue cell = new KeyValue(row, family, qf1, 10, Bytes.toBytes("v10"));
+    KeyValue shadowCell = new KeyValue(row, family, shadow, 10, Bytes.toBytes("v10"));
+    this.store.add(cell);
+    this.store.add(shadowCell);
+    flush(1);
+    KeyValue tentative = new KeyValue(row, family, qf1, 20, Bytes.toBytes("v20"));
+    this.store.add(tentative);
+    flush(2);
+    found = this.store.getNewestInColumns(row, columns, Long.MAX_VALUE);
+    Assert.assertEquals(tentative, found[0]);
+    Assert.assertEquals(shadowCell, found[1]);
+
+    // the memstore wins over the files
+    KeyValue commit = new KeyValue(row, family, shadow, 20, Bytes.toBytes("v20"));
+    this.store.add(commit);
+    found = this.store.getNewestInColumns(row, columns, Long.MAX_VALUE);
+    Assert.assertEquals(tentative, found[0]);
+    Assert.assertEquals(commit, found[1]);
+  }
+
   private void flush(int storeFilessize) throws IOException{
     this.store.snapshot();
     flushStore(store, id++);
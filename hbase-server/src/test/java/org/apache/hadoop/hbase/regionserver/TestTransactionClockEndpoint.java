@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.hbase.coprocessor.RegionServerCoprocessorEnvironment;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockRequest;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockResponse;
+import org.apache.hadoop.hbase.protobuf.generated.TransactionClockProtos.TransactionClockService;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
+
+@Category(SmallTests.class)
+public class TestTransactionClockEndpoint {
+
+  @Test
+  public void testGetClocks() throws Exception {
+    TransactionTimestamp clock = new TransactionTimestamp();
+    clock.restore(42);
+    HRegion region = mock(HRegion.class);
+    when(region.getTransactionClock()).thenReturn(clock);
+    RegionServerServices rss = mock(RegionServerServices.class);
+    when(rss.getFromOnlineRegions("online")).thenReturn(region);
+    RegionServerCoprocessorEnvironment env = mock(RegionServerCoprocessorEnvironment.class);
+    when(env.getRegionServerServices()).thenReturn(rss);
+
+    TransactionClockEndpoint endpoint = new TransactionClockEndpoint();
+    endpoint.start(env);
+    assertEquals(TransactionClockService.getDescriptor(),
+        endpoint.getService().getDescriptorForType());
+
+    TransactionClockRequest request = TransactionClockRequest.newBuilder()
+        .addEncodedRegionName(ByteString.copyFromUtf8("online"))
+        .addEncodedRegionName(ByteString.copyFromUtf8("moved"))
+        .build();
+    final TransactionClockResponse[] response = new TransactionClockResponse[1];
+    endpoint.getClocks(null, request, new RpcCallback<TransactionClockResponse>() {
+      @Override
+      public void run(TransactionClockResponse message) {
+        response[0] = message;
+      }
+    });
+    // regions that are not online are left out
+    assertEquals(1, response[0].getRegionClockCount());
+    assertEquals("online", response[0].getRegionClock(0).getEncodedRegionName().toStringUtf8());
+    assertEquals(42, response[0].getRegionClock(0).getClock());
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.hbase.RegionTooBusyException;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestTransactionTimestamp {
+  private static final byte[] ROW = Bytes.toBytes("row");
+
+  @Test
+  public void testUpdatesAreMergedOnRead() throws Exception {
+    TransactionTimestamp clock = new TransactionTimestamp(4);
+    long tso = 5 * TransactionTimestamp.TRANSACTION_INC;
+    clock.updateByMutatation(new Put(ROW, tso));
+    assertEquals(tso, clock.get());
+    assertEquals(tso, clock.getTransactionTimestamp());
+    assertEquals(0, clock.getLocalTimestamp());
+
+    // an older timestamp never moves the clock backwards
+    Get get = new Get(ROW);
+    get.setTimeRange(0, tso - TransactionTimestamp.TRANSACTION_INC + 1);
+    clock.updateByGet(get);
+    assertEquals(tso, clock.get());
+
+    long singleton = clock.updateByMutatation(
+        new Put(ROW, TransactionTimestamp.SINGLETON_TIMESTAMP));
+    assertEquals(tso + 1, singleton);
+    assertEquals(1, clock.getLocalTimestamp());
+  }
+
+  @Test
+  public void testLocalBlockExhaustionWaitsForNextEpoch() throws Exception {
+    TransactionTimestamp clock = new TransactionTimestamp(1);
+    long epoch = 3 * TransactionTimestamp.TRANSACTION_INC;
+    long lastLocal = epoch + TransactionTimestamp.TRANSACTION_INC - 1;
+    // seed the clock with the last local slot of the epoch
+    clock.updateByMutatation(new Put(ROW, lastLocal));
+    assertEquals(0, clock.getLocalHeadroom());
+    assertEquals(0, clock.getExhaustions());
+
+    // the next epoch is not the region's to take
+    Put singleton = new Put(ROW, TransactionTimestamp.SINGLETON_TIMESTAMP);
+    try {
+      clock.updateByMutatation(singleton);
+      fail("a singleton was given a timestamp of the next epoch");
+    } catch (RegionTooBusyException e) {
+      // expected
+    }
+    assertEquals(lastLocal, clock.get());
+    assertEquals(1, clock.getExhaustions());
+
+    // a transaction reads with a timestamp of the next epoch
+    long nextEpoch = epoch + TransactionTimestamp.TRANSACTION_INC;
+    Get get = new Get(ROW);
+    get.setTimeRange(0, nextEpoch + 1);
+    clock.updateByGet(get);
+    long ts = clock.updateByMutatation(singleton);
+    assertEquals(nextEpoch + 1, ts);
+    assertTrue(TransactionTimestamp.isSingleton(ts));
+    assertEquals(nextEpoch, clock.getTransactionTimestamp());
+    assertEquals(TransactionTimestamp.TRANSACTION_INC - 2, clock.getLocalHeadroom());
+    assertEquals(1, clock.getExhaustions());
+  }
+
+  @Test
+  public void testSingletonsAreMonotonicUnderConcurrentUpdates() throws Exception {
+    final TransactionTimestamp clock = new TransactionTimestamp(8);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    final int iterations = 20000;
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            runUpdates();
+          } catch (IOException e) {
+            failed.set(true);
+          }
+        }
+
+        private void runUpdates() throws IOException {
+          long lastSingleton = 0;
+          for (int i = 1; i <= iterations; i++) {
+            if (id % 2 == 0) {
+              // a transactional commit observed by this handler
+              long tso = (long) i * TransactionTimestamp.TRANSACTION_INC;
+              clock.updateByMutatation(new Put(ROW, tso));
+              // a singleton issued afterwards must be newer than that commit
+              long ts = clock.updateByMutatation(
+                  new Put(ROW, TransactionTimestamp.SINGLETON_TIMESTAMP));
+              if (ts <= tso || ts <= lastSingleton) {
+                failed.set(true);
+              }
+              lastSingleton = ts;
+            } else {
+              long ts = clock.updateByMutatation(
+                  new Put(ROW, TransactionTimestamp.SINGLETON_TIMESTAMP));
+              if (ts <= lastSingleton) {
+                failed.set(true);
+              }
+              lastSingleton = ts;
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue("singleton timestamps went backwards", !failed.get());
+    assertTrue(clock.get() >= (long) iterations * TransactionTimestamp.TRANSACTION_INC);
+  }
+}
@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Microbenchmark comparing the striped {@link TransactionTimestamp} with the
+ * previous single-AtomicLong region clock. Every handler thread mimics the
+ * region server hot path on one region: mostly transactional gets, some
+ * transactional commits and a few singleton writes.
+ * <p>
+ * Usage: TransactionTimestampPerformanceEvaluation [threads] [opsPerThread]
+ * [singletonPercent]
+ */
+public class TransactionTimestampPerformanceEvaluation {
+  static final Log LOG =
+    LogFactory.getLog(TransactionTimestampPerformanceEvaluation.class.getName());
+
+  private static final byte[] ROW = Bytes.toBytes("row");
+
+  /** The operations of the region clock that sit on the handler hot path. */
+  interface Clock {
+    long updateByGet(Get get);
+    long updateByMutatation(Mutation mt) throws IOException;
+  }
+
+  /**
+   * The region clock as it was before striping: every update and increment
+   * goes through one AtomicLong.
+   */
+  static class LegacyClock implements Clock {
+    private final AtomicLong latestTimestamp = new AtomicLong(0);
+
+    private void update(long ts) {
+      long currentTS;
+      do {
+        currentTS = latestTimestamp.get();
+      } while (currentTS < ts && !latestTimestamp.compareAndSet(currentTS, ts));
+    }
+
+    @Override
+    public long updateByGet(Get get) {
+      long ts = get.getTimeRange().getMax();
+      if (ts == HConstants.LATEST_TIMESTAMP
+          || ts == TransactionTimestamp.SINGLETON_TIMESTAMP) {
+        return ts;
+      }
+      update(ts - 1);
+      return ts;
+    }
+
+    @Override
+    public long updateByMutatation(Mutation mt) {
+      long ts = mt.getTimeStamp();
+      if (ts == HConstants.LATEST_TIMESTAMP) {
+        return ts;
+      }
+      if (ts == TransactionTimestamp.SINGLETON_TIMESTAMP) {
+        return latestTimestamp.incrementAndGet();
+      }
+      update(ts);
+      return ts;
+    }
+  }
+
+  static class StripedClock implements Clock {
+    private final TransactionTimestamp clock = new TransactionTimestamp();
+
+    @Override
+    public long updateByGet(Get get) {
+      return clock.updateByGet(get);
+    }
+
+    @Override
+    public long updateByMutatation(Mutation mt) throws IOException {
+      return clock.updateByMutatation(mt);
+    }
+  }
+
+  private final int threads;
+  private final int opsPerThread;
+  private final int singletonPercent;
+
+  public TransactionTimestampPerformanceEvaluation(int threads,
+      int opsPerThread, int singletonPercent) {
+    this.threads = threads;
+    this.opsPerThread = opsPerThread;
+    this.singletonPercent = singletonPercent;
+  }
+
+  /**
+   * Runs the workload against the given clock.
+   * @return elapsed time in milliseconds
+   */
+  long runBenchmark(final Clock clock) throws Exception {
+    // the TSO hands out increasing transaction timestamps shared by all clients
+    final AtomicLong tso = new AtomicLong(0);
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread("clock-" + t) {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          Put singleton = new Put(ROW, TransactionTimestamp.SINGLETON_TIMESTAMP);
+          for (int i = 0; i < opsPerThread; i++) {
+            int op = i % 100;
+            if (op < singletonPercent) {
+              try {
+                clock.updateByMutatation(singleton);
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            } else {
+              long ts = (tso.get() + (i & 7)) << TransactionTimestamp.LOCAL_BITS;
+              if ((op & 3) == 0) {
+                clock.updateByMutatation(new Put(ROW, ts));
+              } else {
+                Get get = new Get(ROW);
+                try {
+                  get.setTimeRange(0, ts + 1);
+                } catch (IOException e) {
+                  throw new RuntimeException(e);
+                }
+                clock.updateByGet(get);
+              }
+              if ((i & 1023) == 0) {
+                tso.incrementAndGet();
+              }
+            }
+          }
+        }
+      };
+      workers[t].start();
+    }
+    long startTime = System.currentTimeMillis();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return System.currentTimeMillis() - startTime;
+  }
+
+  private void runBenchmarks() throws Exception {
+    // warm up both implementations before measuring
+    runBenchmark(new LegacyClock());
+    runBenchmark(new StripedClock());
+    long ops = (long) threads * opsPerThread;
+    long legacy = runBenchmark(new LegacyClock());
+    LOG.info("Legacy AtomicLong clock: " + threads + " threads, " + ops
+        + " ops in " + legacy + "ms (" + opsPerSecond(ops, legacy) + " ops/s)");
+    long striped = runBenchmark(new StripedClock());
+    LOG.info("Striped clock: " + threads + " threads, " + ops
+        + " ops in " + striped + "ms (" + opsPerSecond(ops, striped) + " ops/s)");
+  }
+
+  private static long opsPerSecond(long ops, long millis) {
+    return millis == 0 ? ops * 1000 : ops * 1000 / millis;
+  }
+
+  /**
+   * @param args
+   * @throws Exception
+   */
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+    int singletonPercent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    new TransactionTimestampPerformanceEvaluation(threads, opsPerThread,
+        singletonPercent).runBenchmarks();
+  }
+}
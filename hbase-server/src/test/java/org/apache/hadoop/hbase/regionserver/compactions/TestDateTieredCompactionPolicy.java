@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.TransactionTimestamp;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestDateTieredCompactionPolicy {
+
+  // with a base window of 10 and 4 windows per tier, the windows anchored on a newest file
+  // in [100, 110) are [100, 110), [90, 100), [80, 90), [40, 80), [0, 40)
+
+  private Configuration conf;
+
+  private ManualEnvironmentEdge edge;
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setLong(DateTieredCompactionPolicy.BASE_WINDOW_MILLIS_KEY, 10);
+    conf.setInt(DateTieredCompactionPolicy.WINDOWS_PER_TIER_KEY, 4);
+    conf.setInt(CompactionConfiguration.MIN_KEY, 3);
+    // small files, selected without ratio test
+    conf.setLong("hbase.hstore.compaction.min.size", 1000);
+    // the clock of the region server plays no part in the windows
+    edge = new ManualEnvironmentEdge();
+    edge.setValue(System.currentTimeMillis());
+    EnvironmentEdgeManager.injectEdge(edge);
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  private DateTieredCompactionPolicy createPolicy() {
+    StoreConfigInformation sci = mock(StoreConfigInformation.class);
+    when(sci.getBlockingFileCount()).thenReturn(100L);
+    return new DateTieredCompactionPolicy(conf, sci);
+  }
+
+  private static ArrayList<StoreFile> createFiles(long... maxTimestamps) {
+    return createFiles(1, maxTimestamps);
+  }
+
+  private static ArrayList<StoreFile> createFiles(long unit, long... maxTimestamps) {
+    ArrayList<StoreFile> files = new ArrayList<StoreFile>();
+    for (long maxTimestamp : maxTimestamps) {
+      maxTimestamp *= unit;
+      StoreFile sf = mock(StoreFile.class);
+      StoreFile.Reader r = mock(StoreFile.Reader.class);
+      when(r.length()).thenReturn(10L);
+      when(r.getMaxTimestamp()).thenReturn(maxTimestamp);
+      when(sf.getReader()).thenReturn(r);
+      files.add(sf);
+    }
+    return files;
+  }
+
+  private static void assertSelection(List<StoreFile> expected, List<StoreFile> actual) {
+    assertEquals(new ArrayList<StoreFile>(expected), actual);
+  }
+
+  @Test
+  public void testCompactOnlyInsideWindows() throws Exception {
+    // no window has enough files but the oldest one
+    ArrayList<StoreFile> files = createFiles(5, 15, 25, 45, 55, 85, 92, 95, 101, 102);
+    assertSelection(files.subList(0, 3),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // the most recent window goes first
+    files = createFiles(5, 15, 25, 45, 55, 85, 92, 95, 101, 102, 103);
+    assertSelection(files.subList(8, 11),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // a file written out of order stays with its neighbours
+    files = createFiles(45, 55, 103, 65, 101, 102);
+    assertSelection(files.subList(0, 4),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+  }
+
+  @Test
+  public void testTransactionTimestamps() throws Exception {
+    // the timestamps of a transactional family are far ahead of the wall clock milliseconds
+    long unit = TransactionTimestamp.TRANSACTION_INC;
+    conf.setLong(DateTieredCompactionPolicy.BASE_WINDOW_MILLIS_KEY, 10 * unit);
+    ArrayList<StoreFile> files =
+        createFiles(unit, 5, 15, 25, 45, 55, 85, 92, 95, 101, 102, 103);
+    assertSelection(files.subList(8, 11),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // the local timestamps of the singleton writes stay in the window of their epoch
+    files = createFiles(unit, 5, 15, 25, 45, 55, 85, 92, 95);
+    files.addAll(createFiles(1, 101 * unit + 1, 101 * unit + 2, 101 * unit + 3));
+    assertSelection(files.subList(8, 11),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // the windows are the same whatever the time on the region server
+    edge.setValue(200 * unit);
+    assertSelection(files.subList(8, 11),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+  }
+
+  @Test
+  public void testMaxStoreFileAge() throws Exception {
+    // older than 31 for a newest file at 101
+    conf.setLong(DateTieredCompactionPolicy.MAX_STOREFILE_AGE_MILLIS_KEY, 70);
+    ArrayList<StoreFile> files = createFiles(5, 15, 25, 45, 55, 92, 101);
+    assertSelection(new ArrayList<StoreFile>(),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // unless the store might be stuck, then the ratio of the parent policy applies
+    assertEquals(files.size(),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, true).size());
+  }
+
+  @Test
+  public void testFileWithoutTimeRange() throws Exception {
+    // the file without time range does not anchor the windows, and splits the most recent one
+    ArrayList<StoreFile> files =
+        createFiles(5, 15, 25, 45, 55, 85, 92, 95, 101, 102, Long.MAX_VALUE, 103);
+    assertSelection(files.subList(0, 3),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // it is not selected with its window
+    files = createFiles(5, 15, 25, 45, 55, 85, 92, 95, 101, 102, 103, Long.MAX_VALUE);
+    assertSelection(files.subList(8, 11),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // without any time range, the ratio of the parent policy applies
+    files = createFiles(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    assertSelection(files,
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+  }
+
+  @Test
+  public void testTiers() throws Exception {
+    ArrayList<StoreFile> files = createFiles(82, 85, 95, 105, 115);
+    assertSelection(new ArrayList<StoreFile>(),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+    // once a file reaches 120, [120, 130) is the first window of its tier and is preceded by
+    // [80, 120)
+    files = createFiles(82, 85, 95, 105, 115, 121);
+    assertSelection(files.subList(0, 5),
+      createPolicy().applyCompactionPolicy(new ArrayList<StoreFile>(files), false, false));
+  }
+}
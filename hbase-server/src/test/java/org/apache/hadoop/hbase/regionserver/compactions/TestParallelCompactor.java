@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category(MediumTests.class)
+public class TestParallelCompactor {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private static final int ROWS = 1000;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  private void createRegion(long minSize) throws Exception {
+    // up to 4 sub-ranges, fewer than the min files of a minor compaction
+    createRegion(minSize, 5);
+  }
+
+  private void createRegion(long minSize, int minFilesToCompact) throws Exception {
+    Configuration conf = UTIL.getConfiguration();
+    conf.set(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY, ParallelCompactor.class.getName());
+    conf.setLong(ParallelCompactor.MIN_SIZE_KEY, minSize);
+    conf.setInt(ParallelCompactor.SUB_COMPACTIONS_KEY, 4);
+    conf.setInt(CompactionConfiguration.MIN_KEY, minFilesToCompact);
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(name.getMethodName()));
+    HColumnDescriptor hcd = new HColumnDescriptor(FAMILY);
+    // small blocks, for a block index with many keys
+    hcd.setBlocksize(1024);
+    htd.addFamily(hcd);
+    region = UTIL.createLocalHRegion(htd, null, null);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (region != null) {
+      HLog hlog = region.getLog();
+      region.close();
+      hlog.closeAndDelete();
+    }
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row%04d", i));
+  }
+
+  @Test
+  public void testMajorCompactionInParallel() throws Exception {
+    createRegion(0);
+    for (int version = 0; version < 3; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).add(FAMILY, QUALIFIER, Bytes.toBytes("value" + version)));
+      }
+      region.flushcache();
+    }
+    for (int i = 0; i < ROWS; i += 10) {
+      region.delete(new Delete(row(i)));
+    }
+    region.flushcache();
+    Store store = region.getStore(FAMILY);
+    assertEquals(4, store.getStorefilesCount());
+
+    List<byte[]> boundaries = ParallelCompactor.getRowBoundaries(store.getStorefiles(), 4);
+    assertEquals(3, boundaries.size());
+    region.compactStores(true);
+    assertEquals(4, store.getStorefilesCount());
+    for (StoreFile sf : store.getStorefiles()) {
+      assertTrue(sf.isMajorCompaction());
+      assertTrue(sf.excludeFromMinorCompaction());
+    }
+
+    // the deletes are gone, the rows are all there once, with their last version
+    InternalScanner scanner = region.getScanner(new Scan().setMaxVersions());
+    try {
+      List<Cell> cells = new ArrayList<Cell>();
+      int expectedRow = 1;
+      boolean hasMore;
+      do {
+        hasMore = scanner.next(cells);
+        if (cells.isEmpty()) {
+          continue;
+        }
+        assertEquals(1, cells.size());
+        Cell cell = cells.get(0);
+        assertTrue(Bytes.equals(row(expectedRow), CellUtil.cloneRow(cell)));
+        assertEquals("value2", Bytes.toString(CellUtil.cloneValue(cell)));
+        expectedRow += expectedRow % 10 == 9 ? 2 : 1;
+        cells.clear();
+      } while (hasMore);
+      assertEquals(ROWS + 1, expectedRow);
+    } finally {
+      scanner.close();
+    }
+
+    // the next minor compaction only takes the new files
+    for (int version = 3; version < 8; version++) {
+      for (int i = 0; i < ROWS; i += 2) {
+        region.put(new Put(row(i)).add(FAMILY, QUALIFIER, Bytes.toBytes("value" + version)));
+      }
+      region.flushcache();
+    }
+    assertEquals(9, store.getStorefilesCount());
+    region.compactStores(false);
+    assertEquals(5, store.getStorefilesCount());
+  }
+
+  @Test
+  public void testSubRangesCappedBelowMinFilesToCompact() throws Exception {
+    createRegion(0, 3);
+    for (int version = 0; version < 3; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).add(FAMILY, QUALIFIER, Bytes.toBytes("value" + version)));
+      }
+      region.flushcache();
+    }
+    Store store = region.getStore(FAMILY);
+    region.compactStores(true);
+    assertEquals(2, store.getStorefilesCount());
+    // the output alone does not call for a compaction
+    assertFalse(store.needsCompaction());
+  }
+
+  @Test
+  public void testSmallCompaction() throws Exception {
+    createRegion(Long.MAX_VALUE);
+    for (int version = 0; version < 3; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).add(FAMILY, QUALIFIER, Bytes.toBytes("value" + version)));
+      }
+      region.flushcache();
+    }
+    Store store = region.getStore(FAMILY);
+    assertFalse(ParallelCompactor.getRowBoundaries(store.getStorefiles(), 4).isEmpty());
+    region.compactStores(true);
+    assertEquals(1, store.getStorefilesCount());
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestReadPressureAwareCompactionThroughputController {
+
+  private static final double EPSILON = 1E-6;
+
+  private static final long LIMIT = 10L * 1024 * 1024;
+
+  private ReadPressureAwareCompactionThroughputController controller;
+
+  @Before
+  public void setUp() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(
+      PressureAwareCompactionThroughputController
+        .HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND,
+      LIMIT);
+    conf.setLong(
+      PressureAwareCompactionThroughputController
+        .HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND,
+      LIMIT);
+    conf.setLong(ReadPressureAwareCompactionThroughputController
+        .HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET, 50);
+    conf.setLong(ReadPressureAwareCompactionThroughputController
+        .HBASE_HSTORE_COMPACTION_THROUGHPUT_CACHE_EVICTION_TARGET, 1000);
+    conf.setFloat(ReadPressureAwareCompactionThroughputController
+        .HBASE_HSTORE_COMPACTION_THROUGHPUT_FEEDBACK_MIN_RATIO, 0.2f);
+    controller = new ReadPressureAwareCompactionThroughputController();
+    controller.setConf(conf);
+  }
+
+  @Test
+  public void testSlowReads() {
+    assertEquals(LIMIT, controller.computeMaxThroughput(0.5), EPSILON);
+    controller.updateFeedbackRatio(80, -1);
+    assertEquals(0.5, controller.getFeedbackRatio(), EPSILON);
+    assertEquals(LIMIT * 0.5, controller.computeMaxThroughput(0.5), EPSILON);
+    controller.updateFeedbackRatio(80, -1);
+    controller.updateFeedbackRatio(80, -1);
+    // never below the min ratio
+    assertEquals(0.2, controller.getFeedbackRatio(), EPSILON);
+    assertEquals(3, controller.getThrottledCount());
+    // no limitation when some stores reach the blocking store file count
+    assertEquals(Double.MAX_VALUE, controller.computeMaxThroughput(1.5), EPSILON);
+  }
+
+  @Test
+  public void testCacheChurn() {
+    controller.updateFeedbackRatio(-1, 5000);
+    assertEquals(0.5, controller.getFeedbackRatio(), EPSILON);
+    controller.updateFeedbackRatio(10, 500);
+    assertEquals(0.6, controller.getFeedbackRatio(), EPSILON);
+    assertEquals(1, controller.getThrottledCount());
+  }
+
+  @Test
+  public void testRecovery() {
+    controller.updateFeedbackRatio(80, 5000);
+    for (int i = 0; i < 4; i++) {
+      controller.updateFeedbackRatio(10, 100);
+    }
+    assertEquals(0.9, controller.getFeedbackRatio(), EPSILON);
+    controller.updateFeedbackRatio(10, 100);
+    controller.updateFeedbackRatio(-1, -1);
+    assertEquals(1.0, controller.getFeedbackRatio(), EPSILON);
+    assertEquals(LIMIT, controller.computeMaxThroughput(0.5), EPSILON);
+  }
+}
@@ -161,6 +161,7 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
     long roll = Long.MAX_VALUE;
     boolean compress = false;
     String cipher = null;
+    int ringBufferSize = 0;
     // Process command line args
     for (int i = 0; i < args.length; i++) {
       String cmd = args[i];
@@ -197,6 +198,8 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
           compress = true;
         } else if (cmd.equals("-encryption")) {
           cipher = args[++i];
+        } else if (cmd.equals("-ringBufferSize")) {
+          ringBufferSize = Integer.parseInt(args[++i]);
         } else if (cmd.equals("-h")) {
           printUsageAndExit();
         } else if (cmd.equals("--help")) {
@@ -215,6 +218,10 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
       conf.setBoolean(HConstants.ENABLE_WAL_COMPRESSION, true);
     }
 
+    if (ringBufferSize > 0) {
+      getConf().setInt("hbase.regionserver.hlog.ringbuffer.size", ringBufferSize);
+    }
+
     if (cipher != null) {
       // Set up HLog for encryption
       Configuration conf = getConf();
@@ -245,7 +252,7 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
       HLog hlog = new FSHLog(fs, rootRegionDir, "wals", getConf()) {
         int appends = 0;
         @Override
-        protected void doWrite(HRegionInfo info, HLogKey logKey, WALEdit logEdit,
+        protected Entry doWrite(HRegionInfo info, HLogKey logKey, WALEdit logEdit,
             HTableDescriptor htd)
         throws IOException {
           this.appends++;
@@ -253,7 +260,7 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
             LOG.info("Rolling after " + appends + " edits");
             rollWriter();
           }
-          super.doWrite(info, logKey, logEdit, htd);
+          return super.doWrite(info, logKey, logEdit, htd);
         };
 
         @Override
@@ -385,12 +392,17 @@ public final class HLogPerformanceEvaluation extends Configured implements Tool
     System.err.println("  -verbose         Output extra info; e.g. all edit seq ids when verifying");
     System.err.println("  -roll <N>        Roll the way every N appends");
     System.err.println("  -encryption <A>  Encrypt the WAL with algorithm A, e.g. AES");
+    System.err.println("  -ringBufferSize <N> Number of entries the WAL buffers before writing.");
     System.err.println("");
     System.err.println("Examples:");
     System.err.println("");
     System.err.println(" To run 100 threads on hdfs with log rolling every 10k edits and verification afterward do:");
     System.err.println(" $ ./bin/hbase org.apache.hadoop.hbase.regionserver.wal.HLogPerformanceEvaluation \\");
     System.err.println("    -conf ./core-site.xml -path hdfs://example.org:7000/tmp -threads 100 -roll 10000 -verify");
+    System.err.println("");
+    System.err.println(" To see how 200 handlers contend on a ring buffer they keep full do:");
+    System.err.println(" $ ./bin/hbase org.apache.hadoop.hbase.regionserver.wal.HLogPerformanceEvaluation \\");
+    System.err.println("    -threads 200 -iterations 10000 -ringBufferSize 64 -verify");
     System.exit(1);
   }
 
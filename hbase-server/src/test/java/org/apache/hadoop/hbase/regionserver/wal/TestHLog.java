@@ -23,10 +23,12 @@ import static org.junit.Assert.*;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.BindException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
@@ -148,6 +150,120 @@ public class TestHLog  {
     assertEquals(0, errCode);
   }
 
+  /**
+   * 200 threads appending through a ring buffer of 16 entries, so that it wraps around and
+   * is full most of the time, with log rolls while entries wait for their slot. The tool
+   * verifies that every edit is in the logs, in sequence number order.
+   */
+  @Test
+  public void testConcurrentWritesOnFullRingBuffer() throws Exception {
+    int errCode = HLogPerformanceEvaluation.
+      innerMain(new Configuration(TEST_UTIL.getConfiguration()),
+        new String [] {"-threads", "200", "-verify", "-noclosefs", "-iterations", "100",
+          "-ringBufferSize", "16", "-roll", "5000"});
+    assertEquals(0, errCode);
+  }
+
+  /**
+   * Appends many more entries than the ring buffer holds, then checks that all of them are
+   * in the log, in order.
+   */
+  @Test
+  public void testRingBufferWrapAround() throws IOException {
+    Configuration conf = new Configuration(TestHLog.conf);
+    conf.setInt("hbase.regionserver.hlog.ringbuffer.size", 4);
+    TableName tableName = TableName.valueOf("testRingBufferWrapAround");
+    HRegionInfo hri = new HRegionInfo(tableName, null, null);
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    htd.addFamily(new HColumnDescriptor("column"));
+    AtomicLong sequenceId = new AtomicLong(0);
+    HLog log = new FSHLog(fs, hbaseDir, "testRingBufferWrapAround", conf);
+    Path path = ((FSHLog) log).computeFilename();
+    final int count = 50;
+    try {
+      for (int i = 0; i < count; i++) {
+        long txid = appendNoSync(log, hri, htd, sequenceId, i);
+        if (i % 10 == 9) {
+          log.sync(txid);
+        }
+      }
+      log.sync();
+    } finally {
+      log.close();
+    }
+    Reader reader = HLogFactory.createReader(fs, path, conf);
+    try {
+      for (int i = 0; i < count; i++) {
+        HLog.Entry entry = reader.next();
+        assertNotNull(entry);
+        assertEquals(i + 1, entry.getKey().getLogSeqNum());
+        assertTrue(Bytes.equals(Bytes.toBytes(i), entry.getEdit().getKeyValues().get(0).getRow()));
+      }
+      assertNull(reader.next());
+    } finally {
+      reader.close();
+    }
+    log.closeAndDelete();
+  }
+
+  /**
+   * An entry the consumer fails to write fails the sync of its txid, through failedTxid and
+   * asyncIOE; the following appends still go through a ring that the failure did not clog.
+   */
+  @Test
+  public void testFailedWriteFailsItsSync() throws IOException {
+    Configuration conf = new Configuration(TestHLog.conf);
+    conf.setInt("hbase.regionserver.hlog.ringbuffer.size", 2);
+    conf.setClass("hbase.regionserver.hlog.writer.impl",
+      InstrumentedSequenceFileLogWriter.class, HLog.Writer.class);
+    final TableName breakTable = TableName.valueOf("break");
+    TableName tableName = TableName.valueOf("testFailedWriteFailsItsSync");
+    HRegionInfo hri = new HRegionInfo(tableName, null, null);
+    HRegionInfo breakHri = new HRegionInfo(breakTable, null, null);
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    htd.addFamily(new HColumnDescriptor("column"));
+    AtomicLong sequenceId = new AtomicLong(0);
+    HLog log = new FSHLog(fs, hbaseDir, "testFailedWriteFailsItsSync", conf) {
+      @Override
+      protected HLogKey makeKey(byte[] encodedRegionName, TableName tableName, long seqnum,
+          long now, List<UUID> clusterIds, long nonceGroup, long nonce) {
+        // the instrumented writer fails the entries of the region named "break"
+        byte[] name = breakTable.equals(tableName) ? Bytes.toBytes("break") : encodedRegionName;
+        return super.makeKey(name, tableName, seqnum, now, clusterIds, nonceGroup, nonce);
+      }
+    };
+    InstrumentedSequenceFileLogWriter.activateFailure = true;
+    try {
+      log.sync(appendNoSync(log, hri, htd, sequenceId, 0));
+      long failed = appendNoSync(log, breakHri, htd, sequenceId, 1);
+      try {
+        log.sync(failed);
+        fail("The sync of an entry that failed to be written should fail");
+      } catch (IOException e) {
+        LOG.info("Expected failure", e);
+      }
+      long txid = 0;
+      for (int i = 2; i < 10; i++) {
+        txid = appendNoSync(log, hri, htd, sequenceId, i);
+      }
+      assertTrue(txid > failed);
+      log.sync(txid);
+    } finally {
+      InstrumentedSequenceFileLogWriter.activateFailure = false;
+      log.closeAndDelete();
+    }
+  }
+
+  private static long appendNoSync(HLog log, HRegionInfo hri, HTableDescriptor htd,
+      AtomicLong sequenceId, int row) throws IOException {
+    WALEdit edit = new WALEdit();
+    byte[] bytes = Bytes.toBytes(row);
+    edit.add(new KeyValue(bytes, Bytes.toBytes("column"), bytes, bytes));
+    return log.appendNoSync(hri, hri.getTable(), edit, new ArrayList<UUID>(),
+      System.currentTimeMillis(), htd, sequenceId, true, HConstants.NO_NONCE,
+      HConstants.NO_NONCE);
+  }
+
   /**
    * Just write multiple logs then split.  Before fix for HADOOP-2283, this
    * would fail.
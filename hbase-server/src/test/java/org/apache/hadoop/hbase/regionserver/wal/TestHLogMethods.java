@@ -20,8 +20,14 @@ package org.apache.hadoop.hbase.regionserver.wal;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
 import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.UUID;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -38,6 +44,8 @@ import org.junit.experimental.categories.Category;
 
 import static org.mockito.Mockito.mock;
 
+import com.google.protobuf.CodedOutputStream;
+
 /**
  * Simple testing of a few HLog methods.
  */
@@ -157,6 +165,69 @@ public class TestHLogMethods {
     assertEquals(0, sink.totalBuffered);
   }
   
+  @Test
+  public void testSkipCells() throws Exception {
+    Configuration conf = util.getConfiguration();
+    FileSystem fs = FileSystem.get(conf);
+    Path wal = new Path(util.getDataTestDir("skipcells"), "wal");
+    HLog.Writer writer = HLogFactory.createWALWriter(fs, wal, conf);
+    for (int i = 1; i <= 10; i++) {
+      writer.append(createTestLogEntry(i));
+    }
+    WALEdit meta = new WALEdit();
+    meta.add(new KeyValue(Bytes.toBytes("row"), WALEdit.METAFAMILY, Bytes.toBytes("q"),
+        Bytes.toBytes("meta")));
+    writer.append(new HLog.Entry(new HLogKey(TEST_REGION, TEST_TABLE, 3, 0,
+        HConstants.DEFAULT_CLUSTER_ID), meta));
+    writer.close();
+
+    HLog.Reader reader = HLogFactory.createReader(fs, wal, conf);
+    try {
+      assertTrue(((ProtobufLogReader) reader).setSkipCellsUpTo(5));
+      for (int i = 1; i <= 10; i++) {
+        HLog.Entry entry = reader.next();
+        assertEquals(i, entry.getKey().getLogSeqNum());
+        assertEquals(i <= 5 ? 0 : 1, entry.getEdit().size());
+      }
+      // the meta cells of the skipped entries are read
+      HLog.Entry entry = reader.next();
+      assertEquals(1, entry.getEdit().size());
+      assertTrue(Bytes.equals(Bytes.toBytes("meta"),
+          entry.getEdit().getKeyValues().get(0).getValue()));
+      assertNull(reader.next());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testWriteKeyDelimited() throws Exception {
+    List<UUID> clusterIds = new ArrayList<UUID>();
+    clusterIds.add(HConstants.DEFAULT_CLUSTER_ID);
+    clusterIds.add(UUID.randomUUID());
+    HLogKey key = new HLogKey(TEST_REGION, TEST_TABLE, 123456789L, 1400000000000L,
+        clusterIds, 42L, -42L);
+    assertKeyWrittenAsBuilt(key, 3);
+    NavigableMap<byte[], Integer> scopes = new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+    scopes.put(Bytes.toBytes("f1"), HConstants.REPLICATION_SCOPE_GLOBAL);
+    scopes.put(Bytes.toBytes("f2"), HConstants.REPLICATION_SCOPE_LOCAL);
+    key.setScopes(scopes);
+    assertKeyWrittenAsBuilt(key, 300);
+    assertKeyWrittenAsBuilt(new HLogKey(TEST_REGION, TEST_TABLE, 0L, 0L,
+        new ArrayList<UUID>(), HConstants.NO_NONCE, HConstants.NO_NONCE), 0);
+  }
+
+  private void assertKeyWrittenAsBuilt(HLogKey key, int followingKvCount) throws IOException {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    key.getBuilder(null).setFollowingKvCount(followingKvCount).build()
+        .writeDelimitedTo(expected);
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    CodedOutputStream out = CodedOutputStream.newInstance(written);
+    key.writeDelimitedTo(out, HLogKey.getRegionHeader(TEST_REGION, TEST_TABLE), followingKvCount);
+    out.flush();
+    assertArrayEquals(expected.toByteArray(), written.toByteArray());
+  }
+
   private HLog.Entry createTestLogEntry(int i) {
     long seq = i;
     long now = i * 1000;
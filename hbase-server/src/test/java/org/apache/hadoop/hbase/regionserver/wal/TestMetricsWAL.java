@@ -23,7 +23,10 @@ import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -41,4 +44,33 @@ public class TestMetricsWAL {
     // One was because of low replication on the hlog.
     verify(source, times(1)).incrementLowReplicationLogRoll();
   }
+
+  @Test
+  public void testSyncMetrics() throws Exception {
+    MetricsWALSource source = mock(MetricsWALSourceImpl.class);
+    MetricsWAL metricsWAL = new MetricsWAL(source);
+    metricsWAL.finishSyncBatch(10, 5);
+    verify(source, times(1)).incrementSyncBatchSize(10);
+    verify(source, times(1)).incrementAppendToSyncTime(5);
+
+    metricsWAL.finishSyncWait(3, 1);
+    // the handler found its edits synced, no notification to time
+    metricsWAL.finishSyncWait(2, -1);
+    verify(source, times(1)).incrementSyncWaitTime(3);
+    verify(source, times(1)).incrementSyncWaitTime(2);
+    verify(source, times(1)).incrementSyncNotifyTime(1);
+    verify(source, never()).incrementSyncNotifyTime(-1);
+  }
+
+  @Test
+  public void testSlowSync() throws Exception {
+    MetricsWALSource source = mock(MetricsWALSourceImpl.class);
+    MetricsWAL metricsWAL = new MetricsWAL(source);
+    metricsWAL.slowSync();
+    metricsWAL.slowSync();
+
+    verify(source, times(2)).incrementSlowSyncCount();
+    // no counter per datanode, there would be ever more of them as the pipelines change
+    verify(source, never()).incCounters(anyString(), anyLong());
+  }
 }
\ No newline at end of file
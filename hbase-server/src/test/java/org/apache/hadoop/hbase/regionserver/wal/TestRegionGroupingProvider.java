@@ -0,0 +1,109 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InOrder;
+
+@Category(SmallTests.class)
+public class TestRegionGroupingProvider {
+
+  private static HLog[] mockWALs(int n) {
+    HLog[] wals = new HLog[n];
+    for (int i = 0; i < n; i++) {
+      wals[i] = mock(HLog.class);
+    }
+    return wals;
+  }
+
+  private static HRegionInfo region(String namespace, String table, int i) {
+    return new HRegionInfo(TableName.valueOf(namespace, table),
+        Bytes.toBytes("row" + i), Bytes.toBytes("row" + (i + 1)));
+  }
+
+  @Test
+  public void testBoundedGrouping() {
+    HLog[] wals = mockWALs(4);
+    RegionGroupingProvider provider =
+        new RegionGroupingProvider(wals, HBaseConfiguration.create());
+    assertSame(wals[0], provider.getWAL(null));
+    Set<HLog> used = new HashSet<HLog>();
+    for (int i = 0; i < 100; i++) {
+      HRegionInfo info = region("default", "t", i);
+      HLog wal = provider.getWAL(info);
+      // a region always goes to the same WAL
+      assertSame(wal, provider.getWAL(info));
+      used.add(wal);
+    }
+    assertEquals(4, used.size());
+  }
+
+  @Test
+  public void testNamespaceGrouping() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set(RegionGroupingProvider.REGION_GROUPING_STRATEGY,
+        RegionGroupingProvider.NAMESPACE_STRATEGY);
+    RegionGroupingProvider provider = new RegionGroupingProvider(mockWALs(4), conf);
+    HLog wal = provider.getWAL(region("ns", "t1", 0));
+    for (int i = 0; i < 10; i++) {
+      assertSame(wal, provider.getWAL(region("ns", "t1", i)));
+      assertSame(wal, provider.getWAL(region("ns", "t2", i)));
+    }
+  }
+
+  @Test
+  public void testCloseAndDelete() throws Exception {
+    HLog[] wals = mockWALs(3);
+    new RegionGroupingProvider(wals, HBaseConfiguration.create()).closeAndDelete();
+    // the default WAL archives the whole log directory, once the others are closed
+    InOrder inOrder = inOrder(wals[2], wals[1], wals[0]);
+    inOrder.verify(wals[2]).close();
+    inOrder.verify(wals[1]).close();
+    inOrder.verify(wals[0]).closeAndDelete();
+  }
+
+  @Test
+  public void testWALPrefix() {
+    String prefix = "host%2C60020%2C1400000000000";
+    assertEquals(prefix, HLogUtil.getWALPrefixFromWALName(prefix + ".1400000000001"));
+    assertEquals(prefix,
+        HLogUtil.getWALPrefixFromWALName(prefix + ".1400000000001" + HLog.META_HLOG_FILE_EXTN));
+    String groupPrefix = RegionGroupingProvider.getGroupPrefix(prefix, 2);
+    assertTrue(groupPrefix.startsWith(prefix));
+    assertEquals(groupPrefix, HLogUtil.getWALPrefixFromWALName(groupPrefix + ".1400000000001"));
+    assertEquals(prefix, RegionGroupingProvider.getGroupPrefix(prefix, 0));
+  }
+}
@@ -526,9 +526,9 @@ public class TestWALReplay {
         final AtomicInteger countOfRestoredEdits = new AtomicInteger(0);
         HRegion region3 = new HRegion(basedir, wal3, newFS, newConf, hri, htd, null) {
           @Override
-          protected boolean restoreEdit(Store s, KeyValue kv) {
-            boolean b = super.restoreEdit(s, kv);
-            countOfRestoredEdits.incrementAndGet();
+          protected boolean restoreEdits(Store s, List<KeyValue> kvs) {
+            boolean b = super.restoreEdits(s, kvs);
+            countOfRestoredEdits.addAndGet(kvs.size());
             return b;
           }
         };
@@ -941,6 +941,11 @@ public class TestWALReplay {
       }
     }
 
+    @Override
+    public void requestFlush(HRegion region, boolean forceFlushAllStores) {
+      requestFlush(region);
+    }
+
     @Override
     public void requestDelayedFlush(HRegion region, long when) {
       // TODO Auto-generated method stub
@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Abortable;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.BaseRegionObserver;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HRegionServer;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
+import org.apache.hadoop.hbase.regionserver.wal.RegionGroupingProvider;
+import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
+import org.apache.hadoop.hbase.testclassification.LargeTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.apache.hadoop.hbase.util.JVMClusterUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Replication from region servers that run several WALs: rolls of some of the WALs and the
+ * restart of a source must neither lose nor duplicate edits, and the current log of a WAL must
+ * stay in the replication queue whatever the other WALs do.
+ */
+@Category(LargeTests.class)
+public class TestReplicationMultiWAL extends TestReplicationBase {
+  private static final Log LOG = LogFactory.getLog(TestReplicationMultiWAL.class);
+
+  private static final int NUM_WAL_GROUPS = 3;
+  private static final int NUM_BATCHES = 4;
+  private static final TableName TABLE = TableName.valueOf("TestReplicationMultiWAL");
+
+  private static HTable multiWALTable1;
+  private static HTable multiWALTable2;
+
+  /**
+   * Counts the puts applied on the slave cluster, by row.
+   */
+  public static class CountingObserver extends BaseRegionObserver {
+    static final ConcurrentMap<String, AtomicInteger> PUTS =
+        new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Override
+    public void prePut(final ObserverContext<RegionCoprocessorEnvironment> e, final Put put,
+        final WALEdit edit, final Durability durability) throws IOException {
+      String row = Bytes.toString(put.getRow());
+      AtomicInteger count = PUTS.get(row);
+      if (count == null) {
+        AtomicInteger newCount = new AtomicInteger();
+        count = PUTS.putIfAbsent(row, newCount);
+        if (count == null) {
+          count = newCount;
+        }
+      }
+      count.incrementAndGet();
+    }
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    conf1.setInt(RegionGroupingProvider.NUM_REGION_GROUPS, NUM_WAL_GROUPS);
+    TestReplicationBase.setUpBeforeClass();
+
+    HTableDescriptor table = new HTableDescriptor(TABLE);
+    HColumnDescriptor fam = new HColumnDescriptor(famName);
+    fam.setScope(HConstants.REPLICATION_SCOPE_GLOBAL);
+    table.addFamily(fam);
+    new HBaseAdmin(conf1).createTable(table, HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE);
+    utility1.waitUntilAllRegionsAssigned(TABLE);
+    table.addCoprocessor(CountingObserver.class.getName());
+    new HBaseAdmin(conf2).createTable(table, HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE);
+    utility2.waitUntilAllRegionsAssigned(TABLE);
+    multiWALTable1 = new HTable(conf1, TABLE);
+    multiWALTable2 = new HTable(conf2, TABLE);
+  }
+
+  @Test(timeout=300000)
+  public void testRollsAndSourceRestart() throws Exception {
+    // all the WALs of the servers are rolled
+    loadBatch(0);
+    for (JVMClusterUtil.RegionServerThread rst :
+        utility1.getHBaseCluster().getLiveRegionServerThreads()) {
+      new HBaseAdmin(conf1).rollHLogWriter(rst.getRegionServer().getServerName().toString());
+    }
+    loadBatch(1);
+    waitForRows(2);
+
+    // only the WAL of one region of each server is rolled, twice
+    for (JVMClusterUtil.RegionServerThread rst :
+        utility1.getHBaseCluster().getLiveRegionServerThreads()) {
+      HRegionServer rs = rst.getRegionServer();
+      List<HRegion> regions = rs.getOnlineRegions(TABLE);
+      if (regions.isEmpty()) {
+        continue;
+      }
+      HLog wal = rs.getWAL(regions.get(0).getRegionInfo());
+      wal.rollWriter(true);
+      wal.rollWriter(true);
+    }
+    loadBatch(2);
+    waitForRows(3);
+    for (JVMClusterUtil.RegionServerThread rst :
+        utility1.getHBaseCluster().getLiveRegionServerThreads()) {
+      assertCurrentLogsQueued(rst.getRegionServer());
+    }
+
+    // the sources of a stopped server are recovered by the other one
+    int rsToStop = utility1.getHBaseCluster().getServerWithMeta() == 0 ? 1 : 0;
+    utility1.getHBaseCluster().stopRegionServer(rsToStop);
+    utility1.getHBaseCluster().waitOnRegionServer(rsToStop);
+    utility1.getHBaseCluster().startRegionServer();
+    utility1.waitUntilAllRegionsAssigned(TABLE);
+    loadBatch(3);
+    waitForRows(NUM_BATCHES);
+
+    // give a late duplicate the time to show up
+    Thread.sleep(SLEEP_TIME * 4);
+    assertEquals(NUM_BATCHES * NB_ROWS_IN_BATCH, CountingObserver.PUTS.size());
+    for (Map.Entry<String, AtomicInteger> e : CountingObserver.PUTS.entrySet()) {
+      assertEquals("Puts of row " + e.getKey(), 1, e.getValue().get());
+    }
+  }
+
+  /**
+   * Puts a batch of rows, spread over the regions and so over the WALs of the servers.
+   */
+  private static void loadBatch(final int batch) throws IOException {
+    List<Put> puts = new ArrayList<Put>();
+    for (int i = 0; i < NB_ROWS_IN_BATCH; i++) {
+      byte[] row = getRow(batch * NB_ROWS_IN_BATCH + i);
+      Put put = new Put(row);
+      put.add(famName, row, row);
+      puts.add(put);
+    }
+    multiWALTable1.put(puts);
+    multiWALTable1.flushCommits();
+  }
+
+  private static byte[] getRow(final int i) {
+    int stride = HBaseTestingUtility.ROWS.length / (NUM_BATCHES * NB_ROWS_IN_BATCH);
+    return HBaseTestingUtility.ROWS[i * stride];
+  }
+
+  private static void waitForRows(final int batches) throws Exception {
+    int expected = batches * NB_ROWS_IN_BATCH;
+    int lastCount = 0;
+    for (int i = 0; i < NB_RETRIES; i++) {
+      ResultScanner scanner = multiWALTable2.getScanner(new Scan());
+      int count = 0;
+      try {
+        for (Result result : scanner) {
+          int index = rowIndex(result.getRow());
+          assertTrue("Unexpected row " + Bytes.toString(result.getRow()),
+            index >= 0 && index < expected);
+          count++;
+        }
+      } finally {
+        scanner.close();
+      }
+      if (count == expected) {
+        return;
+      }
+      if (count > lastCount) {
+        i--; // Don't increment timeout if we make progress
+      }
+      lastCount = count;
+      LOG.info("Only got " + count + " rows instead of " + expected);
+      Thread.sleep(SLEEP_TIME * 2);
+    }
+    fail("Waited too much time for replication, got " + lastCount + " rows out of " + expected);
+  }
+
+  private static int rowIndex(final byte[] row) {
+    for (int i = 0; i < NUM_BATCHES * NB_ROWS_IN_BATCH; i++) {
+      if (Bytes.equals(row, getRow(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks that the current log of every WAL of the server is in its replication queue.
+   */
+  private static void assertCurrentLogsQueued(final HRegionServer rs) throws Exception {
+    FileSystem fs = utility1.getTestFileSystem();
+    Path logDir = new Path(FSUtils.getRootDir(conf1),
+        HLogUtil.getHLogDirectoryName(rs.getServerName().toString()));
+    // the latest log of each WAL is the one being written to
+    Map<String, String> currentLogs = new HashMap<String, String>();
+    for (FileStatus status : fs.listStatus(logDir)) {
+      String name = status.getPath().getName();
+      if (HLogUtil.isMetaFile(name)) {
+        continue;
+      }
+      String prefix = HLogUtil.getWALPrefixFromWALName(name);
+      String current = currentLogs.get(prefix);
+      if (current == null || getFileNumber(name) > getFileNumber(current)) {
+        currentLogs.put(prefix, name);
+      }
+    }
+    assertEquals(NUM_WAL_GROUPS, currentLogs.size());
+
+    ReplicationQueuesClient queues = ReplicationFactory.getReplicationQueuesClient(zkw1, conf1,
+        new Abortable() {
+          @Override
+          public void abort(String why, Throwable e) {
+            fail(why);
+          }
+
+          @Override
+          public boolean isAborted() {
+            return false;
+          }
+        });
+    queues.init();
+    List<String> queued = queues.getLogsInQueue(rs.getServerName().toString(), "2");
+    for (String current : currentLogs.values()) {
+      assertTrue(current + " is not queued in " + queued, queued.contains(current));
+    }
+  }
+
+  private static long getFileNumber(final String name) {
+    return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+  }
+}
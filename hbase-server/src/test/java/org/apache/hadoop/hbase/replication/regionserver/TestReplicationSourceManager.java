@@ -53,6 +53,8 @@ import org.apache.hadoop.hbase.catalog.CatalogTracker;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.regionserver.wal.HLogFactory;
 import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
+import org.apache.hadoop.hbase.regionserver.wal.HLogUtil;
+import org.apache.hadoop.hbase.regionserver.wal.RegionGroupingProvider;
 import org.apache.hadoop.hbase.regionserver.wal.WALActionsListener;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.replication.ReplicationFactory;
@@ -236,6 +238,69 @@ public class TestReplicationSourceManager {
 
     // TODO Need a case with only 2 HLogs and we only want to delete the first one
   }
+
+  @Test
+  public void testLogRollWithWALGroups() throws Exception {
+    WALEdit edit = new WALEdit();
+    edit.add(new KeyValue(r1, f1, r1));
+    HTableDescriptor htd = new HTableDescriptor();
+    htd.addFamily(new HColumnDescriptor(f1));
+    final AtomicLong sequenceId = new AtomicLong(1);
+
+    List<WALActionsListener> listeners = new ArrayList<WALActionsListener>();
+    listeners.add(replication);
+    String prefix = URLEncoder.encode("groupedserver:60020", "UTF8");
+    HLog hlog0 = HLogFactory.createHLog(fs, utility.getDataTestDir(), logName,
+        conf, listeners, prefix);
+    String groupPrefix = RegionGroupingProvider.getGroupPrefix(prefix, 1);
+    HLog hlog1 = HLogFactory.createGroupHLog(fs, utility.getDataTestDir(), logName,
+        conf, listeners, prefix, 1);
+    try {
+      hlog0.append(hri, test, edit, System.currentTimeMillis(), htd, sequenceId);
+      hlog1.append(hri, test, edit, System.currentTimeMillis(), htd, sequenceId);
+      hlog0.rollWriter();
+      hlog0.rollWriter();
+      SortedSet<String> group0 = getQueuedLogs(prefix);
+      SortedSet<String> group1 = getQueuedLogs(groupPrefix);
+      assertEquals(3, group0.size());
+      assertEquals(1, group1.size());
+
+      // the older logs of the first WAL are done with, not the current log of the second one
+      manager.logPositionAndCleanOldLogs(new Path(logDir, group0.last()), slaveId, 0, false,
+          false);
+      assertEquals(Sets.newHashSet(group0.last()), getQueuedLogs(prefix));
+      assertEquals(group1, getQueuedLogs(groupPrefix));
+
+      // its logs sort after all the ones of the first WAL, which are not older for all that
+      hlog1.rollWriter();
+      SortedSet<String> rolledGroup1 = getQueuedLogs(groupPrefix);
+      assertEquals(2, rolledGroup1.size());
+      manager.logPositionAndCleanOldLogs(new Path(logDir, rolledGroup1.last()), slaveId, 0,
+          false, false);
+      assertEquals(Sets.newHashSet(group0.last()), getQueuedLogs(prefix));
+      assertEquals(Sets.newHashSet(rolledGroup1.last()),
+          getQueuedLogs(groupPrefix));
+    } finally {
+      hlog1.close();
+      hlog0.close();
+      // leave the queue of the slave as the other tests expect it
+      manager.getHLogs().get(slaveId).removeAll(getQueuedLogs(prefix));
+      manager.getHLogs().get(slaveId).removeAll(getQueuedLogs(groupPrefix));
+    }
+  }
+
+  /**
+   * @return the logs of the WAL with the given prefix in the queue of the slave
+   */
+  private static SortedSet<String> getQueuedLogs(String walPrefix) {
+    SortedSet<String> logs = new TreeSet<String>();
+    for (String log : manager.getHLogs().get(slaveId)) {
+      if (walPrefix.equals(HLogUtil.getWALPrefixFromWALName(log))) {
+        logs.add(log);
+      }
+    }
+    return logs;
+  }
   
   @Test
   public void testClaimQueues() throws Exception {